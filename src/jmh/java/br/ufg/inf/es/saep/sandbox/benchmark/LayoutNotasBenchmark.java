@@ -0,0 +1,105 @@
+package br.ufg.inf.es.saep.sandbox.benchmark;
+
+import br.ufg.inf.es.saep.sandbox.dominio.Avaliavel;
+import br.ufg.inf.es.saep.sandbox.dominio.Nota;
+import br.ufg.inf.es.saep.sandbox.dominio.Parecer;
+import br.ufg.inf.es.saep.sandbox.persistencia.LayoutNotas;
+import br.ufg.inf.es.saep.sandbox.persistencia.ParecerRepositoryManager;
+import br.ufg.inf.es.saep.sandbox.persistencia.SaepTestUtil;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBConfig;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBProvider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operações de {@link ParecerRepositoryManager} sobre um servidor
+ * MongoDB, em cada {@link LayoutNotas}, para pareceres com 10, 100 e
+ * 1000 notas.
+ *
+ * <p>O servidor é definido por {@link MongoDBConfig#doSistema()}; os
+ * dados são gravados na base {@value #BASE}, removida ao final.
+ *
+ * <p>{@link #byId()} corresponde também ao custo da antiga
+ * verificação de existência, que recuperava o parecer completo.
+ * {@link #removeNotaAusente()} mede a verificação atual, pelo índice
+ * de {@code _id}, seguida da busca da nota, que não existe.
+ * {@link #substituiNota()} substitui sempre a mesma nota, de modo que
+ * o parecer não cresça ao longo das iterações.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutNotasBenchmark {
+
+    /**
+     * Base de dados empregada, distinta da base da aplicação.
+     */
+    public static final String BASE = "saep_benchmark";
+
+    @Param({"NORMALIZADO", "EMBUTIDO"})
+    public LayoutNotas layout;
+
+    @Param({"10", "100", "1000"})
+    public int notas;
+
+    private MongoDBProvider provider;
+    private ParecerRepositoryManager pareceres;
+    private Parecer parecer;
+    private Nota substituta;
+    private Avaliavel ausente;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MongoDBConfig config = MongoDBConfig.doSistema();
+
+        config.setBaseDeDados(BASE);
+        provider = new MongoDBProvider(config);
+        pareceres = new ParecerRepositoryManager(provider, layout);
+        pareceres.limparBancoDeDados();
+
+        parecer = SaepTestUtil.getParecerInstance(notas);
+        substituta = new Nota(parecer.getNotas().get(0).getItemOriginal(),
+                SaepTestUtil.getPontuacaoInstance("substituta"), "justificativa");
+        ausente = SaepTestUtil.getPontuacaoInstance("ausente");
+
+        pareceres.persisteParecer(parecer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        provider.getDatabase().drop();
+        provider.close();
+    }
+
+    @Benchmark
+    public Parecer byId() {
+        return pareceres.byId(parecer.getId());
+    }
+
+    @Benchmark
+    public void substituiNota() {
+        pareceres.adicionaNota(parecer.getId(), substituta);
+    }
+
+    @Benchmark
+    public void removeNotaAusente() {
+        pareceres.removeNota(parecer.getId(), ausente);
+    }
+}
@@ -0,0 +1,105 @@
+package br.ufg.inf.es.saep.sandbox.benchmark;
+
+import br.ufg.inf.es.saep.sandbox.dominio.Parecer;
+import br.ufg.inf.es.saep.sandbox.dominio.ParecerRepository;
+import br.ufg.inf.es.saep.sandbox.dominio.Radoc;
+import br.ufg.inf.es.saep.sandbox.persistencia.Backend;
+import br.ufg.inf.es.saep.sandbox.persistencia.Repositorios;
+import br.ufg.inf.es.saep.sandbox.persistencia.SaepTestUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operações completas do {@link ParecerRepository} sobre os backends
+ * que dispensam um servidor MongoDB: {@link Backend#MEMORIA} e o log
+ * mapeado em memória de {@link Backend#ARQUIVO}.
+ *
+ * <p>A gravação de RADOC é medida junto com a sua remoção, de modo
+ * que o repositório não cresça ao longo das iterações.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositorioBenchmark {
+
+    @Param({"MEMORIA", "ARQUIVO"})
+    public Backend backend;
+
+    @Param({"1", "10", "100", "1000"})
+    public int relatos;
+
+    @Param({"1", "10", "100"})
+    public int notas;
+
+    private Path arquivo;
+    private Repositorios repositorios;
+    private ParecerRepository pareceres;
+    private Radoc radoc;
+    private Radoc gravado;
+    private Parecer parecer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if (backend == Backend.ARQUIVO) {
+            arquivo = Files.createTempFile("saep-benchmark", ".log");
+            repositorios = Repositorios.arquivo(arquivo);
+        } else {
+            repositorios = Repositorios.memoria();
+        }
+
+        pareceres = repositorios.getPareceres();
+        radoc = SaepTestUtil.getRadocInstance(relatos);
+        gravado = SaepTestUtil.getRadocInstance(relatos);
+        parecer = SaepTestUtil.getParecerInstance(notas);
+
+        pareceres.persisteRadoc(gravado);
+        pareceres.persisteParecer(parecer);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repositorios.close();
+
+        if (arquivo != null) {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    @Benchmark
+    public String persisteERemoveRadoc() {
+        String id = pareceres.persisteRadoc(radoc);
+
+        pareceres.removeRadoc(id);
+        return id;
+    }
+
+    @Benchmark
+    public Radoc radocById() {
+        return pareceres.radocById(gravado.getId());
+    }
+
+    @Benchmark
+    public Parecer byId() {
+        return pareceres.byId(parecer.getId());
+    }
+}
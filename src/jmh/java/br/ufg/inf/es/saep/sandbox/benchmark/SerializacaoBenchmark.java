@@ -0,0 +1,115 @@
+package br.ufg.inf.es.saep.sandbox.benchmark;
+
+import br.ufg.inf.es.saep.sandbox.dominio.Avaliavel;
+import br.ufg.inf.es.saep.sandbox.dominio.Parecer;
+import br.ufg.inf.es.saep.sandbox.dominio.Radoc;
+import br.ufg.inf.es.saep.sandbox.persistencia.SaepTestUtil;
+import br.ufg.inf.es.saep.sandbox.util.ChaveAvaliavel;
+import br.ufg.inf.es.saep.sandbox.util.DocumentConverter;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversões executadas em toda operação dos repositórios: a
+ * serialização de {@link Avaliavel} pelo
+ * {@link br.ufg.inf.es.saep.sandbox.util.AvaliavelTyperAdapter}, a
+ * conversão entre objetos do domínio e {@link Document} pelo
+ * {@link DocumentConverter} e o cálculo da chave canônica de um item
+ * avaliável, que substituiu a comparação campo a campo das notas.
+ *
+ * <p>Os dados são gerados por {@link SaepTestUtil}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int relatos;
+
+    @Param({"1", "10", "100"})
+    public int notas;
+
+    private Gson gson;
+    private DocumentConverter conversor;
+
+    private Avaliavel avaliavel;
+    private JsonElement avaliavelJson;
+    private Document avaliavelDocument;
+
+    private Parecer parecer;
+    private Document parecerDocument;
+    private Radoc radoc;
+    private Document radocDocument;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        gson = SaepCodecs.gson();
+        conversor = new DocumentConverter(gson);
+
+        avaliavel = SaepTestUtil.getRelatoInstance();
+        avaliavelJson = gson.toJsonTree(avaliavel, Avaliavel.class);
+        avaliavelDocument = conversor.toDocument(avaliavel);
+
+        parecer = SaepTestUtil.getParecerInstance(notas);
+        parecerDocument = conversor.toDocument(parecer);
+        radoc = SaepTestUtil.getRadocInstance(relatos);
+        radocDocument = conversor.toDocument(radoc);
+    }
+
+    @Benchmark
+    public JsonElement serializaAvaliavel() {
+        return gson.toJsonTree(avaliavel, Avaliavel.class);
+    }
+
+    @Benchmark
+    public Avaliavel desserializaAvaliavel() {
+        return gson.fromJson(avaliavelJson, Avaliavel.class);
+    }
+
+    @Benchmark
+    public String chaveAvaliavel() {
+        return ChaveAvaliavel.de(avaliavelDocument);
+    }
+
+    @Benchmark
+    public Document parecerParaDocument() {
+        return conversor.toDocument(parecer);
+    }
+
+    @Benchmark
+    public Parecer documentParaParecer() {
+        return conversor.fromDocument(parecerDocument, Parecer.class);
+    }
+
+    @Benchmark
+    public Document radocParaDocument() {
+        return conversor.toDocument(radoc);
+    }
+
+    @Benchmark
+    public Radoc documentParaRadoc() {
+        return conversor.fromDocument(radocDocument, Radoc.class);
+    }
+}
@@ -0,0 +1,469 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.persistencia.ParecerRepositoryEmLote;
+import br.ufg.inf.es.saep.sandbox.persistencia.ParecerRepositoryResumido;
+import br.ufg.inf.es.saep.sandbox.persistencia.RadocNaoEncontrado;
+import br.ufg.inf.es.saep.sandbox.persistencia.ResumoRelatos;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Avalia, sob uma mesma {@link Resolucao}, os RADOCs de muitos
+ * docentes, gerando um {@link Parecer} para cada um.
+ *
+ * <p>Os identificadores dos RADOCs são consumidos sob demanda, de
+ * modo que a relação completa não precisa estar em memória. Cada
+ * RADOC é recuperado e avaliado por uma tarefa de um
+ * {@link ForkJoinPool} próprio; no máximo o dobro do paralelismo em
+ * tarefas está em andamento, o que limita a quantidade de consultas
+ * simultâneas ao repositório e de RADOCs em memória. Quando o
+ * repositório é um {@link ParecerRepositoryResumido} e as regras são
+ * {@link PlanoDeAvaliacao#isResumivel() resumíveis}, apenas o resumo
+ * dos relatos de cada RADOC é lido. Os pareceres
+ * gerados são acumulados e gravados em lotes, por
+ * {@link ParecerRepositoryEmLote#persistePareceres(List)} quando o
+ * repositório oferece essa operação.
+ *
+ * <p>O parecer gerado para o RADOC {@code r} sob a resolução
+ * {@code s} tem identificador {@code s + "-" + r}, referencia apenas
+ * esse RADOC, contém as pontuações obtidas e não possui notas nem
+ * fundamentação. Pareceres já existentes não são substituídos.
+ */
+public class AvaliacaoEmLote implements AutoCloseable {
+
+    private final ParecerRepository repositorio;
+    private final Avaliador avaliador;
+    private final ForkJoinPool executor;
+    private final int paralelismo;
+    private final int tamanhoLote;
+
+    /**
+     * Cria o serviço com paralelismo igual à quantidade de
+     * processadores e lotes de {@link Constants#TAMANHO_LOTE_PADRAO}.
+     *
+     * @param repositorio Repositório dos RADOCs e dos pareceres.
+     * @param avaliador   Avaliador cujos planos serão empregados.
+     */
+    public AvaliacaoEmLote(ParecerRepository repositorio, Avaliador avaliador) {
+        this(repositorio, avaliador, Runtime.getRuntime().availableProcessors(), Constants.TAMANHO_LOTE_PADRAO);
+    }
+
+    /**
+     * Cria o serviço.
+     *
+     * @param repositorio Repositório dos RADOCs e dos pareceres.
+     * @param avaliador   Avaliador cujos planos serão empregados.
+     * @param paralelismo Quantidade de RADOCs avaliados simultaneamente.
+     * @param tamanhoLote Quantidade de pareceres gravados por vez.
+     */
+    public AvaliacaoEmLote(ParecerRepository repositorio, Avaliador avaliador, int paralelismo, int tamanhoLote) {
+        if (repositorio == null) {
+            throw new CampoExigidoNaoFornecido("repositorio");
+        }
+
+        if (avaliador == null) {
+            throw new CampoExigidoNaoFornecido("avaliador");
+        }
+
+        if (paralelismo <= 0) {
+            throw new IllegalArgumentException("paralelismo");
+        }
+
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("tamanhoLote");
+        }
+
+        this.repositorio = repositorio;
+        this.avaliador = avaliador;
+        this.paralelismo = paralelismo;
+        this.tamanhoLote = tamanhoLote;
+        this.executor = new ForkJoinPool(paralelismo);
+    }
+
+    /**
+     * Inicia a avaliação dos RADOCs, sem acompanhamento do progresso.
+     *
+     * @see #inicia(Resolucao, Iterator, Consumer)
+     */
+    public Execucao inicia(Resolucao resolucao, Iterator<String> radocs) {
+        return inicia(resolucao, radocs, null);
+    }
+
+    /**
+     * Inicia a avaliação dos RADOCs. O método retorna imediatamente;
+     * a execução é acompanhada e cancelada pela {@link Execucao}
+     * retornada.
+     *
+     * <p>O iterador é consumido por uma única thread, mas não
+     * necessariamente a que chamou este método.
+     *
+     * @param resolucao A resolução cujas regras serão aplicadas.
+     * @param radocs    Os identificadores dos RADOCs a serem avaliados.
+     * @param ouvinte   Notificado com o progresso após a gravação de
+     *                  cada lote. Pode ser {@code null}.
+     * @return A execução iniciada.
+     */
+    public Execucao inicia(final Resolucao resolucao, final Iterator<String> radocs, final Consumer<Progresso> ouvinte) {
+        if (resolucao == null) {
+            throw new CampoExigidoNaoFornecido("resolucao");
+        }
+
+        if (radocs == null) {
+            throw new CampoExigidoNaoFornecido("radocs");
+        }
+
+        /* Regras inválidas são rejeitadas antes de qualquer RADOC ser lido */
+        avaliador.plano(resolucao);
+
+        final Execucao execucao = new Execucao();
+        Thread coordenador = new Thread(new Runnable() {
+            public void run() {
+                coordena(execucao, resolucao, radocs, ouvinte);
+            }
+        }, "saep-avaliacao-" + resolucao.getId());
+
+        coordenador.setDaemon(true);
+        coordenador.start();
+
+        return execucao;
+    }
+
+    /**
+     * Encerra o executor. Execuções em andamento deixam de ler novos
+     * RADOCs, gravam os já avaliados e são concluídas
+     * excepcionalmente.
+     */
+    public void close() {
+        executor.shutdown();
+    }
+
+    private void coordena(final Execucao execucao, final Resolucao resolucao, Iterator<String> radocs,
+                          Consumer<Progresso> ouvinte) {
+        int vagas = 2 * paralelismo;
+        final Semaphore emAndamento = new Semaphore(vagas);
+        final BlockingQueue<Parecer> avaliados = new LinkedBlockingQueue<Parecer>();
+        Exception falha = null;
+
+        try {
+            while (!execucao.cancelada && radocs.hasNext()) {
+                final String radoc = radocs.next();
+
+                emAndamento.acquire();
+
+                try {
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            try {
+                                avaliados.add(avalia(resolucao, radoc));
+                                execucao.avaliados.incrementAndGet();
+                            } catch (RuntimeException e) {
+                                execucao.falhas.incrementAndGet();
+                                execucao.ultimaFalha = e;
+                            } finally {
+                                emAndamento.release();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    emAndamento.release();
+                    throw e;
+                }
+
+                execucao.lidos.incrementAndGet();
+
+                descarrega(execucao, avaliados, false, ouvinte);
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            falha = e;
+        }
+
+        /* Avaliações concluídas são gravadas mesmo após o cancelamento ou uma falha */
+        try {
+            emAndamento.acquire(vagas);
+        } catch (InterruptedException e) {
+            falha = acrescenta(falha, e);
+        }
+
+        /* Cada falha descarta apenas o seu lote; os demais ainda são gravados */
+        while (!avaliados.isEmpty()) {
+            try {
+                descarrega(execucao, avaliados, true, ouvinte);
+            } catch (RuntimeException e) {
+                falha = acrescenta(falha, e);
+            }
+        }
+
+        execucao.concluida = true;
+
+        if (falha == null) {
+            execucao.conclusao.complete(execucao.getProgresso());
+        } else {
+            execucao.conclusao.completeExceptionally(falha);
+        }
+    }
+
+    /**
+     * Mantém a primeira falha, à qual as seguintes são acrescentadas
+     * como suprimidas.
+     */
+    private static Exception acrescenta(Exception primeira, Exception falha) {
+        if (primeira == null) {
+            return falha;
+        }
+
+        primeira.addSuppressed(falha);
+
+        return primeira;
+    }
+
+    private Parecer avalia(Resolucao resolucao, String radoc) {
+        List<Pontuacao> pontuacoes;
+
+        /* Sempre que as regras permitem, lê apenas o resumo dos relatos */
+        if (repositorio instanceof ParecerRepositoryResumido && avaliador.plano(resolucao).isResumivel()) {
+            ResumoRelatos resumo = ((ParecerRepositoryResumido) repositorio).resumo(radoc);
+
+            if (resumo == null) {
+                throw new RadocNaoEncontrado("RADOC de id[" + radoc + "] não encontrado.");
+            }
+
+            pontuacoes = avaliador.avalia(resolucao, resumo);
+        } else {
+            Radoc docente = repositorio.radocById(radoc);
+
+            if (docente == null) {
+                throw new RadocNaoEncontrado("RADOC de id[" + radoc + "] não encontrado.");
+            }
+
+            pontuacoes = avaliador.avalia(resolucao, docente);
+        }
+
+        List<String> radocs = new ArrayList<String>();
+        radocs.add(radoc);
+
+        return new Parecer(resolucao.getId() + "-" + radoc, resolucao.getId(), radocs,
+                pontuacoes, "", new ArrayList<Nota>());
+    }
+
+    private void descarrega(Execucao execucao, BlockingQueue<Parecer> avaliados, boolean tudo,
+                            Consumer<Progresso> ouvinte) {
+        while (avaliados.size() >= tamanhoLote || (tudo && !avaliados.isEmpty())) {
+            List<Parecer> lote = new ArrayList<Parecer>(tamanhoLote);
+
+            avaliados.drainTo(lote, tamanhoLote);
+
+            int existentes;
+
+            try {
+                existentes = grava(lote);
+            } catch (RuntimeException e) {
+                execucao.descartados.addAndGet(lote.size());
+                throw e;
+            }
+
+            execucao.existentes.addAndGet(existentes);
+            execucao.gravados.addAndGet(lote.size() - existentes);
+
+            if (ouvinte != null) {
+                ouvinte.accept(execucao.getProgresso());
+            }
+        }
+    }
+
+    private int grava(List<Parecer> lote) {
+        if (repositorio instanceof ParecerRepositoryEmLote) {
+            return ((ParecerRepositoryEmLote) repositorio).persistePareceres(lote).size();
+        }
+
+        int existentes = 0;
+
+        for (Parecer parecer : lote) {
+            try {
+                repositorio.persisteParecer(parecer);
+            } catch (IdentificadorExistente e) {
+                existentes++;
+            }
+        }
+
+        return existentes;
+    }
+
+    /**
+     * Uma avaliação em lote iniciada por
+     * {@link AvaliacaoEmLote#inicia(Resolucao, Iterator, Consumer)}.
+     */
+    public static final class Execucao {
+
+        private final long inicio = System.nanoTime();
+        private final AtomicLong lidos = new AtomicLong();
+        private final AtomicLong avaliados = new AtomicLong();
+        private final AtomicLong gravados = new AtomicLong();
+        private final AtomicLong existentes = new AtomicLong();
+        private final AtomicLong falhas = new AtomicLong();
+        private final AtomicLong descartados = new AtomicLong();
+        private final CompletableFuture<Progresso> conclusao = new CompletableFuture<Progresso>();
+        private volatile boolean cancelada;
+        private volatile boolean concluida;
+        private volatile RuntimeException ultimaFalha;
+
+        private Execucao() {
+        }
+
+        /**
+         * Interrompe a leitura de novos RADOCs. Os RADOCs já lidos
+         * são avaliados e os pareceres correspondentes, gravados.
+         */
+        public void cancela() {
+            cancelada = true;
+        }
+
+        public boolean isCancelada() {
+            return cancelada;
+        }
+
+        /**
+         * Progresso atual da execução.
+         *
+         * @return Um retrato dos contadores no instante da chamada.
+         */
+        public Progresso getProgresso() {
+            return new Progresso(lidos.get(), avaliados.get(), gravados.get(), existentes.get(),
+                    falhas.get(), descartados.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), concluida);
+        }
+
+        /**
+         * Falha mais recente na recuperação ou avaliação de um RADOC.
+         *
+         * @return A falha ou {@code null}, caso não tenha ocorrido.
+         */
+        public RuntimeException getUltimaFalha() {
+            return ultimaFalha;
+        }
+
+        /**
+         * Concluída com o progresso final quando todos os RADOCs
+         * lidos tiverem sido avaliados e gravados, ou
+         * excepcionalmente, caso a leitura dos identificadores ou a
+         * gravação de um lote falhe. A exceção é a primeira falha;
+         * as posteriores, como a gravação de outros lotes, são
+         * acrescentadas como suprimidas. Mesmo após uma falha, os
+         * demais pareceres avaliados são gravados.
+         *
+         * @return A conclusão da execução.
+         */
+        public CompletableFuture<Progresso> getConclusao() {
+            return conclusao;
+        }
+    }
+
+    /**
+     * Retrato do progresso de uma avaliação em lote.
+     */
+    public static final class Progresso {
+
+        private final long lidos;
+        private final long avaliados;
+        private final long gravados;
+        private final long existentes;
+        private final long falhas;
+        private final long descartados;
+        private final long duracao;
+        private final boolean concluida;
+
+        Progresso(long lidos, long avaliados, long gravados, long existentes, long falhas,
+                  long descartados, long duracao, boolean concluida) {
+            this.lidos = lidos;
+            this.avaliados = avaliados;
+            this.gravados = gravados;
+            this.existentes = existentes;
+            this.falhas = falhas;
+            this.descartados = descartados;
+            this.duracao = duracao;
+            this.concluida = concluida;
+        }
+
+        /**
+         * @return Quantidade de identificadores de RADOC consumidos.
+         */
+        public long getLidos() {
+            return lidos;
+        }
+
+        /**
+         * @return Quantidade de RADOCs avaliados com sucesso.
+         */
+        public long getAvaliados() {
+            return avaliados;
+        }
+
+        /**
+         * @return Quantidade de pareceres gravados.
+         */
+        public long getGravados() {
+            return gravados;
+        }
+
+        /**
+         * @return Quantidade de pareceres não gravados por já existirem.
+         */
+        public long getExistentes() {
+            return existentes;
+        }
+
+        /**
+         * @return Quantidade de RADOCs não encontrados ou cuja avaliação falhou.
+         */
+        public long getFalhas() {
+            return falhas;
+        }
+
+        /**
+         * @return Quantidade de pareceres avaliados e não gravados
+         * devido à falha na gravação do seu lote.
+         */
+        public long getDescartados() {
+            return descartados;
+        }
+
+        /**
+         * @return Tempo decorrido desde o início, em milissegundos.
+         */
+        public long getDuracao() {
+            return duracao;
+        }
+
+        public boolean isConcluida() {
+            return concluida;
+        }
+
+        /**
+         * Vazão média da avaliação.
+         *
+         * @return RADOCs avaliados por segundo desde o início.
+         */
+        public double getVazao() {
+            return duracao == 0 ? 0 : avaliados * 1000.0 / duracao;
+        }
+
+        @Override
+        public String toString() {
+            return "Progresso{lidos=" + lidos + ", avaliados=" + avaliados + ", gravados=" + gravados
+                    + ", existentes=" + existentes + ", falhas=" + falhas + ", descartados=" + descartados
+                    + ", duracao=" + duracao
+                    + "ms, vazao=" + String.format("%.1f", getVazao()) + "/s}";
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Avaliação de um parecer mantida entre alterações das suas notas.
+ *
+ * <p>Construída com uma avaliação completa, conserva os relatos de
+ * cada tipo, já com as notas aplicadas, e o valor de cada regra. A
+ * inclusão ou remoção de uma nota reagrupa apenas os tipos de relato
+ * envolvidos e reavalia, na ordem do {@link PlanoDeAvaliacao}, somente
+ * as regras que consideram esses tipos ou a pontuação alterada e,
+ * transitivamente, as que dependem de uma regra cujo valor mudou.
+ * Assim, o custo de uma alteração é proporcional às regras afetadas,
+ * e não à resolução inteira.
+ *
+ * <p>O resultado é sempre o mesmo de
+ * {@link PlanoDeAvaliacao#avalia(List, List)} com as notas vigentes.
+ * As operações são sincronizadas na instância.
+ *
+ * @see Avaliador#incremental(Resolucao, Parecer, List)
+ */
+public final class AvaliacaoIncremental {
+
+    private final PlanoDeAvaliacao plano;
+
+    /**
+     * Relatos dos RADOCs, sem as notas, e a chave canônica de cada um.
+     */
+    private final List<Relato> relatos;
+    private final List<String> chaves;
+
+    /**
+     * Notas vigentes, pela chave canônica do item original.
+     */
+    private final Map<String, Nota> notas = new LinkedHashMap<String, Nota>();
+
+    /**
+     * Item novo das notas sobre relatos e valor das notas sobre
+     * pontuações, como em {@link PlanoDeAvaliacao#avalia(List, List)}.
+     */
+    private final Map<String, Avaliavel> substitutosDeRelatos = new HashMap<String, Avaliavel>();
+    private final Map<String, Double> substituicoes = new HashMap<String, Double>();
+
+    private final Map<String, List<Relato>> porTipo;
+    private final Map<String, Double> valores = new HashMap<String, Double>();
+
+    AvaliacaoIncremental(PlanoDeAvaliacao plano, List<Relato> relatos, List<Nota> notas) {
+        if (relatos == null) {
+            throw new CampoExigidoNaoFornecido("relatos");
+        }
+
+        this.plano = plano;
+        this.relatos = new ArrayList<Relato>(relatos);
+        this.chaves = new ArrayList<String>(relatos.size());
+
+        for (Relato relato : relatos) {
+            chaves.add(plano.chave(relato));
+        }
+
+        if (notas != null) {
+            for (Nota nota : notas) {
+                registra(plano.chave(nota.getItemOriginal()), nota, new HashSet<String>(), new HashSet<String>());
+            }
+        }
+
+        porTipo = PlanoDeAvaliacao.agrupa(vigentes(null));
+
+        for (int i = 0; i < plano.getTamanho(); i++) {
+            valores.put(plano.variavel(i), calcula(i));
+        }
+    }
+
+    /**
+     * Recupera as pontuações vigentes.
+     *
+     * @return As pontuações, uma por regra, na ordem de avaliação.
+     */
+    public synchronized List<Pontuacao> getPontuacoes() {
+        List<Pontuacao> pontuacoes = new ArrayList<Pontuacao>(plano.getTamanho());
+
+        for (int i = 0; i < plano.getTamanho(); i++) {
+            pontuacoes.add(pontuacao(plano.variavel(i)));
+        }
+
+        return pontuacoes;
+    }
+
+    /**
+     * Acrescenta a nota, substituindo a nota existente para o mesmo
+     * item original, e reavalia as regras afetadas.
+     *
+     * @param nota A nota.
+     * @return As pontuações cujo valor foi alterado, na ordem de
+     * avaliação.
+     */
+    public synchronized List<Pontuacao> adicionaNota(Nota nota) {
+        if (nota == null) {
+            throw new CampoExigidoNaoFornecido("nota");
+        }
+
+        if (nota.getItemOriginal() == null) {
+            throw new CampoExigidoNaoFornecido("original");
+        }
+
+        Set<String> tipos = new HashSet<String>();
+        Set<String> variaveis = new HashSet<String>();
+        String chave = plano.chave(nota.getItemOriginal());
+
+        desfaz(notas.remove(chave), tipos, variaveis);
+        registra(chave, nota, tipos, variaveis);
+
+        return reavalia(tipos, variaveis);
+    }
+
+    /**
+     * Remove a nota do item original e reavalia as regras afetadas.
+     *
+     * @param original O item original da nota.
+     * @return As pontuações cujo valor foi alterado, na ordem de
+     * avaliação; vazia se não houver nota para o item.
+     */
+    public synchronized List<Pontuacao> removeNota(Avaliavel original) {
+        if (original == null) {
+            throw new CampoExigidoNaoFornecido("original");
+        }
+
+        Set<String> tipos = new HashSet<String>();
+        Set<String> variaveis = new HashSet<String>();
+
+        desfaz(notas.remove(plano.chave(original)), tipos, variaveis);
+
+        return reavalia(tipos, variaveis);
+    }
+
+    /**
+     * Registra o efeito da nota, acumulando os tipos de relato e as
+     * variáveis afetados.
+     */
+    private void registra(String chave, Nota nota, Set<String> tipos, Set<String> variaveis) {
+        Avaliavel original = nota.getItemOriginal();
+        Avaliavel novo = nota.getItemNovo();
+
+        notas.put(chave, nota);
+
+        if (original instanceof Pontuacao) {
+            String variavel = ((Pontuacao) original).getAtributo();
+
+            if (novo instanceof Pontuacao && ((Pontuacao) novo).getValor() != null) {
+                substituicoes.put(variavel, PlanoDeAvaliacao.numero(((Pontuacao) novo).getValor()));
+                variaveis.add(variavel);
+            }
+        } else if (original instanceof Relato) {
+            substitutosDeRelatos.put(chave, novo);
+            tipos.add(((Relato) original).getTipo());
+
+            if (novo instanceof Relato) {
+                tipos.add(((Relato) novo).getTipo());
+            }
+        }
+    }
+
+    /**
+     * Desfaz o efeito de uma nota já removida de {@link #notas}.
+     */
+    private void desfaz(Nota nota, Set<String> tipos, Set<String> variaveis) {
+        if (nota == null) {
+            return;
+        }
+
+        Avaliavel original = nota.getItemOriginal();
+
+        if (original instanceof Pontuacao) {
+            String variavel = ((Pontuacao) original).getAtributo();
+            Double anterior = substituicoes.remove(variavel);
+            Double vigente = substituicao(variavel);
+
+            if (vigente != null) {
+                substituicoes.put(variavel, vigente);
+            }
+
+            if (anterior != null || vigente != null) {
+                variaveis.add(variavel);
+            }
+        } else if (original instanceof Relato) {
+            Avaliavel novo = substitutosDeRelatos.remove(plano.chave(original));
+
+            tipos.add(((Relato) original).getTipo());
+
+            if (novo instanceof Relato) {
+                tipos.add(((Relato) novo).getTipo());
+            }
+        }
+    }
+
+    /**
+     * Valor da pontuação imposto pelas notas vigentes, que podem ter
+     * originais distintos para o mesmo atributo; como em
+     * {@link PlanoDeAvaliacao#avalia(List, List)}, prevalece a última.
+     *
+     * @return O valor, ou {@code null} se nenhuma nota substitui a
+     * pontuação.
+     */
+    private Double substituicao(String variavel) {
+        Double valor = null;
+
+        for (Nota nota : notas.values()) {
+            Avaliavel original = nota.getItemOriginal();
+            Avaliavel novo = nota.getItemNovo();
+
+            if (original instanceof Pontuacao && variavel.equals(((Pontuacao) original).getAtributo())
+                    && novo instanceof Pontuacao && ((Pontuacao) novo).getValor() != null) {
+                valor = PlanoDeAvaliacao.numero(((Pontuacao) novo).getValor());
+            }
+        }
+
+        return valor;
+    }
+
+    /**
+     * Reagrupa os relatos dos tipos afetados e reavalia, em ordem, as
+     * regras afetadas direta ou transitivamente.
+     */
+    private List<Pontuacao> reavalia(Set<String> tipos, Set<String> variaveis) {
+        List<Pontuacao> alteradas = new ArrayList<Pontuacao>();
+        boolean[] afetadas = new boolean[plano.getTamanho()];
+
+        if (!tipos.isEmpty()) {
+            for (String tipo : tipos) {
+                porTipo.remove(tipo);
+            }
+
+            porTipo.putAll(PlanoDeAvaliacao.agrupa(vigentes(tipos)));
+        }
+
+        for (int i = 0; i < afetadas.length; i++) {
+            String tipo = plano.tipoRelato(i);
+
+            afetadas[i] = variaveis.contains(plano.variavel(i)) || (tipo != null && tipos.contains(tipo));
+        }
+
+        for (int i = 0; i < afetadas.length; i++) {
+            if (!afetadas[i]) {
+                continue;
+            }
+
+            String variavel = plano.variavel(i);
+            double valor = calcula(i);
+
+            if (Double.compare(valor, valores.get(variavel)) != 0) {
+                valores.put(variavel, valor);
+                alteradas.add(pontuacao(variavel));
+
+                for (int dependente : plano.dependentes(i)) {
+                    afetadas[dependente] = true;
+                }
+            }
+        }
+
+        return alteradas;
+    }
+
+    private double calcula(int posicao) {
+        Double substituto = substituicoes.get(plano.variavel(posicao));
+
+        return substituto != null ? substituto : plano.avaliaPasso(posicao, porTipo, valores);
+    }
+
+    /**
+     * Relatos com as notas aplicadas, na ordem original.
+     *
+     * @param tipos Se fornecido, apenas os relatos desses tipos.
+     */
+    private List<Relato> vigentes(Set<String> tipos) {
+        List<Relato> resultado = new ArrayList<Relato>();
+
+        for (int i = 0; i < relatos.size(); i++) {
+            Relato relato = relatos.get(i);
+            String chave = chaves.get(i);
+
+            if (substitutosDeRelatos.containsKey(chave)) {
+                Avaliavel novo = substitutosDeRelatos.get(chave);
+
+                relato = novo instanceof Relato ? (Relato) novo : null;
+            }
+
+            if (relato != null && (tipos == null || tipos.contains(relato.getTipo()))) {
+                resultado.add(relato);
+            }
+        }
+
+        return resultado;
+    }
+
+    private Pontuacao pontuacao(String variavel) {
+        return new Pontuacao(variavel, new Valor(valores.get(variavel).floatValue()));
+    }
+}
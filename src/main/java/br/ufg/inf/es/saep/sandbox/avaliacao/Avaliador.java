@@ -0,0 +1,153 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.persistencia.ResumoRelatos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Calcula as pontuações de docentes conforme as regras de uma
+ * {@link Resolucao}.
+ *
+ * <p>O {@link PlanoDeAvaliacao} de cada resolução é construído na
+ * primeira avaliação e reutilizado em todas as seguintes, de modo
+ * que as expressões das regras são compiladas e as dependências
+ * ordenadas uma única vez por resolução. Como resoluções não são
+ * alteradas após persistidas, o plano é identificado apenas pelo
+ * identificador da resolução.
+ *
+ * <p>Instâncias podem ser empregadas concorrentemente.
+ */
+public class Avaliador {
+
+    private final ConcurrentMap<String, PlanoDeAvaliacao> planos = new ConcurrentHashMap<String, PlanoDeAvaliacao>();
+
+    /**
+     * Recupera o plano de avaliação da resolução, construindo-o
+     * caso ainda não exista.
+     *
+     * @param resolucao A resolução.
+     * @return O plano de avaliação da resolução.
+     */
+    public PlanoDeAvaliacao plano(Resolucao resolucao) {
+        if (resolucao == null) {
+            throw new CampoExigidoNaoFornecido("resolucao");
+        }
+
+        PlanoDeAvaliacao plano = planos.get(resolucao.getId());
+
+        if (plano == null) {
+            plano = PlanoDeAvaliacao.de(resolucao);
+
+            PlanoDeAvaliacao anterior = planos.putIfAbsent(resolucao.getId(), plano);
+            if (anterior != null) {
+                plano = anterior;
+            }
+        }
+
+        return plano;
+    }
+
+    /**
+     * Avalia os relatos do RADOC, sem notas.
+     *
+     * @param resolucao A resolução cujas regras serão aplicadas.
+     * @param radoc     O RADOC do docente.
+     * @return As pontuações, uma por regra.
+     */
+    public List<Pontuacao> avalia(Resolucao resolucao, Radoc radoc) {
+        if (radoc == null) {
+            throw new CampoExigidoNaoFornecido("radoc");
+        }
+
+        return plano(resolucao).avalia(relatos(radoc), null);
+    }
+
+    /**
+     * Avalia o RADOC a partir do resumo dos seus relatos, sem notas.
+     *
+     * @param resolucao A resolução cujas regras serão aplicadas; o
+     *                  seu plano deve ser
+     *                  {@link PlanoDeAvaliacao#isResumivel() resumível}.
+     * @param resumo    O resumo dos relatos do RADOC.
+     * @return As pontuações, uma por regra.
+     */
+    public List<Pontuacao> avalia(Resolucao resolucao, ResumoRelatos resumo) {
+        return plano(resolucao).avalia(resumo);
+    }
+
+    /**
+     * Avalia os relatos dos RADOCs considerando as notas do parecer.
+     *
+     * @param resolucao A resolução cujas regras serão aplicadas.
+     * @param parecer   O parecer, cujas notas alteram relatos e pontuações.
+     * @param radocs    Os RADOCs referenciados pelo parecer.
+     * @return As pontuações, uma por regra.
+     */
+    public List<Pontuacao> avalia(Resolucao resolucao, Parecer parecer, List<Radoc> radocs) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if (radocs == null) {
+            throw new CampoExigidoNaoFornecido("radocs");
+        }
+
+        List<Relato> relatos = new ArrayList<Relato>();
+
+        for (Radoc radoc : radocs) {
+            relatos.addAll(relatos(radoc));
+        }
+
+        return plano(resolucao).avalia(relatos, parecer.getNotas());
+    }
+
+    /**
+     * Avalia os relatos dos RADOCs considerando as notas do parecer,
+     * mantendo a avaliação para que alterações posteriores das notas
+     * reavaliem apenas as regras afetadas.
+     *
+     * @param resolucao A resolução cujas regras serão aplicadas.
+     * @param parecer   O parecer, cujas notas alteram relatos e pontuações.
+     * @param radocs    Os RADOCs referenciados pelo parecer.
+     * @return A avaliação do parecer.
+     */
+    public AvaliacaoIncremental incremental(Resolucao resolucao, Parecer parecer, List<Radoc> radocs) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if (radocs == null) {
+            throw new CampoExigidoNaoFornecido("radocs");
+        }
+
+        List<Relato> relatos = new ArrayList<Relato>();
+
+        for (Radoc radoc : radocs) {
+            relatos.addAll(relatos(radoc));
+        }
+
+        return new AvaliacaoIncremental(plano(resolucao), relatos, parecer.getNotas());
+    }
+
+    /**
+     * Descarta o plano da resolução, que será reconstruído na
+     * próxima avaliação.
+     *
+     * @param resolucao O identificador da resolução.
+     */
+    public void invalida(String resolucao) {
+        if (resolucao == null) {
+            throw new CampoExigidoNaoFornecido("resolucao");
+        }
+
+        planos.remove(resolucao);
+    }
+
+    private static List<Relato> relatos(Radoc radoc) {
+        return radoc.getRelatos() == null ? new ArrayList<Relato>() : radoc.getRelatos();
+    }
+}
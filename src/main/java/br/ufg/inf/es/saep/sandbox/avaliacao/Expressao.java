@@ -0,0 +1,42 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import java.util.Set;
+
+/**
+ * Expressão de uma {@link br.ufg.inf.es.saep.sandbox.dominio.Regra}
+ * já compilada, obtida por {@link Expressoes#compila(String)}.
+ *
+ * <p>Instâncias são imutáveis e podem ser avaliadas concorrentemente
+ * com valores de variáveis distintos. Valores lógicos são
+ * representados por 1 (verdadeiro) e 0 (falso); qualquer valor
+ * diferente de zero é considerado verdadeiro.
+ */
+public interface Expressao {
+
+    /**
+     * Fornece o valor de cada variável durante a avaliação.
+     */
+    interface Variaveis {
+
+        /**
+         * @param nome Nome da variável.
+         * @return O valor corrente da variável.
+         */
+        double valor(String nome);
+    }
+
+    /**
+     * Avalia a expressão.
+     *
+     * @param variaveis Valores das variáveis referenciadas.
+     * @return O resultado da expressão.
+     */
+    double avalia(Variaveis variaveis);
+
+    /**
+     * Recupera os nomes das variáveis referenciadas pela expressão.
+     *
+     * @return Conjunto imutável dos nomes.
+     */
+    Set<String> getVariaveis();
+}
@@ -0,0 +1,17 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+/**
+ * Indica que o texto de uma expressão não pode ser compilado.
+ */
+public class ExpressaoInvalida extends RuntimeException {
+
+    /**
+     * Informa uma mensagem contendo detalhes sobre o que gerou
+     * a exceção.
+     *
+     * @param mensagem Contém informações sobre o motivo da exceção.
+     */
+    public ExpressaoInvalida(String mensagem) {
+        super(mensagem);
+    }
+}
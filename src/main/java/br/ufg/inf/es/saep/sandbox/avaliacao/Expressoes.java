@@ -0,0 +1,520 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import br.ufg.inf.es.saep.sandbox.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Compila o texto das expressões das regras em instâncias de
+ * {@link Expressao}, mantendo em cache o resultado de cada texto
+ * distinto. Uma expressão é analisada uma única vez e, a partir
+ * daí, avaliada diretamente sobre a árvore compilada. O cache mantém
+ * no máximo {@link #MAXIMO_DE_EXPRESSOES} textos, descartando os
+ * usados há mais tempo.
+ *
+ * <p>A sintaxe é a das expressões de resoluções (EvalEx):
+ * <ul>
+ *     <li>números, variáveis e as constantes {@code TRUE} e {@code FALSE};</li>
+ *     <li>operadores {@code + - * / % ^}, com precedência usual;</li>
+ *     <li>comparações {@code = == != <> < <= > >=};</li>
+ *     <li>operadores lógicos {@code && || !};</li>
+ *     <li>funções {@code IF(c, a, b)}, {@code MAX}, {@code MIN},
+ *     {@code ABS}, {@code ROUND(x[, casas])}, {@code FLOOR},
+ *     {@code CEILING}, {@code SQRT} e {@code NOT}, sem distinção
+ *     entre maiúsculas e minúsculas. {@code ROUND} arredonda a
+ *     metade para longe do zero (HALF_UP), inclusive para valores
+ *     negativos.</li>
+ * </ul>
+ * Subexpressões sem variáveis são calculadas na compilação.
+ */
+public final class Expressoes {
+
+    /**
+     * Quantidade máxima de expressões mantidas em cache.
+     */
+    public static final int MAXIMO_DE_EXPRESSOES = 4096;
+
+    private static final LruCache<String, Expressao> cache = new LruCache<String, Expressao>(MAXIMO_DE_EXPRESSOES);
+
+    private Expressoes() {
+    }
+
+    /**
+     * Compila a expressão, ou a recupera do cache.
+     *
+     * @param texto O texto da expressão.
+     * @return A expressão compilada.
+     * @throws ExpressaoInvalida Caso o texto não seja uma
+     *                           expressão válida.
+     */
+    public static Expressao compila(String texto) {
+        if (texto == null) {
+            throw new ExpressaoInvalida("Expressão não fornecida.");
+        }
+
+        Expressao expressao = cache.get(texto);
+
+        /* Compilações concorrentes do mesmo texto produzem expressões equivalentes */
+        if (expressao == null) {
+            expressao = new Analisador(texto).analisa();
+            cache.put(texto, expressao);
+        }
+
+        return expressao;
+    }
+
+    /**
+     * Recupera a quantidade de expressões mantidas em cache.
+     *
+     * @return Quantidade de textos distintos já compilados.
+     */
+    public static int getTamanhoDoCache() {
+        return (int) cache.getEstatisticas().getEntradas();
+    }
+
+    /**
+     * Nó da árvore compilada.
+     */
+    private abstract static class No implements Expressao {
+        private final Set<String> variaveis;
+
+        No(No... filhos) {
+            Set<String> nomes = new HashSet<String>();
+
+            for (No filho : filhos) {
+                nomes.addAll(filho.getVariaveis());
+            }
+
+            variaveis = Collections.unmodifiableSet(nomes);
+        }
+
+        No(String variavel) {
+            variaveis = Collections.singleton(variavel);
+        }
+
+        public Set<String> getVariaveis() {
+            return variaveis;
+        }
+
+        boolean isConstante() {
+            return variaveis.isEmpty();
+        }
+    }
+
+    private static final class Constante extends No {
+        private final double valor;
+
+        Constante(double valor) {
+            this.valor = valor;
+        }
+
+        public double avalia(Variaveis variaveis) {
+            return valor;
+        }
+    }
+
+    private static final class Variavel extends No {
+        private final String nome;
+
+        Variavel(String nome) {
+            super(nome);
+            this.nome = nome;
+        }
+
+        public double avalia(Variaveis variaveis) {
+            return variaveis.valor(nome);
+        }
+    }
+
+    private static final class Unario extends No {
+        private final char operador;
+        private final No operando;
+
+        Unario(char operador, No operando) {
+            super(operando);
+            this.operador = operador;
+            this.operando = operando;
+        }
+
+        public double avalia(Variaveis variaveis) {
+            double valor = operando.avalia(variaveis);
+
+            return operador == '-' ? -valor : logico(valor == 0);
+        }
+    }
+
+    private static final class Binario extends No {
+        private final String operador;
+        private final No esquerdo;
+        private final No direito;
+
+        Binario(String operador, No esquerdo, No direito) {
+            super(esquerdo, direito);
+            this.operador = operador;
+            this.esquerdo = esquerdo;
+            this.direito = direito;
+        }
+
+        public double avalia(Variaveis variaveis) {
+            double a = esquerdo.avalia(variaveis);
+
+            /* Operadores lógicos avaliam o segundo operando apenas se necessário */
+            if (operador.equals("&&")) {
+                return logico(a != 0 && direito.avalia(variaveis) != 0);
+            }
+
+            if (operador.equals("||")) {
+                return logico(a != 0 || direito.avalia(variaveis) != 0);
+            }
+
+            double b = direito.avalia(variaveis);
+
+            switch (operador) {
+                case "+": return a + b;
+                case "-": return a - b;
+                case "*": return a * b;
+                case "/": return a / b;
+                case "%": return a % b;
+                case "^": return Math.pow(a, b);
+                case "=":
+                case "==": return logico(a == b);
+                case "!=":
+                case "<>": return logico(a != b);
+                case "<": return logico(a < b);
+                case "<=": return logico(a <= b);
+                case ">": return logico(a > b);
+                default: return logico(a >= b);
+            }
+        }
+    }
+
+    private static final class Se extends No {
+        private final No condicao;
+        private final No entao;
+        private final No senao;
+
+        Se(No condicao, No entao, No senao) {
+            super(condicao, entao, senao);
+            this.condicao = condicao;
+            this.entao = entao;
+            this.senao = senao;
+        }
+
+        public double avalia(Variaveis variaveis) {
+            return condicao.avalia(variaveis) != 0 ? entao.avalia(variaveis) : senao.avalia(variaveis);
+        }
+    }
+
+    private static final class Funcao extends No {
+        private final String nome;
+        private final No[] argumentos;
+
+        Funcao(String nome, No[] argumentos) {
+            super(argumentos);
+            this.nome = nome;
+            this.argumentos = argumentos;
+        }
+
+        public double avalia(Variaveis variaveis) {
+            double x = argumentos[0].avalia(variaveis);
+
+            switch (nome) {
+                case "MAX":
+                    for (int i = 1; i < argumentos.length; i++) {
+                        x = Math.max(x, argumentos[i].avalia(variaveis));
+                    }
+                    return x;
+                case "MIN":
+                    for (int i = 1; i < argumentos.length; i++) {
+                        x = Math.min(x, argumentos[i].avalia(variaveis));
+                    }
+                    return x;
+                case "ABS": return Math.abs(x);
+                case "FLOOR": return Math.floor(x);
+                case "CEILING": return Math.ceil(x);
+                case "SQRT": return Math.sqrt(x);
+                case "NOT": return logico(x == 0);
+                default:
+                    double escala = Math.pow(10, argumentos.length > 1 ? argumentos[1].avalia(variaveis) : 0);
+                    return Math.signum(x) * Math.round(Math.abs(x) * escala) / escala;
+            }
+        }
+    }
+
+    private static double logico(boolean valor) {
+        return valor ? 1 : 0;
+    }
+
+    /**
+     * Substitui o nó por uma constante caso não dependa de variáveis.
+     */
+    private static No reduz(No no) {
+        return no.isConstante() && !(no instanceof Constante) ? new Constante(no.avalia(null)) : no;
+    }
+
+    /**
+     * Analisador descendente recursivo, um por texto compilado.
+     */
+    private static final class Analisador {
+        private final String texto;
+        private int posicao = 0;
+
+        Analisador(String texto) {
+            this.texto = texto;
+        }
+
+        No analisa() {
+            No raiz = ou();
+
+            espacos();
+            if (posicao < texto.length()) {
+                throw erro("símbolo inesperado '" + texto.charAt(posicao) + "'");
+            }
+
+            return raiz;
+        }
+
+        private No ou() {
+            No no = e();
+
+            while (consome("||")) {
+                no = reduz(new Binario("||", no, e()));
+            }
+
+            return no;
+        }
+
+        private No e() {
+            No no = comparacao();
+
+            while (consome("&&")) {
+                no = reduz(new Binario("&&", no, comparacao()));
+            }
+
+            return no;
+        }
+
+        private No comparacao() {
+            No no = soma();
+
+            for (String operador : new String[]{"==", "!=", "<>", "<=", ">=", "=", "<", ">"}) {
+                if (consome(operador)) {
+                    return reduz(new Binario(operador, no, soma()));
+                }
+            }
+
+            return no;
+        }
+
+        private No soma() {
+            No no = produto();
+
+            while (true) {
+                if (consome("+")) {
+                    no = reduz(new Binario("+", no, produto()));
+                } else if (consome("-")) {
+                    no = reduz(new Binario("-", no, produto()));
+                } else {
+                    return no;
+                }
+            }
+        }
+
+        private No produto() {
+            No no = unario();
+
+            while (true) {
+                if (consome("*")) {
+                    no = reduz(new Binario("*", no, unario()));
+                } else if (consome("/")) {
+                    no = reduz(new Binario("/", no, unario()));
+                } else if (consome("%")) {
+                    no = reduz(new Binario("%", no, unario()));
+                } else {
+                    return no;
+                }
+            }
+        }
+
+        private No unario() {
+            if (consome("-")) {
+                return reduz(new Unario('-', unario()));
+            }
+
+            if (consome("+")) {
+                return unario();
+            }
+
+            if (!olha("!=") && consome("!")) {
+                return reduz(new Unario('!', unario()));
+            }
+
+            No base = primario();
+
+            /* Potência, associativa à direita */
+            if (consome("^")) {
+                return reduz(new Binario("^", base, unario()));
+            }
+
+            return base;
+        }
+
+        private No primario() {
+            espacos();
+
+            if (posicao >= texto.length()) {
+                throw erro("fim inesperado da expressão");
+            }
+
+            char c = texto.charAt(posicao);
+
+            if (consome("(")) {
+                No no = ou();
+
+                exige(")");
+                return no;
+            }
+
+            if (Character.isDigit(c) || c == '.') {
+                return numero();
+            }
+
+            if (Character.isLetter(c) || c == '_') {
+                return identificador();
+            }
+
+            throw erro("símbolo inesperado '" + c + "'");
+        }
+
+        private No numero() {
+            int inicio = posicao;
+
+            while (posicao < texto.length()
+                    && (Character.isDigit(texto.charAt(posicao)) || texto.charAt(posicao) == '.')) {
+                posicao++;
+            }
+
+            /* Expoente, como em 1e3 ou 2.5E-2 */
+            if (posicao < texto.length() && (texto.charAt(posicao) == 'e' || texto.charAt(posicao) == 'E')) {
+                int marca = posicao++;
+
+                if (posicao < texto.length() && (texto.charAt(posicao) == '+' || texto.charAt(posicao) == '-')) {
+                    posicao++;
+                }
+
+                if (posicao < texto.length() && Character.isDigit(texto.charAt(posicao))) {
+                    while (posicao < texto.length() && Character.isDigit(texto.charAt(posicao))) {
+                        posicao++;
+                    }
+                } else {
+                    posicao = marca;
+                }
+            }
+
+            try {
+                return new Constante(Double.parseDouble(texto.substring(inicio, posicao)));
+            } catch (NumberFormatException e) {
+                throw erro("número inválido '" + texto.substring(inicio, posicao) + "'");
+            }
+        }
+
+        private No identificador() {
+            int inicio = posicao;
+
+            while (posicao < texto.length() && (Character.isLetterOrDigit(texto.charAt(posicao))
+                    || texto.charAt(posicao) == '_' || texto.charAt(posicao) == '.')) {
+                posicao++;
+            }
+
+            String nome = texto.substring(inicio, posicao);
+            String maiusculo = nome.toUpperCase(Locale.ROOT);
+
+            if (!consome("(")) {
+                if (maiusculo.equals("TRUE")) {
+                    return new Constante(1);
+                }
+
+                if (maiusculo.equals("FALSE")) {
+                    return new Constante(0);
+                }
+
+                return new Variavel(nome);
+            }
+
+            List<No> argumentos = new ArrayList<No>();
+
+            if (!consome(")")) {
+                do {
+                    argumentos.add(ou());
+                } while (consome(","));
+
+                exige(")");
+            }
+
+            return reduz(funcao(maiusculo, argumentos));
+        }
+
+        private No funcao(String nome, List<No> argumentos) {
+            int quantidade = argumentos.size();
+
+            if (nome.equals("IF")) {
+                aridade(nome, quantidade, 3, 3);
+                return new Se(argumentos.get(0), argumentos.get(1), argumentos.get(2));
+            }
+
+            if (nome.equals("MAX") || nome.equals("MIN")) {
+                aridade(nome, quantidade, 1, Integer.MAX_VALUE);
+            } else if (nome.equals("ROUND")) {
+                aridade(nome, quantidade, 1, 2);
+            } else if (nome.equals("ABS") || nome.equals("FLOOR") || nome.equals("CEILING")
+                    || nome.equals("SQRT") || nome.equals("NOT")) {
+                aridade(nome, quantidade, 1, 1);
+            } else {
+                throw erro("função desconhecida '" + nome + "'");
+            }
+
+            return new Funcao(nome, argumentos.toArray(new No[quantidade]));
+        }
+
+        private void aridade(String nome, int quantidade, int minimo, int maximo) {
+            if (quantidade < minimo || quantidade > maximo) {
+                throw erro("quantidade de argumentos inválida para " + nome);
+            }
+        }
+
+        private void espacos() {
+            while (posicao < texto.length() && Character.isWhitespace(texto.charAt(posicao))) {
+                posicao++;
+            }
+        }
+
+        private boolean olha(String simbolo) {
+            espacos();
+            return texto.startsWith(simbolo, posicao);
+        }
+
+        private boolean consome(String simbolo) {
+            if (olha(simbolo)) {
+                posicao += simbolo.length();
+                return true;
+            }
+
+            return false;
+        }
+
+        private void exige(String simbolo) {
+            if (!consome(simbolo)) {
+                throw erro("esperado '" + simbolo + "'");
+            }
+        }
+
+        private ExpressaoInvalida erro(String detalhe) {
+            return new ExpressaoInvalida("Expressão [" + texto + "] inválida na posição " + posicao + ": " + detalhe + ".");
+        }
+    }
+}
@@ -0,0 +1,582 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.persistencia.ResumoRelatos;
+import br.ufg.inf.es.saep.sandbox.util.ChaveAvaliavel;
+import br.ufg.inf.es.saep.sandbox.util.DocumentConverter;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plano de avaliação das regras de uma {@link Resolucao}: as
+ * expressões de cada regra já compiladas e as regras ordenadas de
+ * modo que cada uma seja avaliada após todas aquelas de que depende.
+ *
+ * <p>Uma regra depende das variáveis indicadas em
+ * {@link Regra#getDependeDe()} e das variáveis de outras regras
+ * referenciadas pelas suas expressões.
+ *
+ * <p>O plano é imutável e pode ser empregado concorrentemente na
+ * avaliação de qualquer quantidade de docentes.
+ *
+ * @see Avaliador
+ */
+public final class PlanoDeAvaliacao {
+
+    /**
+     * Uma regra e as suas expressões compiladas.
+     */
+    private static final class Passo {
+        private final Regra regra;
+        private final Expressao expressao;
+        private final Expressao entao;
+        private final Expressao senao;
+
+        private Passo(Regra regra) {
+            this.regra = regra;
+            this.expressao = compila(regra.getExpressao());
+            this.entao = compila(regra.getEntao());
+            this.senao = compila(regra.getSenao());
+        }
+
+        private Set<String> referencias() {
+            Set<String> nomes = new LinkedHashSet<String>();
+
+            switch (regra.getTipo()) {
+                case Regra.PONTOS:
+                    break;
+                case Regra.CONDICIONAL:
+                    nomes.addAll(entao.getVariaveis());
+                    nomes.addAll(senao.getVariaveis());
+                    nomes.addAll(expressao.getVariaveis());
+                    break;
+                default:
+                    nomes.addAll(expressao.getVariaveis());
+            }
+
+            return nomes;
+        }
+
+        /**
+         * Nas regras avaliadas por relato cuja expressão é apenas o
+         * nome de um atributo, o atributo; caso contrário, {@code null}.
+         */
+        private String atributo() {
+            String texto = regra.getExpressao() == null ? "" : regra.getExpressao().trim();
+
+            return porRelato() && expressao.getVariaveis().size() == 1 && expressao.getVariaveis().contains(texto)
+                    ? texto : null;
+        }
+
+        private boolean porRelato() {
+            return regra.getTipo() == Regra.SOMATORIO || regra.getTipo() == Regra.MEDIA;
+        }
+
+        private static Expressao compila(String texto) {
+            return Expressoes.compila(texto == null || texto.trim().isEmpty() ? "0" : texto);
+        }
+    }
+
+    private final String resolucao;
+    private final List<Passo> passos;
+    private final Map<String, Set<String>> dependencias;
+    private final Map<String, Integer> indices = new HashMap<String, Integer>();
+
+    /**
+     * Para cada passo, as posições dos passos que dele dependem
+     * diretamente, em ordem crescente.
+     */
+    private final int[][] dependentes;
+    private final DocumentConverter conversor = new DocumentConverter(SaepCodecs.gson());
+
+    private PlanoDeAvaliacao(String resolucao, List<Passo> passos, Map<String, Set<String>> dependencias) {
+        this.resolucao = resolucao;
+        this.passos = passos;
+        this.dependencias = dependencias;
+        this.dependentes = new int[passos.size()][];
+
+        for (int i = 0; i < passos.size(); i++) {
+            indices.put(passos.get(i).regra.getVariavel(), i);
+        }
+
+        for (int i = 0; i < passos.size(); i++) {
+            List<Integer> seguintes = new ArrayList<Integer>();
+
+            for (int j = i + 1; j < passos.size(); j++) {
+                if (dependencias.get(passos.get(j).regra.getVariavel()).contains(passos.get(i).regra.getVariavel())) {
+                    seguintes.add(j);
+                }
+            }
+
+            dependentes[i] = new int[seguintes.size()];
+            for (int k = 0; k < seguintes.size(); k++) {
+                dependentes[i][k] = seguintes.get(k);
+            }
+        }
+    }
+
+    /**
+     * Compila as regras da resolução e as ordena pelas dependências.
+     *
+     * @param resolucao A resolução cujas regras serão avaliadas.
+     * @return O plano de avaliação.
+     * @throws ResolucaoInvalida Caso duas regras definam a mesma
+     *                           variável, uma regra dependa de variável
+     *                           inexistente ou exista dependência circular.
+     * @throws ExpressaoInvalida Caso alguma expressão seja inválida.
+     */
+    public static PlanoDeAvaliacao de(Resolucao resolucao) {
+        if (resolucao == null) {
+            throw new CampoExigidoNaoFornecido("resolucao");
+        }
+
+        Map<String, Passo> porVariavel = new LinkedHashMap<String, Passo>();
+        Map<String, Set<String>> dependencias = new LinkedHashMap<String, Set<String>>();
+
+        if (resolucao.getRegras() != null) {
+            for (Regra regra : resolucao.getRegras()) {
+                if (porVariavel.put(regra.getVariavel(), new Passo(regra)) != null) {
+                    throw new ResolucaoInvalida("Resolução [" + resolucao.getId() + "] define mais de uma regra para a variável ["
+                            + regra.getVariavel() + "].");
+                }
+            }
+        }
+
+        for (Passo passo : porVariavel.values()) {
+            Set<String> dependeDe = new LinkedHashSet<String>();
+
+            if (passo.regra.getDependeDe() != null) {
+                for (String variavel : passo.regra.getDependeDe()) {
+                    if (!porVariavel.containsKey(variavel)) {
+                        throw new ResolucaoInvalida("Regra [" + passo.regra.getVariavel() + "] depende da variável inexistente ["
+                                + variavel + "].");
+                    }
+
+                    dependeDe.add(variavel);
+                }
+            }
+
+            /* Nas regras avaliadas por relato, nomes que não são variáveis de regras são atributos do relato */
+            for (String variavel : passo.referencias()) {
+                if (porVariavel.containsKey(variavel)) {
+                    dependeDe.add(variavel);
+                } else if (!passo.porRelato()) {
+                    throw new ResolucaoInvalida("Regra [" + passo.regra.getVariavel() + "] referencia a variável inexistente ["
+                            + variavel + "].");
+                }
+            }
+
+            dependencias.put(passo.regra.getVariavel(), Collections.unmodifiableSet(dependeDe));
+        }
+
+        return new PlanoDeAvaliacao(resolucao.getId(), ordena(porVariavel, dependencias),
+                Collections.unmodifiableMap(dependencias));
+    }
+
+    /**
+     * Ordenação topológica (Kahn) que preserva, entre regras
+     * independentes, a ordem da resolução.
+     */
+    private static List<Passo> ordena(Map<String, Passo> porVariavel, Map<String, Set<String>> dependencias) {
+        List<Passo> ordem = new ArrayList<Passo>(porVariavel.size());
+        Map<String, Integer> pendentes = new HashMap<String, Integer>();
+        Map<String, List<String>> dependentes = new HashMap<String, List<String>>();
+        List<String> prontas = new ArrayList<String>();
+
+        for (Map.Entry<String, Set<String>> entrada : dependencias.entrySet()) {
+            pendentes.put(entrada.getKey(), entrada.getValue().size());
+
+            for (String dependencia : entrada.getValue()) {
+                if (!dependentes.containsKey(dependencia)) {
+                    dependentes.put(dependencia, new ArrayList<String>());
+                }
+
+                dependentes.get(dependencia).add(entrada.getKey());
+            }
+        }
+
+        for (String variavel : porVariavel.keySet()) {
+            if (pendentes.get(variavel) == 0) {
+                prontas.add(variavel);
+            }
+        }
+
+        for (int i = 0; i < prontas.size(); i++) {
+            String variavel = prontas.get(i);
+            List<String> seguintes = dependentes.get(variavel);
+
+            ordem.add(porVariavel.get(variavel));
+
+            if (seguintes != null) {
+                for (String seguinte : seguintes) {
+                    int restantes = pendentes.get(seguinte) - 1;
+
+                    pendentes.put(seguinte, restantes);
+                    if (restantes == 0) {
+                        prontas.add(seguinte);
+                    }
+                }
+            }
+        }
+
+        if (ordem.size() < porVariavel.size()) {
+            Set<String> circulares = new LinkedHashSet<String>(porVariavel.keySet());
+
+            circulares.removeAll(prontas);
+            throw new ResolucaoInvalida("Dependência circular entre as regras " + circulares + ".");
+        }
+
+        return Collections.unmodifiableList(ordem);
+    }
+
+    /**
+     * Recupera o identificador da resolução do plano.
+     *
+     * @return O identificador da resolução.
+     */
+    public String getResolucao() {
+        return resolucao;
+    }
+
+    /**
+     * Recupera as variáveis das regras na ordem de avaliação.
+     *
+     * @return As variáveis, cada uma após todas de que depende.
+     */
+    public List<String> getOrdem() {
+        List<String> ordem = new ArrayList<String>(passos.size());
+
+        for (Passo passo : passos) {
+            ordem.add(passo.regra.getVariavel());
+        }
+
+        return ordem;
+    }
+
+    /**
+     * Recupera as variáveis de que a regra depende diretamente.
+     *
+     * @param variavel A variável definida pela regra.
+     * @return As variáveis de que a regra depende ou {@code null},
+     * caso a variável não seja definida por regra da resolução.
+     */
+    public Set<String> getDependencias(String variavel) {
+        return dependencias.get(variavel);
+    }
+
+    /**
+     * Avalia as regras sobre os relatos de um docente, considerando as
+     * notas de um parecer.
+     *
+     * <p>Uma nota cujo item original é um {@link Relato} o substitui
+     * pelo item novo, ou o desconsidera caso o item novo não seja um
+     * relato. Uma nota cujo item original é uma {@link Pontuacao}
+     * substitui o valor calculado para a variável correspondente, e é
+     * esse o valor empregado pelas regras que dela dependem.
+     *
+     * @param relatos Relatos do docente.
+     * @param notas   Notas do parecer; pode ser {@code null}.
+     * @return As pontuações, uma por regra, na ordem de avaliação.
+     */
+    public List<Pontuacao> avalia(List<Relato> relatos, List<Nota> notas) {
+        if (relatos == null) {
+            throw new CampoExigidoNaoFornecido("relatos");
+        }
+
+        Map<String, Double> substituicoes = new HashMap<String, Double>();
+        Map<String, List<Relato>> porTipo = agrupa(aplicaNotas(relatos, notas, substituicoes));
+        Map<String, Double> valores = new HashMap<String, Double>();
+        List<Pontuacao> pontuacoes = new ArrayList<Pontuacao>(passos.size());
+
+        for (int i = 0; i < passos.size(); i++) {
+            String variavel = passos.get(i).regra.getVariavel();
+            Double substituto = substituicoes.get(variavel);
+            double valor = substituto != null ? substituto : avaliaPasso(i, porTipo, valores);
+
+            valores.put(variavel, valor);
+            pontuacoes.add(new Pontuacao(variavel, new Valor((float) valor)));
+        }
+
+        return pontuacoes;
+    }
+
+    /**
+     * Indica se as regras podem ser avaliadas a partir de um
+     * {@link ResumoRelatos}, ou seja, se toda regra avaliada por
+     * relato tem como expressão uma constante ou apenas o nome de um
+     * atributo do relato.
+     *
+     * @return {@code true} se {@link #avalia(ResumoRelatos)} pode ser
+     * empregado.
+     */
+    public boolean isResumivel() {
+        for (Passo passo : passos) {
+            if (passo.porRelato() && !passo.expressao.getVariaveis().isEmpty()
+                    && (passo.atributo() == null || indices.containsKey(passo.atributo()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Avalia as regras a partir do resumo dos relatos de um RADOC,
+     * sem notas. O resultado é o mesmo de {@link #avalia(List, List)}
+     * sobre os relatos resumidos.
+     *
+     * @param resumo O resumo dos relatos.
+     * @return As pontuações, uma por regra, na ordem de avaliação.
+     * @throws IllegalStateException Caso o plano não seja
+     *                               {@link #isResumivel() resumível}.
+     */
+    public List<Pontuacao> avalia(ResumoRelatos resumo) {
+        if (resumo == null) {
+            throw new CampoExigidoNaoFornecido("resumo");
+        }
+
+        if (!isResumivel()) {
+            throw new IllegalStateException("Resolução [" + resolucao + "] possui regras que dependem dos relatos.");
+        }
+
+        final Map<String, Double> valores = new HashMap<String, Double>();
+        List<Pontuacao> pontuacoes = new ArrayList<Pontuacao>(passos.size());
+        Expressao.Variaveis globais = new Expressao.Variaveis() {
+            public double valor(String nome) {
+                return valores.get(nome);
+            }
+        };
+
+        for (Passo passo : passos) {
+            Regra regra = passo.regra;
+            int quantidade = resumo.getQuantidade(regra.getTipoRelato());
+            double valor;
+
+            switch (regra.getTipo()) {
+                case Regra.PONTOS:
+                    valor = quantidade * regra.getPontosPorItem();
+                    break;
+                case Regra.CONDICIONAL:
+                    valor = passo.expressao.avalia(globais) != 0 ? passo.entao.avalia(globais) : passo.senao.avalia(globais);
+                    break;
+                case Regra.SOMATORIO:
+                case Regra.MEDIA:
+                    /* Expressão constante: cada relato contribui com o mesmo valor */
+                    double soma = passo.atributo() != null
+                            ? resumo.getSoma(regra.getTipoRelato(), passo.atributo())
+                            : quantidade * passo.expressao.avalia(globais);
+
+                    valor = regra.getTipo() == Regra.MEDIA ? (quantidade == 0 ? 0 : soma / quantidade) : soma;
+                    break;
+                default:
+                    valor = passo.expressao.avalia(globais);
+            }
+
+            valor = limita(regra, valor);
+            valores.put(regra.getVariavel(), valor);
+            pontuacoes.add(new Pontuacao(regra.getVariavel(), new Valor((float) valor)));
+        }
+
+        return pontuacoes;
+    }
+
+    /**
+     * Quantidade de regras do plano.
+     */
+    int getTamanho() {
+        return passos.size();
+    }
+
+    /**
+     * Posição da regra na ordem de avaliação.
+     *
+     * @return A posição ou -1, caso a variável não seja definida por
+     * regra da resolução.
+     */
+    int posicao(String variavel) {
+        Integer indice = indices.get(variavel);
+
+        return indice == null ? -1 : indice;
+    }
+
+    String variavel(int posicao) {
+        return passos.get(posicao).regra.getVariavel();
+    }
+
+    /**
+     * Tipo dos relatos considerados pela regra.
+     *
+     * @return O tipo ou {@code null}, caso o valor da regra não
+     * dependa dos relatos.
+     */
+    String tipoRelato(int posicao) {
+        Regra regra = passos.get(posicao).regra;
+
+        return regra.getTipo() == Regra.PONTOS || passos.get(posicao).porRelato() ? regra.getTipoRelato() : null;
+    }
+
+    /**
+     * Posições, em ordem crescente, das regras que dependem
+     * diretamente da regra.
+     */
+    int[] dependentes(int posicao) {
+        return dependentes[posicao];
+    }
+
+    /**
+     * Calcula o valor de uma regra, já limitado ao seu intervalo. Os
+     * valores das variáveis de que a regra depende devem estar
+     * presentes em {@code valores}.
+     */
+    double avaliaPasso(int posicao, Map<String, List<Relato>> porTipo, final Map<String, Double> valores) {
+        Passo passo = passos.get(posicao);
+        Expressao.Variaveis globais = new Expressao.Variaveis() {
+            public double valor(String nome) {
+                return valores.get(nome);
+            }
+        };
+
+        return limita(passo.regra, calcula(passo, porTipo, globais, valores));
+    }
+
+    /**
+     * Chave canônica do item avaliável, a mesma empregada pelos
+     * repositórios para identificar as notas.
+     */
+    String chave(Avaliavel avaliavel) {
+        return ChaveAvaliavel.de(conversor.toDocument(avaliavel));
+    }
+
+    private double calcula(Passo passo, Map<String, List<Relato>> porTipo, Expressao.Variaveis globais,
+                           final Map<String, Double> valores) {
+        Regra regra = passo.regra;
+        List<Relato> doTipo = porTipo.get(regra.getTipoRelato());
+
+        switch (regra.getTipo()) {
+            case Regra.PONTOS:
+                return (doTipo == null ? 0 : doTipo.size()) * regra.getPontosPorItem();
+            case Regra.CONDICIONAL:
+                return passo.expressao.avalia(globais) != 0 ? passo.entao.avalia(globais) : passo.senao.avalia(globais);
+            case Regra.SOMATORIO:
+            case Regra.MEDIA:
+                if (doTipo == null || doTipo.isEmpty()) {
+                    return 0;
+                }
+
+                double soma = 0;
+
+                for (final Relato relato : doTipo) {
+                    soma += passo.expressao.avalia(new Expressao.Variaveis() {
+                        public double valor(String nome) {
+                            Valor valor = relato.get(nome);
+
+                            if (valor != null) {
+                                return numero(valor);
+                            }
+
+                            Double calculado = valores.get(nome);
+                            return calculado == null ? 0 : calculado;
+                        }
+                    });
+                }
+
+                return regra.getTipo() == Regra.MEDIA ? soma / doTipo.size() : soma;
+            default:
+                return passo.expressao.avalia(globais);
+        }
+    }
+
+    /**
+     * Aplica as notas aos relatos e registra as pontuações substituídas.
+     */
+    private List<Relato> aplicaNotas(List<Relato> relatos, List<Nota> notas, Map<String, Double> substituicoes) {
+        Map<String, Avaliavel> relatosSubstituidos = new HashMap<String, Avaliavel>();
+
+        if (notas == null || notas.isEmpty()) {
+            return relatos;
+        }
+
+        for (Nota nota : notas) {
+            Avaliavel original = nota.getItemOriginal();
+
+            if (original instanceof Pontuacao) {
+                Avaliavel novo = nota.getItemNovo();
+
+                if (novo instanceof Pontuacao && ((Pontuacao) novo).getValor() != null) {
+                    substituicoes.put(((Pontuacao) original).getAtributo(), numero(((Pontuacao) novo).getValor()));
+                }
+            } else if (original instanceof Relato) {
+                relatosSubstituidos.put(chave(original), nota.getItemNovo());
+            }
+        }
+
+        if (relatosSubstituidos.isEmpty()) {
+            return relatos;
+        }
+
+        List<Relato> resultado = new ArrayList<Relato>(relatos.size());
+
+        for (Relato relato : relatos) {
+            String chave = chave(relato);
+
+            if (!relatosSubstituidos.containsKey(chave)) {
+                resultado.add(relato);
+            } else if (relatosSubstituidos.get(chave) instanceof Relato) {
+                resultado.add((Relato) relatosSubstituidos.get(chave));
+            }
+        }
+
+        return resultado;
+    }
+
+    static Map<String, List<Relato>> agrupa(List<Relato> relatos) {
+        Map<String, List<Relato>> porTipo = new HashMap<String, List<Relato>>();
+
+        for (Relato relato : relatos) {
+            List<Relato> doTipo = porTipo.get(relato.getTipo());
+
+            if (doTipo == null) {
+                doTipo = new ArrayList<Relato>();
+                porTipo.put(relato.getTipo(), doTipo);
+            }
+
+            doTipo.add(relato);
+        }
+
+        return porTipo;
+    }
+
+    /**
+     * Limita o valor ao intervalo da regra. Cada limite é aplicado
+     * apenas quando definido, isto é, diferente de zero.
+     */
+    private static double limita(Regra regra, double valor) {
+        if (regra.getValorMaximo() != 0) {
+            valor = Math.min(regra.getValorMaximo(), valor);
+        }
+
+        if (regra.getValorMinimo() != 0) {
+            valor = Math.max(regra.getValorMinimo(), valor);
+        }
+
+        return valor;
+    }
+
+    /**
+     * Valor numérico de um atributo, conforme
+     * {@link ResumoRelatos#numero(Valor)}; textos não numéricos valem 0.
+     */
+    static double numero(Valor valor) {
+        Double numero = ResumoRelatos.numero(valor);
+
+        return numero == null ? 0 : numero;
+    }
+}
@@ -0,0 +1,246 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.persistencia.ParecerNaoEncontrado;
+import br.ufg.inf.es.saep.sandbox.persistencia.ParecerRepositoryEmLote;
+import br.ufg.inf.es.saep.sandbox.persistencia.ParecerRepositoryIncremental;
+import br.ufg.inf.es.saep.sandbox.persistencia.RadocNaoEncontrado;
+import br.ufg.inf.es.saep.sandbox.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantém as pontuações dos pareceres atualizadas conforme as suas
+ * notas são incluídas e removidas.
+ *
+ * <p>Cada alteração de nota é repassada ao repositório e aplicada a
+ * uma {@link AvaliacaoIncremental} do parecer, que reavalia somente
+ * as regras afetadas; apenas as pontuações cujo valor mudou são
+ * gravadas, por
+ * {@link ParecerRepositoryIncremental#atualizaPontuacoes(String, List)}.
+ *
+ * <p>As avaliações são mantidas em um {@link LruCache}. Na primeira
+ * alteração de um parecer, ou após a sua remoção do cache, o parecer,
+ * os seus RADOCs e a resolução são lidos e avaliados integralmente, e
+ * as pontuações que divergirem das persistidas também são gravadas.
+ * Os RADOCs são lidos de uma só vez quando o repositório é um
+ * {@link ParecerRepositoryEmLote}.
+ *
+ * <p>Alterações de um mesmo parecer feitas por esta instância são
+ * serializadas. Alterações feitas diretamente no repositório não são
+ * percebidas; nesse caso, a avaliação deve ser descartada por
+ * {@link #invalida(String)}.
+ */
+public class Reavaliador {
+
+    private static final int TRAVAS = 64;
+
+    private final ParecerRepositoryIncremental pareceres;
+    private final ResolucaoRepository resolucoes;
+    private final Avaliador avaliador;
+    private final LruCache<String, AvaliacaoIncremental> avaliacoes;
+    private final Object[] travas = new Object[TRAVAS];
+
+    /**
+     * Cria o serviço.
+     *
+     * @param pareceres         Repositório dos pareceres e RADOCs.
+     * @param resolucoes        Repositório das resoluções.
+     * @param avaliador         Avaliador cujos planos serão empregados.
+     * @param maximoDePareceres Quantidade de avaliações mantidas em cache.
+     */
+    public Reavaliador(ParecerRepositoryIncremental pareceres, ResolucaoRepository resolucoes,
+                       Avaliador avaliador, long maximoDePareceres) {
+        if (pareceres == null) {
+            throw new CampoExigidoNaoFornecido("pareceres");
+        }
+
+        if (resolucoes == null) {
+            throw new CampoExigidoNaoFornecido("resolucoes");
+        }
+
+        if (avaliador == null) {
+            throw new CampoExigidoNaoFornecido("avaliador");
+        }
+
+        this.pareceres = pareceres;
+        this.resolucoes = resolucoes;
+        this.avaliador = avaliador;
+        this.avaliacoes = new LruCache<String, AvaliacaoIncremental>(maximoDePareceres);
+
+        for (int i = 0; i < TRAVAS; i++) {
+            travas[i] = new Object();
+        }
+    }
+
+    /**
+     * Acrescenta a nota ao parecer e atualiza as pontuações afetadas.
+     *
+     * @throws ParecerNaoEncontrado Caso o parecer não exista.
+     *
+     * @param parecer O identificador do parecer.
+     * @param nota    A nota.
+     * @return As pontuações gravadas.
+     */
+    public List<Pontuacao> adicionaNota(String parecer, Nota nota) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if (nota == null) {
+            throw new CampoExigidoNaoFornecido("nota");
+        }
+
+        synchronized (trava(parecer)) {
+            Map<String, Pontuacao> alteradas = new LinkedHashMap<String, Pontuacao>();
+            AvaliacaoIncremental avaliacao = avaliacao(parecer, alteradas);
+
+            pareceres.adicionaNota(parecer, nota);
+
+            List<Pontuacao> gravadas = grava(parecer, alteradas, avaliacao.adicionaNota(nota));
+
+            avaliacoes.put(parecer, avaliacao);
+
+            return gravadas;
+        }
+    }
+
+    /**
+     * Remove a nota do parecer e atualiza as pontuações afetadas.
+     *
+     * @throws ParecerNaoEncontrado Caso o parecer não exista.
+     *
+     * @param parecer  O identificador do parecer.
+     * @param original O item original da nota.
+     * @return As pontuações gravadas.
+     */
+    public List<Pontuacao> removeNota(String parecer, Avaliavel original) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if (original == null) {
+            throw new CampoExigidoNaoFornecido("original");
+        }
+
+        synchronized (trava(parecer)) {
+            Map<String, Pontuacao> alteradas = new LinkedHashMap<String, Pontuacao>();
+            AvaliacaoIncremental avaliacao = avaliacao(parecer, alteradas);
+
+            pareceres.removeNota(parecer, original);
+
+            List<Pontuacao> gravadas = grava(parecer, alteradas, avaliacao.removeNota(original));
+
+            avaliacoes.put(parecer, avaliacao);
+
+            return gravadas;
+        }
+    }
+
+    /**
+     * Descarta a avaliação mantida para o parecer.
+     *
+     * @param parecer O identificador do parecer.
+     */
+    public void invalida(String parecer) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        synchronized (trava(parecer)) {
+            avaliacoes.invalida(parecer);
+        }
+    }
+
+    /**
+     * Recupera a avaliação do parecer ou, caso não esteja em cache,
+     * avalia-o integralmente, acumulando em {@code divergentes} as
+     * pontuações que diferem das persistidas. A avaliação só é
+     * mantida em cache após a gravação bem-sucedida das pontuações.
+     */
+    private AvaliacaoIncremental avaliacao(String id, Map<String, Pontuacao> divergentes) {
+        AvaliacaoIncremental avaliacao = avaliacoes.get(id);
+
+        if (avaliacao != null) {
+            return avaliacao;
+        }
+
+        Parecer parecer = pareceres.byId(id);
+
+        if (parecer == null) {
+            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+        }
+
+        Resolucao resolucao = resolucoes.byId(parecer.getResolucao());
+
+        if (resolucao == null) {
+            throw new IdentificadorDesconhecido("Resolução de id[" + parecer.getResolucao() + "] não foi encontrada.");
+        }
+
+        List<String> ids = parecer.getRadocs() == null ? new ArrayList<String>() : parecer.getRadocs();
+        List<Radoc> radocs = new ArrayList<Radoc>(ids.size());
+
+        if (pareceres instanceof ParecerRepositoryEmLote) {
+            radocs.addAll(((ParecerRepositoryEmLote) pareceres).radocsByIds(ids));
+        } else {
+            for (String radoc : ids) {
+                radocs.add(pareceres.radocById(radoc));
+            }
+        }
+
+        for (int i = 0; i < radocs.size(); i++) {
+            if (radocs.get(i) == null) {
+                throw new RadocNaoEncontrado("RADOC de id[" + ids.get(i) + "] não encontrado.");
+            }
+        }
+
+        avaliacao = avaliador.incremental(resolucao, parecer, radocs);
+
+        Map<String, Float> persistidas = new LinkedHashMap<String, Float>();
+
+        if (parecer.getPontuacoes() != null) {
+            for (Pontuacao pontuacao : parecer.getPontuacoes()) {
+                if (pontuacao.getValor() != null) {
+                    persistidas.put(pontuacao.getAtributo(), pontuacao.getValor().getFloat());
+                }
+            }
+        }
+
+        for (Pontuacao pontuacao : avaliacao.getPontuacoes()) {
+            Float persistida = persistidas.get(pontuacao.getAtributo());
+
+            if (persistida == null || Float.compare(persistida, pontuacao.getValor().getFloat()) != 0) {
+                divergentes.put(pontuacao.getAtributo(), pontuacao);
+            }
+        }
+
+        return avaliacao;
+    }
+
+    private List<Pontuacao> grava(String parecer, Map<String, Pontuacao> alteradas, List<Pontuacao> reavaliadas) {
+        for (Pontuacao pontuacao : reavaliadas) {
+            alteradas.put(pontuacao.getAtributo(), pontuacao);
+        }
+
+        List<Pontuacao> resultado = new ArrayList<Pontuacao>(alteradas.values());
+
+        if (!resultado.isEmpty()) {
+            try {
+                pareceres.atualizaPontuacoes(parecer, resultado);
+            } catch (RuntimeException e) {
+                /* A avaliação em memória não corresponde mais ao que foi persistido */
+                avaliacoes.invalida(parecer);
+                throw e;
+            }
+        }
+
+        return resultado;
+    }
+
+    private Object trava(String parecer) {
+        return travas[(parecer.hashCode() & Integer.MAX_VALUE) % TRAVAS];
+    }
+}
@@ -0,0 +1,19 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+/**
+ * Indica que as regras de uma resolução não definem um plano de
+ * avaliação válido, por exemplo por dependências circulares ou por
+ * referências a variáveis inexistentes.
+ */
+public class ResolucaoInvalida extends RuntimeException {
+
+    /**
+     * Informa uma mensagem contendo detalhes sobre o que gerou
+     * a exceção.
+     *
+     * @param mensagem Contém informações sobre o motivo da exceção.
+     */
+    public ResolucaoInvalida(String mensagem) {
+        super(mensagem);
+    }
+}
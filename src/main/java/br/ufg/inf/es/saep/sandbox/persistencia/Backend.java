@@ -0,0 +1,27 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+/**
+ * Mecanismo de armazenamento empregado pelos repositórios
+ * criados por {@link Repositorios}.
+ */
+public enum Backend {
+
+    /**
+     * Servidor MongoDB, por {@link ParecerRepositoryManager} e
+     * {@link ResolucaoRepositoryManager}.
+     */
+    MONGODB,
+
+    /**
+     * Memória do processo, sem persistência, por
+     * {@link ParecerRepositoryInMemory} e {@link ResolucaoRepositoryInMemory}.
+     */
+    MEMORIA,
+
+    /**
+     * Arquivo de log local, sem servidor de banco de dados, por
+     * {@link ParecerRepositoryStore} e {@link ResolucaoRepositoryStore}
+     * sobre {@link br.ufg.inf.es.saep.sandbox.util.MappedLogStore}.
+     */
+    ARQUIVO
+}
@@ -0,0 +1,105 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import com.mongodb.client.MongoCursor;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Conversão de cursores do MongoDB em {@link Iterator} e
+ * {@link Stream} que liberam o cursor ao término dos documentos.
+ * Também empregada por {@link RelatoCursor}.
+ */
+final class Cursores {
+
+    private Cursores() {
+    }
+
+    /**
+     * Cria stream sequencial sobre o cursor. O cursor é fechado ao
+     * término dos documentos ou pelo fechamento do stream, que deve
+     * ocorrer caso o stream não seja percorrido até o fim.
+     *
+     * @param cursor O cursor, posicionado no início.
+     * @param <T>    Tipo dos documentos do cursor.
+     * @return Stream dos documentos do cursor.
+     */
+    static <T> Stream<T> stream(MongoCursor<T> cursor) {
+        return stream(new Iterador<T>(cursor));
+    }
+
+    /**
+     * Cria stream sequencial sobre os documentos restantes do
+     * iterador. O fechamento do stream fecha o iterador.
+     *
+     * @param iterador O iterador sobre o cursor.
+     * @param <T>      Tipo dos documentos do cursor.
+     * @return Stream dos documentos restantes.
+     */
+    static <T> Stream<T> stream(final Iterador<T> iterador) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterador,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(new Runnable() {
+            public void run() {
+                iterador.close();
+            }
+        });
+    }
+
+    /**
+     * Iterador sobre o cursor, fechado assim que os documentos
+     * terminam ou por {@link #close()}.
+     *
+     * @param <T> Tipo dos documentos do cursor.
+     */
+    static final class Iterador<T> implements Iterator<T>, Closeable {
+
+        private final MongoCursor<T> cursor;
+        private boolean fechado = false;
+
+        Iterador(MongoCursor<T> cursor) {
+            this.cursor = cursor;
+        }
+
+        public boolean hasNext() {
+            if (fechado) {
+                return false;
+            }
+
+            boolean existe = cursor.hasNext();
+
+            /* Libera o cursor no servidor assim que os documentos terminam */
+            if (!existe) {
+                close();
+            }
+
+            return existe;
+        }
+
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return cursor.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        /**
+         * Fecha o cursor, liberando os recursos no servidor.
+         */
+        public void close() {
+            if (!fechado) {
+                fechado = true;
+                cursor.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.CampoExigidoNaoFornecido;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Apoio às consultas por vários identificadores, que leem cada
+ * objeto uma única vez e devolvem os resultados na ordem pedida.
+ */
+final class Identificadores {
+
+    private Identificadores() {
+    }
+
+    /**
+     * Identificadores sem repetição, na ordem da primeira ocorrência.
+     *
+     * @param ids   Os identificadores.
+     * @param campo Nome do argumento, empregado na exceção.
+     * @return Os identificadores distintos.
+     */
+    static List<String> distintos(List<String> ids, String campo) {
+        if (ids == null) {
+            throw new CampoExigidoNaoFornecido(campo);
+        }
+
+        Set<String> distintos = new LinkedHashSet<String>(ids.size());
+
+        for (String id : ids) {
+            if (id == null) {
+                throw new CampoExigidoNaoFornecido(campo);
+            }
+
+            distintos.add(id);
+        }
+
+        return new ArrayList<String>(distintos);
+    }
+
+    /**
+     * Objetos encontrados na ordem dos identificadores, com
+     * {@code null} na posição dos não encontrados.
+     */
+    static <T> List<T> naOrdem(List<String> ids, Map<String, T> encontrados) {
+        List<T> resultado = new ArrayList<T>(ids.size());
+
+        for (String id : ids) {
+            resultado.add(encontrados.get(id));
+        }
+
+        return resultado;
+    }
+}
@@ -0,0 +1,41 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+/**
+ * Forma de armazenamento das notas de um parecer.
+ */
+public enum LayoutNotas {
+
+    /**
+     * Notas armazenadas na coleção de notas, associadas ao parecer
+     * pelo campo {@code id_parecer}; o parecer mantém apenas a lista
+     * dos identificadores. É o layout original.
+     */
+    NORMALIZADO,
+
+    /**
+     * Notas armazenadas no próprio documento do parecer, no vetor
+     * {@code notas}. A leitura do parecer exige uma única consulta
+     * e cada alteração de nota, em geral, uma única escrita.
+     *
+     * <p>O conteúdo dos pareceres é o mesmo em ambos os layouts,
+     * inclusive a substituição da nota de um item que já possui nota.
+     */
+    EMBUTIDO;
+
+    /**
+     * Propriedade do sistema que define o layout padrão.
+     */
+    public final static String PROPRIEDADE = "saep.notas.layout";
+
+    /**
+     * Recupera o layout definido pela propriedade do sistema
+     * {@link #PROPRIEDADE} ou {@link #NORMALIZADO}, caso ausente.
+     *
+     * @return O layout configurado.
+     */
+    public static LayoutNotas doSistema() {
+        String valor = System.getProperty(PROPRIEDADE);
+
+        return valor == null ? NORMALIZADO : valueOf(valor.trim().toUpperCase());
+    }
+}
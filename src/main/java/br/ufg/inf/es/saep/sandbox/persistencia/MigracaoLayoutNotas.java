@@ -0,0 +1,206 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.CampoExigidoNaoFornecido;
+import br.ufg.inf.es.saep.sandbox.util.ChaveAvaliavel;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBProvider;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Projections.include;
+
+/**
+ * Converte as notas dos pareceres persistidos entre os layouts
+ * {@link LayoutNotas#NORMALIZADO} e {@link LayoutNotas#EMBUTIDO}.
+ * <p>
+ * A conversão é realizada parecer a parecer. Cada parecer já no
+ * layout de destino é preservado, de modo que uma migração
+ * interrompida pode ser simplesmente executada novamente. Durante
+ * a migração nenhum gerenciador deve alterar as notas.
+ */
+public class MigracaoLayoutNotas {
+
+    private final MongoDatabase db;
+
+    /**
+     * Cria a migração sobre a base de dados do provedor fornecido.
+     *
+     * @param provider Provedor de conexões com o MongoDB.
+     */
+    public MigracaoLayoutNotas(MongoDBProvider provider) {
+        if (provider == null) {
+            throw new CampoExigidoNaoFornecido("provider");
+        }
+
+        db = provider.getDatabase();
+    }
+
+    /**
+     * Converte as notas de todos os pareceres para o layout indicado.
+     *
+     * @param destino Layout de destino.
+     * @return Quantidade de pareceres convertidos.
+     */
+    public int migra(LayoutNotas destino) {
+        if (destino == null) {
+            throw new CampoExigidoNaoFornecido("destino");
+        }
+
+        return destino == LayoutNotas.EMBUTIDO ? paraEmbutido() : paraNormalizado();
+    }
+
+    /**
+     * Move as notas da coleção de notas para o vetor {@code notas}
+     * de cada parecer, na ordem dos identificadores do vetor,
+     * removendo-as em seguida da coleção. Notas não referenciadas
+     * pelo parecer são descartadas.
+     *
+     * @return Quantidade de pareceres convertidos.
+     */
+    public int paraEmbutido() {
+        MongoCollection<Document> pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+        MongoCollection<Document> notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+        int convertidos = 0;
+
+        for (Document docParecer : pareceresCollection.find().projection(include("_id", "notas"))) {
+            Object id = docParecer.get("_id");
+
+            if (!isEmbutido(docParecer)) {
+                List<?> notasObjId = docParecer.get("notas") instanceof List
+                        ? (List<?>) docParecer.get("notas") : new ArrayList<Object>();
+                Map<Object, Document> lidas = new HashMap<Object, Document>();
+                List<Document> notas = new ArrayList<Document>();
+
+                /*
+                 * Apenas as notas referenciadas pelo parecer, como em byId: notas órfãs de
+                 * adicionaNota ou removeNota interrompidos não são restauradas
+                 */
+                if (!notasObjId.isEmpty()) {
+                    for (Document docNota : notasCollection.find(in("_id", notasObjId))) {
+                        lidas.put(docNota.get("_id"), docNota);
+                    }
+                }
+
+                for (Object objId : notasObjId) {
+                    Document docNota = lidas.get(objId);
+
+                    if (docNota == null) {
+                        continue;
+                    }
+
+                    docNota = new Document(docNota);
+                    docNota.remove("_id");
+                    docNota.remove("id_parecer");
+
+                    if (docNota.get(ChaveAvaliavel.CAMPO) == null) {
+                        docNota.put(ChaveAvaliavel.CAMPO, ChaveAvaliavel.de((Document) docNota.get("original")));
+                    }
+
+                    notas.add(docNota);
+                }
+
+                pareceresCollection.updateOne(new Document("_id", id),
+                        new Document("$set", new Document("notas", notas)));
+                convertidos++;
+            }
+
+            /* Também remove notas restantes de uma execução interrompida */
+            notasCollection.deleteMany(new Document("id_parecer", id));
+        }
+
+        return convertidos;
+    }
+
+    /**
+     * Move as notas do vetor {@code notas} de cada parecer para a
+     * coleção de notas, mantendo no parecer apenas os identificadores.
+     *
+     * @return Quantidade de pareceres convertidos.
+     */
+    public int paraNormalizado() {
+        MongoCollection<Document> pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+        MongoCollection<Document> notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+        int convertidos = 0;
+
+        for (Document docParecer : pareceresCollection.find().projection(include("_id", "notas"))) {
+            if (!isEmbutido(docParecer)) {
+                continue;
+            }
+
+            Object id = docParecer.get("_id");
+            List<Document> notas = new ArrayList<Document>();
+            List<ObjectId> notasObjId = new ArrayList<ObjectId>();
+
+            for (Object nota : (List<?>) docParecer.get("notas")) {
+                Document docNota = new Document((Document) nota);
+                ObjectId objId = new ObjectId();
+
+                docNota.put("_id", objId);
+                docNota.put("id_parecer", id);
+
+                if (docNota.get(ChaveAvaliavel.CAMPO) == null) {
+                    docNota.put(ChaveAvaliavel.CAMPO, ChaveAvaliavel.de((Document) docNota.get("original")));
+                }
+
+                notas.add(docNota);
+                notasObjId.add(objId);
+            }
+
+            /* Descarta notas inseridas por uma execução interrompida */
+            notasCollection.deleteMany(new Document("id_parecer", id));
+
+            if (!notas.isEmpty()) {
+                notasCollection.insertMany(notas, new InsertManyOptions().ordered(false));
+            }
+
+            pareceresCollection.updateOne(new Document("_id", id),
+                    new Document("$set", new Document("notas", notasObjId)));
+            convertidos++;
+        }
+
+        return convertidos;
+    }
+
+    /**
+     * Um parecer está no layout embutido se o vetor {@code notas}
+     * contém documentos. Um vetor vazio é válido em ambos os layouts.
+     */
+    private static boolean isEmbutido(Document docParecer) {
+        Object notas = docParecer.get("notas");
+
+        if (!(notas instanceof List) || ((List<?>) notas).isEmpty()) {
+            return false;
+        }
+
+        return ((List<?>) notas).get(0) instanceof Document;
+    }
+
+    /**
+     * Executa a migração sobre a base configurada em {@link MongoDBUtil}.
+     *
+     * @param args Layout de destino: {@code embutido} ou {@code normalizado}.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Uso: MigracaoLayoutNotas <embutido|normalizado>");
+            System.exit(1);
+        }
+
+        LayoutNotas destino = LayoutNotas.valueOf(args[0].trim().toUpperCase());
+        int convertidos = new MigracaoLayoutNotas(MongoDBUtil.getProvider()).migra(destino);
+
+        System.out.println(convertidos + " parecer(es) convertido(s) para o layout " + destino + ".");
+        MongoDBUtil.fechar();
+    }
+}
@@ -0,0 +1,306 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.CampoExigidoNaoFornecido;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBProvider;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.lt;
+import static com.mongodb.client.model.Projections.include;
+import static com.mongodb.client.model.Sorts.ascending;
+
+/**
+ * Remove, em lotes, os documentos deixados por operações de
+ * {@link ParecerRepositoryManager} e {@link ParecerRepositoryAsync}
+ * interrompidas antes da escrita que as confirma:
+ * <ul>
+ *     <li>notas não referenciadas pelo vetor de notas de um parecer;</li>
+ *     <li>RADOCs marcados com {@link Constants#DB_CAMPO_PENDENTE}, com
+ *     os seus relatos;</li>
+ *     <li>relatos cujo RADOC não existe.</li>
+ * </ul>
+ * <p>
+ * Apenas documentos mais antigos que {@link #setIdadeMinima(long)}
+ * são considerados, de modo que operações em andamento não são
+ * afetadas. Cada execução de {@link #varre()} examina no máximo um
+ * lote de cada coleção e prossegue, na execução seguinte, a partir
+ * do ponto em que parou.
+ */
+public class OrphanSweeper implements AutoCloseable {
+
+    /**
+     * Idade mínima padrão, em milissegundos, de um documento
+     * considerado abandonado.
+     */
+    public final static long IDADE_MINIMA_PADRAO = TimeUnit.MINUTES.toMillis(10);
+
+    private final MongoDatabase db;
+    private long idadeMinima = IDADE_MINIMA_PADRAO;
+    private int tamanhoLote = Constants.TAMANHO_LOTE_PADRAO;
+
+    /* Pontos de retomada da varredura de notas e de relatos */
+    private ObjectId ultimaNota = null;
+    private ObjectId ultimoRelato = null;
+
+    private ScheduledExecutorService executor = null;
+    private volatile RuntimeException ultimaFalha = null;
+
+    /**
+     * Cria o varredor sobre a base de dados do provedor fornecido.
+     *
+     * @param provider Provedor de conexões com o MongoDB.
+     */
+    public OrphanSweeper(MongoDBProvider provider) {
+        if (provider == null) {
+            throw new CampoExigidoNaoFornecido("provider");
+        }
+
+        db = provider.getDatabase();
+    }
+
+    /**
+     * Define a idade mínima dos documentos removidos. Deve exceder a
+     * duração da mais longa gravação de parecer ou RADOC.
+     *
+     * @param idadeMinima Idade mínima, em milissegundos.
+     */
+    public void setIdadeMinima(long idadeMinima) {
+        if (idadeMinima < 0) {
+            throw new IllegalArgumentException("idadeMinima não pode ser negativa.");
+        }
+
+        this.idadeMinima = idadeMinima;
+    }
+
+    /**
+     * Define a quantidade máxima de documentos examinados por coleção
+     * em cada execução de {@link #varre()}.
+     *
+     * @param tamanhoLote Quantidade de documentos por lote, maior que zero.
+     */
+    public void setTamanhoLote(int tamanhoLote) {
+        if (tamanhoLote < 1) {
+            throw new IllegalArgumentException("tamanhoLote deve ser maior que zero.");
+        }
+
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * Executa uma varredura sobre um lote de cada coleção.
+     *
+     * @return Quantidade de documentos removidos.
+     */
+    public synchronized int varre() {
+        Date limite = new Date(System.currentTimeMillis() - idadeMinima);
+
+        return varreRadocsPendentes(limite) + varreNotas(limite) + varreRelatos(limite);
+    }
+
+    /**
+     * Executa {@link #varre()} periodicamente, em uma thread
+     * de segundo plano, até que {@link #close()} seja chamado.
+     *
+     * @param periodo Intervalo entre execuções.
+     * @param unidade Unidade de {@code periodo}.
+     */
+    public synchronized void inicia(long periodo, TimeUnit unidade) {
+        if (unidade == null) {
+            throw new CampoExigidoNaoFornecido("unidade");
+        }
+
+        if (executor != null) {
+            throw new IllegalStateException("Varredura já iniciada.");
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "saep-orphan-sweeper");
+
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                /* Uma falha não interrompe as execuções seguintes */
+                try {
+                    varre();
+                    ultimaFalha = null;
+                } catch (RuntimeException e) {
+                    ultimaFalha = e;
+                }
+            }
+        }, periodo, periodo, unidade);
+    }
+
+    /**
+     * Recupera a falha da última execução em segundo plano.
+     *
+     * @return A exceção lançada ou {@code null}, caso a última
+     * execução tenha sido concluída.
+     */
+    public RuntimeException getUltimaFalha() {
+        return ultimaFalha;
+    }
+
+    /**
+     * Interrompe as execuções em segundo plano.
+     */
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Remove RADOCs pendentes há mais tempo que a idade mínima,
+     * apagando primeiro os seus relatos. Uma gravação pode assumir o
+     * RADOC durante a remoção, conforme
+     * {@link ParecerRepositoryManager#persisteRadoc}; a marca que ela
+     * grava e a idade dos relatos evitam que seja afetada.
+     */
+    private int varreRadocsPendentes(Date limite) {
+        MongoCollection<Document> radocsCollection = db.getCollection(Constants.DB_COLLECTION_RADOCS);
+        MongoCollection<Document> relatosCollection = db.getCollection(Constants.DB_COLLECTION_RELATOS);
+        int removidos = 0;
+
+        for (Document docRadoc : radocsCollection.find(lt(Constants.DB_CAMPO_PENDENTE, limite))
+                .projection(include("_id", Constants.DB_CAMPO_PENDENTE))
+                .limit(tamanhoLote)
+                .into(new ArrayList<Document>())) {
+            Object id = docRadoc.get("_id");
+
+            /* Preserva os relatos de uma gravação que tenha assumido o RADOC após a consulta */
+            removidos += relatosCollection.deleteMany(and(eq("id_radoc", id), lt("_id", new ObjectId(limite))))
+                    .getDeletedCount();
+            removidos += radocsCollection.deleteOne(and(eq("_id", id),
+                    eq(Constants.DB_CAMPO_PENDENTE, docRadoc.get(Constants.DB_CAMPO_PENDENTE)))).getDeletedCount();
+        }
+
+        return removidos;
+    }
+
+    /**
+     * Remove, do próximo lote de notas, aquelas que não são
+     * referenciadas pelo parecer indicado em {@code id_parecer}.
+     */
+    private int varreNotas(Date limite) {
+        MongoCollection<Document> notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+        MongoCollection<Document> pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+        List<Document> lote = proximoLote(notasCollection, ultimaNota, limite, "id_parecer");
+        Set<Object> idsPareceres = new HashSet<Object>();
+        Set<Object> referenciadas = new HashSet<Object>();
+        List<ObjectId> orfas = new ArrayList<ObjectId>();
+
+        ultimaNota = proximoPonto(lote);
+
+        for (Document docNota : lote) {
+            idsPareceres.add(docNota.get("id_parecer"));
+        }
+
+        if (!idsPareceres.isEmpty()) {
+            for (Document docParecer : pareceresCollection.find(in("_id", idsPareceres)).projection(include("notas"))) {
+                List<?> notas = (List<?>) docParecer.get("notas");
+
+                if (notas != null) {
+                    referenciadas.addAll(notas);
+                }
+            }
+        }
+
+        for (Document docNota : lote) {
+            if (!referenciadas.contains(docNota.get("_id"))) {
+                orfas.add(docNota.getObjectId("_id"));
+            }
+        }
+
+        return orfas.isEmpty() ? 0 : (int) notasCollection.deleteMany(in("_id", orfas)).getDeletedCount();
+    }
+
+    /**
+     * Remove, do próximo lote de relatos, aqueles cujo RADOC não
+     * existe. Relatos de RADOCs pendentes são tratados por
+     * {@link #varreRadocsPendentes(Date)}.
+     */
+    private int varreRelatos(Date limite) {
+        MongoCollection<Document> relatosCollection = db.getCollection(Constants.DB_COLLECTION_RELATOS);
+        MongoCollection<Document> radocsCollection = db.getCollection(Constants.DB_COLLECTION_RADOCS);
+        List<Document> lote = proximoLote(relatosCollection, ultimoRelato, limite, "id_radoc");
+        Set<Object> idsRadocs = new HashSet<Object>();
+        Set<Object> existentes = new HashSet<Object>();
+        List<ObjectId> orfaos = new ArrayList<ObjectId>();
+
+        ultimoRelato = proximoPonto(lote);
+
+        for (Document docRelato : lote) {
+            idsRadocs.add(docRelato.get("id_radoc"));
+        }
+
+        if (!idsRadocs.isEmpty()) {
+            for (Document docRadoc : radocsCollection.find(in("_id", idsRadocs)).projection(include("_id"))) {
+                existentes.add(docRadoc.get("_id"));
+            }
+        }
+
+        for (Document docRelato : lote) {
+            if (!existentes.contains(docRelato.get("id_radoc"))) {
+                orfaos.add(docRelato.getObjectId("_id"));
+            }
+        }
+
+        return orfaos.isEmpty() ? 0 : (int) relatosCollection.deleteMany(in("_id", orfaos)).getDeletedCount();
+    }
+
+    /**
+     * Recupera, em ordem de {@code _id}, o lote de documentos criados
+     * antes de {@code limite} e posteriores ao ponto de retomada.
+     */
+    private List<Document> proximoLote(MongoCollection<Document> colecao, ObjectId inicio, Date limite,
+                                       String campoPai) {
+        Bson filtro = lt("_id", new ObjectId(limite));
+
+        if (inicio != null) {
+            filtro = and(gt("_id", inicio), filtro);
+        }
+
+        return colecao.find(filtro)
+                .projection(include("_id", campoPai))
+                .sort(ascending("_id"))
+                .limit(tamanhoLote)
+                .into(new ArrayList<Document>());
+    }
+
+    /**
+     * Ponto de retomada após o lote; um lote incompleto encerra a
+     * passagem pela coleção e a próxima recomeça do início.
+     */
+    private ObjectId proximoPonto(List<Document> lote) {
+        if (lote.size() < tamanhoLote) {
+            return null;
+        }
+
+        return lote.get(lote.size() - 1).getObjectId("_id");
+    }
+}
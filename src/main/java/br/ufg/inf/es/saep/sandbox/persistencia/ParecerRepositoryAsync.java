@@ -0,0 +1,663 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.AsyncUtil;
+import br.ufg.inf.es.saep.sandbox.util.ChaveAvaliavel;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.DocumentConverter;
+import br.ufg.inf.es.saep.sandbox.util.IndexInitializer;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBProvider;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
+
+import com.mongodb.Block;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.async.client.MongoCollection;
+import com.mongodb.async.client.MongoDatabase;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+import static br.ufg.inf.es.saep.sandbox.util.AsyncUtil.falha;
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.lt;
+import static com.mongodb.client.model.Projections.include;
+
+/**
+ * Variante assíncrona de {@link ParecerRepositoryManager}, construída
+ * sobre o driver assíncrono do MongoDB.
+ *
+ * <p>As operações não bloqueiam a thread chamadora: cada uma retorna
+ * um {@link CompletableFuture} completado quando o banco de dados
+ * responde. Um pequeno número de threads pode, dessa forma, manter
+ * milhares de consultas simultâneas em andamento, limitadas apenas
+ * pelo pool de conexões configurado em {@link MongoDBProvider}.
+ *
+ * <p>O formato dos documentos e a semântica de cada operação são os
+ * mesmos de {@link ParecerRepositoryManager} no layout
+ * {@link LayoutNotas#NORMALIZADO}, o único suportado por esta variante.
+ * Argumentos obrigatórios
+ * ausentes geram {@link CampoExigidoNaoFornecido} imediatamente; as
+ * demais situações excepcionais completam o futuro com a exceção
+ * correspondente.
+ *
+ * <p>Os estágios dependentes registrados sem executor são executados
+ * pelas threads de I/O do driver e não devem bloquear.
+ */
+public class ParecerRepositoryAsync {
+
+    private final MongoDatabase db;
+    private final DocumentConverter conversor;
+
+    /**
+     * Quantidade máxima de relatos enviados ao banco de dados em
+     * cada inserção em lote realizada por {@link #persisteRadoc(Radoc)}.
+     */
+    private int tamanhoLote = Constants.TAMANHO_LOTE_PADRAO;
+
+    /**
+     * Cria repositório assíncrono a partir do provedor padrão de
+     * {@link MongoDBUtil}.
+     */
+    public ParecerRepositoryAsync() {
+        this(MongoDBUtil.getProvider());
+    }
+
+    /**
+     * Cria repositório assíncrono que utiliza o cliente assíncrono
+     * compartilhado do provedor fornecido.
+     *
+     * @param provider Provedor de conexões com o MongoDB.
+     * @throws IllegalStateException Caso o layout das notas do
+     *                               sistema seja {@link LayoutNotas#EMBUTIDO}.
+     */
+    public ParecerRepositoryAsync(MongoDBProvider provider) {
+        if (provider == null) {
+            throw new CampoExigidoNaoFornecido("provider");
+        }
+
+        /* Nos pareceres embutidos, o vetor notas contém documentos e não identificadores */
+        if (LayoutNotas.doSistema() != LayoutNotas.NORMALIZADO) {
+            throw new IllegalStateException("Repositório assíncrono não suporta o layout de notas "
+                    + LayoutNotas.doSistema() + ".");
+        }
+
+        db = provider.getAsyncDatabase();
+        conversor = new DocumentConverter(SaepCodecs.gson());
+
+        /* Índices das consultas por id_parecer e id_radoc */
+        IndexInitializer.garante(provider);
+    }
+
+    /**
+     * Adiciona nota ao parecer, substituindo a nota existente para o
+     * mesmo item original.
+     *
+     * @param id O identificador único do parecer.
+     * @param nota A alteração a ser acrescentada ao parecer.
+     * @return Futuro completado após a inclusão ou com
+     * {@link ParecerNaoEncontrado}.
+     * @see ParecerRepositoryManager#adicionaNota(String, Nota)
+     */
+    public CompletableFuture<Void> adicionaNota(final String id, Nota nota) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        if (nota == null) {
+            throw new CampoExigidoNaoFornecido("nota");
+        }
+
+        final Document notaDocument = conversor.toDocument(nota);
+        final String chave = ChaveAvaliavel.de((Document) notaDocument.get("original"));
+        final ObjectId objId = new ObjectId();
+
+        notaDocument.put("_id", objId);
+        notaDocument.append("id_parecer", id);
+        notaDocument.append(ChaveAvaliavel.CAMPO, chave);
+
+        return AsyncUtil.<Void>executa(cb -> notas().insertOne(notaDocument, cb))
+                .thenCompose(v -> AsyncUtil.<ArrayList<Document>>executa(cb -> notas()
+                        .find(and(eq("id_parecer", id), eq(ChaveAvaliavel.CAMPO, chave), lt("_id", objId)))
+                        .projection(include("_id"))
+                        .into(new ArrayList<Document>(), cb)))
+                .thenCompose(docsNotas -> {
+                    final List<ObjectId> anteriores = new ArrayList<ObjectId>();
+
+                    for (Document docNota : docsNotas) {
+                        anteriores.add(docNota.getObjectId("_id"));
+                    }
+
+                    return referenciaNota(id, objId, anteriores).thenCompose(r -> {
+                        if (r.getMatchedCount() == 0) {
+                            return AsyncUtil.<DeleteResult>executa(cb -> notas().deleteOne(eq("_id", objId), cb))
+                                    .thenCompose(d -> falha(new ParecerNaoEncontrado("Parecer de id[" + id
+                                            + "] não foi encontrado.")));
+                        }
+
+                        if (anteriores.isEmpty()) {
+                            return CompletableFuture.<Void>completedFuture(null);
+                        }
+
+                        return AsyncUtil.<DeleteResult>executa(cb -> notas().deleteMany(in("_id", anteriores), cb))
+                                .thenApply(d -> (Void) null);
+                    });
+                });
+    }
+
+    /**
+     * Inclui a nota no vetor de notas do parecer, na posição da
+     * primeira das notas anteriores do mesmo item, caso referenciada,
+     * deixando de referenciar as demais.
+     *
+     * @see ParecerRepositoryManager#adicionaNota(String, Nota)
+     */
+    private CompletableFuture<UpdateResult> referenciaNota(final String id, final ObjectId objId,
+                                                           final List<ObjectId> anteriores) {
+        if (anteriores.isEmpty()) {
+            return AsyncUtil.<UpdateResult>executa(cb -> pareceres().updateOne(new Document("_id", id),
+                    new Document("$push", new Document("notas", objId)), cb));
+        }
+
+        return AsyncUtil.<UpdateResult>executa(cb -> pareceres().updateOne(and(eq("_id", id), in("notas", anteriores)),
+                new Document("$set", new Document("notas.$", objId)), cb))
+                .thenCompose(r -> {
+                    /* Notas anteriores não referenciadas, de gravações incompletas */
+                    if (r.getMatchedCount() == 0) {
+                        return AsyncUtil.<UpdateResult>executa(cb -> pareceres().updateOne(new Document("_id", id),
+                                new Document("$push", new Document("notas", objId)), cb));
+                    }
+
+                    if (anteriores.size() == 1) {
+                        return CompletableFuture.completedFuture(r);
+                    }
+
+                    return AsyncUtil.<UpdateResult>executa(cb -> pareceres().updateOne(new Document("_id", id),
+                            new Document("$pullAll", new Document("notas", anteriores)), cb));
+                });
+    }
+
+    /**
+     * Remove as notas cujo item original é fornecido, localizadas
+     * pela chave canônica do item.
+     *
+     * @param id O identificador único do parecer.
+     * @param original Item que participa da nota a ser removida
+     *                 como origem.
+     * @return Futuro completado após a remoção ou com
+     * {@link ParecerNaoEncontrado}.
+     * @see ParecerRepositoryManager#removeNota(String, Avaliavel)
+     */
+    public CompletableFuture<Void> removeNota(final String id, Avaliavel original) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        if (original == null) {
+            throw new CampoExigidoNaoFornecido("original");
+        }
+
+        final String chave = ChaveAvaliavel.de(conversor.toDocument(original));
+
+        return AsyncUtil.<ArrayList<Document>>executa(cb -> notas()
+                .find(and(eq("id_parecer", id), eq(ChaveAvaliavel.CAMPO, chave)))
+                .projection(include("_id"))
+                .into(new ArrayList<Document>(), cb))
+                .thenCompose(docsNotas -> {
+                    final List<ObjectId> notasObjId = new ArrayList<ObjectId>();
+
+                    for (Document docNota : docsNotas) {
+                        notasObjId.add(docNota.getObjectId("_id"));
+                    }
+
+                    if (notasObjId.isEmpty()) {
+                        return existeParecer(id).thenCompose(existe -> existe
+                                ? CompletableFuture.<Void>completedFuture(null)
+                                : falha(new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.")));
+                    }
+
+                    return AsyncUtil.<UpdateResult>executa(cb -> pareceres().updateOne(
+                                    new Document("_id", id),
+                                    new Document("$pullAll", new Document("notas", notasObjId)), cb))
+                            .thenCompose(r -> {
+                                if (r.getMatchedCount() == 0) {
+                                    return falha(new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado."));
+                                }
+
+                                return AsyncUtil.<DeleteResult>executa(cb -> notas().deleteMany(in("_id", notasObjId), cb))
+                                        .thenApply(d -> (Void) null);
+                            });
+                });
+    }
+
+    /**
+     * Acrescenta o parecer, e todas as suas notas, ao repositório.
+     *
+     * @param parecer O parecer a ser persistido.
+     * @return Futuro completado após a inclusão ou com
+     * {@link IdentificadorExistente}.
+     * @see ParecerRepositoryManager#persisteParecer(Parecer)
+     */
+    public CompletableFuture<Void> persisteParecer(final Parecer parecer) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        final Document docParecer = conversor.toDocument(parecer);
+        final List<Document> docsNotas = new ArrayList<Document>();
+        final List<ObjectId> notasObjId = new ArrayList<ObjectId>();
+
+        docParecer.remove("id");
+        docParecer.remove("notas");
+        docParecer.put("_id", parecer.getId());
+
+        if (parecer.getNotas() != null) {
+            for (Nota nota : parecer.getNotas()) {
+                Document notaDocument = conversor.toDocument(nota);
+                ObjectId objId = new ObjectId();
+
+                notaDocument.put("_id", objId);
+                notaDocument.append("id_parecer", parecer.getId());
+                notaDocument.append(ChaveAvaliavel.CAMPO, ChaveAvaliavel.de((Document) notaDocument.get("original")));
+                docsNotas.add(notaDocument);
+                notasObjId.add(objId);
+            }
+        }
+
+        docParecer.put("notas", notasObjId);
+
+        CompletableFuture<Void> insercaoNotas = docsNotas.isEmpty()
+                ? CompletableFuture.<Void>completedFuture(null)
+                : AsyncUtil.<Void>executa(cb -> notas().insertMany(docsNotas, new InsertManyOptions().ordered(false), cb));
+
+        /* As notas são gravadas antes do parecer, que as torna visíveis de uma só vez */
+        return insercaoNotas
+                .thenCompose(v -> AsyncUtil.<Void>executa(cb -> pareceres().insertOne(docParecer, cb))
+                        .handle((r, t) -> t)
+                        .thenCompose(t -> {
+                            if (t == null) {
+                                return CompletableFuture.<Void>completedFuture(null);
+                            }
+
+                            RuntimeException excecao = identificadorExistente(t, "Parecer de id[" + parecer.getId() + "] já existe.");
+
+                            if (notasObjId.isEmpty()) {
+                                return falha(excecao);
+                            }
+
+                            return AsyncUtil.<DeleteResult>executa(cb -> notas().deleteMany(in("_id", notasObjId), cb))
+                                    .handle((r, t2) -> {
+                                        throw excecao;
+                                    });
+                        }));
+    }
+
+    /**
+     * Altera a fundamentação do parecer.
+     *
+     * @param parecer O identificador único do parecer.
+     * @param fundamentacao Novo texto da fundamentação do parecer.
+     * @return Futuro completado após a alteração ou com
+     * {@link ParecerNaoEncontrado}.
+     * @see ParecerRepositoryManager#atualizaFundamentacao(String, String)
+     */
+    public CompletableFuture<Void> atualizaFundamentacao(final String parecer, final String fundamentacao) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if (fundamentacao == null) {
+            throw new CampoExigidoNaoFornecido("fundamentacao");
+        }
+
+        return AsyncUtil.<UpdateResult>executa(cb -> pareceres().updateOne(new Document("_id", parecer),
+                new Document("$set", new Document("fundamentacao", fundamentacao)), cb))
+                .thenApply(resultado -> {
+                    if (resultado.getMatchedCount() == 0) {
+                        throw new ParecerNaoEncontrado("Parecer de id[" + parecer + "] não foi encontrado.");
+                    }
+
+                    return null;
+                });
+    }
+
+    /**
+     * Recupera o parecer pelo identificador.
+     *
+     * @param id O identificador do parecer.
+     * @return Futuro completado com o parecer ou com {@code null},
+     * caso o identificador não defina um parecer.
+     * @see ParecerRepositoryManager#byId(String)
+     */
+    public CompletableFuture<Parecer> byId(final String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        return AsyncUtil.<Document>executa(cb -> pareceres().find(eq("_id", id)).first(cb))
+                .thenCompose(docParecer -> {
+                    if (docParecer == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+
+                    final List<?> notasObjId = (List<?>) docParecer.get("notas");
+
+                    docParecer.put("id", docParecer.get("_id"));
+
+                    if (notasObjId == null || notasObjId.isEmpty()) {
+                        docParecer.put("notas", new ArrayList<Document>());
+
+                        return CompletableFuture.completedFuture(conversor.fromDocument(docParecer, Parecer.class));
+                    }
+
+                    /* Apenas as notas referenciadas pelo parecer; notas de gravações incompletas são ignoradas */
+                    return AsyncUtil.<ArrayList<Document>>executa(cb -> notas().find(in("_id", notasObjId))
+                            .into(new ArrayList<Document>(), cb))
+                            .thenApply(docsNotas -> {
+                                docParecer.put("notas", docsNotas);
+
+                                return conversor.fromDocument(docParecer, Parecer.class);
+                            });
+                });
+    }
+
+    /**
+     * Remove o parecer e as suas notas.
+     *
+     * @param id O identificador único do parecer.
+     * @return Futuro completado após a remoção ou com
+     * {@link ParecerNaoEncontrado}.
+     * @see ParecerRepositoryManager#removeParecer(String)
+     */
+    public CompletableFuture<Void> removeParecer(final String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        return AsyncUtil.<DeleteResult>executa(cb -> pareceres().deleteOne(new Document("_id", id), cb))
+                .thenCompose(resultado -> {
+                    if (resultado.getDeletedCount() == 0) {
+                        return falha(new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado."));
+                    }
+
+                    return AsyncUtil.<DeleteResult>executa(cb -> notas().deleteMany(new Document("id_parecer", id), cb))
+                            .thenApply(r -> (Void) null);
+                });
+    }
+
+    /**
+     * Recupera o RADOC identificado pelo argumento.
+     *
+     * @param identificador O identificador único do RADOC.
+     * @return Futuro completado com o RADOC ou com {@code null},
+     * caso o identificador não defina um RADOC.
+     * @see ParecerRepositoryManager#radocById(String)
+     */
+    public CompletableFuture<Radoc> radocById(final String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        return AsyncUtil.<Document>executa(cb -> radocs().find(ParecerRepositoryManager.confirmado(identificador)).first(cb))
+                .thenCompose(docRadoc -> {
+                    if (docRadoc == null) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+
+                    return AsyncUtil.<ArrayList<Document>>executa(cb -> relatos().find(eq("id_radoc", identificador))
+                            .into(new ArrayList<Document>(), cb))
+                            .thenApply(docsRelatos -> {
+                                docRadoc.put("id", docRadoc.get("_id"));
+                                docRadoc.put("relatos", docsRelatos);
+                                docRadoc.remove(Constants.DB_CAMPO_RESUMO);
+
+                                return conversor.fromDocument(docRadoc, Radoc.class);
+                            });
+                });
+    }
+
+    /**
+     * Percorre os relatos do RADOC sem mantê-los todos em memória.
+     *
+     * <p>Os relatos são solicitados ao servidor em lotes de
+     * {@code tamanhoLote}; o lote seguinte só é requisitado após o
+     * consumidor processar todos os relatos do lote corrente, de modo
+     * que um consumidor lento reduz o ritmo da leitura.
+     *
+     * @param identificador O identificador único do RADOC.
+     * @param tamanhoLote Quantidade de relatos recuperados por lote,
+     *                    maior que zero.
+     * @param consumidor Recebe cada relato, na thread de I/O do driver.
+     * @return Futuro completado após o último relato ser consumido.
+     */
+    public CompletableFuture<Void> relatos(final String identificador, final int tamanhoLote,
+                                           final Consumer<Relato> consumidor) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        if (consumidor == null) {
+            throw new CampoExigidoNaoFornecido("consumidor");
+        }
+
+        if (tamanhoLote < 1) {
+            throw new IllegalArgumentException("tamanhoLote deve ser maior que zero.");
+        }
+
+        return AsyncUtil.<Long>executa(cb -> radocs().count(ParecerRepositoryManager.confirmado(identificador),
+                new CountOptions().limit(1), cb))
+                .thenCompose(quantidade -> {
+                    if (quantidade == 0) {
+                        return falha(new RadocNaoEncontrado("Radoc de id[" + identificador + "] não foi encontrado."));
+                    }
+
+                    return AsyncUtil.<Void>executa(cb -> relatos().find(eq("id_radoc", identificador))
+                            .projection(new Document("_id", 0).append("id_radoc", 0))
+                            .batchSize(tamanhoLote)
+                            .forEach(new Block<Document>() {
+                                public void apply(Document docRelato) {
+                                    consumidor.accept(conversor.fromDocument(docRelato, Relato.class));
+                                }
+                            }, cb));
+                });
+    }
+
+    /**
+     * Persiste o RADOC. Os relatos são enviados em lotes sucessivos
+     * de até {@link #setTamanhoLote(int)} documentos; cada lote só é
+     * serializado após a confirmação do anterior, o que limita a
+     * memória ocupada por RADOCs grandes.
+     *
+     * @param radoc O conjunto de relatos a ser persistido.
+     * @return Futuro completado com o identificador único do RADOC.
+     * @see ParecerRepositoryManager#persisteRadoc(Radoc)
+     */
+    public CompletableFuture<String> persisteRadoc(final Radoc radoc) {
+        if (radoc == null) {
+            throw new CampoExigidoNaoFornecido("radoc");
+        }
+
+        final Document docRadoc = conversor.toDocument(radoc);
+        final List<ObjectId> relatosObjId = new ArrayList<ObjectId>();
+        final List<Relato> relatos = radoc.getRelatos() == null ? new ArrayList<Relato>() : radoc.getRelatos();
+        final Date inicio = new Date();
+
+        docRadoc.remove("id");
+        docRadoc.put("_id", radoc.getId());
+        docRadoc.put("relatos", new ArrayList<ObjectId>());
+        docRadoc.put(Constants.DB_CAMPO_PENDENTE, inicio);
+
+        /* Reserva o RADOC, ainda invisível, grava os relatos e só então o confirma */
+        return AsyncUtil.<Void>executa(cb -> radocs().insertOne(docRadoc, cb))
+                .handle((v, t) -> t)
+                .thenCompose(t -> {
+                    if (t == null) {
+                        return CompletableFuture.completedFuture((Void) null);
+                    }
+
+                    RuntimeException falha = identificadorExistente(t, "Radoc de id[" + radoc.getId() + "] já existe.");
+
+                    if (!(falha instanceof IdentificadorExistente)) {
+                        throw falha;
+                    }
+
+                    /* Assume a reserva abandonada, como em ParecerRepositoryManager#persisteRadoc */
+                    return AsyncUtil.<UpdateResult>executa(cb -> radocs().replaceOne(
+                            ParecerRepositoryManager.pendenteAbandonado(radoc.getId(), inicio), docRadoc, cb))
+                            .thenApply(resultado -> {
+                                if (resultado.getMatchedCount() == 0) {
+                                    throw falha;
+                                }
+
+                                return (Void) null;
+                            });
+                })
+                .thenCompose(v -> AsyncUtil.<DeleteResult>executa(cb -> relatos().deleteMany(
+                        new Document("id_radoc", radoc.getId()), cb)))
+                .thenCompose(r -> insereRelatosEmLotes(relatos.iterator(), radoc.getId(), relatosObjId))
+                .thenCompose(v -> AsyncUtil.<UpdateResult>executa(cb -> radocs().updateOne(
+                        and(eq("_id", radoc.getId()), eq(Constants.DB_CAMPO_PENDENTE, inicio)),
+                        new Document("$set", new Document("relatos", relatosObjId)
+                                .append(Constants.DB_CAMPO_RESUMO, ResumoRelatos.de(radoc.getId(), relatos).toDocuments()))
+                                .append("$unset", new Document(Constants.DB_CAMPO_PENDENTE, "")), cb)))
+                .thenApply(resultado -> {
+                    if (resultado.getMatchedCount() == 0) {
+                        throw new RadocNaoEncontrado("Radoc de id[" + radoc.getId() + "] foi descartado antes de ser confirmado.");
+                    }
+
+                    return radoc.getId();
+                });
+    }
+
+    /**
+     * Insere o próximo lote de relatos e, após a confirmação,
+     * encadeia o lote seguinte.
+     */
+    private CompletableFuture<Void> insereRelatosEmLotes(final Iterator<Relato> relatos, final String idRadoc,
+                                                         final List<ObjectId> relatosObjId) {
+        final List<Document> lote = new ArrayList<Document>();
+
+        while (relatos.hasNext() && lote.size() < tamanhoLote) {
+            Document docRelato = conversor.toDocument(relatos.next());
+            ObjectId objIdRelato = new ObjectId();
+
+            docRelato.put("_id", objIdRelato);
+            docRelato.put("id_radoc", idRadoc);
+            lote.add(docRelato);
+            relatosObjId.add(objIdRelato);
+        }
+
+        if (lote.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return AsyncUtil.<Void>executa(cb -> relatos().insertMany(lote, new InsertManyOptions().ordered(false), cb))
+                .thenCompose(v -> insereRelatosEmLotes(relatos, idRadoc, relatosObjId));
+    }
+
+    /**
+     * Remove o RADOC e os seus relatos.
+     *
+     * @param identificador O identificador do RADOC.
+     * @return Futuro completado após a remoção ou com
+     * {@link ExisteParecerReferenciandoRadoc} ou {@link RadocNaoEncontrado}.
+     * @see ParecerRepositoryManager#removeRadoc(String)
+     */
+    public CompletableFuture<Void> removeRadoc(final String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        final Date inicio = new Date();
+
+        return AsyncUtil.<Long>executa(cb -> pareceres().count(eq("radocs", identificador),
+                new CountOptions().limit(1), cb))
+                .thenCompose(referencias -> {
+                    if (referencias > 0) {
+                        return falha(new ExisteParecerReferenciandoRadoc("Radoc de id[" + identificador
+                                + "] é referenciado por parecer."));
+                    }
+
+                    return AsyncUtil.<UpdateResult>executa(cb -> radocs().updateOne(
+                            ParecerRepositoryManager.confirmado(identificador),
+                            new Document("$set", new Document(Constants.DB_CAMPO_PENDENTE, inicio)), cb));
+                })
+                .thenCompose(resultado -> {
+                    if (resultado.getMatchedCount() == 0) {
+                        return falha(new RadocNaoEncontrado("Radoc de id[" + identificador + "] não foi encontrado."));
+                    }
+
+                    return AsyncUtil.<DeleteResult>executa(cb -> relatos().deleteMany(new Document("id_radoc", identificador), cb))
+                            .thenCompose(r -> AsyncUtil.<DeleteResult>executa(cb -> radocs().deleteOne(
+                                    and(eq("_id", identificador), eq(Constants.DB_CAMPO_PENDENTE, inicio)), cb)))
+                            .thenApply(r -> (Void) null);
+                });
+    }
+
+    /**
+     * Define a quantidade máxima de relatos enviados ao banco de dados
+     * em cada inserção em lote de {@link #persisteRadoc(Radoc)}.
+     *
+     * @param tamanhoLote Quantidade de documentos por lote, maior que zero.
+     */
+    public void setTamanhoLote(int tamanhoLote) {
+        if (tamanhoLote < 1) {
+            throw new IllegalArgumentException("tamanhoLote deve ser maior que zero.");
+        }
+
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    private CompletableFuture<Boolean> existeParecer(final String id) {
+        return AsyncUtil.<Long>executa(cb -> pareceres().count(eq("_id", id), new CountOptions().limit(1), cb))
+                .thenApply(quantidade -> quantidade > 0);
+    }
+
+    /**
+     * Converte violação de chave única em {@link IdentificadorExistente};
+     * as demais falhas são propagadas.
+     */
+    private static RuntimeException identificadorExistente(Throwable falha, String mensagem) {
+        Throwable causa = falha instanceof CompletionException && falha.getCause() != null
+                ? falha.getCause() : falha;
+
+        if (causa instanceof MongoWriteException
+                && ((MongoWriteException) causa).getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+            return new IdentificadorExistente(mensagem);
+        }
+
+        return causa instanceof RuntimeException
+                ? (RuntimeException) causa : new CompletionException(causa);
+    }
+
+    private MongoCollection<Document> pareceres() {
+        return db.getCollection(Constants.DB_COLLECTION_PARECERES);
+    }
+
+    private MongoCollection<Document> notas() {
+        return db.getCollection(Constants.DB_COLLECTION_NOTAS);
+    }
+
+    private MongoCollection<Document> radocs() {
+        return db.getCollection(Constants.DB_COLLECTION_RADOCS);
+    }
+
+    private MongoCollection<Document> relatos() {
+        return db.getCollection(Constants.DB_COLLECTION_RELATOS);
+    }
+}
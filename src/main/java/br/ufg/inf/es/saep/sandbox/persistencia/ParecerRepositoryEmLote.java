@@ -0,0 +1,58 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.IdentificadorExistente;
+import br.ufg.inf.es.saep.sandbox.dominio.Parecer;
+import br.ufg.inf.es.saep.sandbox.dominio.ParecerRepository;
+import br.ufg.inf.es.saep.sandbox.dominio.Radoc;
+
+import java.util.List;
+
+/**
+ * {@link ParecerRepository} capaz de persistir vários pareceres e de
+ * recuperar vários pareceres ou RADOCs em uma única operação.
+ *
+ * <p>Empregado na avaliação em lote, em que os pareceres gerados
+ * são acumulados e gravados juntos, e na leitura dos RADOCs de um
+ * parecer, reduzindo o número de acessos ao meio de armazenamento:
+ * o número de consultas independe da quantidade de identificadores.
+ */
+public interface ParecerRepositoryEmLote extends ParecerRepository {
+
+    /**
+     * Acrescenta os pareceres ao repositório.
+     *
+     * <p>Diferentemente de {@link #persisteParecer(Parecer)}, um
+     * parecer cujo identificador já existe não provoca a exceção
+     * {@link IdentificadorExistente}: ele é ignorado, os demais são
+     * persistidos e o identificador é incluído no retorno.
+     *
+     * @param pareceres Os pareceres a serem persistidos.
+     *
+     * @return Os identificadores dos pareceres não persistidos por
+     * já existirem, possivelmente vazia.
+     */
+    List<String> persistePareceres(List<Parecer> pareceres);
+
+    /**
+     * Recupera os pareceres, com as suas notas, pelos identificadores.
+     *
+     * @param ids Os identificadores dos pareceres; repetições são
+     *            admitidas.
+     *
+     * @return Os pareceres na ordem dos identificadores. A posição de
+     * um identificador que não define parecer contém {@code null}.
+     */
+    List<Parecer> byIds(List<String> ids);
+
+    /**
+     * Recupera os RADOCs, com os seus relatos, pelos identificadores,
+     * como os de {@link Parecer#getRadocs()}.
+     *
+     * @param identificadores Os identificadores dos RADOCs; repetições
+     *                        são admitidas.
+     *
+     * @return Os RADOCs na ordem dos identificadores. A posição de um
+     * identificador que não define RADOC contém {@code null}.
+     */
+    List<Radoc> radocsByIds(List<String> identificadores);
+}
@@ -0,0 +1,482 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.ChaveAvaliavel;
+import br.ufg.inf.es.saep.sandbox.util.DocumentConverter;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+/**
+ * Implementação de {@link ParecerRepository} mantida inteiramente
+ * em memória, sem acesso ao MongoDB.
+ *
+ * <p>A semântica das operações é a mesma de
+ * {@link ParecerRepositoryManager}, inclusive as exceções
+ * {@link ParecerNaoEncontrado} e {@link RadocNaoEncontrado}, e as
+ * notas são identificadas pela mesma chave canônica do item original:
+ * a nota de um item que já possui nota substitui a anterior, na mesma
+ * posição, como em ambos os {@link LayoutNotas}.
+ * Como nos demais repositórios, {@link #removeRadoc(String)} verifica
+ * a restrição {@link ExisteParecerReferenciandoRadoc}, aqui por um
+ * índice dos RADOCs referenciados pelos pareceres. Diferentemente de
+ * {@link ParecerRepositoryManager}, a verificação é atômica em relação
+ * a {@link #persisteParecer(Parecer)} concorrente.
+ *
+ * <p>Todas as operações podem ser executadas concorrentemente.
+ * Alterações de um mesmo parecer são atômicas. As listas dos pareceres
+ * e RADOCs recebidos e retornados são copiadas: alterações posteriores
+ * não se refletem entre o repositório e o chamador.
+ */
+public class ParecerRepositoryInMemory implements ParecerRepositoryEmLote, ParecerRepositoryIncremental, ParecerRepositoryResumido,
+        ParecerRepositoryParcial {
+
+    /**
+     * Parecer armazenado, com a chave canônica do item original de
+     * cada nota. Instâncias não são alteradas após criadas.
+     */
+    private static final class Registro {
+        private final Parecer parecer;
+        private final List<Nota> notas;
+        private final List<String> chaves;
+
+        private Registro(Parecer parecer, List<Nota> notas, List<String> chaves) {
+            this.parecer = parecer;
+            this.notas = notas;
+            this.chaves = chaves;
+        }
+
+        private Parecer toParecer(String fundamentacao) {
+            return new Parecer(parecer.getId(), parecer.getResolucao(), copia(parecer.getRadocs()),
+                    copia(parecer.getPontuacoes()), fundamentacao, new ArrayList<Nota>(notas));
+        }
+    }
+
+    private final ConcurrentMap<String, Registro> pareceres = new ConcurrentHashMap<String, Registro>();
+    private final ConcurrentMap<String, Radoc> radocs = new ConcurrentHashMap<String, Radoc>();
+    private final ConcurrentMap<String, ResumoRelatos> resumos = new ConcurrentHashMap<String, ResumoRelatos>();
+
+    /**
+     * Índice secundário: identificadores dos pareceres que
+     * referenciam cada RADOC.
+     */
+    private final ConcurrentMap<String, Set<String>> pareceresPorRadoc = new ConcurrentHashMap<String, Set<String>>();
+
+    private final DocumentConverter conversor = new DocumentConverter(SaepCodecs.gson());
+
+    public void adicionaNota(final String id, final Nota nota) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        if (nota == null) {
+            throw new CampoExigidoNaoFornecido("nota");
+        }
+
+        final String chave = chave(nota.getItemOriginal());
+
+        altera(id, new BiFunction<String, Registro, Registro>() {
+            public Registro apply(String k, Registro registro) {
+                List<Nota> notas = new ArrayList<Nota>(registro.notas);
+                List<String> chaves = new ArrayList<String>(registro.chaves);
+                int posicao = chaves.indexOf(chave);
+
+                /* A nota do mesmo item original é substituída */
+                if (posicao >= 0) {
+                    notas.set(posicao, nota);
+                } else {
+                    notas.add(nota);
+                    chaves.add(chave);
+                }
+
+                return new Registro(registro.parecer, notas, chaves);
+            }
+        });
+    }
+
+    public void removeNota(String id, Avaliavel original) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        if (original == null) {
+            throw new CampoExigidoNaoFornecido("original");
+        }
+
+        final String chave = chave(original);
+
+        altera(id, new BiFunction<String, Registro, Registro>() {
+            public Registro apply(String k, Registro registro) {
+                List<Nota> notas = new ArrayList<Nota>(registro.notas.size());
+                List<String> chaves = new ArrayList<String>(registro.chaves.size());
+
+                for (int i = 0; i < registro.notas.size(); i++) {
+                    if (!registro.chaves.get(i).equals(chave)) {
+                        notas.add(registro.notas.get(i));
+                        chaves.add(registro.chaves.get(i));
+                    }
+                }
+
+                return new Registro(registro.parecer, notas, chaves);
+            }
+        });
+    }
+
+    public void persisteParecer(Parecer parecer) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        List<Nota> notas = new ArrayList<Nota>();
+        List<String> chaves = new ArrayList<String>();
+
+        if (parecer.getNotas() != null) {
+            for (Nota nota : parecer.getNotas()) {
+                notas.add(nota);
+                chaves.add(chave(nota.getItemOriginal()));
+            }
+        }
+
+        /* As listas do parecer fornecido não são compartilhadas com o chamador */
+        Parecer copia = new Parecer(parecer.getId(), parecer.getResolucao(), copia(parecer.getRadocs()),
+                copia(parecer.getPontuacoes()), parecer.getFundamentacao(), null);
+
+        /*
+         * As referências aos RADOCs são registradas antes da publicação do parecer, de modo
+         * que removeRadoc não remova um RADOC referenciado por parecer recém-persistido
+         */
+        List<String> registrados = referencia(copia);
+
+        if (pareceres.putIfAbsent(copia.getId(), new Registro(copia, notas, chaves)) != null) {
+            desreferencia(copia.getId(), registrados);
+            throw new IdentificadorExistente("Parecer de id[" + parecer.getId() + "] já existe.");
+        }
+    }
+
+    /**
+     * Acrescenta os pareceres ao repositório, um a um.
+     *
+     * @param pareceres Os pareceres a serem persistidos.
+     * @return Os identificadores dos pareceres já existentes.
+     */
+    public List<String> persistePareceres(List<Parecer> pareceres) {
+        if (pareceres == null) {
+            throw new CampoExigidoNaoFornecido("pareceres");
+        }
+
+        List<String> existentes = new ArrayList<String>();
+
+        for (Parecer parecer : pareceres) {
+            try {
+                persisteParecer(parecer);
+            } catch (IdentificadorExistente e) {
+                existentes.add(parecer.getId());
+            }
+        }
+
+        return existentes;
+    }
+
+    public void atualizaFundamentacao(String parecer, final String fundamentacao) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if (fundamentacao == null) {
+            throw new CampoExigidoNaoFornecido("fundamentacao");
+        }
+
+        altera(parecer, new BiFunction<String, Registro, Registro>() {
+            public Registro apply(String k, Registro registro) {
+                return new Registro(registro.toParecer(fundamentacao), registro.notas, registro.chaves);
+            }
+        });
+    }
+
+    public void atualizaPontuacoes(String parecer, final List<Pontuacao> pontuacoes) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if (pontuacoes == null) {
+            throw new CampoExigidoNaoFornecido("pontuacoes");
+        }
+
+        altera(parecer, new BiFunction<String, Registro, Registro>() {
+            public Registro apply(String k, Registro registro) {
+                Parecer atual = registro.parecer;
+                List<Pontuacao> resultado = new ArrayList<Pontuacao>();
+
+                if (atual.getPontuacoes() != null) {
+                    resultado.addAll(atual.getPontuacoes());
+                }
+
+                for (Pontuacao pontuacao : pontuacoes) {
+                    int posicao = -1;
+
+                    for (int i = 0; i < resultado.size() && posicao < 0; i++) {
+                        if (resultado.get(i).getAtributo().equals(pontuacao.getAtributo())) {
+                            posicao = i;
+                        }
+                    }
+
+                    if (posicao >= 0) {
+                        resultado.set(posicao, pontuacao);
+                    } else {
+                        resultado.add(pontuacao);
+                    }
+                }
+
+                return new Registro(new Parecer(atual.getId(), atual.getResolucao(), atual.getRadocs(),
+                        resultado, atual.getFundamentacao(), null), registro.notas, registro.chaves);
+            }
+        });
+    }
+
+    public Parecer byId(String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        Registro registro = pareceres.get(id);
+
+        return registro == null ? null : registro.toParecer(registro.parecer.getFundamentacao());
+    }
+
+    public List<Parecer> byIds(List<String> ids) {
+        if (ids == null) {
+            throw new CampoExigidoNaoFornecido("ids");
+        }
+
+        List<Parecer> resultado = new ArrayList<Parecer>(ids.size());
+
+        for (String id : ids) {
+            resultado.add(byId(id));
+        }
+
+        return resultado;
+    }
+
+    public Parecer cabecalhoParecer(String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        Registro registro = pareceres.get(id);
+
+        if (registro == null) {
+            return null;
+        }
+
+        Parecer parecer = registro.parecer;
+
+        return new Parecer(parecer.getId(), parecer.getResolucao(), copia(parecer.getRadocs()),
+                copia(parecer.getPontuacoes()), parecer.getFundamentacao(), null);
+    }
+
+    public void removeParecer(String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        Registro registro = pareceres.remove(id);
+
+        if (registro == null) {
+            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+        }
+
+        if (registro.parecer.getRadocs() != null) {
+            desreferencia(id, registro.parecer.getRadocs());
+        }
+    }
+
+    public Radoc radocById(String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        Radoc radoc = radocs.get(identificador);
+
+        return radoc == null ? null : new Radoc(radoc.getId(), radoc.getAnoBase(), copia(radoc.getRelatos()));
+    }
+
+    public List<Radoc> radocsByIds(List<String> identificadores) {
+        if (identificadores == null) {
+            throw new CampoExigidoNaoFornecido("identificadores");
+        }
+
+        List<Radoc> resultado = new ArrayList<Radoc>(identificadores.size());
+
+        for (String identificador : identificadores) {
+            resultado.add(radocById(identificador));
+        }
+
+        return resultado;
+    }
+
+    public Radoc cabecalhoRadoc(String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        Radoc radoc = radocs.get(identificador);
+
+        return radoc == null ? null : new Radoc(radoc.getId(), radoc.getAnoBase(), null);
+    }
+
+    public String persisteRadoc(Radoc radoc) {
+        if (radoc == null) {
+            throw new CampoExigidoNaoFornecido("radoc");
+        }
+
+        List<Relato> relatos = radoc.getRelatos() == null
+                ? new ArrayList<Relato>() : new ArrayList<Relato>(radoc.getRelatos());
+
+        if (radocs.putIfAbsent(radoc.getId(), new Radoc(radoc.getId(), radoc.getAnoBase(), relatos)) != null) {
+            throw new IdentificadorExistente("Radoc de id[" + radoc.getId() + "] já existe.");
+        }
+
+        resumos.put(radoc.getId(), ResumoRelatos.de(radoc.getId(), relatos));
+
+        return radoc.getId();
+    }
+
+    public ResumoRelatos resumo(String radoc) {
+        if (radoc == null) {
+            throw new CampoExigidoNaoFornecido("radoc");
+        }
+
+        Radoc docente = radocs.get(radoc);
+
+        if (docente == null) {
+            return null;
+        }
+
+        /* Ausente apenas enquanto persisteRadoc não o registrou */
+        ResumoRelatos resumo = resumos.get(radoc);
+
+        return resumo != null ? resumo : ResumoRelatos.de(radoc, docente.getRelatos());
+    }
+
+    public void removeRadoc(final String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        /* Verificação e remoção atômicas em relação ao registro de referências ao RADOC */
+        pareceresPorRadoc.compute(identificador, new BiFunction<String, Set<String>, Set<String>>() {
+            public Set<String> apply(String k, Set<String> referencias) {
+                if (referencias != null && !referencias.isEmpty()) {
+                    throw new ExisteParecerReferenciandoRadoc("Radoc de id[" + identificador + "] é referenciado por "
+                            + referencias.size() + " parecer(es).");
+                }
+
+                if (radocs.remove(identificador) == null) {
+                    throw new RadocNaoEncontrado("Radoc de id[" + identificador + "] não foi encontrado.");
+                }
+
+                resumos.remove(identificador);
+
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Recupera os identificadores dos pareceres que referenciam
+     * o RADOC, pelo índice mantido em memória.
+     *
+     * @param identificador O identificador do RADOC.
+     * @return Identificadores dos pareceres.
+     */
+    public List<String> pareceresDoRadoc(String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        Set<String> referencias = pareceresPorRadoc.get(identificador);
+
+        return referencias == null ? new ArrayList<String>() : new ArrayList<String>(referencias);
+    }
+
+    /**
+     * Remove todos os pareceres e RADOCs.
+     */
+    public void limparBancoDeDados() {
+        pareceres.clear();
+        radocs.clear();
+        resumos.clear();
+        pareceresPorRadoc.clear();
+    }
+
+    /**
+     * Aplica atomicamente a alteração ao parecer existente.
+     */
+    private void altera(String id, BiFunction<String, Registro, Registro> alteracao) {
+        if (pareceres.computeIfPresent(id, alteracao) == null) {
+            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+        }
+    }
+
+    /**
+     * Registra o parecer entre as referências dos seus RADOCs.
+     *
+     * @return Os RADOCs para os quais o registro foi acrescentado.
+     */
+    private List<String> referencia(Parecer parecer) {
+        final String id = parecer.getId();
+        final List<String> registrados = new ArrayList<String>();
+
+        if (parecer.getRadocs() == null) {
+            return registrados;
+        }
+
+        for (String radoc : parecer.getRadocs()) {
+            pareceresPorRadoc.compute(radoc, new BiFunction<String, Set<String>, Set<String>>() {
+                public Set<String> apply(String k, Set<String> referencias) {
+                    if (referencias == null) {
+                        referencias = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                    }
+
+                    if (referencias.add(id)) {
+                        registrados.add(k);
+                    }
+
+                    return referencias;
+                }
+            });
+        }
+
+        return registrados;
+    }
+
+    /**
+     * Remove o registro das referências, descartando as entradas do
+     * índice que ficam vazias.
+     */
+    private void desreferencia(final String id, List<String> radocsReferenciados) {
+        for (String radoc : radocsReferenciados) {
+            pareceresPorRadoc.computeIfPresent(radoc, new BiFunction<String, Set<String>, Set<String>>() {
+                public Set<String> apply(String k, Set<String> referencias) {
+                    referencias.remove(id);
+
+                    return referencias.isEmpty() ? null : referencias;
+                }
+            });
+        }
+    }
+
+    private static <T> List<T> copia(List<T> lista) {
+        return lista == null ? null : new ArrayList<T>(lista);
+    }
+
+    private String chave(Avaliavel original) {
+        return ChaveAvaliavel.de(conversor.toDocument(original));
+    }
+}
@@ -0,0 +1,29 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.ParecerRepository;
+import br.ufg.inf.es.saep.sandbox.dominio.Pontuacao;
+
+import java.util.List;
+
+/**
+ * {@link ParecerRepository} capaz de alterar apenas algumas das
+ * pontuações de um parecer.
+ *
+ * <p>Empregado na reavaliação incremental, em que a alteração de uma
+ * nota modifica poucas pontuações de um parecer possivelmente grande.
+ */
+public interface ParecerRepositoryIncremental extends ParecerRepository {
+
+    /**
+     * Substitui as pontuações do parecer de mesmo atributo que as
+     * fornecidas. Pontuações de atributos inexistentes no parecer são
+     * acrescentadas; as demais permanecem inalteradas.
+     *
+     * @throws ParecerNaoEncontrado Caso o identificador
+     * fornecido não identifique um parecer.
+     *
+     * @param parecer O identificador único do parecer.
+     * @param pontuacoes As pontuações alteradas.
+     */
+    void atualizaPontuacoes(String parecer, List<Pontuacao> pontuacoes);
+}
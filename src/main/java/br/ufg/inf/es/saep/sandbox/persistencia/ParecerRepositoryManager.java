@@ -1,25 +1,44 @@
 package br.ufg.inf.es.saep.sandbox.persistencia;
 
 import br.ufg.inf.es.saep.sandbox.dominio.*;
-import br.ufg.inf.es.saep.sandbox.util.AvaliavelTyperAdapter;
+import br.ufg.inf.es.saep.sandbox.util.ChaveAvaliavel;
 import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.DocumentConverter;
+import br.ufg.inf.es.saep.sandbox.util.IndexInitializer;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBProvider;
 import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
 import com.mongodb.*;
 import static com.mongodb.client.model.Filters.*;
+import static com.mongodb.client.model.Projections.exclude;
+import static com.mongodb.client.model.Projections.include;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 
 import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
-import javax.print.Doc;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Gerencia e coordenaações na parte do banco de dados
@@ -28,8 +47,17 @@ import java.util.List;
  * Adicionalmente, também é responsável pela persistência
  * e manipulação dos dados referentes aos Radocs que estão
  * sendo avaliados durante o processo.
+ *
+ * Operações que alteram mais de um documento são ordenadas de
+ * modo que uma única escrita no documento principal as torne
+ * visíveis: notas só fazem parte do parecer cujo vetor de notas
+ * as referencia, e um RADOC só é visível após a remoção do campo
+ * {@link Constants#DB_CAMPO_PENDENTE}. Documentos deixados por
+ * operações interrompidas não aparecem nas consultas e são
+ * removidos por {@link OrphanSweeper}.
  */
-public class ParecerRepositoryManager implements ParecerRepository {
+public class ParecerRepositoryManager implements ParecerRepositoryEmLote, ParecerRepositoryIncremental, ParecerRepositoryResumido,
+        ParecerRepositoryParcial {
 
     /**
      * Responsável pela conexão com o banco de dados.
@@ -58,6 +86,30 @@ public class ParecerRepositoryManager implements ParecerRepository {
      */
     private Gson gson = null;
 
+    /**
+     * Converte objetos do domínio em documentos do MongoDB, e vice-versa,
+     * a partir da estrutura definida pelo objeto {@link #gson}, sem
+     * passar por texto JSON.
+     */
+    private DocumentConverter conversor = null;
+
+    /**
+     * Codecs das classes do domínio, empregados nas leituras que
+     * desserializam diretamente do formato BSON.
+     */
+    private CodecRegistry codecRegistry = null;
+
+    /**
+     * Quantidade máxima de relatos enviados ao banco de dados em
+     * cada inserção em lote realizada por {@link #persisteRadoc(Radoc)}.
+     */
+    private int tamanhoLote = Constants.TAMANHO_LOTE_PADRAO;
+
+    /**
+     * Forma de armazenamento das notas dos pareceres.
+     */
+    private LayoutNotas layout = LayoutNotas.NORMALIZADO;
+
     /**
      * Cria gerenciador do repositório do parecer, inicializando o
      * cliente do MongoDB, a base de dados que será utilizada e construindo
@@ -67,22 +119,74 @@ public class ParecerRepositoryManager implements ParecerRepository {
      * interface Avaliavel, visto que ela é implementada por mais de uma classe
      * e o Gson precisa se adaptar a cada uma delas.
      *
+     * O cliente do MongoDB é aquele compartilhado pelo provedor
+     * padrão de {@link MongoDBUtil} e o layout das notas é aquele
+     * definido por {@link LayoutNotas#doSistema()}.
+     *
      */
     public ParecerRepositoryManager(){
-        mongoClient = MongoDBUtil.getClientInstance();
-        db = mongoClient.getDatabase(Constants.DB_NAME);
-        GsonBuilder gsonBuilder = new GsonBuilder();
-
-        /* Registrando um Typer Adapter, visto que a Interface Avaliavel é implementada por mais de uma classe
-           Informações retiradas de: http://technology.finra.org/code/serialize-deserialize-interfaces-in-java.html */
-        gsonBuilder.registerTypeAdapter(Avaliavel.class, new AvaliavelTyperAdapter());
-        gson = gsonBuilder.create();
+        this(MongoDBUtil.getProvider(), LayoutNotas.doSistema());
+    }
+
+    /**
+     * Cria gerenciador do repositório do parecer que utiliza o cliente
+     * compartilhado e a base de dados do provedor fornecido.
+     *
+     * O gerenciador não fecha o cliente; o ciclo de vida das conexões
+     * é responsabilidade do provedor.
+     *
+     * @param provider Provedor de conexões com o MongoDB.
+     */
+    public ParecerRepositoryManager(MongoDBProvider provider){
+        this(provider, LayoutNotas.doSistema());
+    }
+
+    /**
+     * Cria gerenciador do repositório do parecer que utiliza o cliente
+     * compartilhado do provedor fornecido e armazena as notas conforme
+     * o layout indicado.
+     *
+     * Todos os gerenciadores que acessam uma mesma base de dados devem
+     * empregar o mesmo layout; a conversão dos dados existentes é
+     * realizada por {@link MigracaoLayoutNotas}.
+     *
+     * @param provider Provedor de conexões com o MongoDB.
+     * @param layout Forma de armazenamento das notas.
+     */
+    public ParecerRepositoryManager(MongoDBProvider provider, LayoutNotas layout){
+        if(provider == null){
+            throw new CampoExigidoNaoFornecido("provider");
+        }
+
+        if(layout == null){
+            throw new CampoExigidoNaoFornecido("layout");
+        }
+
+        this.layout = layout;
+
+        mongoClient = provider.getClient();
+        db = provider.getDatabase();
+        gson = SaepCodecs.gson();
+        conversor = new DocumentConverter(gson);
+        codecRegistry = SaepCodecs.registry(gson);
+
+        /* Índices das consultas por id_parecer, id_radoc e nome do tipo */
+        IndexInitializer.garante(provider);
     }
 
     /**
      * Adiciona nota ao parecer. Caso a nota a ser acrescentada
      * se refira a um item {@link Avaliavel} para o qual já
-     * exista uma nota, então a corrente substitui a anterior.
+     * exista uma nota, então a corrente substitui a anterior,
+     * na mesma posição. Os itens são comparados pela chave
+     * canônica ({@link ChaveAvaliavel}), em qualquer
+     * {@link LayoutNotas}.
+     *
+     * <p>No layout {@link LayoutNotas#NORMALIZADO}, a nota é
+     * gravada antes de ser referenciada pelo parecer, e as notas
+     * substituídas deixam de ser referenciadas antes de removidas.
+     * Entre inclusões concorrentes para o mesmo item prevalece a
+     * nota de maior {@link ObjectId}; as demais são removidas.
      *
      * @throws IdentificadorDesconhecido Caso o identificador
      * fornecido não identifique um parecer existente.
@@ -101,36 +205,80 @@ public class ParecerRepositoryManager implements ParecerRepository {
             throw new CampoExigidoNaoFornecido("nota");
         }
 
-        if(byId(id) == null){
-            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+        if(layout == LayoutNotas.EMBUTIDO){
+            adicionaNotaEmbutida(id, nota);
+            return;
         }
 
         MongoCollection pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
-        MongoCollection notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
-        Document notaDocument = Document.parse(gson.toJson(nota));
-        ObjectId objId;
-
+        MongoCollection<Document> notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+        Document notaDocument = conversor.toDocument(nota);
+        String chave = ChaveAvaliavel.de((Document) notaDocument.get("original"));
+        List<ObjectId> anteriores = new ArrayList<ObjectId>();
+        UpdateResult updateResult;
+        ObjectId objId = new ObjectId();
+
+        notaDocument.put("_id", objId);
         notaDocument.append("id_parecer", id);
+        notaDocument.append(ChaveAvaliavel.CAMPO, chave);
         notasCollection.insertOne(notaDocument);
-        objId = (ObjectId) notaDocument.get("_id");
-        pareceresCollection.updateOne(
-                new Document("_id", id),
-                new Document("$push", new Document("notas", objId))
-        );
+
+        /* Notas anteriores do mesmo item; as posteriores, concorrentes, prevalecem sobre esta */
+        for(Document docNota : notasCollection.find(and(eq("id_parecer", id), eq(ChaveAvaliavel.CAMPO, chave),
+                lt("_id", objId))).projection(include("_id"))){
+            anteriores.add(docNota.getObjectId("_id"));
+        }
+
+        /* A nota só passa a fazer parte do parecer quando o seu id é incluído na lista */
+        if(anteriores.isEmpty()){
+            updateResult = pareceresCollection.updateOne(new Document("_id", id),
+                    new Document("$push", new Document("notas", objId)));
+        } else {
+            updateResult = pareceresCollection.updateOne(and(eq("_id", id), in("notas", anteriores)),
+                    new Document("$set", new Document("notas.$", objId)));
+
+            /* Notas anteriores não referenciadas, de gravações incompletas */
+            if(updateResult.getMatchedCount() == 0){
+                updateResult = pareceresCollection.updateOne(new Document("_id", id),
+                        new Document("$push", new Document("notas", objId)));
+            } else if(anteriores.size() > 1){
+                pareceresCollection.updateOne(new Document("_id", id),
+                        new Document("$pullAll", new Document("notas", anteriores)));
+            }
+        }
+
+        if(updateResult.getMatchedCount() == 0){
+            notasCollection.deleteOne(eq("_id", objId));
+            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+        }
+
+        if(!anteriores.isEmpty()){
+            notasCollection.deleteMany(in("_id", anteriores));
+        }
     }
 
     /**
      * Remove a nota cujo item {@link Avaliavel} original é
      * fornedido.
      *
+     * <p>As notas são localizadas pela chave canônica do item
+     * original ({@link ChaveAvaliavel}), calculada na gravação. A
+     * chave considera todo o conteúdo do item: diferentemente da
+     * comparação empregada anteriormente, que ignorava o valor
+     * textual de uma {@link Pontuacao}, uma pontuação só corresponde
+     * a outra com o mesmo atributo e o mesmo valor, inclusive o
+     * textual.
+     *
+     * <p>No layout {@link LayoutNotas#NORMALIZADO}, as notas deixam
+     * de ser referenciadas pelo parecer antes de removidas; notas
+     * que permaneçam após uma falha entre as duas escritas são
+     * removidas por {@link OrphanSweeper}.
+     *
      * @param id O identificador único do parecer.
      * @param original Instância de {@link Avaliavel} que participa
      *                 da {@link Nota} a ser removida como origem.
      */
     public void removeNota(String id, Avaliavel original) {
-        MongoCollection pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);MongoCollection notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
-        MongoCursor<Document> mCursorNotas = notasCollection.find(eq("id_parecer", id)).iterator();
-
         if(id == null){
             throw new CampoExigidoNaoFornecido("id");
         }
@@ -139,27 +287,41 @@ public class ParecerRepositoryManager implements ParecerRepository {
             throw new CampoExigidoNaoFornecido("original");
         }
 
-        if(byId(id) == null){
-            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+        if(layout == LayoutNotas.EMBUTIDO){
+            removeNotaEmbutida(id, original);
+            return;
         }
 
-        /* Remover da coleção de notas */
-        while(mCursorNotas.hasNext()){
-            Document docNota = mCursorNotas.next();
-            Document docNotaOriginal = (Document) docNota.get("original");
-            Document docOriginal = Document.parse(gson.toJson(original));
-
-            if(compareAvaliavel(docNotaOriginal, docOriginal)){
-                ObjectId objId = (ObjectId) docNota.get("_id");
-                notasCollection.deleteOne(new Document("_id", objId));
-
-                /* Remove da lista de notas do parecer */
-                Document match = new Document("_id", id);
-                Document update = new Document("notas", objId);
-                pareceresCollection.updateOne(match, new Document("$pull", update));
+        MongoCollection pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+        MongoCollection<Document> notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+        String chave = ChaveAvaliavel.de(conversor.toDocument(original));
+        List<ObjectId> notasObjId = new ArrayList<ObjectId>();
+        UpdateResult updateResult;
+
+        /* Identifica, pelo índice, as notas cujo item original tem a mesma chave canônica */
+        for(Document docNota : notasCollection.find(and(eq("id_parecer", id), eq(ChaveAvaliavel.CAMPO, chave)))
+                .projection(include("_id"))){
+            notasObjId.add(docNota.getObjectId("_id"));
+        }
+
+        if(notasObjId.isEmpty()){
+            if(!existeParecer(id)){
+                throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
             }
+
+            return;
+        }
+
+        /* Remove da lista de notas do parecer; a partir daqui as notas não são mais visíveis */
+        updateResult = pareceresCollection.updateOne(new Document("_id", id),
+                new Document("$pullAll", new Document("notas", notasObjId)));
+
+        if(updateResult.getMatchedCount() == 0){
+            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
         }
 
+        /* Remover da coleção de notas */
+        notasCollection.deleteMany(in("_id", notasObjId));
     }
 
     /**
@@ -178,19 +340,143 @@ public class ParecerRepositoryManager implements ParecerRepository {
         }
 
         MongoCollection pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
-        Document docParecer = Document.parse(gson.toJson(parecer));
+        MongoCollection notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+        List<Document> docsNotas = new ArrayList<Document>();
+        List<ObjectId> notasObjId = new ArrayList<ObjectId>();
+        Document docParecer = documentoDoParecer(parecer, docsNotas, notasObjId);
+
+        /* Adicionando lista de notas em uma única operação, antes do parecer que as referencia */
+        if(!docsNotas.isEmpty()){
+            notasCollection.insertMany(docsNotas, new InsertManyOptions().ordered(false));
+        }
+
+        /* A inclusão do parecer torna visíveis, de uma só vez, todas as suas notas */
+        try {
+            pareceresCollection.insertOne(docParecer);
+        } catch (MongoWriteException e) {
+            if(!docsNotas.isEmpty()){
+                notasCollection.deleteMany(in("_id", notasObjId));
+            }
+
+            if(e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY){
+                throw new IdentificadorExistente("Parecer de id[" + parecer.getId() + "] já existe.");
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Acrescenta os pareceres ao repositório com uma inserção em lote
+     * das notas e outra dos pareceres.
+     *
+     * <p>A inserção não é interrompida por um parecer já existente:
+     * ele é ignorado e os demais são persistidos.
+     *
+     * @param pareceres Os pareceres a serem persistidos.
+     * @return Os identificadores dos pareceres já existentes.
+     */
+    public List<String> persistePareceres(List<Parecer> pareceres) {
+        if(pareceres == null){
+            throw new CampoExigidoNaoFornecido("pareceres");
+        }
+
+        List<String> existentes = new ArrayList<String>();
+
+        if(pareceres.isEmpty()) return existentes;
+
+        MongoCollection<Document> pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+        MongoCollection<Document> notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+        List<Document> docsPareceres = new ArrayList<Document>(pareceres.size());
+        List<Document> docsNotas = new ArrayList<Document>();
+        List<List<ObjectId>> notasPorParecer = new ArrayList<List<ObjectId>>(pareceres.size());
+
+        for(Parecer parecer : pareceres){
+            List<ObjectId> notasObjId = new ArrayList<ObjectId>();
+
+            if(parecer == null){
+                throw new CampoExigidoNaoFornecido("parecer");
+            }
+
+            docsPareceres.add(documentoDoParecer(parecer, docsNotas, notasObjId));
+            notasPorParecer.add(notasObjId);
+        }
+
+        if(!docsNotas.isEmpty()){
+            notasCollection.insertMany(docsNotas, new InsertManyOptions().ordered(false));
+        }
+
+        try {
+            pareceresCollection.insertMany(docsPareceres, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            List<ObjectId> notasDescartadas = new ArrayList<ObjectId>();
+            boolean outrasFalhas = false;
+
+            for(BulkWriteError erro : e.getWriteErrors()){
+                notasDescartadas.addAll(notasPorParecer.get(erro.getIndex()));
+
+                if(erro.getCategory() == ErrorCategory.DUPLICATE_KEY){
+                    existentes.add(docsPareceres.get(erro.getIndex()).getString("_id"));
+                } else {
+                    outrasFalhas = true;
+                }
+            }
+
+            /* Notas dos pareceres não inseridos não são referenciadas por nenhum parecer */
+            if(!notasDescartadas.isEmpty()){
+                notasCollection.deleteMany(in("_id", notasDescartadas));
+            }
+
+            if(outrasFalhas){
+                throw e;
+            }
+        }
+
+        return existentes;
+    }
+
+    /**
+     * Monta o documento do parecer conforme o layout das notas. No
+     * layout {@link LayoutNotas#NORMALIZADO}, os documentos das notas
+     * e os respectivos ids são acrescentados às listas fornecidas.
+     */
+    private Document documentoDoParecer(Parecer parecer, List<Document> docsNotas, List<ObjectId> notasObjId){
+        Document docParecer = conversor.toDocument(parecer);
+        List<Document> notas = new ArrayList<Document>();
 
         docParecer.remove("id");
         docParecer.remove("notas");
         docParecer.put("_id", parecer.getId());
-        pareceresCollection.insertOne(docParecer);
 
-        /* Adicionando lista de notas */
-        if(parecer.getNotas() == null) return;
+        /* Os ids das notas são gerados aqui para que o parecer seja gravado com a lista completa */
+        if(parecer.getNotas() != null){
+            for(Nota nota : parecer.getNotas()){
+                Document notaDocument = conversor.toDocument(nota);
 
-        for(Nota nota : parecer.getNotas()){
-            adicionaNota(parecer.getId(), nota);
+                notaDocument.append(ChaveAvaliavel.CAMPO, ChaveAvaliavel.de((Document) notaDocument.get("original")));
+                notas.add(notaDocument);
+            }
         }
+
+        if(layout == LayoutNotas.EMBUTIDO){
+            /* Notas no próprio parecer, sem os campos que as associam ao parecer */
+            docParecer.put("notas", notas);
+
+            return docParecer;
+        }
+
+        for(Document notaDocument : notas){
+            ObjectId objId = new ObjectId();
+
+            notaDocument.put("_id", objId);
+            notaDocument.put("id_parecer", parecer.getId());
+            docsNotas.add(notaDocument);
+            notasObjId.add(objId);
+        }
+
+        docParecer.put("notas", new ArrayList<ObjectId>(notasObjId));
+
+        return docParecer;
     }
 
     /**
@@ -233,6 +519,60 @@ public class ParecerRepositoryManager implements ParecerRepository {
         }
     }
 
+    /**
+     * Substitui as pontuações do parecer de mesmo atributo que as
+     * fornecidas, acrescentando as inexistentes.
+     *
+     * <p>Cada pontuação corresponde a duas alterações enviadas em
+     * uma única operação em lote: a substituição do elemento de mesmo
+     * atributo e, caso não exista, a inclusão ao final do vetor.
+     * Exatamente uma delas encontra o parecer.
+     *
+     * @throws ParecerNaoEncontrado Caso o identificador
+     * fornecido não identifique um parecer.
+     *
+     * @param parecer O identificador único do parecer.
+     * @param pontuacoes As pontuações alteradas.
+     */
+    public void atualizaPontuacoes(String parecer, List<Pontuacao> pontuacoes) {
+        if(parecer == null){
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if(pontuacoes == null){
+            throw new CampoExigidoNaoFornecido("pontuacoes");
+        }
+
+        MongoCollection<Document> pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+
+        if(pontuacoes.isEmpty()){
+            if(pareceresCollection.count(eq("_id", parecer), new CountOptions().limit(1)) == 0){
+                throw new ParecerNaoEncontrado("Parecer de id[" + parecer + "] não foi encontrado.");
+            }
+
+            return;
+        }
+
+        List<WriteModel<Document>> alteracoes = new ArrayList<WriteModel<Document>>();
+
+        for(Pontuacao pontuacao : pontuacoes){
+            Document docPontuacao = conversor.toDocument(pontuacao);
+
+            alteracoes.add(new UpdateOneModel<Document>(
+                    and(eq("_id", parecer), eq("pontuacoes.atributo", pontuacao.getAtributo())),
+                    new Document("$set", new Document("pontuacoes.$", docPontuacao))));
+            alteracoes.add(new UpdateOneModel<Document>(
+                    and(eq("_id", parecer), ne("pontuacoes.atributo", pontuacao.getAtributo())),
+                    new Document("$push", new Document("pontuacoes", docPontuacao))));
+        }
+
+        BulkWriteResult resultado = pareceresCollection.bulkWrite(alteracoes);
+
+        if(resultado.getMatchedCount() < pontuacoes.size()){
+            throw new ParecerNaoEncontrado("Parecer de id[" + parecer + "] não foi encontrado.");
+        }
+    }
+
     /**
      * Recupera o parecer pelo identificador.
      *
@@ -254,24 +594,32 @@ public class ParecerRepositoryManager implements ParecerRepository {
             MongoCollection notasCollection;
             MongoCursor<Document> mCursorNotas;
             List<Document> listDocNotas;
+            List<?> notasObjId;
             Parecer parecer;
 
             docParecer.put("id", docParecer.get("_id"));
-            docParecer.remove("notas");
 
-            /* Recebe cada nota do parecer */
-            notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
-            mCursorNotas = notasCollection.find(eq("id_parecer", id)).iterator();
+            if(layout == LayoutNotas.EMBUTIDO){
+                return conversor.fromDocument(docParecer, Parecer.class);
+            }
+
+            notasObjId = (List<?>) docParecer.remove("notas");
             listDocNotas = new ArrayList<Document>();
 
-            while(mCursorNotas.hasNext()){
-                Document nota = mCursorNotas.next();
+            /* Recebe cada nota referenciada pelo parecer; notas de gravações incompletas são ignoradas */
+            if(notasObjId != null && !notasObjId.isEmpty()){
+                notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+                mCursorNotas = notasCollection.find(in("_id", notasObjId)).iterator();
+
+                while(mCursorNotas.hasNext()){
+                    Document nota = mCursorNotas.next();
 
-                listDocNotas.add(nota);
+                    listDocNotas.add(nota);
+                }
             }
 
             docParecer.put("notas", listDocNotas);
-            parecer = gson.fromJson(docParecer.toJson(), Parecer.class);
+            parecer = conversor.fromDocument(docParecer, Parecer.class);
 
             return parecer;
         }
@@ -279,6 +627,99 @@ public class ParecerRepositoryManager implements ParecerRepository {
         return null;
     }
 
+    /**
+     * Recupera os pareceres pelos identificadores com uma consulta
+     * {@code $in} aos pareceres e, no layout
+     * {@link LayoutNotas#NORMALIZADO}, uma consulta {@code $in} às
+     * notas pelo campo {@code id_parecer}. As notas são agrupadas em
+     * memória, na ordem do vetor de notas de cada parecer; notas não
+     * referenciadas, de gravações incompletas, são ignoradas.
+     *
+     * @param ids Os identificadores dos pareceres.
+     *
+     * @return Os pareceres na ordem dos identificadores, com
+     * {@code null} na posição dos inexistentes.
+     */
+    public List<Parecer> byIds(List<String> ids) {
+        List<String> distintos = Identificadores.distintos(ids, "ids");
+        Map<String, Parecer> encontrados = new HashMap<String, Parecer>();
+
+        if(distintos.isEmpty()){
+            return Identificadores.naOrdem(ids, encontrados);
+        }
+
+        MongoCollection<Document> pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+        List<Document> docsPareceres = new ArrayList<Document>();
+
+        for(Document docParecer : pareceresCollection.find(in("_id", distintos))){
+            docParecer.put("id", docParecer.get("_id"));
+            docsPareceres.add(docParecer);
+        }
+
+        if(layout == LayoutNotas.NORMALIZADO && !docsPareceres.isEmpty()){
+            MongoCollection<Document> notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+            List<Object> idsPareceres = new ArrayList<Object>(docsPareceres.size());
+            Map<Object, Document> docsNotas = new HashMap<Object, Document>();
+
+            for(Document docParecer : docsPareceres){
+                idsPareceres.add(docParecer.get("_id"));
+            }
+
+            for(Document nota : notasCollection.find(in("id_parecer", idsPareceres))){
+                docsNotas.put(nota.get("_id"), nota);
+            }
+
+            for(Document docParecer : docsPareceres){
+                List<?> notasObjId = (List<?>) docParecer.remove("notas");
+                List<Document> listDocNotas = new ArrayList<Document>();
+
+                if(notasObjId != null){
+                    for(Object notaObjId : notasObjId){
+                        Document nota = docsNotas.get(notaObjId);
+
+                        if(nota != null){
+                            listDocNotas.add(nota);
+                        }
+                    }
+                }
+
+                docParecer.put("notas", listDocNotas);
+            }
+        }
+
+        for(Document docParecer : docsPareceres){
+            encontrados.put(String.valueOf(docParecer.get("_id")), conversor.fromDocument(docParecer, Parecer.class));
+        }
+
+        return Identificadores.naOrdem(ids, encontrados);
+    }
+
+    /**
+     * Recupera o parecer sem as notas, por uma única leitura que
+     * exclui o vetor de notas do documento do parecer.
+     *
+     * @param id O identificador do parecer.
+     *
+     * @return O parecer, com notas {@code null}, ou o valor
+     * {@code null}, caso o identificador não defina um parecer.
+     */
+    public Parecer cabecalhoParecer(String id) {
+        if(id == null){
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        MongoCollection<Document> pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+        Document docParecer = pareceresCollection.find(eq("_id", id)).projection(exclude("notas")).first();
+
+        if(docParecer == null){
+            return null;
+        }
+
+        docParecer.put("id", docParecer.get("_id"));
+
+        return conversor.fromDocument(docParecer, Parecer.class);
+    }
+
     /**
      * Remove o parecer.
      *
@@ -296,15 +737,17 @@ public class ParecerRepositoryManager implements ParecerRepository {
         MongoCollection notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
         MongoCollection pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
 
-        if(byId(id) == null){
+        /* Deletar parecer; a contagem de documentos removidos indica se ele existia */
+        DeleteResult deleteResult = pareceresCollection.deleteOne(new Document("_id", id));
+
+        if(deleteResult.getDeletedCount() == 0){
             throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
         }
 
-        /* Deletar relatos associados ao parecer */
-        notasCollection.deleteMany(new Document("id_parecer", id));
-
-        /* Deletar parecer */
-        pareceresCollection.deleteOne(new Document("_id", id));
+        /* Deletar notas associadas ao parecer */
+        if(layout == LayoutNotas.NORMALIZADO){
+            notasCollection.deleteMany(new Document("id_parecer", id));
+        }
     }
 
     /**
@@ -322,7 +765,7 @@ public class ParecerRepositoryManager implements ParecerRepository {
         }
 
         MongoCollection radocsCollection = db.getCollection(Constants.DB_COLLECTION_RADOCS);
-        MongoCursor<Document> mCursorRadocs = radocsCollection.find(eq("_id", identificador)).iterator();
+        MongoCursor<Document> mCursorRadocs = radocsCollection.find(confirmado(identificador)).iterator();
 
         if(mCursorRadocs.hasNext()){
             Document docRadoc = mCursorRadocs.next();
@@ -333,6 +776,7 @@ public class ParecerRepositoryManager implements ParecerRepository {
 
             docRadoc.put("id", docRadoc.get("_id"));
             docRadoc.remove("relatos");
+            docRadoc.remove(Constants.DB_CAMPO_RESUMO);
 
             // Recebe cada relato do radoc
             relatosCollection = db.getCollection(Constants.DB_COLLECTION_RELATOS);
@@ -345,7 +789,7 @@ public class ParecerRepositoryManager implements ParecerRepository {
             }
 
             docRadoc.put("relatos", listRadocNotas);
-            radoc = gson.fromJson(docRadoc.toJson(), Radoc.class);
+            radoc = conversor.fromDocument(docRadoc, Radoc.class);
 
             return radoc;
         }
@@ -353,6 +797,182 @@ public class ParecerRepositoryManager implements ParecerRepository {
         return null;
     }
 
+    /**
+     * Recupera os RADOCs pelos identificadores com uma consulta
+     * {@code $in} aos RADOCs confirmados e uma consulta {@code $in}
+     * aos relatos pelo campo {@code id_radoc}. Os relatos são
+     * agrupados em memória, na ordem em que são lidos.
+     *
+     * @param identificadores Os identificadores dos RADOCs.
+     *
+     * @return Os RADOCs na ordem dos identificadores, com {@code null}
+     * na posição dos inexistentes.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Radoc> radocsByIds(List<String> identificadores) {
+        List<String> distintos = Identificadores.distintos(identificadores, "identificadores");
+        Map<String, Radoc> encontrados = new HashMap<String, Radoc>();
+
+        if(distintos.isEmpty()){
+            return Identificadores.naOrdem(identificadores, encontrados);
+        }
+
+        MongoCollection<Document> radocsCollection = db.getCollection(Constants.DB_COLLECTION_RADOCS);
+        Map<Object, Document> docsRadocs = new LinkedHashMap<Object, Document>();
+
+        for(Document docRadoc : radocsCollection.find(and(in("_id", distintos), exists(Constants.DB_CAMPO_PENDENTE, false)))
+                .projection(exclude("relatos", Constants.DB_CAMPO_RESUMO))){
+            docRadoc.put("id", docRadoc.get("_id"));
+            docRadoc.put("relatos", new ArrayList<Document>());
+            docsRadocs.put(docRadoc.get("_id"), docRadoc);
+        }
+
+        if(!docsRadocs.isEmpty()){
+            MongoCollection<Document> relatosCollection = db.getCollection(Constants.DB_COLLECTION_RELATOS);
+
+            for(Document relato : relatosCollection.find(in("id_radoc", new ArrayList<Object>(docsRadocs.keySet())))){
+                Document docRadoc = docsRadocs.get(relato.get("id_radoc"));
+
+                if(docRadoc != null){
+                    ((List<Document>) docRadoc.get("relatos")).add(relato);
+                }
+            }
+        }
+
+        for(Map.Entry<Object, Document> entrada : docsRadocs.entrySet()){
+            encontrados.put(String.valueOf(entrada.getKey()), conversor.fromDocument(entrada.getValue(), Radoc.class));
+        }
+
+        return Identificadores.naOrdem(identificadores, encontrados);
+    }
+
+    /**
+     * Recupera o RADOC sem os relatos, por uma única leitura do
+     * documento do RADOC, sem consulta à coleção de relatos.
+     *
+     * @param identificador O identificador do RADOC.
+     *
+     * @return O RADOC, com relatos {@code null}, ou o valor
+     * {@code null}, caso o identificador não defina um RADOC.
+     */
+    public Radoc cabecalhoRadoc(String identificador) {
+        if(identificador == null){
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        MongoCollection<Document> radocsCollection = db.getCollection(Constants.DB_COLLECTION_RADOCS);
+        Document docRadoc = radocsCollection.find(confirmado(identificador))
+                .projection(exclude("relatos", Constants.DB_CAMPO_RESUMO)).first();
+
+        if(docRadoc == null){
+            return null;
+        }
+
+        docRadoc.put("id", docRadoc.get("_id"));
+
+        return conversor.fromDocument(docRadoc, Radoc.class);
+    }
+
+    /**
+     * Recupera o resumo dos relatos do RADOC, lendo apenas o campo
+     * {@link Constants#DB_CAMPO_RESUMO} do documento do RADOC.
+     *
+     * <p>RADOCs gravados antes da existência do resumo são lidos por
+     * completo uma única vez: o resumo é calculado e acrescentado ao
+     * documento.
+     *
+     * @param radoc O identificador do RADOC.
+     *
+     * @return O resumo ou o valor {@code null}, caso o
+     * identificador não defina um RADOC.
+     */
+    @SuppressWarnings("unchecked")
+    public ResumoRelatos resumo(String radoc) {
+        if(radoc == null){
+            throw new CampoExigidoNaoFornecido("radoc");
+        }
+
+        MongoCollection<Document> radocsCollection = db.getCollection(Constants.DB_COLLECTION_RADOCS);
+        Document docRadoc = radocsCollection.find(confirmado(radoc))
+                .projection(include(Constants.DB_CAMPO_RESUMO)).first();
+
+        if(docRadoc == null){
+            return null;
+        }
+
+        if(docRadoc.get(Constants.DB_CAMPO_RESUMO) != null){
+            return ResumoRelatos.fromDocuments(radoc, (List<Document>) docRadoc.get(Constants.DB_CAMPO_RESUMO));
+        }
+
+        Radoc completo = radocById(radoc);
+
+        if(completo == null){
+            return null;
+        }
+
+        ResumoRelatos resumo = ResumoRelatos.de(radoc, completo.getRelatos());
+
+        radocsCollection.updateOne(and(confirmado(radoc), exists(Constants.DB_CAMPO_RESUMO, false)),
+                new Document("$set", new Document(Constants.DB_CAMPO_RESUMO, resumo.toDocuments())));
+
+        return resumo;
+    }
+
+    /**
+     * Recupera os relatos do RADOC de forma incremental, sem
+     * carregá-los todos em memória.
+     *
+     * <p>Os relatos são lidos do banco de dados em lotes de
+     * {@code tamanhoLote} documentos e desserializados diretamente
+     * do formato BSON, um de cada vez, à medida que o cursor avança.
+     *
+     * @throws RadocNaoEncontrado Caso o identificador não
+     * corresponda a um RADOC existente.
+     *
+     * @param identificador O identificador único do RADOC.
+     * @param tamanhoLote Quantidade de relatos recuperados do
+     *                    banco de dados por vez.
+     *
+     * @return Cursor sobre os relatos do RADOC, que deve ser
+     * fechado após o uso.
+     */
+    public RelatoCursor relatos(String identificador, int tamanhoLote) {
+        if(identificador == null){
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        if(tamanhoLote < 1){
+            throw new IllegalArgumentException("tamanhoLote deve ser maior que zero.");
+        }
+
+        if(!existeRadoc(identificador)){
+            throw new RadocNaoEncontrado("Radoc de id[" + identificador + "] não foi encontrado.");
+        }
+
+        MongoCollection<Relato> relatosCollection = db.withCodecRegistry(codecRegistry)
+                .getCollection(Constants.DB_COLLECTION_RELATOS, Relato.class);
+
+        return new RelatoCursor(relatosCollection.find(eq("id_radoc", identificador))
+                .projection(new Document("_id", 0).append("id_radoc", 0))
+                .batchSize(tamanhoLote)
+                .iterator());
+    }
+
+    /**
+     * Recupera os relatos do RADOC como {@link Stream}, conforme
+     * {@link #relatos(String, int)}. O stream deve ser fechado
+     * após o uso para liberar o cursor no banco de dados.
+     *
+     * @param identificador O identificador único do RADOC.
+     * @param tamanhoLote Quantidade de relatos recuperados do
+     *                    banco de dados por vez.
+     *
+     * @return Stream sequencial dos relatos do RADOC.
+     */
+    public Stream<Relato> streamRelatos(String identificador, int tamanhoLote) {
+        return relatos(identificador, tamanhoLote).stream();
+    }
+
     /**
      * Conjunto de relatos de atividades e produtos
      * associados a um docente.
@@ -363,9 +983,14 @@ public class ParecerRepositoryManager implements ParecerRepository {
      * longo do tempo. Convém ressaltar que informações
      * desses relatórios podem ser alteradas continuamente.
      *
+     * <p>Um RADOC pendente há mais de
+     * {@link OrphanSweeper#IDADE_MINIMA_PADRAO}, deixado por uma
+     * gravação interrompida, é substituído, sem aguardar o
+     * {@link OrphanSweeper}.
+     *
      * @throws IdentificadorExistente Caso o identificador
      * do objeto a ser persistido seja empregado por
-     * RADOC existente.
+     * RADOC existente ou por gravação em andamento.
      *
      * @param radoc O conjunto de relatos a ser persistido.
      *
@@ -378,37 +1003,91 @@ public class ParecerRepositoryManager implements ParecerRepository {
 
         MongoCollection relatosCollection = db.getCollection(Constants.DB_COLLECTION_RELATOS);
         MongoCollection radocsCollection = db.getCollection(Constants.DB_COLLECTION_RADOCS);
+        Date inicio = new Date();
+        UpdateResult updateResult;
 
-        Document docRadoc = Document.parse(gson.toJson(radoc));
+        Document docRadoc = conversor.toDocument(radoc);
         docRadoc.remove("relatos");
         docRadoc.remove("id");
         docRadoc.put("_id", radoc.getId());
+        docRadoc.put("relatos", new ArrayList<ObjectId>());
+        docRadoc.put(Constants.DB_CAMPO_PENDENTE, inicio);
+
+        /* O RADOC é reservado, ainda invisível, antes de qualquer relato ser gravado */
+        try {
+            radocsCollection.insertOne(docRadoc);
+        } catch (MongoWriteException e) {
+            if(e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY){
+                throw e;
+            }
+
+            /* Assume a reserva abandonada; a nova marca impede que o varredor a remova */
+            if(radocsCollection.replaceOne(pendenteAbandonado(radoc.getId(), inicio), docRadoc).getMatchedCount() == 0){
+                throw new IdentificadorExistente("Radoc de id[" + radoc.getId() + "] já existe.");
+            }
+        }
+
+        /* Relatos remanescentes de uma remoção interrompida não pertencem a este RADOC */
+        relatosCollection.deleteMany(new Document("id_radoc", radoc.getId()));
 
         /* Salvar Relatos */
         List<Relato> relatos = radoc.getRelatos();
         List<ObjectId> relatosObjId = new ArrayList<ObjectId>();
 
-        /* Inserindo relatos na collections Relatos */
-        for( Relato r : relatos ){
-            Document docRelato = Document.parse(gson.toJson(r));
-            ObjectId objIdRelato;
+        if(relatos != null){
+            List<Document> lote = new ArrayList<Document>(Math.min(relatos.size(), tamanhoLote));
+
+            /* Inserindo relatos na collections Relatos, em lotes de até tamanhoLote documentos */
+            for( Relato r : relatos ){
+                Document docRelato = conversor.toDocument(r);
+                ObjectId objIdRelato = new ObjectId();
 
-            docRelato.put("id_radoc", docRadoc.get("_id"));
-            relatosCollection.insertOne(docRelato);
-            objIdRelato = docRelato.getObjectId("_id");
+                docRelato.put("_id", objIdRelato);
+                docRelato.put("id_radoc", docRadoc.get("_id"));
+                lote.add(docRelato);
 
-            /* Inserindo ids dos relatos no ArrayList */
-            relatosObjId.add(objIdRelato);
+                /* Inserindo ids dos relatos no ArrayList */
+                relatosObjId.add(objIdRelato);
+
+                if(lote.size() == tamanhoLote){
+                    relatosCollection.insertMany(lote, new InsertManyOptions().ordered(false));
+                    lote = new ArrayList<Document>(tamanhoLote);
+                }
+            }
+
+            if(!lote.isEmpty()){
+                relatosCollection.insertMany(lote, new InsertManyOptions().ordered(false));
+            }
         }
 
-        docRadoc.put("relatos", relatosObjId);
+        /* Confirma o RADOC, tornando-o visível com todos os seus relatos e o resumo deles */
+        updateResult = radocsCollection.updateOne(
+                and(eq("_id", radoc.getId()), eq(Constants.DB_CAMPO_PENDENTE, inicio)),
+                new Document("$set", new Document("relatos", relatosObjId)
+                        .append(Constants.DB_CAMPO_RESUMO, ResumoRelatos.de(radoc.getId(), relatos).toDocuments()))
+                        .append("$unset", new Document(Constants.DB_CAMPO_PENDENTE, "")));
 
-        /* Inserindo radoc na collections Radocs */
-        radocsCollection.insertOne(docRadoc);
+        if(updateResult.getMatchedCount() == 0){
+            throw new RadocNaoEncontrado("Radoc de id[" + radoc.getId() + "] foi descartado antes de ser confirmado.");
+        }
 
         return radoc.getId();
     }
 
+    /**
+     * Define a quantidade máxima de relatos enviados ao banco de dados
+     * em cada inserção em lote de {@link #persisteRadoc(Radoc)}.
+     *
+     * @param tamanhoLote Quantidade de documentos por lote, maior que zero.
+     */
+    public void setTamanhoLote(int tamanhoLote) {
+        if(tamanhoLote < 1){
+            throw new IllegalArgumentException("tamanhoLote deve ser maior que zero.");
+        }
+
+        this.tamanhoLote = tamanhoLote;
+    }
+
     /**
      * Remove o RADOC.
      *
@@ -431,81 +1110,159 @@ public class ParecerRepositoryManager implements ParecerRepository {
 
         MongoCollection relatosCollection = db.getCollection(Constants.DB_COLLECTION_RELATOS);
         MongoCollection radocsCollection = db.getCollection(Constants.DB_COLLECTION_RADOCS);
+        MongoCollection<Document> pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+
+        /* Pelo índice de radocs; não é atômica em relação a persisteParecer concorrente */
+        if (pareceresCollection.count(eq("radocs", identificador), new CountOptions().limit(1)) > 0) {
+            throw new ExisteParecerReferenciandoRadoc("Radoc de id[" + identificador
+                    + "] é referenciado por parecer.");
+        }
+
+        Date inicio = new Date();
 
-        if(radocById(identificador) == null){
+        /* Torna o radoc invisível; a contagem de documentos alterados indica se ele existia */
+        UpdateResult updateResult = radocsCollection.updateOne(confirmado(identificador),
+                new Document("$set", new Document(Constants.DB_CAMPO_PENDENTE, inicio)));
+
+        if(updateResult.getMatchedCount() == 0){
             throw new RadocNaoEncontrado("Radoc de id[" + identificador + "] não foi encontrado.");
         }
 
-        /* Deletar relatos associados ao Radoc */
+        /* Deletar relatos associados ao Radoc e, por fim, o próprio Radoc */
         relatosCollection.deleteMany(new Document("id_radoc", identificador));
+        radocsCollection.deleteOne(and(eq("_id", identificador), eq(Constants.DB_CAMPO_PENDENTE, inicio)));
+
+    }
+
+    /**
+     * Adiciona a nota ao vetor de notas do parecer no layout
+     * {@link LayoutNotas#EMBUTIDO}. Uma nota existente para o mesmo
+     * item original, identificada pela chave canônica, é substituída.
+     * A inclusão só ocorre caso o vetor não contenha a chave, de modo
+     * que inclusões concorrentes para o mesmo item não produzem notas
+     * duplicadas: a que não for incluída substitui a outra.
+     */
+    private void adicionaNotaEmbutida(String id, Nota nota){
+        MongoCollection pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+        Document notaDocument = conversor.toDocument(nota);
+        String chave = ChaveAvaliavel.de((Document) notaDocument.get("original"));
+        UpdateResult updateResult;
+
+        notaDocument.append(ChaveAvaliavel.CAMPO, chave);
+
+        while(true){
+            /* Substitui a nota do mesmo item original, caso exista */
+            updateResult = pareceresCollection.updateOne(
+                    and(eq("_id", id), eq("notas." + ChaveAvaliavel.CAMPO, chave)),
+                    new Document("$set", new Document("notas.$", notaDocument)));
+
+            if(updateResult.getMatchedCount() > 0) return;
+
+            updateResult = pareceresCollection.updateOne(
+                    and(eq("_id", id), ne("notas." + ChaveAvaliavel.CAMPO, chave)),
+                    new Document("$push", new Document("notas", notaDocument)));
 
-        /* Deletar radoc */
-        radocsCollection.deleteOne(new Document("_id", identificador));
+            if(updateResult.getMatchedCount() > 0) return;
 
+            if(!existeParecer(id)){
+                throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+            }
+
+            /* Nota do mesmo item incluída concorrentemente entre as duas escritas */
+        }
     }
 
     /**
-     * Realiza a comparação entre dois objetos {@link Document} e retorna
-     * se eles são iguais ou não.
+     * Remove do vetor de notas do parecer, no layout
+     * {@link LayoutNotas#EMBUTIDO}, as notas cujo item original
+     * tem a chave canônica de {@code original}.
+     */
+    private void removeNotaEmbutida(String id, Avaliavel original){
+        MongoCollection pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
+        String chave = ChaveAvaliavel.de(conversor.toDocument(original));
+        UpdateResult updateResult = pareceresCollection.updateOne(new Document("_id", id),
+                new Document("$pull", new Document("notas", new Document(ChaveAvaliavel.CAMPO, chave))));
+
+        if(updateResult.getMatchedCount() == 0){
+            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+        }
+    }
+
+    /**
+     * Verifica se existe parecer com o identificador fornecido,
+     * consultando apenas o índice de {@code _id}, sem recuperar
+     * o documento nem as suas notas.
      *
-     * @param docNotaOriginal O objeto {@code Document} original da primeira nota.
-     * @param docOriginal O objeto {@code Document} original da segunda nota.
-     * @return O valor {@code true} caso ambos {@code Document} forem iguais ou
-     * {@code false} caso sejam diferentes.
+     * @param id O identificador do parecer.
+     * @return O valor {@code true} caso o parecer exista.
      */
-    private boolean compareAvaliavel( Document docNotaOriginal, Document docOriginal ){
+    private boolean existeParecer(String id){
+        MongoCollection pareceresCollection = db.getCollection(Constants.DB_COLLECTION_PARECERES);
 
-        /* Verifica se relato ou pontuação */
-        if(docNotaOriginal.containsKey("tipo")){
-            Relato notaOriginal = gson.fromJson(docNotaOriginal.toJson(), Relato.class);
-            Relato original = gson.fromJson(docOriginal.toJson(), Relato.class);
+        return pareceresCollection.count(eq("_id", id), new CountOptions().limit(1)) > 0;
+    }
 
-            return notaOriginal.equals(original);
-        } else {
-            Pontuacao notaOriginal = gson.fromJson(docNotaOriginal.toJson(), Pontuacao.class);
-            Pontuacao original = gson.fromJson(docOriginal.toJson(), Pontuacao.class);
+    /**
+     * Verifica se existe RADOC com o identificador fornecido,
+     * consultando apenas o índice de {@code _id}, sem recuperar
+     * o documento nem os seus relatos.
+     *
+     * @param identificador O identificador do RADOC.
+     * @return O valor {@code true} caso o RADOC exista.
+     */
+    private boolean existeRadoc(String identificador){
+        MongoCollection radocsCollection = db.getCollection(Constants.DB_COLLECTION_RADOCS);
 
-            if(notaOriginal.getAtributo().equals(original.getAtributo())
-                    && equalValorAvaliavel(notaOriginal.getValor(), original.getValor()))
-                return true;
-        }
+        return radocsCollection.count(confirmado(identificador), new CountOptions().limit(1)) > 0;
+    }
+
+    /**
+     * Filtro do RADOC cuja gravação foi concluída, isto é, sem o
+     * campo {@link Constants#DB_CAMPO_PENDENTE}.
+     */
+    static Bson confirmado(String identificador){
+        return and(eq("_id", identificador), exists(Constants.DB_CAMPO_PENDENTE, false));
+    }
 
-        return false;
+    /**
+     * Filtro do RADOC pendente há mais de
+     * {@link OrphanSweeper#IDADE_MINIMA_PADRAO} em {@code inicio}.
+     */
+    static Bson pendenteAbandonado(String identificador, Date inicio){
+        return and(eq("_id", identificador), lt(Constants.DB_CAMPO_PENDENTE,
+                new Date(inicio.getTime() - OrphanSweeper.IDADE_MINIMA_PADRAO)));
     }
 
     /**
-     * Realiza a comparação entre dois objetos {@link Valor} e retorna
-     * se eles são iguais ou não.
+     * Calcula a chave canônica do item original das notas
+     * persistidas antes da existência do campo
+     * {@link ChaveAvaliavel#CAMPO}, permitindo que sejam
+     * localizadas por {@link #removeNota(String, Avaliavel)}.
      *
-     * @param notaOriginal O objeto {@code Valor} original da primeira nota.
-     * @param original O objeto {@code Valor} original da segunda nota.
-     * @return O valor {@code true} caso ambos {@code Valor} forem iguais ou
-     * {@code false} caso sejam diferentes.
+     * @return A quantidade de notas atualizadas.
      */
-    private boolean equalValorAvaliavel( Valor notaOriginal, Valor original ){
-        boolean equalValor = true;
+    public int atualizaChavesDasNotas(){
+        MongoCollection<Document> notasCollection = db.getCollection(Constants.DB_COLLECTION_NOTAS);
+        int atualizadas = 0;
 
-        if( notaOriginal.getString()!= null && original.getString() != null){
-            if(!notaOriginal.getString().equals(original.getString())) {
-                equalValor = false;
-            }
-        }
+        for(Document docNota : notasCollection.find(exists(ChaveAvaliavel.CAMPO, false)).projection(include("original"))){
+            String chave = ChaveAvaliavel.de((Document) docNota.get("original"));
 
-        if((notaOriginal.getBoolean() == original.getBoolean())
-                && notaOriginal.getFloat() == original.getFloat()) {
-            equalValor = true;
-        } else{
-            equalValor = false;
+            notasCollection.updateOne(new Document("_id", docNota.get("_id")),
+                    new Document("$set", new Document(ChaveAvaliavel.CAMPO, chave)));
+            atualizadas++;
         }
 
-        return equalValor;
+        return atualizadas;
     }
 
     /**
-     * Deleta completamente o banco de dados.
+     * Deleta completamente o banco de dados, recriando em
+     * seguida os índices das coleções.
      */
     public void limparBancoDeDados(){
         db.drop();
+        IndexInitializer.cria(db);
     }
 
 }
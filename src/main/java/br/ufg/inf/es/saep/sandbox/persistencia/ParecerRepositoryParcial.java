@@ -0,0 +1,39 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.Parecer;
+import br.ufg.inf.es.saep.sandbox.dominio.ParecerRepository;
+import br.ufg.inf.es.saep.sandbox.dominio.Radoc;
+
+/**
+ * {@link ParecerRepository} capaz de recuperar pareceres e RADOCs sem
+ * as suas coleções filhas.
+ *
+ * <p>Destina-se a consultas que exibem apenas a resolução, os RADOCs,
+ * as pontuações e a fundamentação de um parecer, ou o ano-base de um
+ * RADOC: as notas e os relatos não são lidos nem desserializados. Nos
+ * objetos retornados, {@link Parecer#getNotas()} e
+ * {@link Radoc#getRelatos()} são {@code null}, indicando que não foram
+ * recuperados, e não que estão vazios.
+ */
+public interface ParecerRepositoryParcial extends ParecerRepository {
+
+    /**
+     * Recupera o parecer sem as suas notas.
+     *
+     * @param id O identificador do parecer.
+     *
+     * @return O parecer, com notas {@code null}, ou o valor
+     * {@code null}, caso o identificador não defina um parecer.
+     */
+    Parecer cabecalhoParecer(String id);
+
+    /**
+     * Recupera o RADOC sem os seus relatos.
+     *
+     * @param identificador O identificador do RADOC.
+     *
+     * @return O RADOC, com relatos {@code null}, ou o valor
+     * {@code null}, caso o identificador não defina um RADOC.
+     */
+    Radoc cabecalhoRadoc(String identificador);
+}
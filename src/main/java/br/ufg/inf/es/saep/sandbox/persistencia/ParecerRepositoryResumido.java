@@ -0,0 +1,24 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.ParecerRepository;
+
+/**
+ * {@link ParecerRepository} que mantém, para cada RADOC, um
+ * {@link ResumoRelatos} atualizado a cada gravação e remoção.
+ *
+ * <p>O resumo é recuperado por uma única leitura, sem os relatos,
+ * e basta para avaliar regras que dependem apenas da quantidade de
+ * relatos de um tipo ou de agregados dos seus atributos.
+ */
+public interface ParecerRepositoryResumido extends ParecerRepository {
+
+    /**
+     * Recupera o resumo dos relatos do RADOC.
+     *
+     * @param radoc O identificador do RADOC.
+     *
+     * @return O resumo ou o valor {@code null}, caso o
+     * identificador não defina um RADOC.
+     */
+    ResumoRelatos resumo(String radoc);
+}
@@ -0,0 +1,413 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.Armazenamento;
+import br.ufg.inf.es.saep.sandbox.util.ChaveAvaliavel;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.DocumentConverter;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import org.bson.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementação de {@link ParecerRepository} sobre um
+ * {@link Armazenamento} chave-valor, como {@link br.ufg.inf.es.saep.sandbox.util.MappedLogStore}.
+ *
+ * <p>Cada parecer é armazenado como um único valor, com as notas
+ * embutidas e a chave canônica do item original de cada uma; cada
+ * RADOC, com todos os seus relatos, também é um único valor. Toda
+ * operação corresponde, assim, a uma única gravação atômica. A
+ * semântica é a mesma de {@link ParecerRepositoryManager}; a
+ * verificação das referências em {@link #removeRadoc(String)}
+ * percorre todos os pareceres armazenados.
+ *
+ * <p>As leituras podem ser concorrentes; as alterações são serializadas.
+ */
+public class ParecerRepositoryStore implements ParecerRepositoryEmLote, ParecerRepositoryIncremental, ParecerRepositoryResumido,
+        ParecerRepositoryParcial {
+
+    /**
+     * Campo do valor armazenado com as chaves canônicas das notas,
+     * na mesma ordem das notas.
+     */
+    private static final String CHAVES = "chaves";
+
+    private final Armazenamento armazenamento;
+    private final Gson gson = SaepCodecs.gson();
+    private final DocumentConverter conversor = new DocumentConverter(gson);
+
+    /**
+     * Cria o repositório sobre o armazenamento fornecido, que não é
+     * fechado pelo repositório.
+     *
+     * @param armazenamento Armazenamento dos pareceres e RADOCs.
+     */
+    public ParecerRepositoryStore(Armazenamento armazenamento) {
+        if (armazenamento == null) {
+            throw new CampoExigidoNaoFornecido("armazenamento");
+        }
+
+        this.armazenamento = armazenamento;
+    }
+
+    public synchronized void adicionaNota(String id, Nota nota) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        if (nota == null) {
+            throw new CampoExigidoNaoFornecido("nota");
+        }
+
+        JsonObject docParecer = leParecer(id);
+        JsonArray notas = docParecer.getAsJsonArray("notas");
+        JsonArray chaves = docParecer.getAsJsonArray(CHAVES);
+        JsonPrimitive chave = new JsonPrimitive(chave(nota.getItemOriginal()));
+        int posicao = indice(chaves, chave);
+
+        /* A nota do mesmo item original é substituída */
+        if (posicao >= 0) {
+            notas.set(posicao, gson.toJsonTree(nota));
+        } else {
+            notas.add(gson.toJsonTree(nota));
+            chaves.add(chave);
+        }
+
+        gravaParecer(id, docParecer);
+    }
+
+    public synchronized void removeNota(String id, Avaliavel original) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        if (original == null) {
+            throw new CampoExigidoNaoFornecido("original");
+        }
+
+        JsonObject docParecer = leParecer(id);
+        JsonArray notas = docParecer.getAsJsonArray("notas");
+        JsonArray chaves = docParecer.getAsJsonArray(CHAVES);
+        JsonPrimitive chave = new JsonPrimitive(chave(original));
+
+        for (int i = chaves.size() - 1; i >= 0; i--) {
+            if (chaves.get(i).equals(chave)) {
+                notas.remove(i);
+                chaves.remove(i);
+            }
+        }
+
+        gravaParecer(id, docParecer);
+    }
+
+    public synchronized void persisteParecer(Parecer parecer) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        JsonObject docParecer = gson.toJsonTree(parecer).getAsJsonObject();
+        JsonArray notas = new JsonArray();
+        JsonArray chaves = new JsonArray();
+
+        if (parecer.getNotas() != null) {
+            for (Nota nota : parecer.getNotas()) {
+                notas.add(gson.toJsonTree(nota));
+                chaves.add(new JsonPrimitive(chave(nota.getItemOriginal())));
+            }
+        }
+
+        docParecer.add("notas", notas);
+        docParecer.add(CHAVES, chaves);
+
+        if (!armazenamento.insere(Constants.DB_COLLECTION_PARECERES, parecer.getId(), bytes(docParecer))) {
+            throw new IdentificadorExistente("Parecer de id[" + parecer.getId() + "] já existe.");
+        }
+    }
+
+    public synchronized List<String> persistePareceres(List<Parecer> pareceres) {
+        if (pareceres == null) {
+            throw new CampoExigidoNaoFornecido("pareceres");
+        }
+
+        List<String> existentes = new ArrayList<String>();
+
+        for (Parecer parecer : pareceres) {
+            try {
+                persisteParecer(parecer);
+            } catch (IdentificadorExistente e) {
+                existentes.add(parecer.getId());
+            }
+        }
+
+        return existentes;
+    }
+
+    public synchronized void atualizaFundamentacao(String parecer, String fundamentacao) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if (fundamentacao == null) {
+            throw new CampoExigidoNaoFornecido("fundamentacao");
+        }
+
+        JsonObject docParecer = leParecer(parecer);
+
+        docParecer.addProperty("fundamentacao", fundamentacao);
+        gravaParecer(parecer, docParecer);
+    }
+
+    public synchronized void atualizaPontuacoes(String parecer, List<Pontuacao> pontuacoes) {
+        if (parecer == null) {
+            throw new CampoExigidoNaoFornecido("parecer");
+        }
+
+        if (pontuacoes == null) {
+            throw new CampoExigidoNaoFornecido("pontuacoes");
+        }
+
+        JsonObject docParecer = leParecer(parecer);
+        JsonArray atuais = docParecer.has("pontuacoes") ? docParecer.getAsJsonArray("pontuacoes") : new JsonArray();
+
+        for (Pontuacao pontuacao : pontuacoes) {
+            JsonElement docPontuacao = gson.toJsonTree(pontuacao);
+            int posicao = -1;
+
+            for (int i = 0; i < atuais.size() && posicao < 0; i++) {
+                if (atuais.get(i).getAsJsonObject().get("atributo").getAsString().equals(pontuacao.getAtributo())) {
+                    posicao = i;
+                }
+            }
+
+            if (posicao >= 0) {
+                atuais.set(posicao, docPontuacao);
+            } else {
+                atuais.add(docPontuacao);
+            }
+        }
+
+        docParecer.add("pontuacoes", atuais);
+        gravaParecer(parecer, docParecer);
+    }
+
+    public Parecer byId(String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        byte[] valor = armazenamento.le(Constants.DB_COLLECTION_PARECERES, id);
+
+        return valor == null ? null : gson.fromJson(texto(valor), Parecer.class);
+    }
+
+    public List<Parecer> byIds(List<String> ids) {
+        if (ids == null) {
+            throw new CampoExigidoNaoFornecido("ids");
+        }
+
+        List<Parecer> resultado = new ArrayList<Parecer>(ids.size());
+
+        for (String id : ids) {
+            resultado.add(byId(id));
+        }
+
+        return resultado;
+    }
+
+    public Parecer cabecalhoParecer(String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        byte[] valor = armazenamento.le(Constants.DB_COLLECTION_PARECERES, id);
+
+        if (valor == null) {
+            return null;
+        }
+
+        /* As notas são descartadas da árvore antes da criação dos objetos */
+        JsonObject docParecer = new JsonParser().parse(texto(valor)).getAsJsonObject();
+
+        docParecer.remove("notas");
+
+        return gson.fromJson(docParecer, Parecer.class);
+    }
+
+    public synchronized void removeParecer(String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        if (!armazenamento.remove(Constants.DB_COLLECTION_PARECERES, id)) {
+            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+        }
+    }
+
+    public Radoc radocById(String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        byte[] valor = armazenamento.le(Constants.DB_COLLECTION_RADOCS, identificador);
+
+        return valor == null ? null : gson.fromJson(texto(valor), Radoc.class);
+    }
+
+    public List<Radoc> radocsByIds(List<String> identificadores) {
+        if (identificadores == null) {
+            throw new CampoExigidoNaoFornecido("identificadores");
+        }
+
+        List<Radoc> resultado = new ArrayList<Radoc>(identificadores.size());
+
+        for (String identificador : identificadores) {
+            resultado.add(radocById(identificador));
+        }
+
+        return resultado;
+    }
+
+    public Radoc cabecalhoRadoc(String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        byte[] valor = armazenamento.le(Constants.DB_COLLECTION_RADOCS, identificador);
+
+        if (valor == null) {
+            return null;
+        }
+
+        JsonObject docRadoc = new JsonParser().parse(texto(valor)).getAsJsonObject();
+
+        docRadoc.remove("relatos");
+
+        return gson.fromJson(docRadoc, Radoc.class);
+    }
+
+    public synchronized String persisteRadoc(Radoc radoc) {
+        if (radoc == null) {
+            throw new CampoExigidoNaoFornecido("radoc");
+        }
+
+        byte[] valor = gson.toJson(radoc).getBytes(StandardCharsets.UTF_8);
+
+        if (!armazenamento.insere(Constants.DB_COLLECTION_RADOCS, radoc.getId(), valor)) {
+            throw new IdentificadorExistente("Radoc de id[" + radoc.getId() + "] já existe.");
+        }
+
+        /* Gravado após o RADOC; se faltar, resumo() o calcula a partir do RADOC */
+        Document resumo = new Document(Constants.DB_CAMPO_RESUMO,
+                ResumoRelatos.de(radoc.getId(), radoc.getRelatos()).toDocuments());
+
+        armazenamento.grava(Constants.DB_COLLECTION_RESUMOS, radoc.getId(), resumo.toJson().getBytes(StandardCharsets.UTF_8));
+
+        return radoc.getId();
+    }
+
+    @SuppressWarnings("unchecked")
+    public ResumoRelatos resumo(String radoc) {
+        if (radoc == null) {
+            throw new CampoExigidoNaoFornecido("radoc");
+        }
+
+        byte[] valor = armazenamento.le(Constants.DB_COLLECTION_RESUMOS, radoc);
+
+        if (valor != null) {
+            return ResumoRelatos.fromDocuments(radoc,
+                    (List<Document>) Document.parse(texto(valor)).get(Constants.DB_CAMPO_RESUMO));
+        }
+
+        Radoc docente = radocById(radoc);
+
+        return docente == null ? null : ResumoRelatos.de(radoc, docente.getRelatos());
+    }
+
+    /**
+     * Remove o RADOC, verificando antes, em todos os pareceres
+     * armazenados, se algum o referencia.
+     *
+     * @param identificador O identificador do RADOC.
+     * @throws ExisteParecerReferenciandoRadoc Caso algum parecer
+     *                                         referencie o RADOC.
+     */
+    public synchronized void removeRadoc(String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        JsonPrimitive referencia = new JsonPrimitive(identificador);
+
+        for (String id : armazenamento.chaves(Constants.DB_COLLECTION_PARECERES)) {
+            byte[] valor = armazenamento.le(Constants.DB_COLLECTION_PARECERES, id);
+            JsonElement radocs = valor == null ? null
+                    : new JsonParser().parse(texto(valor)).getAsJsonObject().get("radocs");
+
+            if (radocs != null && radocs.isJsonArray() && radocs.getAsJsonArray().contains(referencia)) {
+                throw new ExisteParecerReferenciandoRadoc("Radoc de id[" + identificador
+                        + "] é referenciado pelo parecer de id[" + id + "].");
+            }
+        }
+
+        armazenamento.remove(Constants.DB_COLLECTION_RESUMOS, identificador);
+
+        if (!armazenamento.remove(Constants.DB_COLLECTION_RADOCS, identificador)) {
+            throw new RadocNaoEncontrado("Radoc de id[" + identificador + "] não foi encontrado.");
+        }
+    }
+
+    /**
+     * Remove todos os pareceres e RADOCs, assim como os demais
+     * dados do armazenamento.
+     */
+    public void limparBancoDeDados() {
+        armazenamento.limpa();
+    }
+
+    private JsonObject leParecer(String id) {
+        byte[] valor = armazenamento.le(Constants.DB_COLLECTION_PARECERES, id);
+
+        if (valor == null) {
+            throw new ParecerNaoEncontrado("Parecer de id[" + id + "] não foi encontrado.");
+        }
+
+        return new JsonParser().parse(texto(valor)).getAsJsonObject();
+    }
+
+    private void gravaParecer(String id, JsonObject docParecer) {
+        armazenamento.grava(Constants.DB_COLLECTION_PARECERES, id, bytes(docParecer));
+    }
+
+    private String chave(Avaliavel original) {
+        return ChaveAvaliavel.de(conversor.toDocument(original));
+    }
+
+    private static int indice(JsonArray chaves, JsonElement chave) {
+        for (int i = 0; i < chaves.size(); i++) {
+            if (chaves.get(i).equals(chave)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static byte[] bytes(JsonElement documento) {
+        return documento.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String texto(byte[] valor) {
+        return new String(valor, StandardCharsets.UTF_8);
+    }
+}
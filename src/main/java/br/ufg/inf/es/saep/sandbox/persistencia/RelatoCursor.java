@@ -0,0 +1,60 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.Relato;
+import com.mongodb.client.MongoCursor;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Percorre os relatos de um RADOC diretamente sobre o cursor do
+ * MongoDB, desserializando um relato por vez.
+ *
+ * <p>Apenas o lote corrente do cursor é mantido em memória, de
+ * modo que RADOCs de qualquer tamanho podem ser processados com
+ * memória constante. O cursor deve ser fechado após o uso, de
+ * preferência por meio de try-with-resources.
+ */
+public class RelatoCursor implements Iterator<Relato>, Closeable {
+
+    private final Cursores.Iterador<Relato> relatos;
+
+    /**
+     * Cria cursor de relatos.
+     *
+     * @param cursor Cursor do MongoDB sobre a coleção de relatos.
+     */
+    RelatoCursor(MongoCursor<Relato> cursor) {
+        this.relatos = new Cursores.Iterador<Relato>(cursor);
+    }
+
+    public boolean hasNext() {
+        return relatos.hasNext();
+    }
+
+    public Relato next() {
+        return relatos.next();
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Converte o cursor em {@link Stream} sequencial. O fechamento
+     * do stream fecha este cursor.
+     *
+     * @return Stream dos relatos restantes.
+     */
+    public Stream<Relato> stream() {
+        return Cursores.stream(relatos);
+    }
+
+    /**
+     * Fecha o cursor, liberando os recursos no servidor.
+     */
+    public void close() {
+        relatos.close();
+    }
+}
@@ -0,0 +1,145 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.CampoExigidoNaoFornecido;
+import br.ufg.inf.es.saep.sandbox.dominio.ParecerRepository;
+import br.ufg.inf.es.saep.sandbox.dominio.ResolucaoRepository;
+import br.ufg.inf.es.saep.sandbox.util.MappedLogStore;
+import br.ufg.inf.es.saep.sandbox.util.Metricas;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBProvider;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Par de repositórios de pareceres e de resoluções sobre um mesmo
+ * {@link Backend}, escolhido na construção.
+ *
+ * <p>O backend pode ser definido pelo código ou, por
+ * {@link #doSistema()}, pelas propriedades do sistema
+ * {@value #PROPRIEDADE_BACKEND} e {@value #PROPRIEDADE_ARQUIVO}.
+ */
+public class Repositorios implements Closeable {
+
+    /**
+     * Propriedade do sistema que define o backend.
+     */
+    public final static String PROPRIEDADE_BACKEND = "saep.backend";
+
+    /**
+     * Propriedade do sistema com o caminho do arquivo do backend
+     * {@link Backend#ARQUIVO}.
+     */
+    public final static String PROPRIEDADE_ARQUIVO = "saep.arquivo";
+
+    /**
+     * Arquivo padrão do backend {@link Backend#ARQUIVO}.
+     */
+    public final static String ARQUIVO_PADRAO = "saep.log";
+
+    private final Backend backend;
+    private final ParecerRepository pareceres;
+    private final ResolucaoRepository resolucoes;
+    private final Closeable recurso;
+
+    private Repositorios(Backend backend, ParecerRepository pareceres, ResolucaoRepository resolucoes,
+                         Closeable recurso) {
+        this.backend = backend;
+        this.pareceres = pareceres;
+        this.resolucoes = resolucoes;
+        this.recurso = recurso;
+    }
+
+    /**
+     * Cria repositórios sobre o MongoDB, instrumentados por
+     * {@link Metricas#instrumenta(Object, String)}. O provedor não é
+     * fechado por {@link #close()}.
+     *
+     * @param provider Provedor de conexões com o MongoDB.
+     * @return Os repositórios.
+     */
+    public static Repositorios mongodb(MongoDBProvider provider) {
+        if (provider == null) {
+            throw new CampoExigidoNaoFornecido("provider");
+        }
+
+        ParecerRepository pareceres = Metricas.instrumenta(new ParecerRepositoryManager(provider),
+                ParecerRepositoryManager.class.getSimpleName());
+        ResolucaoRepository resolucoes = Metricas.instrumenta(new ResolucaoRepositoryManager(provider),
+                ResolucaoRepositoryManager.class.getSimpleName());
+
+        return new Repositorios(Backend.MONGODB, pareceres, resolucoes, null);
+    }
+
+    /**
+     * Cria repositórios mantidos apenas em memória.
+     *
+     * @return Os repositórios.
+     */
+    public static Repositorios memoria() {
+        return new Repositorios(Backend.MEMORIA, new ParecerRepositoryInMemory(),
+                new ResolucaoRepositoryInMemory(), null);
+    }
+
+    /**
+     * Cria repositórios sobre um único arquivo de log local, aberto
+     * ou criado no caminho indicado e fechado por {@link #close()}.
+     *
+     * @param arquivo Caminho do arquivo de log.
+     * @return Os repositórios.
+     */
+    public static Repositorios arquivo(Path arquivo) {
+        if (arquivo == null) {
+            throw new CampoExigidoNaoFornecido("arquivo");
+        }
+
+        MappedLogStore log = new MappedLogStore(arquivo);
+
+        return new Repositorios(Backend.ARQUIVO, new ParecerRepositoryStore(log),
+                new ResolucaoRepositoryStore(log), log);
+    }
+
+    /**
+     * Cria repositórios sobre o backend definido pelas propriedades
+     * do sistema ou, na ausência delas, sobre o MongoDB, pelo provedor
+     * padrão de {@link MongoDBUtil}.
+     *
+     * @return Os repositórios.
+     */
+    public static Repositorios doSistema() {
+        String valor = System.getProperty(PROPRIEDADE_BACKEND);
+        Backend backend = valor == null ? Backend.MONGODB : Backend.valueOf(valor.trim().toUpperCase());
+
+        switch (backend) {
+            case MEMORIA:
+                return memoria();
+            case ARQUIVO:
+                return arquivo(Paths.get(System.getProperty(PROPRIEDADE_ARQUIVO, ARQUIVO_PADRAO)));
+            default:
+                return mongodb(MongoDBUtil.getProvider());
+        }
+    }
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public ParecerRepository getPareceres() {
+        return pareceres;
+    }
+
+    public ResolucaoRepository getResolucoes() {
+        return resolucoes;
+    }
+
+    /**
+     * Libera os recursos do backend, como o arquivo de log.
+     */
+    public void close() throws IOException {
+        if (recurso != null) {
+            recurso.close();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.AsyncUtil;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.IndexInitializer;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBProvider;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
+import com.mongodb.async.client.MongoCollection;
+import com.mongodb.async.client.MongoDatabase;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.regex;
+import static com.mongodb.client.model.Projections.include;
+import static com.mongodb.client.model.Sorts.ascending;
+
+/**
+ * Variante assíncrona de {@link ResolucaoRepositoryManager}, construída
+ * sobre o driver assíncrono do MongoDB.
+ *
+ * <p>Cada operação retorna um {@link CompletableFuture} completado
+ * quando o banco de dados responde, sem bloquear a thread chamadora.
+ * O formato dos documentos é o mesmo de
+ * {@link ResolucaoRepositoryManager}.
+ *
+ * @see ResolucaoRepositoryManager
+ */
+public class ResolucaoRepositoryAsync {
+
+    private final MongoDatabase db;
+
+    /**
+     * Cria repositório assíncrono a partir do provedor padrão de
+     * {@link MongoDBUtil}.
+     */
+    public ResolucaoRepositoryAsync() {
+        this(MongoDBUtil.getProvider());
+    }
+
+    /**
+     * Cria repositório assíncrono que utiliza o cliente assíncrono
+     * compartilhado do provedor fornecido.
+     *
+     * @param provider Provedor de conexões com o MongoDB.
+     */
+    public ResolucaoRepositoryAsync(MongoDBProvider provider) {
+        if (provider == null) {
+            throw new CampoExigidoNaoFornecido("provider");
+        }
+
+        db = provider.getAsyncDatabase().withCodecRegistry(SaepCodecs.registry(SaepCodecs.gson()));
+
+        /* Índice das consultas pelo nome do tipo */
+        IndexInitializer.garante(provider);
+    }
+
+    /**
+     * @param id O identificador único da resolução.
+     * @return Futuro completado com a resolução ou com {@code null}.
+     * @see ResolucaoRepositoryManager#byId(String)
+     */
+    public CompletableFuture<Resolucao> byId(final String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        return AsyncUtil.<Resolucao>executa(cb -> resolucoesCollection().find(eq("_id", id)).first(cb));
+    }
+
+    /**
+     * @param resolucao A resolução a ser persistida.
+     * @return Futuro completado com o identificador da resolução.
+     * @see ResolucaoRepositoryManager#persiste(Resolucao)
+     */
+    public CompletableFuture<String> persiste(final Resolucao resolucao) {
+        if (resolucao == null) {
+            throw new CampoExigidoNaoFornecido("resolucao");
+        }
+
+        return AsyncUtil.<Void>executa(cb -> resolucoesCollection().insertOne(resolucao, cb))
+                .thenApply(v -> resolucao.getId());
+    }
+
+    /**
+     * @param identificador O identificador único da resolução.
+     * @return Futuro completado com {@code true} caso a resolução
+     * tenha sido removida.
+     * @see ResolucaoRepositoryManager#remove(String)
+     */
+    public CompletableFuture<Boolean> remove(final String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        return AsyncUtil.<DeleteResult>executa(cb -> db.getCollection(Constants.DB_COLLECTION_RESOLUCOES)
+                .deleteOne(new Document("_id", identificador), cb))
+                .thenApply(resultado -> resultado.getDeletedCount() > 0);
+    }
+
+    /**
+     * @return Futuro completado com os identificadores das
+     * resoluções disponíveis.
+     * @see ResolucaoRepositoryManager#resolucoes()
+     */
+    public CompletableFuture<List<String>> resolucoes() {
+        final List<String> resolucoes = new ArrayList<String>();
+
+        return AsyncUtil.<ArrayList<Document>>executa(cb -> db.getCollection(Constants.DB_COLLECTION_RESOLUCOES)
+                .find().projection(include("_id")).into(new ArrayList<Document>(), cb))
+                .thenApply(documentos -> {
+                    for (Document documento : documentos) {
+                        resolucoes.add(documento.getString("_id"));
+                    }
+
+                    return resolucoes;
+                });
+    }
+
+    /**
+     * @param tipo O tipo a ser persistido.
+     * @return Futuro completado após a inclusão.
+     * @see ResolucaoRepositoryManager#persisteTipo(Tipo)
+     */
+    public CompletableFuture<Void> persisteTipo(final Tipo tipo) {
+        if (tipo == null) {
+            throw new CampoExigidoNaoFornecido("tipo");
+        }
+
+        return AsyncUtil.<Void>executa(cb -> tiposCollection().insertOne(tipo, cb));
+    }
+
+    /**
+     * @param codigo O identificador do tipo a ser removido.
+     * @return Futuro completado após a remoção ou com
+     * {@link ResolucaoUsaTipoException}.
+     * @see ResolucaoRepositoryManager#removeTipo(String)
+     */
+    public CompletableFuture<Void> removeTipo(final String codigo) {
+        if (codigo == null) {
+            throw new CampoExigidoNaoFornecido("codigo");
+        }
+
+        return AsyncUtil.<Long>executa(cb -> resolucoesCollection().count(eq("regras.tipoRelato", codigo),
+                new CountOptions().limit(1), cb))
+                .thenCompose(referencias -> {
+                    if (referencias > 0) {
+                        return AsyncUtil.falha(new ResolucaoUsaTipoException("Tipo de id[" + codigo
+                                + "] é empregado por resolução."));
+                    }
+
+                    return AsyncUtil.<DeleteResult>executa(cb -> tiposCollection().deleteOne(
+                            new Document("_id", codigo), cb));
+                })
+                .thenApply(resultado -> (Void) null);
+    }
+
+    /**
+     * @param codigo O código único do tipo.
+     * @return Futuro completado com o tipo ou com {@code null}.
+     * @see ResolucaoRepositoryManager#tipoPeloCodigo(String)
+     */
+    public CompletableFuture<Tipo> tipoPeloCodigo(final String codigo) {
+        if (codigo == null) {
+            throw new CampoExigidoNaoFornecido("codigo");
+        }
+
+        return AsyncUtil.<Tipo>executa(cb -> tiposCollection().find(eq("_id", codigo)).first(cb));
+    }
+
+    /**
+     * @param nome Sequência contida nos nomes procurados.
+     * @param inicio Quantidade de tipos desconsiderados no início.
+     * @param quantidade Quantidade máxima de tipos; zero indica sem limite.
+     * @return Futuro completado com a página de tipos.
+     * @see ResolucaoRepositoryManager#tiposPeloNome(String, int, int)
+     */
+    public CompletableFuture<List<Tipo>> tiposPeloNome(final String nome, final int inicio, final int quantidade) {
+        if (nome == null) {
+            throw new CampoExigidoNaoFornecido("nome");
+        }
+
+        return AsyncUtil.<ArrayList<Tipo>>executa(cb -> tiposCollection().find(regex("nome", Pattern.quote(nome)))
+                .projection(include("_id", "nome", "descricao", "atributos"))
+                .sort(ascending("nome"))
+                .skip(inicio)
+                .limit(quantidade)
+                .into(new ArrayList<Tipo>(), cb))
+                .thenApply(tipos -> (List<Tipo>) tipos);
+    }
+
+    private MongoCollection<Resolucao> resolucoesCollection() {
+        return db.getCollection(Constants.DB_COLLECTION_RESOLUCOES, Resolucao.class);
+    }
+
+    private MongoCollection<Tipo> tiposCollection() {
+        return db.getCollection(Constants.DB_COLLECTION_TIPOS, Tipo.class);
+    }
+}
@@ -0,0 +1,241 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.CacheStats;
+import br.ufg.inf.es.saep.sandbox.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache de leitura sobre um {@link ResolucaoRepository}.
+ *
+ * <p>Resoluções e tipos não são atualizados, apenas acrescentados
+ * e removidos. Dessa forma, após a primeira consulta, as chamadas
+ * a {@link #byId(String)}, {@link #tipoPeloCodigo(String)} e
+ * {@link #tiposPelosCodigos(List)} são atendidas em memória até que
+ * o objeto seja removido por meio deste repositório. A remoção
+ * ocorre no repositório antes da invalidação, e uma consulta iniciada
+ * antes da invalidação não armazena o objeto lido. Os tipos ausentes
+ * do cache em {@link #tiposPelosCodigos(List)} são recuperados por uma
+ * única chamada ao repositório, quando ele é um
+ * {@link ResolucaoRepositoryEmLote}.
+ *
+ * <p>Os caches são limitados pelo peso das entradas: uma resolução
+ * pesa o número de regras e um tipo, o número de atributos (no
+ * mínimo 1). As instâncias retornadas são compartilhadas e não
+ * devem ser alteradas.
+ *
+ * <p>Listagens ({@link #resolucoes()} e {@link #tiposPeloNome(String)})
+ * não são armazenadas e sempre consultam o repositório.
+ */
+public class ResolucaoRepositoryCache implements ResolucaoRepositoryEmLote {
+
+    /**
+     * Peso máximo padrão de cada cache.
+     */
+    public final static long PESO_MAXIMO_PADRAO = 10000;
+
+    private final ResolucaoRepository repositorio;
+    private final LruCache<String, Resolucao> resolucoes;
+    private final LruCache<String, Tipo> tipos;
+
+    /**
+     * Cria cache sobre o repositório fornecido com o peso
+     * máximo padrão.
+     *
+     * @param repositorio O repositório cujas leituras serão armazenadas.
+     */
+    public ResolucaoRepositoryCache(ResolucaoRepository repositorio) {
+        this(repositorio, PESO_MAXIMO_PADRAO, PESO_MAXIMO_PADRAO);
+    }
+
+    /**
+     * Cria cache sobre o repositório fornecido.
+     *
+     * @param repositorio O repositório cujas leituras serão armazenadas.
+     * @param pesoMaximoResolucoes Soma máxima do número de regras das
+     *                             resoluções mantidas em memória.
+     * @param pesoMaximoTipos Soma máxima do número de atributos dos
+     *                        tipos mantidos em memória.
+     */
+    public ResolucaoRepositoryCache(ResolucaoRepository repositorio, long pesoMaximoResolucoes, long pesoMaximoTipos) {
+        if (repositorio == null) {
+            throw new CampoExigidoNaoFornecido("repositorio");
+        }
+
+        this.repositorio = repositorio;
+        this.resolucoes = new LruCache<String, Resolucao>(pesoMaximoResolucoes, new LruCache.Pesador<Resolucao>() {
+            public long peso(Resolucao resolucao) {
+                return resolucao.getRegras() == null ? 1 : resolucao.getRegras().size();
+            }
+        });
+        this.tipos = new LruCache<String, Tipo>(pesoMaximoTipos, new LruCache.Pesador<Tipo>() {
+            public long peso(Tipo tipo) {
+                return tipo.getAtributos() == null ? 1 : tipo.getAtributos().size();
+            }
+        });
+    }
+
+    public Resolucao byId(String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        Resolucao resolucao = resolucoes.get(id);
+
+        if (resolucao == null) {
+            long geracao = resolucoes.geracao(id);
+
+            resolucao = repositorio.byId(id);
+
+            if (resolucao != null) {
+                resolucoes.put(id, resolucao, geracao);
+            }
+        }
+
+        return resolucao;
+    }
+
+    public String persiste(Resolucao resolucao) {
+        String id = repositorio.persiste(resolucao);
+
+        if (id != null) {
+            resolucoes.invalida(id);
+        }
+
+        return id;
+    }
+
+    public boolean remove(String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        try {
+            return repositorio.remove(identificador);
+        } finally {
+            resolucoes.invalida(identificador);
+        }
+    }
+
+    public List<String> resolucoes() {
+        return repositorio.resolucoes();
+    }
+
+    public void persisteTipo(Tipo tipo) {
+        repositorio.persisteTipo(tipo);
+        tipos.invalida(tipo.getId());
+    }
+
+    public void removeTipo(String codigo) {
+        if (codigo == null) {
+            throw new CampoExigidoNaoFornecido("codigo");
+        }
+
+        try {
+            repositorio.removeTipo(codigo);
+        } finally {
+            tipos.invalida(codigo);
+        }
+    }
+
+    public Tipo tipoPeloCodigo(String codigo) {
+        if (codigo == null) {
+            throw new CampoExigidoNaoFornecido("codigo");
+        }
+
+        Tipo tipo = tipos.get(codigo);
+
+        if (tipo == null) {
+            long geracao = tipos.geracao(codigo);
+
+            tipo = repositorio.tipoPeloCodigo(codigo);
+
+            if (tipo != null) {
+                tipos.put(codigo, tipo, geracao);
+            }
+        }
+
+        return tipo;
+    }
+
+    public List<Tipo> tiposPelosCodigos(List<String> codigos) {
+        if (codigos == null) {
+            throw new CampoExigidoNaoFornecido("codigos");
+        }
+
+        Map<String, Tipo> encontrados = new HashMap<String, Tipo>();
+        List<String> ausentes = new ArrayList<String>();
+        List<Long> geracoes = new ArrayList<Long>();
+
+        for (String codigo : codigos) {
+            if (codigo == null) {
+                throw new CampoExigidoNaoFornecido("codigos");
+            }
+
+            if (!encontrados.containsKey(codigo)) {
+                Tipo tipo = tipos.get(codigo);
+
+                encontrados.put(codigo, tipo);
+                if (tipo == null) {
+                    ausentes.add(codigo);
+                    geracoes.add(tipos.geracao(codigo));
+                }
+            }
+        }
+
+        if (!ausentes.isEmpty()) {
+            List<Tipo> lidos;
+
+            if (repositorio instanceof ResolucaoRepositoryEmLote) {
+                lidos = ((ResolucaoRepositoryEmLote) repositorio).tiposPelosCodigos(ausentes);
+            } else {
+                lidos = new ArrayList<Tipo>(ausentes.size());
+
+                for (String codigo : ausentes) {
+                    lidos.add(repositorio.tipoPeloCodigo(codigo));
+                }
+            }
+
+            for (int i = 0; i < ausentes.size(); i++) {
+                Tipo tipo = lidos.get(i);
+
+                if (tipo != null) {
+                    tipos.put(ausentes.get(i), tipo, geracoes.get(i));
+                    encontrados.put(ausentes.get(i), tipo);
+                }
+            }
+        }
+
+        return Identificadores.naOrdem(codigos, encontrados);
+    }
+
+    public List<Tipo> tiposPeloNome(String nome) {
+        return repositorio.tiposPeloNome(nome);
+    }
+
+    /**
+     * Descarta todas as resoluções e tipos mantidos em memória.
+     */
+    public void invalidaTodos() {
+        resolucoes.invalidaTodos();
+        tipos.invalidaTodos();
+    }
+
+    /**
+     * @return Estatísticas de uso do cache de resoluções.
+     */
+    public CacheStats getEstatisticasResolucoes() {
+        return resolucoes.getEstatisticas();
+    }
+
+    /**
+     * @return Estatísticas de uso do cache de tipos.
+     */
+    public CacheStats getEstatisticasTipos() {
+        return tipos.getEstatisticas();
+    }
+}
@@ -0,0 +1,24 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.ResolucaoRepository;
+import br.ufg.inf.es.saep.sandbox.dominio.Tipo;
+
+import java.util.List;
+
+/**
+ * {@link ResolucaoRepository} capaz de recuperar vários tipos em uma
+ * única operação, como os tipos de relato referenciados pelas regras
+ * de uma resolução.
+ */
+public interface ResolucaoRepositoryEmLote extends ResolucaoRepository {
+
+    /**
+     * Recupera os tipos pelos códigos.
+     *
+     * @param codigos Os códigos dos tipos; repetições são admitidas.
+     *
+     * @return Os tipos na ordem dos códigos. A posição de um código
+     * que não define tipo contém {@code null}.
+     */
+    List<Tipo> tiposPelosCodigos(List<String> codigos);
+}
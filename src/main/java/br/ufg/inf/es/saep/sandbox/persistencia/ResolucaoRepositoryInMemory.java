@@ -0,0 +1,414 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Implementação de {@link ResolucaoRepository} mantida inteiramente
+ * em memória, sem acesso ao MongoDB.
+ *
+ * <p>A semântica das operações é a mesma de
+ * {@link ResolucaoRepositoryManager}: tipos consultados pelo nome são
+ * retornados em ordem de nome, e identificadores repetidos geram
+ * {@link IdentificadorExistente}. Como nos demais repositórios,
+ * {@link #removeTipo(String)} verifica a restrição
+ * {@link ResolucaoUsaTipoException}, aqui por um índice dos tipos de
+ * relato empregados pelas regras. Diferentemente de
+ * {@link ResolucaoRepositoryManager}, a verificação é atômica em
+ * relação a {@link #persiste(Resolucao)} concorrente.
+ *
+ * <p>Todas as operações podem ser executadas concorrentemente.
+ */
+public class ResolucaoRepositoryInMemory implements ResolucaoRepositoryEmLote, ResolucaoRepositoryPaginado {
+
+    /**
+     * Separa o nome do identificador na chave do índice de nomes,
+     * mantendo a ordem pelo nome.
+     */
+    private static final char SEPARADOR = '\u0000';
+
+    private final ConcurrentNavigableMap<String, Resolucao> resolucoes = new ConcurrentSkipListMap<String, Resolucao>();
+    private final ConcurrentNavigableMap<String, Tipo> tipos = new ConcurrentSkipListMap<String, Tipo>();
+
+    /**
+     * Índice secundário: tipos ordenados pelo nome.
+     */
+    private final ConcurrentNavigableMap<String, Tipo> tiposPorNome = new ConcurrentSkipListMap<String, Tipo>();
+
+    /**
+     * Índice secundário: identificadores das resoluções cujas
+     * regras empregam cada tipo de relato.
+     */
+    private final ConcurrentMap<String, Set<String>> resolucoesPorTipo = new ConcurrentHashMap<String, Set<String>>();
+
+    public Resolucao byId(String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        return resolucoes.get(id);
+    }
+
+    public String persiste(Resolucao resolucao) {
+        if (resolucao == null) {
+            throw new CampoExigidoNaoFornecido("resolucao");
+        }
+
+        /*
+         * As referências aos tipos são registradas antes da publicação da resolução, de modo
+         * que removeTipo não remova um tipo empregado por resolução recém-persistida
+         */
+        List<String> registrados = referencia(resolucao);
+
+        if (resolucoes.putIfAbsent(resolucao.getId(), resolucao) != null) {
+            desreferencia(resolucao.getId(), registrados);
+            throw new IdentificadorExistente("Resolução de id[" + resolucao.getId() + "] já existe.");
+        }
+
+        return resolucao.getId();
+    }
+
+    public boolean remove(String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        Resolucao resolucao = resolucoes.remove(identificador);
+
+        if (resolucao == null) {
+            return false;
+        }
+
+        desreferencia(identificador, tiposDeRelato(resolucao));
+
+        return true;
+    }
+
+    public List<String> resolucoes() {
+        return new ArrayList<String>(resolucoes.keySet());
+    }
+
+    /**
+     * Recupera uma página dos identificadores das resoluções,
+     * percorrendo apenas o intervalo posterior a {@code apos}.
+     *
+     * @param apos          Último identificador da página anterior ou
+     *                      {@code null}, para a primeira página.
+     * @param tamanhoPagina Quantidade máxima de identificadores.
+     * @return Os identificadores, em ordem crescente.
+     * @see ResolucaoRepositoryManager#resolucoes(String, int)
+     */
+    public List<String> resolucoes(String apos, int tamanhoPagina) {
+        return new ArrayList<String>(pagina(resolucoes, apos, tamanhoPagina).keySet());
+    }
+
+    /**
+     * Percorre os identificadores das resoluções. Resoluções
+     * acrescentadas ou removidas durante o percurso podem ou não
+     * ser consideradas.
+     *
+     * @param tamanhoLote Sem efeito: não há meio de armazenamento a
+     *                    consultar.
+     * @return Stream dos identificadores, em ordem crescente.
+     */
+    public Stream<String> streamResolucoes(int tamanhoLote) {
+        verificaTamanho(tamanhoLote, "tamanhoLote");
+
+        return resolucoes.keySet().stream();
+    }
+
+    /**
+     * Recupera uma página dos tipos, percorrendo apenas o
+     * intervalo posterior a {@code apos}.
+     *
+     * @param apos          Último código da página anterior ou
+     *                      {@code null}, para a primeira página.
+     * @param tamanhoPagina Quantidade máxima de tipos.
+     * @return Os tipos, em ordem crescente de código.
+     * @see ResolucaoRepositoryManager#tipos(String, int)
+     */
+    public List<Tipo> tipos(String apos, int tamanhoPagina) {
+        return new ArrayList<Tipo>(pagina(tipos, apos, tamanhoPagina).values());
+    }
+
+    /**
+     * Percorre os tipos. Tipos acrescentados ou removidos durante o
+     * percurso podem ou não ser considerados.
+     *
+     * @param tamanhoLote Sem efeito: não há meio de armazenamento a
+     *                    consultar.
+     * @return Stream dos tipos, em ordem crescente de código.
+     */
+    public Stream<Tipo> streamTipos(int tamanhoLote) {
+        verificaTamanho(tamanhoLote, "tamanhoLote");
+
+        return tipos.values().stream();
+    }
+
+    /**
+     * Percorre o índice de nomes, filtrando os tipos à medida que
+     * são consumidos.
+     *
+     * @param nome        Sequência que será empregada para
+     *                    localizar tipos por nome.
+     * @param tamanhoLote Sem efeito: não há meio de armazenamento a
+     *                    consultar.
+     * @return Stream dos tipos cujos nomes contêm a sequência
+     * indicada, ordenados pelo nome.
+     * @see ResolucaoRepositoryManager#streamTiposPeloNome(String, int)
+     */
+    public Stream<Tipo> streamTiposPeloNome(final String nome, int tamanhoLote) {
+        if (nome == null) {
+            throw new CampoExigidoNaoFornecido("nome");
+        }
+
+        verificaTamanho(tamanhoLote, "tamanhoLote");
+
+        return tiposPorNome.values().stream().filter(tipo -> tipo.getNome().contains(nome));
+    }
+
+    public void persisteTipo(Tipo tipo) {
+        if (tipo == null) {
+            throw new CampoExigidoNaoFornecido("tipo");
+        }
+
+        if (tipos.putIfAbsent(tipo.getId(), tipo) != null) {
+            throw new IdentificadorExistente("Tipo de id[" + tipo.getId() + "] já existe.");
+        }
+
+        tiposPorNome.put(chaveNome(tipo), tipo);
+    }
+
+    public void removeTipo(final String codigo) {
+        if (codigo == null) {
+            throw new CampoExigidoNaoFornecido("codigo");
+        }
+
+        /* Verificação e remoção atômicas em relação ao registro de referências ao tipo */
+        resolucoesPorTipo.compute(codigo, new BiFunction<String, Set<String>, Set<String>>() {
+            public Set<String> apply(String k, Set<String> referencias) {
+                if (referencias != null && !referencias.isEmpty()) {
+                    throw new ResolucaoUsaTipoException("Tipo de id[" + codigo + "] é empregado por "
+                            + referencias.size() + " resolução(ões).");
+                }
+
+                Tipo tipo = tipos.remove(codigo);
+
+                if (tipo != null) {
+                    tiposPorNome.remove(chaveNome(tipo));
+                }
+
+                return null;
+            }
+        });
+    }
+
+    public Tipo tipoPeloCodigo(String codigo) {
+        if (codigo == null) {
+            throw new CampoExigidoNaoFornecido("codigo");
+        }
+
+        return tipos.get(codigo);
+    }
+
+    public List<Tipo> tiposPelosCodigos(List<String> codigos) {
+        if (codigos == null) {
+            throw new CampoExigidoNaoFornecido("codigos");
+        }
+
+        List<Tipo> resultado = new ArrayList<Tipo>(codigos.size());
+
+        for (String codigo : codigos) {
+            resultado.add(tipoPeloCodigo(codigo));
+        }
+
+        return resultado;
+    }
+
+    public List<Tipo> tiposPeloNome(String nome) {
+        return tiposPeloNome(nome, 0, 0);
+    }
+
+    /**
+     * Recupera uma página da lista de tipos cujos nomes
+     * contêm a sequência fornecida, ordenada pelo nome.
+     *
+     * @param nome       Sequência que será empregada para
+     *                   localizar tipos por nome.
+     * @param inicio     Quantidade de tipos a serem desconsiderados
+     *                   no início do resultado.
+     * @param quantidade Quantidade máxima de tipos retornados. O
+     *                   valor zero indica sem limite.
+     * @return A página de tipos cujos nomes contêm a sequência
+     * indicada.
+     * @see ResolucaoRepositoryManager#tiposPeloNome(String, int, int)
+     */
+    public List<Tipo> tiposPeloNome(String nome, int inicio, int quantidade) {
+        if (nome == null) {
+            throw new CampoExigidoNaoFornecido("nome");
+        }
+
+        return pagina(tiposPorNome, nome, inicio, quantidade);
+    }
+
+    /**
+     * Recupera uma página da lista de tipos cujos nomes
+     * iniciam pela sequência fornecida, ordenada pelo nome.
+     * Apenas o intervalo correspondente do índice de nomes
+     * é percorrido.
+     *
+     * @param prefixo    Sequência inicial dos nomes procurados.
+     * @param inicio     Quantidade de tipos a serem desconsiderados
+     *                   no início do resultado.
+     * @param quantidade Quantidade máxima de tipos retornados. O
+     *                   valor zero indica sem limite.
+     * @return A página de tipos cujos nomes iniciam pela sequência
+     * indicada.
+     * @see ResolucaoRepositoryManager#tiposPeloPrefixo(String, int, int)
+     */
+    public List<Tipo> tiposPeloPrefixo(String prefixo, int inicio, int quantidade) {
+        if (prefixo == null) {
+            throw new CampoExigidoNaoFornecido("prefixo");
+        }
+
+        return pagina(tiposPorNome.subMap(prefixo, true, prefixo + Character.MAX_VALUE, true),
+                prefixo, inicio, quantidade);
+    }
+
+    /**
+     * Remove todas as resoluções e tipos.
+     */
+    public void limparBancoDeDados() {
+        resolucoes.clear();
+        tipos.clear();
+        tiposPorNome.clear();
+        resolucoesPorTipo.clear();
+    }
+
+    private List<Tipo> pagina(ConcurrentNavigableMap<String, Tipo> intervalo, String sequencia,
+                              int inicio, int quantidade) {
+        if (inicio < 0 || quantidade < 0) {
+            throw new IllegalArgumentException("inicio e quantidade não podem ser negativos.");
+        }
+
+        List<Tipo> resultado = new ArrayList<Tipo>();
+        int descartados = 0;
+
+        for (Tipo tipo : intervalo.values()) {
+            if (!tipo.getNome().contains(sequencia)) {
+                continue;
+            }
+
+            if (descartados < inicio) {
+                descartados++;
+                continue;
+            }
+
+            resultado.add(tipo);
+
+            if (resultado.size() == quantidade) {
+                break;
+            }
+        }
+
+        return resultado;
+    }
+
+    private static <T> Map<String, T> pagina(ConcurrentNavigableMap<String, T> mapa, String apos,
+                                             int tamanhoPagina) {
+        verificaTamanho(tamanhoPagina, "tamanhoPagina");
+
+        Map<String, T> pagina = new LinkedHashMap<String, T>();
+
+        for (Map.Entry<String, T> entrada : (apos == null ? mapa : mapa.tailMap(apos, false)).entrySet()) {
+            pagina.put(entrada.getKey(), entrada.getValue());
+
+            if (pagina.size() == tamanhoPagina) {
+                break;
+            }
+        }
+
+        return pagina;
+    }
+
+    private static void verificaTamanho(int tamanho, String nome) {
+        if (tamanho <= 0) {
+            throw new IllegalArgumentException(nome + " deve ser maior que zero.");
+        }
+    }
+
+    /**
+     * Registra a resolução entre as referências dos tipos de relato
+     * das suas regras.
+     *
+     * @return Os tipos para os quais o registro foi acrescentado.
+     */
+    private List<String> referencia(Resolucao resolucao) {
+        final String id = resolucao.getId();
+        final List<String> registrados = new ArrayList<String>();
+
+        for (String tipo : tiposDeRelato(resolucao)) {
+            resolucoesPorTipo.compute(tipo, new BiFunction<String, Set<String>, Set<String>>() {
+                public Set<String> apply(String k, Set<String> referencias) {
+                    if (referencias == null) {
+                        referencias = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                    }
+
+                    if (referencias.add(id)) {
+                        registrados.add(k);
+                    }
+
+                    return referencias;
+                }
+            });
+        }
+
+        return registrados;
+    }
+
+    /**
+     * Remove o registro das referências, descartando as entradas do
+     * índice que ficam vazias.
+     */
+    private void desreferencia(final String id, List<String> tiposReferenciados) {
+        for (String tipo : tiposReferenciados) {
+            resolucoesPorTipo.computeIfPresent(tipo, new BiFunction<String, Set<String>, Set<String>>() {
+                public Set<String> apply(String k, Set<String> referencias) {
+                    referencias.remove(id);
+
+                    return referencias.isEmpty() ? null : referencias;
+                }
+            });
+        }
+    }
+
+    private static String chaveNome(Tipo tipo) {
+        return tipo.getNome() + SEPARADOR + tipo.getId();
+    }
+
+    private static List<String> tiposDeRelato(Resolucao resolucao) {
+        List<String> tiposDeRelato = new ArrayList<String>();
+
+        if (resolucao.getRegras() != null) {
+            for (Regra regra : resolucao.getRegras()) {
+                if (regra.getTipoRelato() != null && !tiposDeRelato.contains(regra.getTipoRelato())) {
+                    tiposDeRelato.add(regra.getTipoRelato());
+                }
+            }
+        }
+
+        return tiposDeRelato;
+    }
+}
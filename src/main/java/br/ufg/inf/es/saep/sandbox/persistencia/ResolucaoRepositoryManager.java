@@ -1,22 +1,35 @@
 package br.ufg.inf.es.saep.sandbox.persistencia;
 
 import br.ufg.inf.es.saep.sandbox.dominio.*;
-import br.ufg.inf.es.saep.sandbox.util.AvaliavelTyperAdapter;
 import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.IndexInitializer;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBProvider;
 import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.mongodb.MongoClient;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CountOptions;
 import com.mongodb.client.result.DeleteResult;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.in;
+import static com.mongodb.client.model.Filters.regex;
+import static com.mongodb.client.model.Projections.include;
+import static com.mongodb.client.model.Sorts.ascending;
 
 /**
  * Operações para oferecer a noção de coleções
@@ -40,23 +53,39 @@ import static com.mongodb.client.model.Filters.eq;
  *
  * @see Resolucao
  */
-public class ResolucaoRepositoryManager implements ResolucaoRepository {
+public class ResolucaoRepositoryManager implements ResolucaoRepositoryEmLote, ResolucaoRepositoryPaginado {
     private MongoClient mongoClient = null;
     private MongoDatabase db = null;
     private Gson gson = null;
 
     /**
-     * Inicializa o banco de dados e o objeto Gson
+     * Inicializa o banco de dados, a partir do provedor padrão de
+     * {@link MongoDBUtil}, e o objeto Gson
      */
     public ResolucaoRepositoryManager() {
-        mongoClient = MongoDBUtil.getClientInstance();
-        db = mongoClient.getDatabase(Constants.DB_NAME);
-        GsonBuilder gsonBuilder = new GsonBuilder();
-
-        /* Registrando um Typer Adapter, visto que a Interface Avaliavel é implementada por mais de uma classe
-           Informações retiradas de: http://technology.finra.org/code/serialize-deserialize-interfaces-in-java.html */
-        gsonBuilder.registerTypeAdapter(Avaliavel.class, new AvaliavelTyperAdapter());
-        gson = gsonBuilder.create();
+        this(MongoDBUtil.getProvider());
+    }
+
+    /**
+     * Inicializa o banco de dados a partir do cliente compartilhado
+     * do provedor fornecido e o objeto Gson. O gerenciador não fecha
+     * o cliente.
+     *
+     * @param provider Provedor de conexões com o MongoDB.
+     */
+    public ResolucaoRepositoryManager(MongoDBProvider provider) {
+        if (provider == null) {
+            throw new CampoExigidoNaoFornecido("provider");
+        }
+
+        mongoClient = provider.getClient();
+        gson = SaepCodecs.gson();
+
+        /* Resoluções e tipos são lidos e escritos diretamente pelos codecs, sem texto JSON intermediário */
+        db = provider.getDatabase().withCodecRegistry(SaepCodecs.registry(gson));
+
+        /* Índices das consultas por id_parecer, id_radoc e nome do tipo */
+        IndexInitializer.garante(provider);
     }
 
     /**
@@ -76,20 +105,9 @@ public class ResolucaoRepositoryManager implements ResolucaoRepository {
             throw new CampoExigidoNaoFornecido("id");
         }
 
-        MongoCollection resolucoesCollection = db.getCollection(Constants.DB_COLLECTION_RESOLUCOES);
-        MongoCursor<Document> mCursorResolucoes = resolucoesCollection.find(eq("_id", id)).iterator();
-
-        if (mCursorResolucoes.hasNext()) {
-            Document docResolucao = mCursorResolucoes.next();
-            Resolucao resolucao;
-
-            docResolucao.put("id", docResolucao.get("_id"));
-            resolucao = gson.fromJson(docResolucao.toJson(), Resolucao.class);
-
-            return resolucao;
-        }
+        MongoCollection<Resolucao> resolucoesCollection = db.getCollection(Constants.DB_COLLECTION_RESOLUCOES, Resolucao.class);
 
-        return null;
+        return resolucoesCollection.find(eq("_id", id)).first();
     }
 
     /**
@@ -114,12 +132,9 @@ public class ResolucaoRepositoryManager implements ResolucaoRepository {
             throw new CampoExigidoNaoFornecido("resolucao");
         }
 
-        MongoCollection resolucoesCollection = db.getCollection(Constants.DB_COLLECTION_RESOLUCOES);
-        Document docResolucao = Document.parse(gson.toJson(resolucao));
+        MongoCollection<Resolucao> resolucoesCollection = db.getCollection(Constants.DB_COLLECTION_RESOLUCOES, Resolucao.class);
 
-        docResolucao.put("_id", resolucao.getId());
-        docResolucao.remove("id");
-        resolucoesCollection.insertOne(docResolucao);
+        resolucoesCollection.insertOne(resolucao);
 
         return resolucao.getId();
     }
@@ -153,23 +168,86 @@ public class ResolucaoRepositoryManager implements ResolucaoRepository {
     /**
      * Recupera a lista dos identificadores das
      * resoluções disponíveis.
+     * <p>
+     * Apenas o campo {@code _id} é lido, sem transferir as regras
+     * das resoluções. Para listagens extensas, prefira
+     * {@link #resolucoes(String, int)} ou
+     * {@link #streamResolucoes(int)}.
      *
      * @return Identificadores das resoluções disponíveis.
      */
     public List<String> resolucoes() {
-        MongoCollection resolucoesCollection = db.getCollection(Constants.DB_COLLECTION_RESOLUCOES);
-        MongoCursor<Document> mCursorResolucoes = resolucoesCollection.find().iterator();
+        MongoCollection<Document> resolucoesCollection = db.getCollection(Constants.DB_COLLECTION_RESOLUCOES);
+        MongoCursor<Document> mCursorResolucoes = resolucoesCollection.find()
+                .projection(include("_id"))
+                .iterator();
         List<String> resolucoes = new ArrayList<String>();
 
-        while (mCursorResolucoes.hasNext()) {
-            String resolucaoID = mCursorResolucoes.next().getString("_id");
+        try {
+            while (mCursorResolucoes.hasNext()) {
+                String resolucaoID = mCursorResolucoes.next().getString("_id");
+
+                resolucoes.add(resolucaoID);
+            }
+        } finally {
+            mCursorResolucoes.close();
+        }
+
+        return resolucoes;
+    }
+
+    /**
+     * Recupera uma página dos identificadores das resoluções.
+     * <p>
+     * A página é delimitada por {@code _id > apos}, percorrendo
+     * apenas o intervalo correspondente do índice de {@code _id},
+     * independentemente da posição da página.
+     *
+     * @param apos          Último identificador da página anterior ou
+     *                      {@code null}, para a primeira página.
+     * @param tamanhoPagina Quantidade máxima de identificadores.
+     * @return Os identificadores, em ordem crescente.
+     */
+    public List<String> resolucoes(String apos, int tamanhoPagina) {
+        verificaTamanho(tamanhoPagina, "tamanhoPagina");
+
+        List<String> resolucoes = new ArrayList<String>(tamanhoPagina);
 
-            resolucoes.add(resolucaoID);
+        for (Document resolucao : identificadores(apos).limit(tamanhoPagina)) {
+            resolucoes.add(resolucao.getString("_id"));
         }
 
         return resolucoes;
     }
 
+    /**
+     * Percorre os identificadores das resoluções, recuperando-os do
+     * banco de dados em lotes. O cursor é fechado ao término dos
+     * identificadores ou pelo fechamento do stream.
+     *
+     * @param tamanhoLote Quantidade de identificadores recuperados
+     *                    por ida ao banco de dados.
+     * @return Stream dos identificadores, em ordem crescente.
+     */
+    public Stream<String> streamResolucoes(int tamanhoLote) {
+        verificaTamanho(tamanhoLote, "tamanhoLote");
+
+        return Cursores.stream(identificadores(null).batchSize(tamanhoLote).iterator())
+                .map(resolucao -> resolucao.getString("_id"));
+    }
+
+    /**
+     * Consulta os identificadores das resoluções posteriores a
+     * {@code apos}, em ordem crescente.
+     */
+    private FindIterable<Document> identificadores(String apos) {
+        MongoCollection<Document> resolucoesCollection = db.getCollection(Constants.DB_COLLECTION_RESOLUCOES);
+
+        return resolucoesCollection.find(apos == null ? new Document() : gt("_id", apos))
+                .projection(include("_id"))
+                .sort(ascending("_id"));
+    }
+
     /**
      * Persiste o tipo fornecido.
      *
@@ -181,12 +259,9 @@ public class ResolucaoRepositoryManager implements ResolucaoRepository {
         if (tipo == null) {
             throw new CampoExigidoNaoFornecido("tipo");
         }
-        MongoCollection tiposCollection = db.getCollection(Constants.DB_COLLECTION_TIPOS);
-        Document docTipo = Document.parse(gson.toJson(tipo));
+        MongoCollection<Tipo> tiposCollection = db.getCollection(Constants.DB_COLLECTION_TIPOS, Tipo.class);
 
-        docTipo.remove("id");
-        docTipo.put("_id", tipo.getId());
-        tiposCollection.insertOne(docTipo);
+        tiposCollection.insertOne(tipo);
     }
 
     /**
@@ -202,6 +277,13 @@ public class ResolucaoRepositoryManager implements ResolucaoRepository {
             throw new CampoExigidoNaoFornecido("codigo");
         }
 
+        MongoCollection<Document> resolucoesCollection = db.getCollection(Constants.DB_COLLECTION_RESOLUCOES);
+
+        /* Pelo índice de regras.tipoRelato; não é atômica em relação a persiste concorrente */
+        if (resolucoesCollection.count(eq("regras.tipoRelato", codigo), new CountOptions().limit(1)) > 0) {
+            throw new ResolucaoUsaTipoException("Tipo de id[" + codigo + "] é empregado por resolução.");
+        }
+
         MongoCollection tiposCollection = db.getCollection(Constants.DB_COLLECTION_TIPOS);
 
         tiposCollection.deleteOne(new Document("_id", codigo));
@@ -220,20 +302,32 @@ public class ResolucaoRepositoryManager implements ResolucaoRepository {
             throw new CampoExigidoNaoFornecido("codigo");
         }
 
-        MongoCollection tiposCollection = db.getCollection(Constants.DB_COLLECTION_TIPOS);
-        MongoCursor<Document> mCursorTipos = tiposCollection.find(eq("_id", codigo)).iterator();
+        MongoCollection<Tipo> tiposCollection = db.getCollection(Constants.DB_COLLECTION_TIPOS, Tipo.class);
 
-        if (mCursorTipos.hasNext()) {
-            Document docTipo = mCursorTipos.next();
-            Tipo tipo;
+        return tiposCollection.find(eq("_id", codigo)).first();
+    }
 
-            docTipo.put("id", docTipo.get("_id"));
-            tipo = gson.fromJson(docTipo.toJson(), Tipo.class);
+    /**
+     * Recupera os tipos com os códigos fornecidos por uma única
+     * consulta {@code $in}.
+     *
+     * @param codigos Os códigos dos tipos.
+     * @return Os tipos na ordem dos códigos, com {@code null} na
+     * posição dos inexistentes.
+     */
+    public List<Tipo> tiposPelosCodigos(List<String> codigos) {
+        List<String> distintos = Identificadores.distintos(codigos, "codigos");
+        Map<String, Tipo> encontrados = new HashMap<String, Tipo>();
 
-            return tipo;
+        if (!distintos.isEmpty()) {
+            MongoCollection<Tipo> tiposCollection = db.getCollection(Constants.DB_COLLECTION_TIPOS, Tipo.class);
+
+            for (Tipo tipo : tiposCollection.find(in("_id", distintos))) {
+                encontrados.put(tipo.getId(), tipo);
+            }
         }
 
-        return null;
+        return Identificadores.naOrdem(codigos, encontrados);
     }
 
     /**
@@ -252,27 +346,177 @@ public class ResolucaoRepositoryManager implements ResolucaoRepository {
      * um padrão de semelhança com a sequência indicada.
      */
     public List<Tipo> tiposPeloNome(String nome) {
+        return tiposPeloNome(nome, 0, 0);
+    }
+
+    /**
+     * Recupera uma página da lista de tipos cujos nomes
+     * contêm a sequência fornecida, ordenada pelo nome.
+     * <p>
+     * A filtragem é realizada pelo banco de dados sobre o índice
+     * de {@code nome}. A expressão não é ancorada, de modo que o
+     * índice é percorrido por inteiro, embora apenas os tipos que
+     * satisfazem o filtro sejam lidos. Para buscas pelo início do
+     * nome, {@link #tiposPeloPrefixo(String, int, int)} percorre
+     * apenas o intervalo correspondente do índice.
+     *
+     * @param nome       Sequência que será empregada para
+     *                   localizar tipos por nome.
+     * @param inicio     Quantidade de tipos a serem desconsiderados
+     *                   no início do resultado.
+     * @param quantidade Quantidade máxima de tipos retornados. O
+     *                   valor zero indica sem limite.
+     * @return A página de tipos cujos nomes contêm a sequência
+     * indicada.
+     */
+    public List<Tipo> tiposPeloNome(String nome, int inicio, int quantidade) {
         if (nome == null) {
             throw new CampoExigidoNaoFornecido("nome");
         }
 
-        MongoCollection tiposCollection = db.getCollection(Constants.DB_COLLECTION_TIPOS);
-        MongoCursor<Document> mCursorTipos = tiposCollection.find().iterator();
-        List<Tipo> listTipos = new ArrayList<Tipo>();
+        return buscaTipos(filtroPorNome(nome), inicio, quantidade);
+    }
+
+    /**
+     * Recupera uma página da lista de tipos cujos nomes
+     * iniciam pela sequência fornecida, ordenada pelo nome.
+     * <p>
+     * Diferentemente de {@link #tiposPeloNome(String, int, int)},
+     * a busca é ancorada e percorre apenas o intervalo
+     * correspondente do índice de {@code nome}.
+     *
+     * @param prefixo    Sequência inicial dos nomes procurados.
+     * @param inicio     Quantidade de tipos a serem desconsiderados
+     *                   no início do resultado.
+     * @param quantidade Quantidade máxima de tipos retornados. O
+     *                   valor zero indica sem limite.
+     * @return A página de tipos cujos nomes iniciam pela sequência
+     * indicada.
+     */
+    public List<Tipo> tiposPeloPrefixo(String prefixo, int inicio, int quantidade) {
+        if (prefixo == null) {
+            throw new CampoExigidoNaoFornecido("prefixo");
+        }
 
-        while (mCursorTipos.hasNext()) {
-            Tipo tipo = gson.fromJson(mCursorTipos.next().toJson(), Tipo.class);
+        return buscaTipos(filtroPorPrefixo(prefixo), inicio, quantidade);
+    }
 
-            listTipos.add(tipo);
+    /**
+     * Filtro dos tipos cujos nomes contêm a sequência. Não ancorado:
+     * percorre todas as chaves do índice de {@code nome}.
+     */
+    static Bson filtroPorNome(String nome) {
+        return regex("nome", Pattern.quote(nome));
+    }
+
+    /**
+     * Filtro dos tipos cujos nomes iniciam pela sequência, restrito
+     * ao intervalo correspondente do índice de {@code nome}.
+     */
+    static Bson filtroPorPrefixo(String prefixo) {
+        return regex("nome", "^" + Pattern.quote(prefixo));
+    }
+
+    /**
+     * Executa a busca paginada de tipos, projetando apenas os
+     * campos que compõem um {@link Tipo}.
+     */
+    private List<Tipo> buscaTipos(Bson filtro, int inicio, int quantidade) {
+        if (inicio < 0 || quantidade < 0) {
+            throw new IllegalArgumentException("inicio e quantidade não podem ser negativos.");
         }
 
-        return listTipos;
+        return consultaTipos(filtro)
+                .sort(ascending("nome"))
+                .skip(inicio)
+                .limit(quantidade)
+                .into(new ArrayList<Tipo>());
+    }
+
+    /**
+     * Recupera uma página dos tipos, delimitada por
+     * {@code _id > apos} como em {@link #resolucoes(String, int)}.
+     *
+     * @param apos          Último código da página anterior ou
+     *                      {@code null}, para a primeira página.
+     * @param tamanhoPagina Quantidade máxima de tipos.
+     * @return Os tipos, em ordem crescente de código.
+     */
+    public List<Tipo> tipos(String apos, int tamanhoPagina) {
+        verificaTamanho(tamanhoPagina, "tamanhoPagina");
+
+        return consultaTipos(apos == null ? new Document() : gt("_id", apos))
+                .sort(ascending("_id"))
+                .limit(tamanhoPagina)
+                .into(new ArrayList<Tipo>(tamanhoPagina));
+    }
+
+    /**
+     * Percorre os tipos, recuperando-os do banco de dados em lotes.
+     * O cursor é fechado ao término dos tipos ou pelo fechamento do
+     * stream.
+     *
+     * @param tamanhoLote Quantidade de tipos recuperados por ida ao
+     *                    banco de dados.
+     * @return Stream dos tipos, em ordem crescente de código.
+     */
+    public Stream<Tipo> streamTipos(int tamanhoLote) {
+        verificaTamanho(tamanhoLote, "tamanhoLote");
+
+        return Cursores.stream(consultaTipos(new Document())
+                .sort(ascending("_id"))
+                .batchSize(tamanhoLote)
+                .iterator());
+    }
+
+    /**
+     * Percorre os tipos cujos nomes contêm a sequência fornecida,
+     * ordenados pelo nome, sem reunir o resultado em memória como
+     * {@link #tiposPeloNome(String)}. Como naquele método, todo o
+     * índice de {@code nome} é percorrido.
+     *
+     * @param nome        Sequência que será empregada para
+     *                    localizar tipos por nome.
+     * @param tamanhoLote Quantidade de tipos recuperados por ida ao
+     *                    banco de dados.
+     * @return Stream dos tipos cujos nomes contêm a sequência
+     * indicada.
+     */
+    public Stream<Tipo> streamTiposPeloNome(String nome, int tamanhoLote) {
+        if (nome == null) {
+            throw new CampoExigidoNaoFornecido("nome");
+        }
+
+        verificaTamanho(tamanhoLote, "tamanhoLote");
+
+        return Cursores.stream(consultaTipos(filtroPorNome(nome))
+                .sort(ascending("nome"))
+                .batchSize(tamanhoLote)
+                .iterator());
+    }
+
+    /**
+     * Consulta os tipos, projetando apenas os campos que compõem
+     * um {@link Tipo}.
+     */
+    private FindIterable<Tipo> consultaTipos(Bson filtro) {
+        MongoCollection<Tipo> tiposCollection = db.getCollection(Constants.DB_COLLECTION_TIPOS, Tipo.class);
+
+        return tiposCollection.find(filtro).projection(include("_id", "nome", "descricao", "atributos"));
+    }
+
+    private static void verificaTamanho(int tamanho, String nome) {
+        if (tamanho <= 0) {
+            throw new IllegalArgumentException(nome + " deve ser maior que zero.");
+        }
     }
 
     /**
-     * Deleta completamente o banco de dados.
+     * Deleta completamente o banco de dados, recriando em
+     * seguida os índices das coleções.
      */
     public void limparBancoDeDados() {
         db.drop();
+        IndexInitializer.cria(db);
     }
 }
@@ -0,0 +1,75 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.ResolucaoRepository;
+import br.ufg.inf.es.saep.sandbox.dominio.Tipo;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@link ResolucaoRepository} capaz de listar resoluções e tipos com
+ * memória limitada, por páginas ou por {@link Stream}.
+ *
+ * <p>As páginas são definidas pelo último identificador da página
+ * anterior, e não pela posição: cada página é obtida percorrendo
+ * apenas o seu intervalo do índice de identificadores, e acréscimos ou
+ * remoções entre as consultas não provocam repetições ou omissões dos
+ * demais itens.
+ *
+ * <p>Os streams devem ser fechados após o uso, de preferência por meio
+ * de try-with-resources, caso não sejam percorridos até o fim.
+ */
+public interface ResolucaoRepositoryPaginado extends ResolucaoRepository {
+
+    /**
+     * Recupera uma página dos identificadores das resoluções, em
+     * ordem crescente.
+     *
+     * @param apos          Último identificador da página anterior ou
+     *                      {@code null}, para a primeira página.
+     * @param tamanhoPagina Quantidade máxima de identificadores.
+     * @return Os identificadores; a última página possui menos de
+     * {@code tamanhoPagina} itens, possivelmente nenhum.
+     */
+    List<String> resolucoes(String apos, int tamanhoPagina);
+
+    /**
+     * Percorre os identificadores das resoluções, em ordem crescente.
+     *
+     * @param tamanhoLote Quantidade de identificadores recuperados do
+     *                    meio de armazenamento por vez.
+     * @return Stream dos identificadores.
+     */
+    Stream<String> streamResolucoes(int tamanhoLote);
+
+    /**
+     * Recupera uma página dos tipos, em ordem crescente de código.
+     *
+     * @param apos          Último código da página anterior ou
+     *                      {@code null}, para a primeira página.
+     * @param tamanhoPagina Quantidade máxima de tipos.
+     * @return Os tipos; a última página possui menos de
+     * {@code tamanhoPagina} itens, possivelmente nenhum.
+     */
+    List<Tipo> tipos(String apos, int tamanhoPagina);
+
+    /**
+     * Percorre os tipos, em ordem crescente de código.
+     *
+     * @param tamanhoLote Quantidade de tipos recuperados do meio de
+     *                    armazenamento por vez.
+     * @return Stream dos tipos.
+     */
+    Stream<Tipo> streamTipos(int tamanhoLote);
+
+    /**
+     * Percorre os tipos cujos nomes contêm a sequência fornecida,
+     * ordenados pelo nome, como {@link #tiposPeloNome(String)}.
+     *
+     * @param nome        Sequência procurada nos nomes.
+     * @param tamanhoLote Quantidade de tipos recuperados do meio de
+     *                    armazenamento por vez.
+     * @return Stream dos tipos.
+     */
+    Stream<Tipo> streamTiposPeloNome(String nome, int tamanhoLote);
+}
@@ -0,0 +1,323 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.Armazenamento;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
+
+import com.google.gson.Gson;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Implementação de {@link ResolucaoRepository} sobre um
+ * {@link Armazenamento} chave-valor, como {@link br.ufg.inf.es.saep.sandbox.util.MappedLogStore}.
+ *
+ * <p>Cada resolução e cada tipo é armazenado como um único valor.
+ * A semântica é a mesma de {@link ResolucaoRepositoryManager}; as
+ * buscas de tipos pelo nome e a verificação das referências em
+ * {@link #removeTipo(String)} percorrem todos os tipos e resoluções
+ * armazenados. A inclusão de resoluções e a remoção de tipos são
+ * serializadas.
+ */
+public class ResolucaoRepositoryStore implements ResolucaoRepositoryEmLote, ResolucaoRepositoryPaginado {
+
+    private final Armazenamento armazenamento;
+    private final Gson gson = SaepCodecs.gson();
+
+    /**
+     * Cria o repositório sobre o armazenamento fornecido, que não é
+     * fechado pelo repositório.
+     *
+     * @param armazenamento Armazenamento das resoluções e tipos.
+     */
+    public ResolucaoRepositoryStore(Armazenamento armazenamento) {
+        if (armazenamento == null) {
+            throw new CampoExigidoNaoFornecido("armazenamento");
+        }
+
+        this.armazenamento = armazenamento;
+    }
+
+    public Resolucao byId(String id) {
+        if (id == null) {
+            throw new CampoExigidoNaoFornecido("id");
+        }
+
+        return le(Constants.DB_COLLECTION_RESOLUCOES, id, Resolucao.class);
+    }
+
+    public synchronized String persiste(Resolucao resolucao) {
+        if (resolucao == null) {
+            throw new CampoExigidoNaoFornecido("resolucao");
+        }
+
+        if (!armazenamento.insere(Constants.DB_COLLECTION_RESOLUCOES, resolucao.getId(), bytes(resolucao))) {
+            throw new IdentificadorExistente("Resolução de id[" + resolucao.getId() + "] já existe.");
+        }
+
+        return resolucao.getId();
+    }
+
+    public boolean remove(String identificador) {
+        if (identificador == null) {
+            throw new CampoExigidoNaoFornecido("identificador");
+        }
+
+        return armazenamento.remove(Constants.DB_COLLECTION_RESOLUCOES, identificador);
+    }
+
+    public List<String> resolucoes() {
+        return armazenamento.chaves(Constants.DB_COLLECTION_RESOLUCOES);
+    }
+
+    /**
+     * Recupera uma página dos identificadores das resoluções. As
+     * chaves do armazenamento são ordenadas a cada consulta.
+     *
+     * @param apos          Último identificador da página anterior ou
+     *                      {@code null}, para a primeira página.
+     * @param tamanhoPagina Quantidade máxima de identificadores.
+     * @return Os identificadores, em ordem crescente.
+     * @see ResolucaoRepositoryManager#resolucoes(String, int)
+     */
+    public List<String> resolucoes(String apos, int tamanhoPagina) {
+        return pagina(Constants.DB_COLLECTION_RESOLUCOES, apos, tamanhoPagina);
+    }
+
+    /**
+     * Percorre os identificadores das resoluções.
+     *
+     * @param tamanhoLote Sem efeito: as chaves são obtidas do
+     *                    armazenamento de uma única vez.
+     * @return Stream dos identificadores, em ordem crescente.
+     */
+    public Stream<String> streamResolucoes(int tamanhoLote) {
+        verificaTamanho(tamanhoLote, "tamanhoLote");
+
+        return chavesOrdenadas(Constants.DB_COLLECTION_RESOLUCOES).stream();
+    }
+
+    /**
+     * Recupera uma página dos tipos, lendo apenas os valores dos
+     * tipos da página.
+     *
+     * @param apos          Último código da página anterior ou
+     *                      {@code null}, para a primeira página.
+     * @param tamanhoPagina Quantidade máxima de tipos.
+     * @return Os tipos, em ordem crescente de código.
+     * @see ResolucaoRepositoryManager#tipos(String, int)
+     */
+    public List<Tipo> tipos(String apos, int tamanhoPagina) {
+        List<Tipo> tipos = new ArrayList<Tipo>();
+
+        for (String codigo : pagina(Constants.DB_COLLECTION_TIPOS, apos, tamanhoPagina)) {
+            Tipo tipo = tipoPeloCodigo(codigo);
+
+            if (tipo != null) {
+                tipos.add(tipo);
+            }
+        }
+
+        return tipos;
+    }
+
+    /**
+     * Percorre os tipos, lendo cada valor do armazenamento à medida
+     * que é consumido.
+     *
+     * @param tamanhoLote Sem efeito: as chaves são obtidas do
+     *                    armazenamento de uma única vez.
+     * @return Stream dos tipos, em ordem crescente de código.
+     */
+    public Stream<Tipo> streamTipos(int tamanhoLote) {
+        verificaTamanho(tamanhoLote, "tamanhoLote");
+
+        return chavesOrdenadas(Constants.DB_COLLECTION_TIPOS).stream()
+                .map(this::tipoPeloCodigo)
+                .filter(tipo -> tipo != null);
+    }
+
+    /**
+     * Percorre os tipos cujos nomes contêm a sequência fornecida. A
+     * ordenação pelo nome exige ler todos os tipos antes do primeiro.
+     *
+     * @param nome        Sequência que será empregada para
+     *                    localizar tipos por nome.
+     * @param tamanhoLote Sem efeito: os tipos são lidos do
+     *                    armazenamento de uma única vez.
+     * @return Stream dos tipos cujos nomes contêm a sequência
+     * indicada, ordenados pelo nome.
+     */
+    public Stream<Tipo> streamTiposPeloNome(String nome, int tamanhoLote) {
+        verificaTamanho(tamanhoLote, "tamanhoLote");
+
+        return tiposPeloNome(nome).stream();
+    }
+
+    public void persisteTipo(Tipo tipo) {
+        if (tipo == null) {
+            throw new CampoExigidoNaoFornecido("tipo");
+        }
+
+        if (!armazenamento.insere(Constants.DB_COLLECTION_TIPOS, tipo.getId(), bytes(tipo))) {
+            throw new IdentificadorExistente("Tipo de id[" + tipo.getId() + "] já existe.");
+        }
+    }
+
+    /**
+     * Remove o tipo, verificando antes, em todas as resoluções
+     * armazenadas, se alguma o emprega.
+     *
+     * @param codigo O identificador do tipo.
+     * @throws ResolucaoUsaTipoException Caso alguma resolução
+     *                                   empregue o tipo.
+     */
+    public synchronized void removeTipo(String codigo) {
+        if (codigo == null) {
+            throw new CampoExigidoNaoFornecido("codigo");
+        }
+
+        for (String id : armazenamento.chaves(Constants.DB_COLLECTION_RESOLUCOES)) {
+            Resolucao resolucao = le(Constants.DB_COLLECTION_RESOLUCOES, id, Resolucao.class);
+
+            if (resolucao != null && resolucao.getRegras() != null) {
+                for (Regra regra : resolucao.getRegras()) {
+                    if (codigo.equals(regra.getTipoRelato())) {
+                        throw new ResolucaoUsaTipoException("Tipo de id[" + codigo
+                                + "] é empregado pela resolução de id[" + id + "].");
+                    }
+                }
+            }
+        }
+
+        armazenamento.remove(Constants.DB_COLLECTION_TIPOS, codigo);
+    }
+
+    public Tipo tipoPeloCodigo(String codigo) {
+        if (codigo == null) {
+            throw new CampoExigidoNaoFornecido("codigo");
+        }
+
+        return le(Constants.DB_COLLECTION_TIPOS, codigo, Tipo.class);
+    }
+
+    public List<Tipo> tiposPelosCodigos(List<String> codigos) {
+        if (codigos == null) {
+            throw new CampoExigidoNaoFornecido("codigos");
+        }
+
+        List<Tipo> resultado = new ArrayList<Tipo>(codigos.size());
+
+        for (String codigo : codigos) {
+            resultado.add(tipoPeloCodigo(codigo));
+        }
+
+        return resultado;
+    }
+
+    public List<Tipo> tiposPeloNome(String nome) {
+        return tiposPeloNome(nome, 0, 0);
+    }
+
+    /**
+     * Recupera uma página da lista de tipos cujos nomes
+     * contêm a sequência fornecida, ordenada pelo nome.
+     *
+     * @param nome       Sequência que será empregada para
+     *                   localizar tipos por nome.
+     * @param inicio     Quantidade de tipos a serem desconsiderados
+     *                   no início do resultado.
+     * @param quantidade Quantidade máxima de tipos retornados. O
+     *                   valor zero indica sem limite.
+     * @return A página de tipos cujos nomes contêm a sequência
+     * indicada.
+     * @see ResolucaoRepositoryManager#tiposPeloNome(String, int, int)
+     */
+    public List<Tipo> tiposPeloNome(String nome, int inicio, int quantidade) {
+        if (nome == null) {
+            throw new CampoExigidoNaoFornecido("nome");
+        }
+
+        if (inicio < 0 || quantidade < 0) {
+            throw new IllegalArgumentException("inicio e quantidade não podem ser negativos.");
+        }
+
+        List<Tipo> encontrados = new ArrayList<Tipo>();
+
+        for (String codigo : armazenamento.chaves(Constants.DB_COLLECTION_TIPOS)) {
+            Tipo tipo = le(Constants.DB_COLLECTION_TIPOS, codigo, Tipo.class);
+
+            if (tipo != null && tipo.getNome() != null && tipo.getNome().contains(nome)) {
+                encontrados.add(tipo);
+            }
+        }
+
+        Collections.sort(encontrados, new Comparator<Tipo>() {
+            public int compare(Tipo a, Tipo b) {
+                return a.getNome().compareTo(b.getNome());
+            }
+        });
+
+        int fim = quantidade == 0 ? encontrados.size() : Math.min(encontrados.size(), inicio + quantidade);
+
+        return inicio >= fim ? new ArrayList<Tipo>() : new ArrayList<Tipo>(encontrados.subList(inicio, fim));
+    }
+
+    /**
+     * Remove todas as resoluções e tipos, assim como os demais
+     * dados do armazenamento.
+     */
+    public void limparBancoDeDados() {
+        armazenamento.limpa();
+    }
+
+    private List<String> pagina(String colecao, String apos, int tamanhoPagina) {
+        verificaTamanho(tamanhoPagina, "tamanhoPagina");
+
+        List<String> pagina = new ArrayList<String>(tamanhoPagina);
+
+        for (String chave : chavesOrdenadas(colecao)) {
+            if (apos != null && chave.compareTo(apos) <= 0) {
+                continue;
+            }
+
+            pagina.add(chave);
+
+            if (pagina.size() == tamanhoPagina) {
+                break;
+            }
+        }
+
+        return pagina;
+    }
+
+    private List<String> chavesOrdenadas(String colecao) {
+        List<String> chaves = new ArrayList<String>(armazenamento.chaves(colecao));
+
+        Collections.sort(chaves);
+
+        return chaves;
+    }
+
+    private static void verificaTamanho(int tamanho, String nome) {
+        if (tamanho <= 0) {
+            throw new IllegalArgumentException(nome + " deve ser maior que zero.");
+        }
+    }
+
+    private <T> T le(String colecao, String chave, Class<T> classe) {
+        byte[] valor = armazenamento.le(colecao, chave);
+
+        return valor == null ? null : gson.fromJson(new String(valor, StandardCharsets.UTF_8), classe);
+    }
+
+    private byte[] bytes(Object objeto) {
+        return gson.toJson(objeto).getBytes(StandardCharsets.UTF_8);
+    }
+}
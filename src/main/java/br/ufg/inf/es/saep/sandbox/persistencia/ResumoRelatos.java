@@ -0,0 +1,296 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.CampoExigidoNaoFornecido;
+import br.ufg.inf.es.saep.sandbox.dominio.Relato;
+import br.ufg.inf.es.saep.sandbox.dominio.Valor;
+import br.ufg.inf.es.saep.sandbox.util.SaepCodecs;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resumo dos relatos de um RADOC por tipo: a quantidade de relatos
+ * e, para cada atributo numérico, a quantidade de valores, a soma,
+ * o mínimo e o máximo.
+ *
+ * <p>É mantido pelos repositórios a cada gravação de RADOC, de modo
+ * que regras que dependem apenas desses agregados possam ser
+ * avaliadas sem a leitura dos relatos.
+ *
+ * <p>Um valor é numérico conforme {@link #numero(Valor)}. Instâncias
+ * são imutáveis.
+ */
+public final class ResumoRelatos {
+
+    /**
+     * Agregados dos valores numéricos de um atributo.
+     */
+    public static final class Estatistica {
+        private final int quantidade;
+        private final double soma;
+        private final double minimo;
+        private final double maximo;
+
+        private Estatistica(int quantidade, double soma, double minimo, double maximo) {
+            this.quantidade = quantidade;
+            this.soma = soma;
+            this.minimo = minimo;
+            this.maximo = maximo;
+        }
+
+        private Estatistica acrescenta(double valor) {
+            return new Estatistica(quantidade + 1, soma + valor, Math.min(minimo, valor), Math.max(maximo, valor));
+        }
+
+        /**
+         * @return Quantidade de relatos com valor numérico para o atributo.
+         */
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        public double getSoma() {
+            return soma;
+        }
+
+        public double getMinimo() {
+            return minimo;
+        }
+
+        public double getMaximo() {
+            return maximo;
+        }
+    }
+
+    private static final Gson gson = SaepCodecs.gson();
+
+    private final String radoc;
+    private final Map<String, Integer> quantidades;
+    private final Map<String, Map<String, Estatistica>> estatisticas;
+
+    private ResumoRelatos(String radoc, Map<String, Integer> quantidades,
+                          Map<String, Map<String, Estatistica>> estatisticas) {
+        this.radoc = radoc;
+        this.quantidades = quantidades;
+        this.estatisticas = estatisticas;
+    }
+
+    /**
+     * Resume os relatos de um RADOC.
+     *
+     * @param radoc   O identificador do RADOC.
+     * @param relatos Os relatos; pode ser {@code null}.
+     * @return O resumo.
+     */
+    public static ResumoRelatos de(String radoc, List<Relato> relatos) {
+        Map<String, Integer> quantidades = new LinkedHashMap<String, Integer>();
+        Map<String, Map<String, Estatistica>> estatisticas = new LinkedHashMap<String, Map<String, Estatistica>>();
+
+        if (relatos != null) {
+            for (Relato relato : relatos) {
+                Map<String, Estatistica> doTipo = estatisticas.get(relato.getTipo());
+
+                if (doTipo == null) {
+                    doTipo = new LinkedHashMap<String, Estatistica>();
+                    estatisticas.put(relato.getTipo(), doTipo);
+                    quantidades.put(relato.getTipo(), 0);
+                }
+
+                quantidades.put(relato.getTipo(), quantidades.get(relato.getTipo()) + 1);
+
+                for (String atributo : atributos(relato)) {
+                    Valor valor = relato.get(atributo);
+                    Double numero = valor == null ? null : numero(valor);
+
+                    if (numero != null) {
+                        Estatistica anterior = doTipo.get(atributo);
+
+                        doTipo.put(atributo, anterior == null
+                                ? new Estatistica(1, numero, numero, numero)
+                                : anterior.acrescenta(numero));
+                    }
+                }
+            }
+        }
+
+        return new ResumoRelatos(radoc, quantidades, estatisticas);
+    }
+
+    /**
+     * Valor numérico de um atributo: textos são convertidos quando
+     * numéricos e valores lógicos verdadeiros valem 1.
+     *
+     * @param valor O valor.
+     * @return O número ou {@code null}, caso seja um texto não numérico.
+     */
+    public static Double numero(Valor valor) {
+        if (valor.getString() != null) {
+            try {
+                return Double.parseDouble(valor.getString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        if (valor.getFloat() == 0 && valor.getBoolean()) {
+            return 1.0;
+        }
+
+        return (double) valor.getFloat();
+    }
+
+    /**
+     * Nomes dos atributos do relato, obtidos da sua representação
+     * JSON, já que o domínio não os enumera.
+     */
+    private static Set<String> atributos(Relato relato) {
+        JsonElement valores = gson.toJsonTree(relato).getAsJsonObject().get("valores");
+
+        if (valores == null || !valores.isJsonObject()) {
+            return Collections.emptySet();
+        }
+
+        Set<String> atributos = new LinkedHashSet<String>();
+
+        /* JsonObject.keySet() não existe na versão do Gson empregada */
+        for (Map.Entry<String, JsonElement> entrada : ((JsonObject) valores).entrySet()) {
+            atributos.add(entrada.getKey());
+        }
+
+        return atributos;
+    }
+
+    /**
+     * Recupera o identificador do RADOC resumido.
+     *
+     * @return O identificador do RADOC.
+     */
+    public String getRadoc() {
+        return radoc;
+    }
+
+    /**
+     * Recupera os tipos de relato presentes no RADOC.
+     *
+     * @return Os tipos, na ordem da primeira ocorrência.
+     */
+    public Set<String> getTipos() {
+        return Collections.unmodifiableSet(quantidades.keySet());
+    }
+
+    /**
+     * Quantidade de relatos do tipo.
+     *
+     * @param tipo O tipo de relato.
+     * @return A quantidade, zero se não houver relatos do tipo.
+     */
+    public int getQuantidade(String tipo) {
+        Integer quantidade = quantidades.get(tipo);
+
+        return quantidade == null ? 0 : quantidade;
+    }
+
+    /**
+     * Agregados de um atributo dos relatos do tipo.
+     *
+     * @param tipo     O tipo de relato.
+     * @param atributo O atributo.
+     * @return Os agregados ou {@code null}, caso nenhum relato do tipo
+     * possua valor numérico para o atributo.
+     */
+    public Estatistica getEstatistica(String tipo, String atributo) {
+        Map<String, Estatistica> doTipo = estatisticas.get(tipo);
+
+        return doTipo == null ? null : doTipo.get(atributo);
+    }
+
+    /**
+     * Soma dos valores numéricos do atributo nos relatos do tipo.
+     *
+     * @param tipo     O tipo de relato.
+     * @param atributo O atributo.
+     * @return A soma, zero se não houver valores.
+     */
+    public double getSoma(String tipo, String atributo) {
+        Estatistica estatistica = getEstatistica(tipo, atributo);
+
+        return estatistica == null ? 0 : estatistica.getSoma();
+    }
+
+    /**
+     * Representação do resumo como lista de documentos, um por tipo,
+     * com os campos {@code tipo}, {@code quantidade} e
+     * {@code atributos}. Os tipos não são empregados como nomes de
+     * campos, pois podem conter caracteres não admitidos pelo MongoDB.
+     *
+     * @return Os documentos do resumo.
+     */
+    public List<Document> toDocuments() {
+        List<Document> tipos = new ArrayList<Document>(quantidades.size());
+
+        for (Map.Entry<String, Integer> entrada : quantidades.entrySet()) {
+            List<Document> atributos = new ArrayList<Document>();
+
+            for (Map.Entry<String, Estatistica> atributo : estatisticas.get(entrada.getKey()).entrySet()) {
+                Estatistica estatistica = atributo.getValue();
+
+                atributos.add(new Document("nome", atributo.getKey())
+                        .append("quantidade", estatistica.getQuantidade())
+                        .append("soma", estatistica.getSoma())
+                        .append("minimo", estatistica.getMinimo())
+                        .append("maximo", estatistica.getMaximo()));
+            }
+
+            tipos.add(new Document("tipo", entrada.getKey())
+                    .append("quantidade", entrada.getValue())
+                    .append("atributos", atributos));
+        }
+
+        return tipos;
+    }
+
+    /**
+     * Reconstrói o resumo a partir de {@link #toDocuments()}.
+     *
+     * @param radoc O identificador do RADOC.
+     * @param tipos Os documentos do resumo.
+     * @return O resumo.
+     */
+    @SuppressWarnings("unchecked")
+    public static ResumoRelatos fromDocuments(String radoc, List<Document> tipos) {
+        if (tipos == null) {
+            throw new CampoExigidoNaoFornecido("tipos");
+        }
+
+        Map<String, Integer> quantidades = new LinkedHashMap<String, Integer>();
+        Map<String, Map<String, Estatistica>> estatisticas = new LinkedHashMap<String, Map<String, Estatistica>>();
+
+        for (Document tipo : tipos) {
+            Map<String, Estatistica> doTipo = new LinkedHashMap<String, Estatistica>();
+
+            for (Document atributo : (List<Document>) tipo.get("atributos")) {
+                doTipo.put(atributo.getString("nome"), new Estatistica(
+                        ((Number) atributo.get("quantidade")).intValue(),
+                        ((Number) atributo.get("soma")).doubleValue(),
+                        ((Number) atributo.get("minimo")).doubleValue(),
+                        ((Number) atributo.get("maximo")).doubleValue()));
+            }
+
+            quantidades.put(tipo.getString("tipo"), ((Number) tipo.get("quantidade")).intValue());
+            estatisticas.put(tipo.getString("tipo"), doTipo);
+        }
+
+        return new ResumoRelatos(radoc, quantidades, estatisticas);
+    }
+}
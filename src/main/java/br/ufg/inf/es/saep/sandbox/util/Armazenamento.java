@@ -0,0 +1,69 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Interface de provedores de armazenamento chave-valor sobre os
+ * quais os repositórios podem ser construídos, independentemente
+ * do MongoDB.
+ *
+ * Os valores são documentos serializados, agrupados em coleções
+ * nomeadas; cada gravação substitui por inteiro o valor anterior
+ * da chave e deve ser atômica, isto é, após uma falha o valor
+ * recuperado é o anterior ou o novo, nunca uma mistura de ambos.
+ * Implementações devem admitir leituras concorrentes.
+ */
+public interface Armazenamento extends Closeable {
+
+    /**
+     * Recupera o valor associado à chave.
+     *
+     * @param colecao Nome da coleção.
+     * @param chave   A chave procurada.
+     * @return O valor ou {@code null}, caso a chave não exista.
+     */
+    byte[] le(String colecao, String chave);
+
+    /**
+     * Associa o valor à chave, substituindo o valor anterior.
+     *
+     * @param colecao Nome da coleção.
+     * @param chave   A chave.
+     * @param valor   O valor a ser armazenado.
+     */
+    void grava(String colecao, String chave, byte[] valor);
+
+    /**
+     * Associa o valor à chave apenas se ela não existir.
+     *
+     * @param colecao Nome da coleção.
+     * @param chave   A chave.
+     * @param valor   O valor a ser armazenado.
+     * @return O valor {@code true} caso o valor tenha sido gravado e
+     * {@code false} caso a chave já exista.
+     */
+    boolean insere(String colecao, String chave, byte[] valor);
+
+    /**
+     * Remove a chave e o valor associado.
+     *
+     * @param colecao Nome da coleção.
+     * @param chave   A chave a ser removida.
+     * @return O valor {@code true} caso a chave existisse.
+     */
+    boolean remove(String colecao, String chave);
+
+    /**
+     * Recupera as chaves existentes na coleção.
+     *
+     * @param colecao Nome da coleção.
+     * @return As chaves da coleção, sem ordem definida.
+     */
+    List<String> chaves(String colecao);
+
+    /**
+     * Remove todas as coleções.
+     */
+    void limpa();
+}
@@ -0,0 +1,74 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import com.mongodb.async.SingleResultCallback;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Adapta as operações do driver assíncrono do MongoDB, baseadas
+ * em {@link SingleResultCallback}, para {@link CompletableFuture}.
+ */
+public class AsyncUtil {
+
+    /**
+     * Operação do driver assíncrono que informa o resultado
+     * ao callback fornecido.
+     *
+     * @param <T> Tipo do resultado da operação.
+     */
+    public interface Operacao<T> {
+
+        /**
+         * @param callback Callback a ser informado do resultado.
+         */
+        void executa(SingleResultCallback<T> callback);
+    }
+
+    /**
+     * Inicia a operação fornecida e retorna o futuro que
+     * será completado com o seu resultado.
+     *
+     * Os estágios dependentes registrados sem executor são
+     * executados pelas threads de I/O do driver e, por isso,
+     * não devem bloquear.
+     *
+     * @param operacao A operação a ser iniciada.
+     * @param <T> Tipo do resultado da operação.
+     * @return Futuro completado com o resultado ou com a falha
+     * da operação.
+     */
+    public static <T> CompletableFuture<T> executa(Operacao<T> operacao) {
+        final CompletableFuture<T> futuro = new CompletableFuture<T>();
+
+        try {
+            operacao.executa(new SingleResultCallback<T>() {
+                public void onResult(T resultado, Throwable falha) {
+                    if (falha != null) {
+                        futuro.completeExceptionally(falha);
+                    } else {
+                        futuro.complete(resultado);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            futuro.completeExceptionally(e);
+        }
+
+        return futuro;
+    }
+
+    /**
+     * Cria futuro já completado com a falha fornecida.
+     *
+     * @param falha A falha.
+     * @param <T> Tipo do resultado do futuro.
+     * @return O futuro com falha.
+     */
+    public static <T> CompletableFuture<T> falha(Throwable falha) {
+        CompletableFuture<T> futuro = new CompletableFuture<T>();
+
+        futuro.completeExceptionally(falha);
+
+        return futuro;
+    }
+}
@@ -0,0 +1,65 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+/**
+ * Fotografia das estatísticas de uso de um {@link LruCache}.
+ */
+public class CacheStats {
+
+    private final long acertos;
+    private final long falhas;
+    private final long descartes;
+    private final long entradas;
+    private final long peso;
+
+    /**
+     * Cria fotografia das estatísticas.
+     *
+     * @param acertos Consultas atendidas pelo cache.
+     * @param falhas Consultas não atendidas pelo cache.
+     * @param descartes Entradas descartadas por falta de espaço.
+     * @param entradas Número atual de entradas.
+     * @param peso Peso total atual das entradas.
+     */
+    public CacheStats(long acertos, long falhas, long descartes, long entradas, long peso) {
+        this.acertos = acertos;
+        this.falhas = falhas;
+        this.descartes = descartes;
+        this.entradas = entradas;
+        this.peso = peso;
+    }
+
+    public long getAcertos() {
+        return acertos;
+    }
+
+    public long getFalhas() {
+        return falhas;
+    }
+
+    public long getDescartes() {
+        return descartes;
+    }
+
+    public long getEntradas() {
+        return entradas;
+    }
+
+    public long getPeso() {
+        return peso;
+    }
+
+    /**
+     * @return Fração das consultas atendidas pelo cache, entre 0 e 1.
+     */
+    public double getTaxaDeAcerto() {
+        long consultas = acertos + falhas;
+
+        return consultas == 0 ? 0 : (double) acertos / consultas;
+    }
+
+    @Override
+    public String toString() {
+        return "[acertos=" + acertos + ", falhas=" + falhas + ", descartes=" + descartes
+                + ", entradas=" + entradas + ", peso=" + peso + "]";
+    }
+}
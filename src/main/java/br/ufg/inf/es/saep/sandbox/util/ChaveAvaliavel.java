@@ -0,0 +1,98 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import org.bson.Document;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Calcula a chave canônica de um item {@code Avaliavel}, empregada
+ * para localizar, no próprio banco de dados, as notas que se referem
+ * a um mesmo item original.
+ *
+ * A chave é o resumo SHA-1 da forma normalizada do documento do item:
+ * campos em ordem alfabética e números representados como reais, de
+ * modo que a ordem dos atributos de um relato e a representação
+ * numérica (5 ou 5.0) não alteram a chave.
+ *
+ * Todos os campos do item participam da chave. A comparação anterior
+ * à chave ignorava o valor textual de uma pontuação; com a chave, duas
+ * pontuações só correspondem se o atributo e todo o valor coincidem.
+ */
+public class ChaveAvaliavel {
+
+    /**
+     * Nome do campo do documento da nota que armazena a chave
+     * canônica do item original.
+     */
+    public final static String CAMPO = "chave_original";
+
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Calcula a chave canônica do documento de um item avaliável.
+     *
+     * @param docAvaliavel O documento do item, conforme produzido
+     *                     por {@link DocumentConverter}.
+     * @return A chave canônica, em hexadecimal.
+     */
+    public static String de(Document docAvaliavel) {
+        StringBuilder normalizado = new StringBuilder();
+
+        normaliza(docAvaliavel, normalizado);
+
+        try {
+            byte[] resumo = MessageDigest.getInstance("SHA-1").digest(normalizado.toString().getBytes(UTF8));
+            StringBuilder hex = new StringBuilder(resumo.length * 2);
+
+            for (byte b : resumo) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            /* SHA-1 é obrigatório em toda implementação da plataforma Java */
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void normaliza(Object valor, StringBuilder destino) {
+        if (valor instanceof Map) {
+            Map<String, Object> ordenado = new TreeMap<String, Object>();
+
+            for (Map.Entry<?, ?> campo : ((Map<?, ?>) valor).entrySet()) {
+                ordenado.put(String.valueOf(campo.getKey()), campo.getValue());
+            }
+
+            destino.append('{');
+            for (Map.Entry<String, Object> campo : ordenado.entrySet()) {
+                texto(campo.getKey(), destino);
+                destino.append(':');
+                normaliza(campo.getValue(), destino);
+                destino.append(',');
+            }
+            destino.append('}');
+        } else if (valor instanceof List) {
+            destino.append('[');
+            for (Object item : (List<?>) valor) {
+                normaliza(item, destino);
+                destino.append(',');
+            }
+            destino.append(']');
+        } else if (valor instanceof Number) {
+            destino.append(((Number) valor).doubleValue());
+        } else if (valor instanceof String) {
+            texto((String) valor, destino);
+        } else {
+            destino.append(valor);
+        }
+    }
+
+    private static void texto(String texto, StringBuilder destino) {
+        destino.append('"').append(texto.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+    }
+}
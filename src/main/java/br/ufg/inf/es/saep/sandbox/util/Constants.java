@@ -40,4 +40,29 @@ public class Constants {
      * Nome da coleção de tipos.
      */
     public final static String DB_COLLECTION_TIPOS = "tipos";
+
+    /**
+     * Quantidade padrão de documentos enviados ao banco de dados
+     * em cada operação de inserção em lote.
+     */
+    public final static int TAMANHO_LOTE_PADRAO = 1000;
+
+    /**
+     * Campo que marca um RADOC cuja gravação ou remoção não foi
+     * concluída. Contém o instante em que a operação foi iniciada;
+     * RADOCs com esse campo não são visíveis nas consultas.
+     */
+    public final static String DB_CAMPO_PENDENTE = "pendente";
+
+    /**
+     * Campo do RADOC com o resumo dos seus relatos por tipo,
+     * gravado junto com a confirmação do RADOC.
+     */
+    public final static String DB_CAMPO_RESUMO = "resumo";
+
+    /**
+     * Nome da coleção de resumos dos relatos, empregada pelos
+     * repositórios que não os armazenam no próprio RADOC.
+     */
+    public final static String DB_COLLECTION_RESUMOS = "resumos";
 }
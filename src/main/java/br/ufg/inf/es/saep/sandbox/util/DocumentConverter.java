@@ -0,0 +1,334 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converte objetos do domínio diretamente entre a árvore produzida
+ * pelo Gson ({@link JsonElement}) e as estruturas do MongoDB
+ * ({@link Document}, {@link BsonWriter} e {@link BsonReader}).
+ *
+ * Substitui o caminho {@code Document.parse(gson.toJson(x))} e
+ * {@code gson.fromJson(doc.toJson(), X.class)}, que gera e interpreta
+ * um texto JSON a cada leitura e escrita. O formato dos documentos
+ * persistidos é o mesmo produzido anteriormente.
+ */
+public class DocumentConverter {
+
+    private final Gson gson;
+
+    /**
+     * Cria conversor que emprega a configuração do Gson fornecida,
+     * incluindo os Typer Adapters registrados nele.
+     *
+     * @param gson Objeto Gson utilizado na conversão.
+     */
+    public DocumentConverter(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Converte o objeto fornecido em documento do MongoDB.
+     *
+     * @param objeto O objeto a ser convertido.
+     * @return O documento correspondente ao objeto.
+     */
+    public Document toDocument(Object objeto) {
+        Metricas.Medicao medicao = Metricas.atual();
+
+        if (medicao == null) {
+            return (Document) toBson(gson.toJsonTree(objeto));
+        }
+
+        long inicio = System.nanoTime();
+        Document documento = (Document) toBson(gson.toJsonTree(objeto));
+        long duracao = System.nanoTime() - inicio;
+
+        medicao.serializacao(duracao, Metricas.isMedeBytes() ? Metricas.tamanho(documento) : 0, 0);
+
+        return documento;
+    }
+
+    /**
+     * Converte o documento fornecido em objeto da classe indicada.
+     *
+     * @param documento O documento a ser convertido.
+     * @param classe A classe do objeto a ser criado.
+     * @param <T> O tipo do objeto a ser criado.
+     * @return O objeto correspondente ao documento.
+     */
+    public <T> T fromDocument(Document documento, Class<T> classe) {
+        Metricas.Medicao medicao = Metricas.atual();
+
+        if (medicao == null) {
+            return gson.fromJson(toJson(documento), classe);
+        }
+
+        long inicio = System.nanoTime();
+        T objeto = gson.fromJson(toJson(documento), classe);
+        long duracao = System.nanoTime() - inicio;
+
+        medicao.serializacao(duracao, 0, Metricas.isMedeBytes() && documento != null ? Metricas.tamanho(documento) : 0);
+
+        return objeto;
+    }
+
+    /**
+     * Converte um elemento do Gson no valor correspondente aceito
+     * por {@link Document}.
+     *
+     * @param elemento O elemento a ser convertido.
+     * @return {@code Document}, {@code List}, {@code String},
+     * {@code Boolean}, {@code Number} ou {@code null}.
+     */
+    public static Object toBson(JsonElement elemento) {
+        if (elemento == null || elemento.isJsonNull()) {
+            return null;
+        }
+
+        if (elemento.isJsonObject()) {
+            Document documento = new Document();
+
+            for (Map.Entry<String, JsonElement> campo : elemento.getAsJsonObject().entrySet()) {
+                documento.put(campo.getKey(), toBson(campo.getValue()));
+            }
+
+            return documento;
+        }
+
+        if (elemento.isJsonArray()) {
+            JsonArray array = elemento.getAsJsonArray();
+            List<Object> lista = new ArrayList<Object>(array.size());
+
+            for (JsonElement item : array) {
+                lista.add(toBson(item));
+            }
+
+            return lista;
+        }
+
+        JsonPrimitive primitivo = elemento.getAsJsonPrimitive();
+
+        if (primitivo.isBoolean()) {
+            return primitivo.getAsBoolean();
+        }
+
+        if (primitivo.isNumber()) {
+            return numero(primitivo.getAsNumber());
+        }
+
+        return primitivo.getAsString();
+    }
+
+    /**
+     * Converte um valor de {@link Document} no elemento correspondente
+     * do Gson. Identificadores {@link ObjectId} são convertidos na sua
+     * representação hexadecimal.
+     *
+     * @param valor O valor a ser convertido.
+     * @return O elemento correspondente.
+     */
+    public static JsonElement toJson(Object valor) {
+        if (valor == null) {
+            return JsonNull.INSTANCE;
+        }
+
+        if (valor instanceof Map) {
+            JsonObject objeto = new JsonObject();
+
+            for (Map.Entry<?, ?> campo : ((Map<?, ?>) valor).entrySet()) {
+                objeto.add(String.valueOf(campo.getKey()), toJson(campo.getValue()));
+            }
+
+            return objeto;
+        }
+
+        if (valor instanceof List) {
+            JsonArray array = new JsonArray();
+
+            for (Object item : (List<?>) valor) {
+                array.add(toJson(item));
+            }
+
+            return array;
+        }
+
+        if (valor instanceof Boolean) {
+            return new JsonPrimitive((Boolean) valor);
+        }
+
+        if (valor instanceof Number) {
+            return new JsonPrimitive((Number) valor);
+        }
+
+        if (valor instanceof Date) {
+            return new JsonPrimitive(((Date) valor).getTime());
+        }
+
+        if (valor instanceof ObjectId) {
+            return new JsonPrimitive(((ObjectId) valor).toHexString());
+        }
+
+        return new JsonPrimitive(valor.toString());
+    }
+
+    /**
+     * Escreve o elemento fornecido como valor BSON, sem
+     * representação textual intermediária.
+     *
+     * @param writer Destino da escrita.
+     * @param elemento O elemento a ser escrito.
+     */
+    public static void write(BsonWriter writer, JsonElement elemento) {
+        if (elemento == null || elemento.isJsonNull()) {
+            writer.writeNull();
+        } else if (elemento.isJsonObject()) {
+            writer.writeStartDocument();
+
+            for (Map.Entry<String, JsonElement> campo : elemento.getAsJsonObject().entrySet()) {
+                writer.writeName(campo.getKey());
+                write(writer, campo.getValue());
+            }
+
+            writer.writeEndDocument();
+        } else if (elemento.isJsonArray()) {
+            writer.writeStartArray();
+
+            for (JsonElement item : elemento.getAsJsonArray()) {
+                write(writer, item);
+            }
+
+            writer.writeEndArray();
+        } else {
+            JsonPrimitive primitivo = elemento.getAsJsonPrimitive();
+
+            if (primitivo.isBoolean()) {
+                writer.writeBoolean(primitivo.getAsBoolean());
+            } else if (primitivo.isNumber()) {
+                Object numero = numero(primitivo.getAsNumber());
+
+                if (numero instanceof Integer) {
+                    writer.writeInt32((Integer) numero);
+                } else if (numero instanceof Long) {
+                    writer.writeInt64((Long) numero);
+                } else {
+                    writer.writeDouble(((Number) numero).doubleValue());
+                }
+            } else {
+                writer.writeString(primitivo.getAsString());
+            }
+        }
+    }
+
+    /**
+     * Lê o próximo valor BSON como elemento do Gson, sem
+     * representação textual intermediária. Tipos BSON sem
+     * correspondente no domínio são ignorados.
+     *
+     * @param reader Origem da leitura, posicionada sobre um valor.
+     * @return O elemento correspondente ao valor lido.
+     */
+    public static JsonElement read(BsonReader reader) {
+        BsonType tipo = reader.getCurrentBsonType();
+
+        /* No nível mais externo o leitor ainda não identificou o tipo, que é sempre documento */
+        if (tipo == null) {
+            tipo = BsonType.DOCUMENT;
+        }
+
+        switch (tipo) {
+            case DOCUMENT:
+                JsonObject objeto = new JsonObject();
+
+                reader.readStartDocument();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    String nome = reader.readName();
+
+                    objeto.add(nome, read(reader));
+                }
+                reader.readEndDocument();
+
+                return objeto;
+            case ARRAY:
+                JsonArray array = new JsonArray();
+
+                reader.readStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    array.add(read(reader));
+                }
+                reader.readEndArray();
+
+                return array;
+            case STRING:
+                return new JsonPrimitive(reader.readString());
+            case BOOLEAN:
+                return new JsonPrimitive(reader.readBoolean());
+            case DOUBLE:
+                return new JsonPrimitive(reader.readDouble());
+            case INT32:
+                return new JsonPrimitive(reader.readInt32());
+            case INT64:
+                return new JsonPrimitive(reader.readInt64());
+            case DATE_TIME:
+                return new JsonPrimitive(reader.readDateTime());
+            case OBJECT_ID:
+                return new JsonPrimitive(reader.readObjectId().toHexString());
+            case NULL:
+                reader.readNull();
+
+                return JsonNull.INSTANCE;
+            default:
+                reader.skipValue();
+
+                return JsonNull.INSTANCE;
+        }
+    }
+
+    /**
+     * Normaliza números produzidos pelo Gson: inteiros tornam-se
+     * {@code Integer} ou {@code Long} e os demais {@code Double},
+     * conforme fazia {@link Document#parse(String)}.
+     */
+    private static Object numero(Number numero) {
+        if (numero instanceof Integer || numero instanceof Short || numero instanceof Byte) {
+            return numero.intValue();
+        }
+
+        if (numero instanceof Long) {
+            return numero;
+        }
+
+        if (numero instanceof Float || numero instanceof Double) {
+            return numero.doubleValue();
+        }
+
+        /* LazilyParsedNumber ou BigDecimal/BigInteger */
+        String texto = numero.toString();
+
+        if (texto.indexOf('.') < 0 && texto.indexOf('e') < 0 && texto.indexOf('E') < 0) {
+            long valor = Long.parseLong(texto);
+
+            if (valor >= Integer.MIN_VALUE && valor <= Integer.MAX_VALUE) {
+                return (int) valor;
+            }
+
+            return valor;
+        }
+
+        return numero.doubleValue();
+    }
+}
@@ -0,0 +1,129 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.util.Map;
+
+/**
+ * Codec BSON para uma classe do domínio. A estrutura do objeto é
+ * obtida pelo Gson, de forma que os Typer Adapters registrados,
+ * como {@link AvaliavelTyperAdapter}, continuam determinando o
+ * formato persistido, mas a escrita e a leitura ocorrem diretamente
+ * sobre o fluxo BSON, sem texto JSON intermediário.
+ *
+ * Opcionalmente, a propriedade {@code id} do objeto é armazenada
+ * como {@code _id} do documento.
+ *
+ * @param <T> A classe do domínio tratada pelo codec.
+ */
+public class GsonCodec<T> implements Codec<T> {
+
+    private final Class<T> classe;
+    private final Gson gson;
+    private final boolean mapeiaId;
+
+    /**
+     * Cria codec para a classe fornecida.
+     *
+     * @param classe A classe tratada pelo codec.
+     * @param gson Objeto Gson que define a estrutura da classe.
+     * @param mapeiaId Indica se a propriedade {@code id} deve ser
+     *                 armazenada como {@code _id}.
+     */
+    public GsonCodec(Class<T> classe, Gson gson, boolean mapeiaId) {
+        this.classe = classe;
+        this.gson = gson;
+        this.mapeiaId = mapeiaId;
+    }
+
+    public void encode(BsonWriter writer, T valor, EncoderContext encoderContext) {
+        Metricas.Medicao medicao = Metricas.atual();
+
+        if (medicao == null) {
+            escreve(writer, valor);
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        int posicao = writer instanceof BsonBinaryWriter ? ((BsonBinaryWriter) writer).getBsonOutput().getPosition() : 0;
+
+        escreve(writer, valor);
+
+        long duracao = System.nanoTime() - inicio;
+        long bytes = writer instanceof BsonBinaryWriter
+                ? ((BsonBinaryWriter) writer).getBsonOutput().getPosition() - posicao : 0;
+
+        medicao.serializacao(duracao, bytes, 0);
+    }
+
+    public T decode(BsonReader reader, DecoderContext decoderContext) {
+        Metricas.Medicao medicao = Metricas.atual();
+
+        if (medicao == null) {
+            return le(reader);
+        }
+
+        long inicio = System.nanoTime();
+        int posicao = reader instanceof BsonBinaryReader ? ((BsonBinaryReader) reader).getBsonInput().getPosition() : 0;
+
+        T valor = le(reader);
+
+        long duracao = System.nanoTime() - inicio;
+        long bytes = reader instanceof BsonBinaryReader
+                ? ((BsonBinaryReader) reader).getBsonInput().getPosition() - posicao : 0;
+
+        medicao.serializacao(duracao, 0, bytes);
+
+        return valor;
+    }
+
+    private void escreve(BsonWriter writer, T valor) {
+        JsonElement elemento = gson.toJsonTree(valor, classe);
+
+        if (mapeiaId && elemento.isJsonObject()) {
+            JsonObject objeto = elemento.getAsJsonObject();
+            JsonElement id = objeto.remove("id");
+
+            if (id != null) {
+                /* _id como primeiro campo, conforme exigido pelo servidor */
+                JsonObject comId = new JsonObject();
+
+                comId.add("_id", id);
+                for (Map.Entry<String, JsonElement> campo : objeto.entrySet()) {
+                    comId.add(campo.getKey(), campo.getValue());
+                }
+                elemento = comId;
+            }
+        }
+
+        DocumentConverter.write(writer, elemento);
+    }
+
+    private T le(BsonReader reader) {
+        JsonElement elemento = DocumentConverter.read(reader);
+
+        if (mapeiaId && elemento.isJsonObject()) {
+            JsonObject objeto = elemento.getAsJsonObject();
+            JsonElement id = objeto.remove("_id");
+
+            if (id != null) {
+                objeto.add("id", id);
+            }
+        }
+
+        return gson.fromJson(elemento, classe);
+    }
+
+    public Class<T> getEncoderClass() {
+        return classe;
+    }
+}
@@ -0,0 +1,143 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Histograma de valores não negativos, como latências em
+ * nanossegundos, de tamanho fixo e atualizável concorrentemente sem
+ * bloqueio.
+ *
+ * <p>Os valores são agrupados em faixas logarítmicas: cada potência de
+ * dois é dividida em oito faixas de mesma largura, de modo que o erro
+ * relativo de um percentil é inferior a 12,5%. Valores menores que oito
+ * são registrados exatamente.
+ */
+public class Histograma {
+
+    private static final int SUBFAIXAS_BITS = 3;
+    private static final int SUBFAIXAS = 1 << SUBFAIXAS_BITS;
+    private static final int FAIXAS = indice(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder quantidade = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(new LongBinaryOperator() {
+        public long applyAsLong(long atual, long valor) {
+            return Math.max(atual, valor);
+        }
+    }, 0);
+
+    /**
+     * Registra um valor; valores negativos são registrados como zero.
+     *
+     * @param valor O valor.
+     */
+    public void registra(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+
+        contagens.incrementAndGet(indice(valor));
+        quantidade.increment();
+        soma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    public long getQuantidade() {
+        return quantidade.sum();
+    }
+
+    public long getSoma() {
+        return soma.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * @return A média dos valores registrados, zero se não houver.
+     */
+    public double getMedia() {
+        long n = quantidade.sum();
+
+        return n == 0 ? 0 : (double) soma.sum() / n;
+    }
+
+    /**
+     * Estima o percentil pelo limite superior da faixa que o contém,
+     * limitado ao máximo registrado.
+     *
+     * @param percentil O percentil, entre 0 e 100.
+     * @return O valor estimado, zero se não houver valores.
+     */
+    public long percentil(double percentil) {
+        if (percentil < 0 || percentil > 100) {
+            throw new IllegalArgumentException("percentil");
+        }
+
+        long[] copia = new long[FAIXAS];
+        long total = 0;
+
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = contagens.get(i);
+            total += copia[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long posicao = Math.max(1, (long) Math.ceil(total * percentil / 100));
+        long acumulado = 0;
+
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += copia[i];
+
+            if (acumulado >= posicao) {
+                return Math.min(limiteSuperior(i), getMaximo());
+            }
+        }
+
+        return getMaximo();
+    }
+
+    /**
+     * Descarta os valores registrados. Registros concorrentes com a
+     * operação podem ser parcialmente descartados.
+     */
+    public void reinicia() {
+        for (int i = 0; i < FAIXAS; i++) {
+            contagens.set(i, 0);
+        }
+
+        quantidade.reset();
+        soma.reset();
+        maximo.reset();
+    }
+
+    static int indice(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int subfaixa = (int) (valor >>> (expoente - SUBFAIXAS_BITS)) & (SUBFAIXAS - 1);
+
+        return ((expoente - SUBFAIXAS_BITS + 1) << SUBFAIXAS_BITS) + subfaixa;
+    }
+
+    static long limiteSuperior(int indice) {
+        if (indice < SUBFAIXAS) {
+            return indice;
+        }
+
+        int expoente = (indice >>> SUBFAIXAS_BITS) + SUBFAIXAS_BITS - 1;
+        long inicio = (long) (SUBFAIXAS + (indice & (SUBFAIXAS - 1))) << (expoente - SUBFAIXAS_BITS);
+
+        return inicio + (1L << (expoente - SUBFAIXAS_BITS)) - 1;
+    }
+}
@@ -0,0 +1,162 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cria os índices secundários exigidos pelas consultas dos
+ * repositórios.
+ *
+ * Notas e relatos são recuperados e removidos pelos campos
+ * {@code id_parecer} e {@code id_radoc} (notas também pela chave
+ * canônica do item original); tipos são localizados pelo
+ * {@code nome}. As remoções de RADOCs e tipos verificam as referências
+ * pelos campos {@code radocs} dos pareceres e {@code regras.tipoRelato}
+ * das resoluções. Sem índice, cada uma dessas operações percorre
+ * a coleção inteira.
+ *
+ * A criação é idempotente e ocorre uma única vez por servidor e base
+ * de dados durante a execução da JVM, na construção do primeiro
+ * repositório de cada provedor.
+ */
+public class IndexInitializer {
+
+    /**
+     * Índices esperados, indexados pelo nome da coleção.
+     */
+    private final static Map<String, List<Document>> INDICES = new LinkedHashMap<String, List<Document>>();
+
+    static {
+        adiciona(Constants.DB_COLLECTION_NOTAS, new Document("id_parecer", 1).append(ChaveAvaliavel.CAMPO, 1));
+        adiciona(Constants.DB_COLLECTION_RELATOS, new Document("id_radoc", 1));
+        adiciona(Constants.DB_COLLECTION_TIPOS, new Document("nome", 1));
+        adiciona(Constants.DB_COLLECTION_PARECERES, new Document("radocs", 1));
+        adiciona(Constants.DB_COLLECTION_RESOLUCOES, new Document("regras.tipoRelato", 1));
+    }
+
+    /**
+     * Servidores e bases de dados cujos índices já foram garantidos,
+     * na forma {@code servidor:porta/base}.
+     */
+    private final static Set<String> inicializadas = new HashSet<String>();
+
+    private static void adiciona(String colecao, Document chave) {
+        List<Document> chaves = INDICES.get(colecao);
+
+        if (chaves == null) {
+            chaves = new ArrayList<Document>();
+            INDICES.put(colecao, chaves);
+        }
+
+        chaves.add(chave);
+    }
+
+    /**
+     * Garante a existência dos índices na base de dados do provedor,
+     * caso isso ainda não tenha sido feito nesta execução para o
+     * mesmo servidor e base de dados.
+     *
+     * @param provider O provedor de conexões.
+     */
+    public static void garante(MongoDBProvider provider) {
+        MongoDBConfig config = provider.getConfig();
+        String chave = config.getServerAddress() + "/" + config.getBaseDeDados();
+
+        synchronized (inicializadas) {
+            if (inicializadas.contains(chave)) {
+                return;
+            }
+
+            cria(provider.getDatabase());
+            inicializadas.add(chave);
+        }
+    }
+
+    /**
+     * Cria os índices na base de dados fornecida, independentemente de
+     * já terem sido garantidos. Empregado após a remoção da base.
+     *
+     * Os índices são construídos em segundo plano, de modo que coleções
+     * grandes não bloqueiam a inicialização; {@link #situacao(MongoDatabase)}
+     * indica quais já estão disponíveis.
+     *
+     * @param db A base de dados.
+     */
+    public static void cria(MongoDatabase db) {
+        for (Map.Entry<String, List<Document>> colecao : INDICES.entrySet()) {
+            MongoCollection<Document> collection = db.getCollection(colecao.getKey());
+
+            for (Document chave : colecao.getValue()) {
+                collection.createIndex(chave, new IndexOptions().background(true));
+            }
+        }
+    }
+
+    /**
+     * Relata, para cada coleção com índices esperados, as chaves dos
+     * índices esperados que ainda não estão disponíveis.
+     *
+     * @param db A base de dados.
+     * @return Chaves dos índices pendentes por coleção. Um mapa vazio
+     * indica que todos os índices estão disponíveis.
+     */
+    public static Map<String, List<Document>> situacao(MongoDatabase db) {
+        Map<String, List<Document>> pendentes = new LinkedHashMap<String, List<Document>>();
+
+        for (Map.Entry<String, List<Document>> colecao : INDICES.entrySet()) {
+            List<Document> existentes = new ArrayList<Document>();
+
+            for (Document indice : db.getCollection(colecao.getKey()).listIndexes()) {
+                existentes.add((Document) indice.get("key"));
+            }
+
+            for (Document chave : colecao.getValue()) {
+                if (!contemChave(existentes, chave)) {
+                    if (!pendentes.containsKey(colecao.getKey())) {
+                        pendentes.put(colecao.getKey(), new ArrayList<Document>());
+                    }
+
+                    pendentes.get(colecao.getKey()).add(chave);
+                }
+            }
+        }
+
+        return pendentes;
+    }
+
+    /**
+     * Compara chaves de índice desconsiderando o tipo numérico
+     * da direção (1 e 1.0 são equivalentes).
+     */
+    private static boolean contemChave(List<Document> existentes, Document chave) {
+        for (Document existente : existentes) {
+            if (existente.keySet().equals(chave.keySet())) {
+                boolean iguais = true;
+
+                for (String campo : chave.keySet()) {
+                    Object direcao = existente.get(campo);
+
+                    if (!(direcao instanceof Number)
+                            || ((Number) direcao).intValue() != ((Number) chave.get(campo)).intValue()) {
+                        iguais = false;
+                    }
+                }
+
+                if (iguais) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
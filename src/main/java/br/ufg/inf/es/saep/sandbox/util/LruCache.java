@@ -0,0 +1,215 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache em memória limitado pelo peso total das entradas,
+ * com descarte da entrada usada há mais tempo (LRU).
+ *
+ * O peso de cada entrada é definido por um {@link Pesador};
+ * por padrão, cada entrada pesa 1 e o limite corresponde ao
+ * número de entradas. Todas as operações são thread-safe.
+ *
+ * Para evitar que uma leitura iniciada antes da remoção de uma chave
+ * armazene o valor removido, cada chave possui uma geração,
+ * incrementada por {@link #invalida(Object)}. A leitura obtém a
+ * geração por {@link #geracao(Object)} antes de consultar a origem
+ * e armazena o valor por {@link #put(Object, Object, long)}, que o
+ * descarta caso a chave tenha sido invalidada nesse intervalo.
+ *
+ * @param <K> Tipo da chave.
+ * @param <V> Tipo do valor.
+ */
+public class LruCache<K, V> {
+
+    /**
+     * Define o peso de um valor armazenado no cache.
+     *
+     * @param <V> Tipo do valor.
+     */
+    public interface Pesador<V> {
+
+        /**
+         * @param valor O valor a ser armazenado.
+         * @return O peso do valor, maior que zero.
+         */
+        long peso(V valor);
+    }
+
+    /**
+     * Quantidade de faixas de gerações. Chaves distintas na mesma
+     * faixa compartilham a geração, o que apenas descarta, sem
+     * prejuízo à consistência, algumas inserções.
+     */
+    private final static int FAIXAS = 64;
+
+    private final LinkedHashMap<K, V> entradas = new LinkedHashMap<K, V>(16, 0.75f, true);
+    private final Map<K, Long> pesos = new LinkedHashMap<K, Long>();
+    private final long pesoMaximo;
+    private final Pesador<V> pesador;
+    private long pesoTotal = 0;
+    private long acertos = 0;
+    private long falhas = 0;
+    private long descartes = 0;
+    private final long[] geracoes = new long[FAIXAS];
+
+    /**
+     * Cria cache limitado pelo número de entradas.
+     *
+     * @param maximoDeEntradas Número máximo de entradas.
+     */
+    public LruCache(long maximoDeEntradas) {
+        this(maximoDeEntradas, new Pesador<V>() {
+            public long peso(V valor) {
+                return 1;
+            }
+        });
+    }
+
+    /**
+     * Cria cache limitado pelo peso total das entradas.
+     *
+     * @param pesoMaximo Peso total máximo das entradas.
+     * @param pesador Define o peso de cada valor.
+     */
+    public LruCache(long pesoMaximo, Pesador<V> pesador) {
+        if (pesoMaximo < 1) {
+            throw new IllegalArgumentException("pesoMaximo deve ser maior que zero.");
+        }
+
+        this.pesoMaximo = pesoMaximo;
+        this.pesador = pesador;
+    }
+
+    /**
+     * Recupera o valor associado à chave, contabilizando acerto
+     * ou falha.
+     *
+     * @param chave A chave procurada.
+     * @return O valor associado ou {@code null}, caso ausente.
+     */
+    public synchronized V get(K chave) {
+        V valor = entradas.get(chave);
+
+        if (valor == null) {
+            falhas++;
+        } else {
+            acertos++;
+        }
+
+        return valor;
+    }
+
+    /**
+     * Associa o valor à chave, descartando as entradas usadas há mais
+     * tempo até que o peso total respeite o limite. Um valor mais
+     * pesado que o limite não é armazenado.
+     *
+     * @param chave A chave.
+     * @param valor O valor, não nulo.
+     */
+    public synchronized void put(K chave, V valor) {
+        armazena(chave, valor);
+    }
+
+    /**
+     * Associa o valor à chave, como {@link #put(Object, Object)},
+     * apenas se a chave não foi invalidada desde a obtenção da
+     * geração fornecida.
+     *
+     * @param chave   A chave.
+     * @param valor   O valor, não nulo.
+     * @param geracao Geração da chave obtida por {@link #geracao(Object)}
+     *                antes da leitura do valor.
+     * @return O valor {@code true} caso o valor tenha sido associado.
+     */
+    public synchronized boolean put(K chave, V valor, long geracao) {
+        if (geracoes[faixa(chave)] != geracao) {
+            return false;
+        }
+
+        armazena(chave, valor);
+
+        return true;
+    }
+
+    /**
+     * Recupera a geração atual da chave.
+     *
+     * @param chave A chave.
+     * @return A geração, alterada a cada invalidação da chave.
+     */
+    public synchronized long geracao(K chave) {
+        return geracoes[faixa(chave)];
+    }
+
+    /**
+     * Remove a entrada associada à chave, caso exista, e incrementa
+     * a geração da chave.
+     *
+     * @param chave A chave a ser removida.
+     */
+    public synchronized void invalida(K chave) {
+        geracoes[faixa(chave)]++;
+        descarta(chave);
+    }
+
+    /**
+     * Remove todas as entradas.
+     */
+    public synchronized void invalidaTodos() {
+        for (int i = 0; i < FAIXAS; i++) {
+            geracoes[i]++;
+        }
+
+        entradas.clear();
+        pesos.clear();
+        pesoTotal = 0;
+    }
+
+    private void armazena(K chave, V valor) {
+        long peso = Math.max(1, pesador.peso(valor));
+
+        descarta(chave);
+
+        if (peso > pesoMaximo) {
+            return;
+        }
+
+        entradas.put(chave, valor);
+        pesos.put(chave, peso);
+        pesoTotal += peso;
+
+        Iterator<Map.Entry<K, V>> iterator = entradas.entrySet().iterator();
+        while (pesoTotal > pesoMaximo && iterator.hasNext()) {
+            K maisAntiga = iterator.next().getKey();
+
+            iterator.remove();
+            pesoTotal -= pesos.remove(maisAntiga);
+            descartes++;
+        }
+    }
+
+    private void descarta(K chave) {
+        if (entradas.remove(chave) != null) {
+            pesoTotal -= pesos.remove(chave);
+        }
+    }
+
+    private static int faixa(Object chave) {
+        int h = chave.hashCode();
+
+        return (h ^ (h >>> 16)) & (FAIXAS - 1);
+    }
+
+    /**
+     * Recupera as estatísticas acumuladas de uso do cache.
+     *
+     * @return Fotografia das estatísticas.
+     */
+    public synchronized CacheStats getEstatisticas() {
+        return new CacheStats(acertos, falhas, descartes, entradas.size(), pesoTotal);
+    }
+}
@@ -0,0 +1,428 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * {@link Armazenamento} embutido em um único arquivo de log,
+ * acessado por mapeamento em memória, sem servidor de banco de dados.
+ *
+ * <p>Cada gravação ou remoção acrescenta um registro ao fim do log;
+ * registros nunca são alterados. Um índice em memória associa cada
+ * chave à posição do seu valor mais recente, de modo que uma leitura
+ * é apenas uma consulta ao índice e uma cópia a partir do mapeamento.
+ * O índice é reconstruído ao abrir o arquivo, percorrendo o log.
+ *
+ * <p>Cada registro é protegido por CRC-32: um registro incompleto,
+ * deixado por uma interrupção durante a gravação, é descartado na
+ * abertura, o que torna atômica cada gravação. Por padrão os dados
+ * são entregues ao sistema operacional sem esperar a escrita em
+ * disco; o modo síncrono força cada registro ao disco.
+ *
+ * <p>Valores substituídos ou removidos continuam ocupando o log até
+ * a execução de {@link #compacta()}. O log é limitado a 2 GB.
+ *
+ * <p>Leituras podem ser executadas concorrentemente; escritas são
+ * serializadas.
+ */
+public class MappedLogStore implements Armazenamento {
+
+    private static final byte GRAVACAO = 1;
+    private static final byte REMOCAO = 2;
+
+    /**
+     * Tamanho do registro e CRC-32 do seu conteúdo.
+     */
+    private static final int CABECALHO = 8;
+
+    private static final int CAPACIDADE_INICIAL = 1 << 20;
+
+    /**
+     * Posição e tamanho de um valor no log.
+     */
+    private static final class Posicao {
+        private final int inicio;
+        private final int tamanho;
+
+        private Posicao(int inicio, int tamanho) {
+            this.inicio = inicio;
+            this.tamanho = tamanho;
+        }
+    }
+
+    /**
+     * Mapeamento de um arquivo de log e o índice correspondente.
+     * Substituído por inteiro ao compactar ou limpar, de modo que
+     * uma leitura nunca combina o índice de um arquivo com o
+     * mapeamento de outro.
+     */
+    private static final class Segmento {
+        private final FileChannel canal;
+        private final ConcurrentMap<String, ConcurrentMap<String, Posicao>> indice =
+                new ConcurrentHashMap<String, ConcurrentMap<String, Posicao>>();
+        private volatile MappedByteBuffer mapa;
+        private int fim = 0;
+
+        private Segmento(FileChannel canal, MappedByteBuffer mapa) {
+            this.canal = canal;
+            this.mapa = mapa;
+        }
+
+        private ConcurrentMap<String, Posicao> colecao(String nome) {
+            ConcurrentMap<String, Posicao> colecao = indice.get(nome);
+
+            if (colecao == null) {
+                ConcurrentMap<String, Posicao> nova = new ConcurrentHashMap<String, Posicao>();
+
+                colecao = indice.putIfAbsent(nome, nova);
+                if (colecao == null) {
+                    colecao = nova;
+                }
+            }
+
+            return colecao;
+        }
+    }
+
+    private final Path arquivo;
+    private final boolean sincrono;
+    private volatile Segmento segmento;
+    private boolean fechado = false;
+
+    /**
+     * Abre, ou cria, o log no arquivo indicado, no modo assíncrono.
+     *
+     * @param arquivo Caminho do arquivo de log.
+     */
+    public MappedLogStore(Path arquivo) {
+        this(arquivo, false);
+    }
+
+    /**
+     * Abre, ou cria, o log no arquivo indicado.
+     *
+     * @param arquivo  Caminho do arquivo de log.
+     * @param sincrono Indica se cada registro deve ser forçado ao
+     *                 disco antes do retorno da operação.
+     */
+    public MappedLogStore(Path arquivo, boolean sincrono) {
+        if (arquivo == null) {
+            throw new IllegalArgumentException("arquivo não pode ser nulo.");
+        }
+
+        this.arquivo = arquivo;
+        this.sincrono = sincrono;
+        this.segmento = abre(arquivo);
+    }
+
+    public byte[] le(String colecao, String chave) {
+        Segmento atual = segmento;
+        Map<String, Posicao> indice = atual.indice.get(colecao);
+        Posicao posicao = indice == null ? null : indice.get(chave);
+
+        if (posicao == null) {
+            return null;
+        }
+
+        ByteBuffer leitura = atual.mapa.duplicate();
+        byte[] valor = new byte[posicao.tamanho];
+
+        leitura.position(posicao.inicio);
+        leitura.get(valor);
+
+        return valor;
+    }
+
+    public synchronized void grava(String colecao, String chave, byte[] valor) {
+        verificaAberto();
+
+        if (valor == null) {
+            throw new IllegalArgumentException("valor não pode ser nulo.");
+        }
+
+        acrescenta(segmento, GRAVACAO, colecao, chave, valor);
+    }
+
+    public synchronized boolean insere(String colecao, String chave, byte[] valor) {
+        verificaAberto();
+
+        if (segmento.colecao(colecao).containsKey(chave)) {
+            return false;
+        }
+
+        grava(colecao, chave, valor);
+
+        return true;
+    }
+
+    public synchronized boolean remove(String colecao, String chave) {
+        verificaAberto();
+
+        if (!segmento.colecao(colecao).containsKey(chave)) {
+            return false;
+        }
+
+        acrescenta(segmento, REMOCAO, colecao, chave, new byte[0]);
+
+        return true;
+    }
+
+    public List<String> chaves(String colecao) {
+        Map<String, Posicao> indice = segmento.indice.get(colecao);
+
+        return indice == null ? new ArrayList<String>() : new ArrayList<String>(indice.keySet());
+    }
+
+    public synchronized void limpa() {
+        verificaAberto();
+
+        try {
+            /* Mapeamentos em uso por leituras em andamento permanecem válidos após a exclusão */
+            segmento.canal.close();
+            Files.delete(arquivo);
+            segmento = abre(arquivo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reescreve o log contendo apenas o valor corrente de cada chave,
+     * liberando o espaço de valores substituídos ou removidos. O novo
+     * arquivo substitui o anterior atomicamente.
+     *
+     * @return Quantidade de bytes liberados.
+     */
+    public synchronized long compacta() {
+        verificaAberto();
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".compactando");
+        Segmento atual = segmento;
+        Segmento novo;
+
+        try {
+            Files.deleteIfExists(temporario);
+            novo = abre(temporario);
+
+            for (Map.Entry<String, ConcurrentMap<String, Posicao>> colecao : atual.indice.entrySet()) {
+                for (String chave : colecao.getValue().keySet()) {
+                    acrescenta(novo, GRAVACAO, colecao.getKey(), chave, le(colecao.getKey(), chave));
+                }
+            }
+
+            novo.mapa.force();
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            atual.canal.close();
+            segmento = novo;
+
+            return atual.fim - novo.fim;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Recupera o tamanho, em bytes, dos registros do log.
+     *
+     * @return Tamanho ocupado no arquivo.
+     */
+    public synchronized long getTamanho() {
+        return segmento.fim;
+    }
+
+    public synchronized void close() {
+        if (fechado) {
+            return;
+        }
+
+        fechado = true;
+
+        try {
+            segmento.mapa.force();
+            segmento.canal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void verificaAberto() {
+        if (fechado) {
+            throw new IllegalStateException("Log fechado: " + arquivo);
+        }
+    }
+
+    /**
+     * Abre o arquivo, reconstruindo o índice a partir dos registros
+     * válidos. O espaço após o último registro válido é zerado.
+     */
+    private static Segmento abre(Path arquivo) {
+        try {
+            FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long capacidade = Math.max(CAPACIDADE_INICIAL, canal.size());
+            Segmento segmento = new Segmento(canal, canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidade));
+            MappedByteBuffer mapa = segmento.mapa;
+            int posicao = 0;
+
+            while (posicao + CABECALHO <= mapa.capacity()) {
+                int tamanho = mapa.getInt(posicao);
+
+                if (tamanho <= 0 || (long) posicao + CABECALHO + tamanho > mapa.capacity()
+                        || mapa.getInt(posicao + 4) != crc(mapa, posicao + CABECALHO, tamanho)) {
+                    break;
+                }
+
+                aplica(segmento, posicao + CABECALHO, tamanho);
+                posicao += CABECALHO + tamanho;
+            }
+
+            segmento.fim = posicao;
+
+            /*
+             * Descarta um registro incompleto deixado por uma gravação interrompida. O tamanho
+             * é gravado por último, de modo que o registro pode ter tamanho zero e conteúdo.
+             * Apenas os bytes não nulos são escritos, sem alterar as páginas já zeradas.
+             */
+            for (int i = posicao; i < mapa.capacity(); i++) {
+                if (mapa.get(i) != 0) {
+                    mapa.put(i, (byte) 0);
+                }
+            }
+
+            return segmento;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Atualiza o índice com o registro cujo conteúdo inicia na posição.
+     */
+    private static void aplica(Segmento segmento, int inicio, int tamanho) {
+        ByteBuffer leitura = segmento.mapa.duplicate();
+        byte operacao;
+        String colecao;
+        String chave;
+
+        leitura.position(inicio);
+        operacao = leitura.get();
+        colecao = leTexto(leitura);
+        chave = leTexto(leitura);
+
+        if (operacao == GRAVACAO) {
+            segmento.colecao(colecao).put(chave, new Posicao(leitura.position(), inicio + tamanho - leitura.position()));
+        } else {
+            segmento.colecao(colecao).remove(chave);
+        }
+    }
+
+    /**
+     * Acrescenta o registro ao fim do log e atualiza o índice.
+     */
+    private void acrescenta(Segmento segmento, byte operacao, String colecao, String chave, byte[] valor) {
+        byte[] bytesColecao = texto(colecao);
+        byte[] bytesChave = texto(chave);
+        int tamanho = 1 + 2 + bytesColecao.length + 2 + bytesChave.length + valor.length;
+        int posicao = segmento.fim;
+        ByteBuffer escrita;
+
+        garanteCapacidade(segmento, (long) posicao + CABECALHO + tamanho);
+        escrita = segmento.mapa.duplicate();
+        escrita.position(posicao + CABECALHO);
+        escrita.put(operacao);
+        escrita.putShort((short) bytesColecao.length);
+        escrita.put(bytesColecao);
+        escrita.putShort((short) bytesChave.length);
+        escrita.put(bytesChave);
+        escrita.put(valor);
+
+        /* O CRC permite descartar, na abertura, um registro gravado apenas em parte */
+        escrita.putInt(posicao + 4, crc(segmento.mapa, posicao + CABECALHO, tamanho));
+        escrita.putInt(posicao, tamanho);
+
+        if (sincrono) {
+            segmento.mapa.force();
+        }
+
+        segmento.fim = posicao + CABECALHO + tamanho;
+
+        if (operacao == GRAVACAO) {
+            segmento.colecao(colecao).put(chave, new Posicao(segmento.fim - valor.length, valor.length));
+        } else {
+            segmento.colecao(colecao).remove(chave);
+        }
+    }
+
+    /**
+     * Amplia o mapeamento, dobrando a capacidade, até comportar
+     * a posição indicada.
+     */
+    private static void garanteCapacidade(Segmento segmento, long necessario) {
+        long capacidade = segmento.mapa.capacity();
+
+        if (necessario <= capacidade) {
+            return;
+        }
+
+        if (necessario > Integer.MAX_VALUE) {
+            throw new IllegalStateException("O log atingiu o limite de 2 GB; execute a compactação.");
+        }
+
+        while (capacidade < necessario) {
+            capacidade = Math.min(capacidade * 2, Integer.MAX_VALUE);
+        }
+
+        try {
+            segmento.mapa = segmento.canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidade);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int crc(ByteBuffer mapa, int inicio, int tamanho) {
+        ByteBuffer conteudo = mapa.duplicate();
+        CRC32 crc = new CRC32();
+
+        conteudo.position(inicio);
+        conteudo.limit(inicio + tamanho);
+        crc.update(conteudo);
+
+        return (int) crc.getValue();
+    }
+
+    private static byte[] texto(String valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("coleção e chave não podem ser nulas.");
+        }
+
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("coleção ou chave excede 65535 bytes.");
+        }
+
+        return bytes;
+    }
+
+    private static String leTexto(ByteBuffer leitura) {
+        byte[] bytes = new byte[leitura.getShort() & 0xFFFF];
+
+        leitura.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
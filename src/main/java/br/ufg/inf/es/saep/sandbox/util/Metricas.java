@@ -0,0 +1,535 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import br.ufg.inf.es.saep.sandbox.dominio.CampoExigidoNaoFornecido;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro das métricas das operações dos repositórios: latência,
+ * dividida em tempo de serialização e tempo de banco, comandos
+ * enviados ao MongoDB, documentos lidos e bytes (des)serializados.
+ *
+ * <p>Uma chamada é medida entre {@link #inicia(String, String)} e
+ * {@link Medicao#close()}, em geral pelo decorador criado por
+ * {@link #instrumenta(Object, String)}. Enquanto a medição está
+ * aberta, a thread que a iniciou acumula nela:
+ * <ul>
+ * <li>o tempo de conversão de {@link DocumentConverter} e de
+ * {@link GsonCodec};</li>
+ * <li>os comandos observados pelo {@link #ouvinte()}, que deve ser
+ * registrado no cliente MongoDB, como faz {@link MongoDBProvider}.</li>
+ * </ul>
+ * A decodificação feita por {@link GsonCodec} durante a leitura de um
+ * cursor ocorre dentro do comando e, portanto, também compõe o tempo
+ * de banco. Comandos do cliente assíncrono não são atribuídos a
+ * nenhuma medição.
+ *
+ * <p>Os bytes de {@link GsonCodec} são obtidos do próprio fluxo BSON.
+ * Os de {@link DocumentConverter} exigem a codificação adicional do
+ * documento e só são medidos quando habilitados pela propriedade do
+ * sistema {@value #PROPRIEDADE_BYTES} ou por
+ * {@link #setMedeBytes(boolean)}.
+ *
+ * <p>Cada operação é publicada no servidor JMX da plataforma como
+ * {@link OperacaoMXBean}, com o nome
+ * {@code br.ufg.inf.es.saep.sandbox:type=Operacao,componente=...,nome=...}.
+ */
+public final class Metricas {
+
+    /**
+     * Domínio dos nomes JMX das operações.
+     */
+    public final static String DOMINIO_JMX = "br.ufg.inf.es.saep.sandbox";
+
+    /**
+     * Propriedade do sistema que habilita a medição dos bytes de
+     * {@link DocumentConverter}.
+     */
+    public final static String PROPRIEDADE_BYTES = "saep.metricas.bytes";
+
+    private static final ThreadLocal<Medicao> atual = new ThreadLocal<Medicao>();
+    private static final ConcurrentMap<String, Operacao> operacoes = new ConcurrentHashMap<String, Operacao>();
+    private static final CommandListener ouvinte = new Ouvinte();
+    private static volatile boolean medeBytes = Boolean.getBoolean(PROPRIEDADE_BYTES);
+
+    private Metricas() {
+    }
+
+    /**
+     * Métricas acumuladas de uma operação de um componente.
+     */
+    public static final class Operacao implements OperacaoMXBean {
+        private final String componente;
+        private final String nome;
+        private final Histograma latencia = new Histograma();
+        private final Histograma serializacao = new Histograma();
+        private final Histograma banco = new Histograma();
+        private final Histograma idasPorChamada = new Histograma();
+        private final LongAdder falhas = new LongAdder();
+        private final LongAdder documentosLidos = new LongAdder();
+        private final LongAdder bytesSerializados = new LongAdder();
+        private final LongAdder bytesDesserializados = new LongAdder();
+
+        private Operacao(String componente, String nome) {
+            this.componente = componente;
+            this.nome = nome;
+        }
+
+        private void registra(Medicao medicao, long duracao) {
+            latencia.registra(duracao);
+            serializacao.registra(medicao.serializacao);
+            banco.registra(medicao.banco);
+            idasPorChamada.registra(medicao.idasAoBanco);
+            documentosLidos.add(medicao.documentosLidos);
+            bytesSerializados.add(medicao.bytesSerializados);
+            bytesDesserializados.add(medicao.bytesDesserializados);
+
+            if (medicao.falhou) {
+                falhas.increment();
+            }
+        }
+
+        /**
+         * @return Latência total das chamadas, em nanossegundos.
+         */
+        public Histograma getLatencia() {
+            return latencia;
+        }
+
+        /**
+         * @return Tempo de serialização por chamada, em nanossegundos.
+         */
+        public Histograma getSerializacao() {
+            return serializacao;
+        }
+
+        /**
+         * @return Tempo de banco por chamada, em nanossegundos.
+         */
+        public Histograma getBanco() {
+            return banco;
+        }
+
+        /**
+         * @return Comandos enviados ao MongoDB por chamada.
+         */
+        public Histograma getIdasPorChamada() {
+            return idasPorChamada;
+        }
+
+        public String getComponente() {
+            return componente;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public long getChamadas() {
+            return latencia.getQuantidade();
+        }
+
+        public long getFalhas() {
+            return falhas.sum();
+        }
+
+        public double getLatenciaMedia() {
+            return latencia.getMedia() / 1000;
+        }
+
+        public long getLatenciaP50() {
+            return TimeUnit.NANOSECONDS.toMicros(latencia.percentil(50));
+        }
+
+        public long getLatenciaP99() {
+            return TimeUnit.NANOSECONDS.toMicros(latencia.percentil(99));
+        }
+
+        public long getLatenciaMaxima() {
+            return TimeUnit.NANOSECONDS.toMicros(latencia.getMaximo());
+        }
+
+        public double getSerializacaoMedia() {
+            return serializacao.getMedia() / 1000;
+        }
+
+        public long getSerializacaoP99() {
+            return TimeUnit.NANOSECONDS.toMicros(serializacao.percentil(99));
+        }
+
+        public double getBancoMedia() {
+            return banco.getMedia() / 1000;
+        }
+
+        public long getBancoP99() {
+            return TimeUnit.NANOSECONDS.toMicros(banco.percentil(99));
+        }
+
+        public long getIdasAoBanco() {
+            return idasPorChamada.getSoma();
+        }
+
+        public double getIdasAoBancoPorChamada() {
+            return idasPorChamada.getMedia();
+        }
+
+        public long getIdasAoBancoPorChamadaMaximo() {
+            return idasPorChamada.getMaximo();
+        }
+
+        public long getDocumentosLidos() {
+            return documentosLidos.sum();
+        }
+
+        public double getDocumentosLidosPorChamada() {
+            long chamadas = getChamadas();
+
+            return chamadas == 0 ? 0 : (double) documentosLidos.sum() / chamadas;
+        }
+
+        public long getBytesSerializados() {
+            return bytesSerializados.sum();
+        }
+
+        public long getBytesDesserializados() {
+            return bytesDesserializados.sum();
+        }
+
+        public void reinicia() {
+            latencia.reinicia();
+            serializacao.reinicia();
+            banco.reinicia();
+            idasPorChamada.reinicia();
+            falhas.reset();
+            documentosLidos.reset();
+            bytesSerializados.reset();
+            bytesDesserializados.reset();
+        }
+
+        @Override
+        public String toString() {
+            return componente + "." + nome + " [chamadas=" + getChamadas() + ", p99=" + getLatenciaP99()
+                    + "us, idasAoBanco/chamada=" + getIdasAoBancoPorChamada() + "]";
+        }
+    }
+
+    /**
+     * Medição de uma chamada em andamento na thread corrente. Medições
+     * podem ser aninhadas; os valores da interna são também somados à
+     * externa quando encerrada.
+     */
+    public static final class Medicao implements AutoCloseable {
+        private final Operacao operacao;
+        private final Medicao anterior;
+        private final long inicio = System.nanoTime();
+        private long serializacao;
+        private long banco;
+        private long idasAoBanco;
+        private long documentosLidos;
+        private long bytesSerializados;
+        private long bytesDesserializados;
+        private boolean falhou;
+        private boolean encerrada;
+
+        private Medicao(Operacao operacao, Medicao anterior) {
+            this.operacao = operacao;
+            this.anterior = anterior;
+        }
+
+        void serializacao(long nanos, long serializados, long desserializados) {
+            serializacao += nanos;
+            bytesSerializados += serializados;
+            bytesDesserializados += desserializados;
+        }
+
+        void idaAoBanco(long nanos, int documentos) {
+            banco += nanos;
+            idasAoBanco++;
+            documentosLidos += documentos;
+        }
+
+        /**
+         * Indica que a chamada foi encerrada por exceção.
+         */
+        public void falhou() {
+            falhou = true;
+        }
+
+        /**
+         * Encerra a medição e a registra na operação. Deve ser chamado
+         * pela thread que a iniciou.
+         */
+        public void close() {
+            if (encerrada) {
+                return;
+            }
+
+            encerrada = true;
+            operacao.registra(this, System.nanoTime() - inicio);
+
+            if (anterior != null) {
+                anterior.serializacao(serializacao, bytesSerializados, bytesDesserializados);
+                anterior.banco += banco;
+                anterior.idasAoBanco += idasAoBanco;
+                anterior.documentosLidos += documentosLidos;
+            }
+
+            if (atual.get() == this) {
+                if (anterior == null) {
+                    atual.remove();
+                } else {
+                    atual.set(anterior);
+                }
+            }
+        }
+    }
+
+    /**
+     * Atribui os comandos concluídos à medição aberta na thread que
+     * os executou.
+     */
+    private static final class Ouvinte implements CommandListener {
+
+        public void commandStarted(CommandStartedEvent evento) {
+        }
+
+        public void commandSucceeded(CommandSucceededEvent evento) {
+            Medicao medicao = atual.get();
+
+            if (medicao != null) {
+                medicao.idaAoBanco(evento.getElapsedTime(TimeUnit.NANOSECONDS), documentos(evento.getResponse()));
+            }
+        }
+
+        public void commandFailed(CommandFailedEvent evento) {
+            Medicao medicao = atual.get();
+
+            if (medicao != null) {
+                medicao.idaAoBanco(evento.getElapsedTime(TimeUnit.NANOSECONDS), 0);
+            }
+        }
+    }
+
+    /**
+     * Recupera as métricas da operação, criando-as e publicando-as por
+     * JMX caso ainda não existam.
+     *
+     * @param componente O componente, em geral a classe do repositório.
+     * @param nome       O nome da operação.
+     * @return As métricas da operação.
+     */
+    public static Operacao operacao(String componente, String nome) {
+        if (componente == null) {
+            throw new CampoExigidoNaoFornecido("componente");
+        }
+
+        if (nome == null) {
+            throw new CampoExigidoNaoFornecido("nome");
+        }
+
+        String chave = componente + "." + nome;
+        Operacao operacao = operacoes.get(chave);
+
+        if (operacao == null) {
+            operacao = new Operacao(componente, nome);
+
+            Operacao anterior = operacoes.putIfAbsent(chave, operacao);
+            if (anterior != null) {
+                return anterior;
+            }
+
+            publica(operacao);
+        }
+
+        return operacao;
+    }
+
+    /**
+     * @return As métricas de todas as operações já medidas.
+     */
+    public static Collection<Operacao> getOperacoes() {
+        return Collections.unmodifiableCollection(new ArrayList<Operacao>(operacoes.values()));
+    }
+
+    /**
+     * Inicia a medição de uma chamada na thread corrente.
+     *
+     * @param componente O componente, em geral a classe do repositório.
+     * @param nome       O nome da operação.
+     * @return A medição, a ser encerrada por {@link Medicao#close()}.
+     */
+    public static Medicao inicia(String componente, String nome) {
+        Medicao medicao = new Medicao(operacao(componente, nome), atual.get());
+
+        atual.set(medicao);
+
+        return medicao;
+    }
+
+    /**
+     * Recupera a medição aberta na thread corrente.
+     *
+     * @return A medição ou {@code null}, caso não haja.
+     */
+    static Medicao atual() {
+        return atual.get();
+    }
+
+    /**
+     * Ouvinte de comandos do driver que atribui o tempo de banco, as
+     * idas ao banco e os documentos lidos às medições abertas.
+     *
+     * @return O ouvinte, compartilhado.
+     */
+    public static CommandListener ouvinte() {
+        return ouvinte;
+    }
+
+    public static boolean isMedeBytes() {
+        return medeBytes;
+    }
+
+    /**
+     * Habilita ou desabilita a medição dos bytes de
+     * {@link DocumentConverter}.
+     *
+     * @param medeBytes O valor {@code true} para habilitar.
+     */
+    public static void setMedeBytes(boolean medeBytes) {
+        Metricas.medeBytes = medeBytes;
+    }
+
+    /**
+     * Cria decorador que mede cada chamada de método de interface do
+     * objeto, como uma operação do componente com o nome do método.
+     * O decorador implementa todas as interfaces do objeto, de modo que
+     * verificações como {@code instanceof ParecerRepositoryEmLote}
+     * continuam válidas.
+     *
+     * @param alvo       O objeto instrumentado, como um repositório.
+     * @param componente O nome do componente nas métricas.
+     * @param <T>        Tipo do objeto.
+     * @return O decorador.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T instrumenta(final T alvo, final String componente) {
+        if (alvo == null) {
+            throw new CampoExigidoNaoFornecido("alvo");
+        }
+
+        if (componente == null) {
+            throw new CampoExigidoNaoFornecido("componente");
+        }
+
+        Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+
+        for (Class<?> classe = alvo.getClass(); classe != null; classe = classe.getSuperclass()) {
+            Collections.addAll(interfaces, classe.getInterfaces());
+        }
+
+        InvocationHandler manipulador = new InvocationHandler() {
+            public Object invoke(Object proxy, Method metodo, Object[] argumentos) throws Throwable {
+                if (metodo.getDeclaringClass() == Object.class) {
+                    return metodo.invoke(alvo, argumentos);
+                }
+
+                Medicao medicao = inicia(componente, metodo.getName());
+
+                try {
+                    return metodo.invoke(alvo, argumentos);
+                } catch (InvocationTargetException e) {
+                    medicao.falhou();
+                    throw e.getCause();
+                } finally {
+                    medicao.close();
+                }
+            }
+        };
+
+        return (T) Proxy.newProxyInstance(alvo.getClass().getClassLoader(),
+                interfaces.toArray(new Class<?>[interfaces.size()]), manipulador);
+    }
+
+    /**
+     * Tamanho do documento codificado em BSON.
+     */
+    static long tamanho(Document documento) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+
+        new DocumentCodec().encode(new BsonBinaryWriter(buffer), documento, EncoderContext.builder().build());
+
+        return buffer.getPosition();
+    }
+
+    /**
+     * Documentos retornados por um comando: os do lote de um cursor,
+     * como em {@code find}, {@code aggregate} e {@code getMore}, ou o
+     * documento de {@code findAndModify}.
+     */
+    static int documentos(BsonDocument resposta) {
+        if (resposta == null) {
+            return 0;
+        }
+
+        BsonValue cursor = resposta.get("cursor");
+
+        if (cursor != null && cursor.isDocument()) {
+            for (String lote : new String[]{"firstBatch", "nextBatch"}) {
+                BsonValue documentos = cursor.asDocument().get(lote);
+
+                if (documentos != null && documentos.isArray()) {
+                    return documentos.asArray().size();
+                }
+            }
+
+            return 0;
+        }
+
+        BsonValue valor = resposta.get("value");
+
+        return valor != null && valor.isDocument() ? 1 : 0;
+    }
+
+    private static void publica(Operacao operacao) {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName nome = new ObjectName(DOMINIO_JMX + ":type=Operacao,componente="
+                    + operacao.getComponente() + ",nome=" + operacao.getNome());
+
+            if (mBeanServer.isRegistered(nome)) {
+                mBeanServer.unregisterMBean(nome);
+            }
+
+            mBeanServer.registerMBean(operacao, nome);
+        } catch (Exception e) {
+            /* As métricas continuam disponíveis por getOperacoes() */
+        }
+    }
+}
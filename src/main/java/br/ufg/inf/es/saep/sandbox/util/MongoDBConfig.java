@@ -0,0 +1,307 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import com.mongodb.MongoClientOptions;
+import com.mongodb.ServerAddress;
+import com.mongodb.async.client.MongoClientSettings;
+import com.mongodb.connection.ClusterSettings;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.SocketSettings;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parâmetros de conexão com o MongoDB utilizados pelo
+ * {@link MongoDBProvider}.
+ *
+ * Os valores padrão podem ser sobrescritos por propriedades
+ * do sistema (por exemplo, {@code -Dsaep.mongodb.poolMaximo=200}),
+ * conforme {@link #doSistema()}, ou diretamente pelos métodos
+ * de alteração.
+ */
+public class MongoDBConfig {
+
+    /**
+     * Prefixo das propriedades do sistema reconhecidas.
+     */
+    public final static String PREFIXO = "saep.mongodb.";
+
+    private String servidor = ServerAddress.defaultHost();
+    private int porta = ServerAddress.defaultPort();
+    private String baseDeDados = Constants.DB_NAME;
+    private int poolMinimo = 0;
+    private int poolMaximo = 100;
+    private int multiplicadorFilaDeEspera = 5;
+    private int tempoMaximoDeEspera = 120000;
+    private int tempoLimiteConexao = 10000;
+    private int tempoLimiteSocket = 0;
+    private int tempoLimiteSelecaoServidor = 30000;
+    private int tempoMaximoOcioso = 0;
+    private int limiteComandoLento = 100;
+    private int amostragemDeComandos = 0;
+
+    /**
+     * Cria configuração com os valores padrão do driver para
+     * o servidor local.
+     */
+    public MongoDBConfig() {
+    }
+
+    /**
+     * Cria configuração para o servidor e a porta indicados.
+     *
+     * @param servidor Endereço do servidor.
+     * @param porta Porta do servidor.
+     */
+    public MongoDBConfig(String servidor, int porta) {
+        this.servidor = servidor;
+        this.porta = porta;
+    }
+
+    /**
+     * Cria configuração a partir das propriedades do sistema
+     * iniciadas por {@link #PREFIXO}. Propriedades ausentes
+     * mantêm o valor padrão.
+     *
+     * @return Configuração correspondente às propriedades do sistema.
+     */
+    public static MongoDBConfig doSistema() {
+        MongoDBConfig config = new MongoDBConfig();
+
+        config.servidor = System.getProperty(PREFIXO + "servidor", config.servidor);
+        config.porta = inteiro("porta", config.porta);
+        config.baseDeDados = System.getProperty(PREFIXO + "baseDeDados", config.baseDeDados);
+        config.poolMinimo = inteiro("poolMinimo", config.poolMinimo);
+        config.poolMaximo = inteiro("poolMaximo", config.poolMaximo);
+        config.multiplicadorFilaDeEspera = inteiro("multiplicadorFilaDeEspera", config.multiplicadorFilaDeEspera);
+        config.tempoMaximoDeEspera = inteiro("tempoMaximoDeEspera", config.tempoMaximoDeEspera);
+        config.tempoLimiteConexao = inteiro("tempoLimiteConexao", config.tempoLimiteConexao);
+        config.tempoLimiteSocket = inteiro("tempoLimiteSocket", config.tempoLimiteSocket);
+        config.tempoLimiteSelecaoServidor = inteiro("tempoLimiteSelecaoServidor", config.tempoLimiteSelecaoServidor);
+        config.tempoMaximoOcioso = inteiro("tempoMaximoOcioso", config.tempoMaximoOcioso);
+        config.limiteComandoLento = inteiro("limiteComandoLento", config.limiteComandoLento);
+        config.amostragemDeComandos = inteiro("amostragemDeComandos", config.amostragemDeComandos);
+
+        return config;
+    }
+
+    private static int inteiro(String nome, int padrao) {
+        String valor = System.getProperty(PREFIXO + nome);
+
+        return valor == null ? padrao : Integer.parseInt(valor.trim());
+    }
+
+    /**
+     * Constrói as opções do cliente MongoDB correspondentes
+     * a esta configuração.
+     *
+     * @return Builder das opções, que pode ser complementado antes
+     * da criação do cliente.
+     */
+    public MongoClientOptions.Builder toOptionsBuilder() {
+        return MongoClientOptions.builder()
+                .minConnectionsPerHost(poolMinimo)
+                .connectionsPerHost(poolMaximo)
+                .threadsAllowedToBlockForConnectionMultiplier(multiplicadorFilaDeEspera)
+                .maxWaitTime(tempoMaximoDeEspera)
+                .connectTimeout(tempoLimiteConexao)
+                .socketTimeout(tempoLimiteSocket)
+                .serverSelectionTimeout(tempoLimiteSelecaoServidor)
+                .maxConnectionIdleTime(tempoMaximoOcioso);
+    }
+
+    /**
+     * Constrói as configurações do cliente assíncrono do MongoDB
+     * correspondentes a esta configuração, com os mesmos limites do
+     * pool de conexões do cliente síncrono.
+     *
+     * @return Builder das configurações, que pode ser complementado
+     * antes da criação do cliente.
+     */
+    public MongoClientSettings.Builder toAsyncSettingsBuilder() {
+        return MongoClientSettings.builder()
+                .clusterSettings(toClusterSettingsBuilder().build())
+                .connectionPoolSettings(ConnectionPoolSettings.builder()
+                        .minSize(poolMinimo)
+                        .maxSize(poolMaximo)
+                        .maxWaitQueueSize(poolMaximo * multiplicadorFilaDeEspera)
+                        .maxWaitTime(tempoMaximoDeEspera, TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(tempoMaximoOcioso, TimeUnit.MILLISECONDS)
+                        .build())
+                .socketSettings(SocketSettings.builder()
+                        .connectTimeout(tempoLimiteConexao, TimeUnit.MILLISECONDS)
+                        .readTimeout(tempoLimiteSocket, TimeUnit.MILLISECONDS)
+                        .build());
+    }
+
+    /**
+     * Constrói as configurações de cluster do cliente assíncrono
+     * correspondentes a esta configuração.
+     *
+     * @return Builder das configurações de cluster, que pode ser
+     * complementado antes da criação do cliente.
+     */
+    public ClusterSettings.Builder toClusterSettingsBuilder() {
+        return ClusterSettings.builder()
+                .hosts(Collections.singletonList(getServerAddress()))
+                .serverSelectionTimeout(tempoLimiteSelecaoServidor, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Endereço do servidor correspondente a esta configuração.
+     *
+     * @return O endereço do servidor.
+     */
+    public ServerAddress getServerAddress() {
+        return new ServerAddress(servidor, porta);
+    }
+
+    public String getServidor() {
+        return servidor;
+    }
+
+    public void setServidor(String servidor) {
+        this.servidor = servidor;
+    }
+
+    public int getPorta() {
+        return porta;
+    }
+
+    public void setPorta(int porta) {
+        this.porta = porta;
+    }
+
+    public String getBaseDeDados() {
+        return baseDeDados;
+    }
+
+    public void setBaseDeDados(String baseDeDados) {
+        this.baseDeDados = baseDeDados;
+    }
+
+    public int getPoolMinimo() {
+        return poolMinimo;
+    }
+
+    /**
+     * @param poolMinimo Número mínimo de conexões mantidas no pool.
+     */
+    public void setPoolMinimo(int poolMinimo) {
+        this.poolMinimo = poolMinimo;
+    }
+
+    public int getPoolMaximo() {
+        return poolMaximo;
+    }
+
+    /**
+     * @param poolMaximo Número máximo de conexões abertas com o servidor.
+     */
+    public void setPoolMaximo(int poolMaximo) {
+        this.poolMaximo = poolMaximo;
+    }
+
+    public int getMultiplicadorFilaDeEspera() {
+        return multiplicadorFilaDeEspera;
+    }
+
+    /**
+     * O tamanho máximo da fila de espera por uma conexão livre é
+     * {@code poolMaximo * multiplicadorFilaDeEspera}. Requisições
+     * além desse limite falham imediatamente.
+     *
+     * @param multiplicadorFilaDeEspera Multiplicador da fila de espera.
+     */
+    public void setMultiplicadorFilaDeEspera(int multiplicadorFilaDeEspera) {
+        this.multiplicadorFilaDeEspera = multiplicadorFilaDeEspera;
+    }
+
+    public int getTempoMaximoDeEspera() {
+        return tempoMaximoDeEspera;
+    }
+
+    /**
+     * @param tempoMaximoDeEspera Tempo máximo, em milissegundos, que uma
+     *                            thread aguarda por uma conexão livre.
+     */
+    public void setTempoMaximoDeEspera(int tempoMaximoDeEspera) {
+        this.tempoMaximoDeEspera = tempoMaximoDeEspera;
+    }
+
+    public int getTempoLimiteConexao() {
+        return tempoLimiteConexao;
+    }
+
+    /**
+     * @param tempoLimiteConexao Tempo limite, em milissegundos, para
+     *                           estabelecer uma conexão.
+     */
+    public void setTempoLimiteConexao(int tempoLimiteConexao) {
+        this.tempoLimiteConexao = tempoLimiteConexao;
+    }
+
+    public int getTempoLimiteSocket() {
+        return tempoLimiteSocket;
+    }
+
+    /**
+     * @param tempoLimiteSocket Tempo limite, em milissegundos, de leitura
+     *                          do socket. O valor zero indica sem limite.
+     */
+    public void setTempoLimiteSocket(int tempoLimiteSocket) {
+        this.tempoLimiteSocket = tempoLimiteSocket;
+    }
+
+    public int getTempoLimiteSelecaoServidor() {
+        return tempoLimiteSelecaoServidor;
+    }
+
+    /**
+     * @param tempoLimiteSelecaoServidor Tempo limite, em milissegundos,
+     *                                   para selecionar um servidor disponível.
+     */
+    public void setTempoLimiteSelecaoServidor(int tempoLimiteSelecaoServidor) {
+        this.tempoLimiteSelecaoServidor = tempoLimiteSelecaoServidor;
+    }
+
+    public int getTempoMaximoOcioso() {
+        return tempoMaximoOcioso;
+    }
+
+    /**
+     * @param tempoMaximoOcioso Tempo máximo, em milissegundos, que uma
+     *                          conexão pode permanecer ociosa no pool.
+     *                          O valor zero indica sem limite.
+     */
+    public void setTempoMaximoOcioso(int tempoMaximoOcioso) {
+        this.tempoMaximoOcioso = tempoMaximoOcioso;
+    }
+
+    public int getLimiteComandoLento() {
+        return limiteComandoLento;
+    }
+
+    /**
+     * @param limiteComandoLento Duração, em milissegundos, a partir da
+     *                           qual um comando é registrado como lento
+     *                           pelo {@link MonitorDeComandos}.
+     */
+    public void setLimiteComandoLento(int limiteComandoLento) {
+        this.limiteComandoLento = limiteComandoLento;
+    }
+
+    public int getAmostragemDeComandos() {
+        return amostragemDeComandos;
+    }
+
+    /**
+     * @param amostragemDeComandos O {@link MonitorDeComandos} mantém um a
+     *                             cada {@code amostragemDeComandos}
+     *                             comandos. O valor zero desabilita a
+     *                             amostragem.
+     */
+    public void setAmostragemDeComandos(int amostragemDeComandos) {
+        this.amostragemDeComandos = amostragemDeComandos;
+    }
+}
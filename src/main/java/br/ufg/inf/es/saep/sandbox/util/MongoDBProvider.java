@@ -0,0 +1,228 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import com.mongodb.MongoClient;
+import com.mongodb.async.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.connection.ClusterSettings;
+
+import javax.management.JMException;
+import javax.management.JMRuntimeException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantém um único {@link MongoClient}, e consequentemente um único
+ * pool de conexões, compartilhado por todos os gerenciadores de
+ * repositório que o utilizam.
+ *
+ * O {@code MongoClient} é thread-safe e deve ser reaproveitado durante
+ * toda a vida da aplicação. Criar um cliente por repositório abre
+ * um pool de conexões e threads de monitoramento a cada instância.
+ *
+ * O cliente é criado na primeira requisição e liberado por
+ * {@link #close()}. Os seus comandos são observados por
+ * {@link Metricas#ouvinte()} e pelo {@link #getMonitor() monitor de
+ * comandos}.
+ */
+public class MongoDBProvider implements AutoCloseable {
+
+    /**
+     * Padrão dos nomes dos MBeans de pool de conexões registrados
+     * pelo driver do MongoDB para clusters com a descrição fornecida.
+     */
+    private final static String POOL_MBEANS = "org.mongodb.driver:type=ConnectionPool,description=%s,*";
+
+    /**
+     * Sequência das descrições atribuídas aos clientes de cada provedor.
+     */
+    private final static AtomicLong PROVEDORES = new AtomicLong();
+
+    private final MongoDBConfig config;
+    private final String descricao = "saep-" + PROVEDORES.incrementAndGet();
+    private MonitorDeComandos monitor = null;
+    private MongoClient mongoClient = null;
+    private com.mongodb.async.client.MongoClient asyncClient = null;
+    private boolean fechado = false;
+
+    /**
+     * Cria provedor de conexões com a configuração fornecida.
+     *
+     * @param config Parâmetros de conexão e do pool.
+     */
+    public MongoDBProvider(MongoDBConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config");
+        }
+
+        this.config = config;
+    }
+
+    /**
+     * Recupera o cliente compartilhado, criando-o caso ainda
+     * não exista.
+     *
+     * @return O cliente MongoDB compartilhado.
+     * @throws IllegalStateException Caso o provedor já tenha sido fechado.
+     */
+    public synchronized MongoClient getClient() {
+        if (fechado) {
+            throw new IllegalStateException("Provedor de conexões já foi fechado.");
+        }
+
+        if (mongoClient == null) {
+            mongoClient = new MongoClient(config.getServerAddress(), config.toOptionsBuilder()
+                    .description(descricao)
+                    .addCommandListener(Metricas.ouvinte())
+                    .addCommandListener(getMonitor())
+                    .build());
+        }
+
+        return mongoClient;
+    }
+
+    /**
+     * Recupera o monitor dos comandos do cliente síncrono, criado
+     * conforme a configuração do provedor.
+     *
+     * @return O monitor de comandos.
+     */
+    public synchronized MonitorDeComandos getMonitor() {
+        if (monitor == null) {
+            monitor = new MonitorDeComandos(config.getBaseDeDados(), config.getLimiteComandoLento(), config.getAmostragemDeComandos());
+        }
+
+        return monitor;
+    }
+
+    /**
+     * Recupera a base de dados configurada.
+     *
+     * @return A base de dados configurada no cliente compartilhado.
+     */
+    public MongoDatabase getDatabase() {
+        return getClient().getDatabase(config.getBaseDeDados());
+    }
+
+    /**
+     * Recupera o cliente assíncrono compartilhado, criando-o caso ainda
+     * não exista. O cliente assíncrono mantém pool de conexões próprio,
+     * com os mesmos limites configurados para o cliente síncrono.
+     *
+     * @return O cliente assíncrono compartilhado.
+     * @throws IllegalStateException Caso o provedor já tenha sido fechado.
+     */
+    public synchronized com.mongodb.async.client.MongoClient getAsyncClient() {
+        if (fechado) {
+            throw new IllegalStateException("Provedor de conexões já foi fechado.");
+        }
+
+        if (asyncClient == null) {
+            asyncClient = MongoClients.create(config.toAsyncSettingsBuilder()
+                    .clusterSettings(config.toClusterSettingsBuilder().description(descricao).build())
+                    .build());
+        }
+
+        return asyncClient;
+    }
+
+    /**
+     * Recupera a base de dados configurada por meio do cliente assíncrono.
+     *
+     * @return A base de dados configurada no cliente assíncrono compartilhado.
+     */
+    public com.mongodb.async.client.MongoDatabase getAsyncDatabase() {
+        return getAsyncClient().getDatabase(config.getBaseDeDados());
+    }
+
+    /**
+     * Configuração utilizada pelo provedor.
+     *
+     * @return A configuração do provedor.
+     */
+    public MongoDBConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Descrição atribuída aos clientes deste provedor, distinta da
+     * descrição dos clientes de qualquer outro provedor.
+     *
+     * @return A descrição dos clusters dos clientes deste provedor.
+     */
+    String getDescricao() {
+        return descricao;
+    }
+
+    /**
+     * Recupera a utilização atual dos pools de conexões abertos pelos
+     * clientes deste provedor, um por servidor e por cliente. As
+     * informações são extraídas dos MBeans que o driver registra no
+     * servidor JMX da plataforma, identificados pela descrição do
+     * cluster de cada cliente.
+     *
+     * @return Lista com a situação de cada pool de conexões. Vazia caso
+     * nenhuma conexão tenha sido estabelecida.
+     */
+    public List<PoolMetrics> getPoolMetrics() {
+        List<PoolMetrics> metricas = new ArrayList<PoolMetrics>();
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> nomes;
+
+        try {
+            nomes = mBeanServer.queryNames(new ObjectName(String.format(POOL_MBEANS, descricao)), null);
+        } catch (JMException e) {
+            return metricas;
+        }
+
+        for (ObjectName nome : nomes) {
+            try {
+                metricas.add(new PoolMetrics(
+                        (String) mBeanServer.getAttribute(nome, "Host"),
+                        (Integer) mBeanServer.getAttribute(nome, "Port"),
+                        (Integer) mBeanServer.getAttribute(nome, "MinSize"),
+                        (Integer) mBeanServer.getAttribute(nome, "MaxSize"),
+                        (Integer) mBeanServer.getAttribute(nome, "Size"),
+                        (Integer) mBeanServer.getAttribute(nome, "CheckedOutCount"),
+                        (Integer) mBeanServer.getAttribute(nome, "WaitQueueSize")));
+            } catch (JMException | JMRuntimeException e) {
+                /* Pool fechado ou ilegível; os demais ainda são lidos */
+            }
+        }
+
+        return metricas;
+    }
+
+    /**
+     * Indica se o provedor já foi fechado.
+     *
+     * @return O valor {@code true} caso {@link #close()} já tenha
+     * sido chamado.
+     */
+    public synchronized boolean isFechado() {
+        return fechado;
+    }
+
+    /**
+     * Fecha os clientes compartilhados e todas as suas conexões.
+     * Repositórios que utilizam este provedor não devem ser
+     * utilizados após esta chamada.
+     */
+    public synchronized void close() {
+        fechado = true;
+
+        if (mongoClient != null) {
+            mongoClient.close();
+            mongoClient = null;
+        }
+
+        if (asyncClient != null) {
+            asyncClient.close();
+            asyncClient = null;
+        }
+    }
+}
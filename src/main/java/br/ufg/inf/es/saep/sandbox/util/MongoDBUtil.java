@@ -1,39 +1,160 @@
 package br.ufg.inf.es.saep.sandbox.util;
 
-import com.mongodb.DB;
-import com.mongodb.Mongo;
 import com.mongodb.MongoClient;
-import com.mongodb.ServerAddress;
-import com.mongodb.client.MongoDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Responsável pelo gerenciamento de conexões com o banco de dados.
+ *
+ * Todas as chamadas recebem o mesmo cliente (e o mesmo pool de
+ * conexões) para um dado servidor. Os clientes são liberados por
+ * {@link #fechar()}, registrado também como shutdown hook da JVM.
  */
 public class MongoDBUtil {
 
     /**
-     * Recupera uma instância de conexão com o banco de dados especificando
-     * endereço e porta
+     * Provedor padrão, utilizado pelos repositórios criados sem
+     * provedor explícito.
+     */
+    private static MongoDBProvider provedorPadrao = null;
+
+    /**
+     * Indica se o provedor padrão corrente já foi entregue por
+     * {@link #getProvider()} e, portanto, pode estar em uso.
+     */
+    private static boolean provedorEntregue = false;
+
+    /**
+     * Provedores criados para servidores específicos, indexados
+     * por "servidor:porta".
+     */
+    private static final Map<String, MongoDBProvider> provedores = new HashMap<String, MongoDBProvider>();
+
+    private static boolean hookRegistrado = false;
+
+    /**
+     * Define a configuração do provedor padrão. Deve ser chamado antes
+     * da criação do primeiro repositório. Um provedor padrão ainda não
+     * entregue por {@link #getProvider()} é substituído.
+     *
+     * <p>Um provedor entregue não é substituído, pois os repositórios
+     * criados a partir dele mantêm as suas conexões: fechá-lo faria
+     * falhar todas as operações desses repositórios. Para reconfigurar
+     * o provedor padrão, {@link #fechar()} deve ser chamado antes,
+     * após o descarte dos repositórios que o utilizam.
+     *
+     * @param config Configuração a ser empregada pelo provedor padrão.
+     * @throws IllegalStateException Caso o provedor padrão corrente já
+     * tenha sido entregue e não tenha sido fechado.
+     */
+    public static synchronized void configura(MongoDBConfig config) {
+        if (provedorPadrao != null && provedorEntregue && !provedorPadrao.isFechado()) {
+            throw new IllegalStateException("Provedor padrão já em uso; chame fechar() antes de reconfigurá-lo.");
+        }
+
+        if (provedorPadrao != null) {
+            provedorPadrao.close();
+        }
+
+        provedorPadrao = new MongoDBProvider(config);
+        provedorEntregue = false;
+        registraHook();
+    }
+
+    /**
+     * Recupera o provedor padrão, configurado a partir das propriedades
+     * do sistema caso {@link #configura(MongoDBConfig)} não tenha
+     * sido chamado.
+     *
+     * @return O provedor de conexões padrão.
+     */
+    public static synchronized MongoDBProvider getProvider() {
+        if (provedorPadrao == null || provedorPadrao.isFechado()) {
+            provedorPadrao = new MongoDBProvider(MongoDBConfig.doSistema());
+            registraHook();
+        }
+
+        provedorEntregue = true;
+
+        return provedorPadrao;
+    }
+
+    /**
+     * Recupera a instância compartilhada de conexão com o banco de
+     * dados no endereço e porta especificados.
      *
      * @param servidor Endereço do servidor onde será realizada a conexão
      * @param porta Porta do servidor onde será realizada a conexão
-     * @return Um novo objeto {@code MongoClient} que mantém a conexão com
-     * o banco de dados
+     * @return O objeto {@code MongoClient} compartilhado que mantém a
+     * conexão com o banco de dados
      */
-    public static MongoClient getClientInstance(String servidor, int porta){
-        return new MongoClient(new ServerAddress(servidor, porta));
+    public static synchronized MongoClient getClientInstance(String servidor, int porta){
+        String chave = servidor + ":" + porta;
+        MongoDBProvider provedor = provedores.get(chave);
+
+        if (provedor == null || provedor.isFechado()) {
+            MongoDBConfig config = MongoDBConfig.doSistema();
+
+            config.setServidor(servidor);
+            config.setPorta(porta);
+            provedor = new MongoDBProvider(config);
+            provedores.put(chave, provedor);
+            registraHook();
+        }
+
+        return provedor.getClient();
     }
 
     /**
-     * Recupera uma instância de conexão com o banco de dados local
+     * Recupera a instância compartilhada de conexão com o banco de
+     * dados do provedor padrão.
      *
-     * @return Um novo objeto {@code MongoClient} que mantém a conexão com
-     * o banco de dados
+     * @return O objeto {@code MongoClient} compartilhado que mantém a
+     * conexão com o banco de dados
      */
     public static MongoClient getClientInstance(){
-        return new MongoClient();
+        return getProvider().getClient();
+    }
+
+    /**
+     * Recupera o monitor dos comandos enviados pelo cliente do provedor
+     * padrão, com o registro dos comandos lentos e amostrados.
+     *
+     * @return O monitor de comandos do provedor padrão.
+     */
+    public static MonitorDeComandos getMonitor() {
+        return getProvider().getMonitor();
     }
 
+    /**
+     * Fecha todos os clientes compartilhados. Chamadas posteriores
+     * criam novos clientes.
+     */
+    public static synchronized void fechar() {
+        if (provedorPadrao != null) {
+            provedorPadrao.close();
+            provedorPadrao = null;
+        }
+
+        for (MongoDBProvider provedor : provedores.values()) {
+            provedor.close();
+        }
 
+        provedores.clear();
+    }
 
+    private static void registraHook() {
+        if (hookRegistrado) {
+            return;
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                fechar();
+            }
+        }));
+        hookRegistrado = true;
+    }
 }
@@ -0,0 +1,362 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import br.ufg.inf.es.saep.sandbox.dominio.CampoExigidoNaoFornecido;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Observa os comandos enviados pelo driver às coleções do SAEP
+ * definidas em {@link Constants}, na base de dados configurada,
+ * registrando para cada par coleção e comando um {@link Histograma}
+ * das durações.
+ *
+ * <p>Comandos com duração igual ou superior ao limite configurado são
+ * registrados no log {@value #LOG} com nível {@code WARNING} e mantidos
+ * entre os {@link #getLentos() comandos lentos}. Um a cada
+ * {@code amostragem} comandos é mantido entre as
+ * {@link #getAmostras() amostras} e registrado com nível {@code FINE}.
+ * Ambos os registros guardam os {@value #CAPACIDADE} comandos mais
+ * recentes, com a forma do comando: o filtro, a ordenação e a projeção
+ * de consultas e o critério de atualizações e remoções, mas nunca os
+ * documentos gravados. Assim, consultas sem índice adequado podem ser
+ * identificadas pelo filtro, sem o profiler do servidor.
+ *
+ * <p>É registrado por {@link MongoDBProvider} no cliente síncrono,
+ * conforme {@link MongoDBConfig#getLimiteComandoLento()} e
+ * {@link MongoDBConfig#getAmostragemDeComandos()}. O cliente
+ * assíncrono, nesta versão do driver, não admite ouvintes.
+ */
+public class MonitorDeComandos implements CommandListener {
+
+    /**
+     * Nome do log dos comandos lentos e amostrados.
+     */
+    public final static String LOG = "br.ufg.inf.es.saep.sandbox.comandos";
+
+    /**
+     * Quantidade de comandos mantidos em cada registro.
+     */
+    public final static int CAPACIDADE = 256;
+
+    private static final Logger log = Logger.getLogger(LOG);
+
+    private static final Set<String> COLECOES = new HashSet<String>(Arrays.asList(
+            Constants.DB_COLLECTION_NOTAS, Constants.DB_COLLECTION_PARECERES,
+            Constants.DB_COLLECTION_RADOCS, Constants.DB_COLLECTION_RELATOS,
+            Constants.DB_COLLECTION_RESOLUCOES, Constants.DB_COLLECTION_TIPOS));
+
+    /**
+     * Campos do comando que descrevem a sua forma.
+     */
+    private static final String[] CAMPOS_DA_FORMA = {"filter", "sort", "projection", "pipeline", "query"};
+
+    /**
+     * Comando concluído ou encerrado por falha.
+     */
+    public static final class Comando {
+        private final String nome;
+        private final String colecao;
+        private final long duracao;
+        private final int documentos;
+        private final BsonDocument forma;
+        private final boolean falhou;
+        private final long instante;
+
+        Comando(String nome, String colecao, long duracao, int documentos, BsonDocument forma, boolean falhou) {
+            this.nome = nome;
+            this.colecao = colecao;
+            this.duracao = duracao;
+            this.documentos = documentos;
+            this.forma = forma;
+            this.falhou = falhou;
+            this.instante = System.currentTimeMillis();
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public String getColecao() {
+            return colecao;
+        }
+
+        /**
+         * @return Duração, em nanossegundos.
+         */
+        public long getDuracao() {
+            return duracao;
+        }
+
+        /**
+         * @return Documentos retornados.
+         */
+        public int getDocumentos() {
+            return documentos;
+        }
+
+        /**
+         * @return Filtro, ordenação e projeção do comando, quando houver.
+         */
+        public BsonDocument getForma() {
+            return forma;
+        }
+
+        public boolean isFalhou() {
+            return falhou;
+        }
+
+        /**
+         * @return Instante da conclusão, em milissegundos desde a época.
+         */
+        public long getInstante() {
+            return instante;
+        }
+
+        @Override
+        public String toString() {
+            return nome + " " + colecao + " " + TimeUnit.NANOSECONDS.toMillis(duracao) + "ms documentos="
+                    + documentos + (falhou ? " FALHOU" : "") + " " + forma.toJson() + " em " + new Date(instante);
+        }
+    }
+
+    /**
+     * Coleção e forma de um comando iniciado, até a sua conclusão.
+     */
+    private static final class Iniciado {
+        private final String colecao;
+        private final BsonDocument forma;
+
+        private Iniciado(String colecao, BsonDocument forma) {
+            this.colecao = colecao;
+            this.forma = forma;
+        }
+    }
+
+    private final String baseDeDados;
+    private final long limite;
+    private final int amostragem;
+    private final AtomicLong concluidos = new AtomicLong();
+    private final ConcurrentMap<Integer, Iniciado> iniciados = new ConcurrentHashMap<Integer, Iniciado>();
+    private final ConcurrentMap<String, Histograma> duracoes = new ConcurrentHashMap<String, Histograma>();
+    private final Deque<Comando> lentos = new ArrayDeque<Comando>();
+    private final Deque<Comando> amostras = new ArrayDeque<Comando>();
+
+    /**
+     * Cria monitor de comandos.
+     *
+     * @param baseDeDados        Base de dados cujas coleções são
+     *                           observadas.
+     * @param limiteComandoLento Duração, em milissegundos, a partir da
+     *                           qual um comando é considerado lento.
+     * @param amostragem         Mantém um a cada {@code amostragem}
+     *                           comandos; zero desabilita a amostragem.
+     */
+    public MonitorDeComandos(String baseDeDados, long limiteComandoLento, int amostragem) {
+        if (baseDeDados == null) {
+            throw new CampoExigidoNaoFornecido("baseDeDados");
+        }
+
+        if (limiteComandoLento < 0) {
+            throw new IllegalArgumentException("limiteComandoLento");
+        }
+
+        if (amostragem < 0) {
+            throw new IllegalArgumentException("amostragem");
+        }
+
+        this.baseDeDados = baseDeDados;
+        this.limite = TimeUnit.MILLISECONDS.toNanos(limiteComandoLento);
+        this.amostragem = amostragem;
+    }
+
+    public void commandStarted(CommandStartedEvent evento) {
+        if (!baseDeDados.equals(evento.getDatabaseName())) {
+            return;
+        }
+
+        String colecao = colecao(evento.getCommandName(), evento.getCommand());
+
+        if (colecao != null && COLECOES.contains(colecao)) {
+            iniciados.put(evento.getRequestId(), new Iniciado(colecao, forma(evento.getCommand())));
+        }
+    }
+
+    public void commandSucceeded(CommandSucceededEvent evento) {
+        conclui(evento.getRequestId(), evento.getCommandName(), evento.getElapsedTime(TimeUnit.NANOSECONDS),
+                Metricas.documentos(evento.getResponse()), false);
+    }
+
+    public void commandFailed(CommandFailedEvent evento) {
+        conclui(evento.getRequestId(), evento.getCommandName(), evento.getElapsedTime(TimeUnit.NANOSECONDS),
+                0, true);
+    }
+
+    private void conclui(int requisicao, String nome, long duracao, int documentos, boolean falhou) {
+        Iniciado iniciado = iniciados.remove(requisicao);
+
+        if (iniciado == null) {
+            return;
+        }
+
+        histograma(iniciado.colecao, nome).registra(duracao);
+
+        boolean lento = duracao >= limite;
+        boolean amostrado = amostragem > 0 && concluidos.incrementAndGet() % amostragem == 0;
+
+        if (!lento && !amostrado) {
+            return;
+        }
+
+        Comando comando = new Comando(nome, iniciado.colecao, duracao, documentos, iniciado.forma, falhou);
+
+        if (lento) {
+            acrescenta(lentos, comando);
+            log.log(Level.WARNING, "Comando lento: {0}", comando);
+        }
+
+        if (amostrado) {
+            acrescenta(amostras, comando);
+
+            if (log.isLoggable(Level.FINE)) {
+                log.log(Level.FINE, "Comando amostrado: {0}", comando);
+            }
+        }
+    }
+
+    private Histograma histograma(String colecao, String nome) {
+        String chave = colecao + "." + nome;
+        Histograma histograma = duracoes.get(chave);
+
+        if (histograma == null) {
+            histograma = new Histograma();
+
+            Histograma anterior = duracoes.putIfAbsent(chave, histograma);
+            if (anterior != null) {
+                histograma = anterior;
+            }
+        }
+
+        return histograma;
+    }
+
+    private static void acrescenta(Deque<Comando> registro, Comando comando) {
+        synchronized (registro) {
+            if (registro.size() == CAPACIDADE) {
+                registro.removeFirst();
+            }
+
+            registro.addLast(comando);
+        }
+    }
+
+    private static List<Comando> copia(Deque<Comando> registro) {
+        synchronized (registro) {
+            return Collections.unmodifiableList(new ArrayList<Comando>(registro));
+        }
+    }
+
+    /**
+     * Coleção alvo do comando: o valor do campo com o nome do comando
+     * ou, em {@code getMore}, o campo {@code collection}.
+     */
+    static String colecao(String nome, BsonDocument comando) {
+        BsonValue valor = comando.get("getMore".equals(nome) ? "collection" : nome);
+
+        return valor != null && valor.isString() ? valor.asString().getValue() : null;
+    }
+
+    /**
+     * Forma do comando, sem os documentos gravados.
+     */
+    static BsonDocument forma(BsonDocument comando) {
+        BsonDocument forma = new BsonDocument();
+
+        for (String campo : CAMPOS_DA_FORMA) {
+            BsonValue valor = comando.get(campo);
+
+            if (valor != null) {
+                forma.put(campo, valor);
+            }
+        }
+
+        /* update e delete: critério da primeira instrução */
+        for (String instrucoes : new String[]{"updates", "deletes"}) {
+            BsonValue valor = comando.get(instrucoes);
+
+            if (valor != null && valor.isArray() && !valor.asArray().isEmpty()
+                    && valor.asArray().get(0).isDocument()) {
+                BsonValue criterio = valor.asArray().get(0).asDocument().get("q");
+
+                if (criterio != null) {
+                    forma.put("q", criterio);
+                }
+            }
+        }
+
+        return forma;
+    }
+
+    /**
+     * Durações dos comandos por coleção e comando, como
+     * {@code pareceres.find}, em nanossegundos.
+     *
+     * @return Os histogramas, pela coleção e nome do comando.
+     */
+    public Map<String, Histograma> getDuracoes() {
+        return Collections.unmodifiableMap(new TreeMap<String, Histograma>(duracoes));
+    }
+
+    /**
+     * @return Os comandos lentos mais recentes, do mais antigo ao mais
+     * recente.
+     */
+    public List<Comando> getLentos() {
+        return copia(lentos);
+    }
+
+    /**
+     * @return Os comandos amostrados mais recentes, do mais antigo ao
+     * mais recente.
+     */
+    public List<Comando> getAmostras() {
+        return copia(amostras);
+    }
+
+    /**
+     * @return Duração, em milissegundos, a partir da qual um comando é
+     * considerado lento.
+     */
+    public long getLimiteComandoLento() {
+        return TimeUnit.NANOSECONDS.toMillis(limite);
+    }
+
+    public String getBaseDeDados() {
+        return baseDeDados;
+    }
+
+    public int getAmostragem() {
+        return amostragem;
+    }
+}
@@ -0,0 +1,63 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+/**
+ * Métricas de uma operação de repositório publicadas por JMX, com
+ * tempos em microssegundos.
+ *
+ * @see Metricas
+ */
+public interface OperacaoMXBean {
+
+    String getComponente();
+
+    String getNome();
+
+    long getChamadas();
+
+    /**
+     * @return Chamadas encerradas por exceção.
+     */
+    long getFalhas();
+
+    double getLatenciaMedia();
+
+    long getLatenciaP50();
+
+    long getLatenciaP99();
+
+    long getLatenciaMaxima();
+
+    double getSerializacaoMedia();
+
+    long getSerializacaoP99();
+
+    double getBancoMedia();
+
+    long getBancoP99();
+
+    /**
+     * @return Total de comandos enviados ao MongoDB.
+     */
+    long getIdasAoBanco();
+
+    double getIdasAoBancoPorChamada();
+
+    /**
+     * @return Maior número de comandos enviados em uma única chamada,
+     * que evidencia padrões N+1.
+     */
+    long getIdasAoBancoPorChamadaMaximo();
+
+    long getDocumentosLidos();
+
+    double getDocumentosLidosPorChamada();
+
+    long getBytesSerializados();
+
+    long getBytesDesserializados();
+
+    /**
+     * Descarta as métricas acumuladas.
+     */
+    void reinicia();
+}
@@ -0,0 +1,72 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+/**
+ * Fotografia da utilização do pool de conexões de um servidor
+ * MongoDB em um determinado instante.
+ */
+public class PoolMetrics {
+
+    private final String host;
+    private final int porta;
+    private final int tamanhoMinimo;
+    private final int tamanhoMaximo;
+    private final int tamanho;
+    private final int emUso;
+    private final int filaDeEspera;
+
+    /**
+     * Cria fotografia do pool de conexões.
+     *
+     * @param host Servidor ao qual o pool se refere.
+     * @param porta Porta do servidor.
+     * @param tamanhoMinimo Número mínimo de conexões configurado.
+     * @param tamanhoMaximo Número máximo de conexões configurado.
+     * @param tamanho Número de conexões abertas.
+     * @param emUso Número de conexões em uso (fora do pool).
+     * @param filaDeEspera Número de threads aguardando conexão.
+     */
+    public PoolMetrics(String host, int porta, int tamanhoMinimo, int tamanhoMaximo,
+                       int tamanho, int emUso, int filaDeEspera) {
+        this.host = host;
+        this.porta = porta;
+        this.tamanhoMinimo = tamanhoMinimo;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.tamanho = tamanho;
+        this.emUso = emUso;
+        this.filaDeEspera = filaDeEspera;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPorta() {
+        return porta;
+    }
+
+    public int getTamanhoMinimo() {
+        return tamanhoMinimo;
+    }
+
+    public int getTamanhoMaximo() {
+        return tamanhoMaximo;
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    public int getEmUso() {
+        return emUso;
+    }
+
+    public int getFilaDeEspera() {
+        return filaDeEspera;
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + porta + " [emUso=" + emUso + ", tamanho=" + tamanho
+                + "/" + tamanhoMaximo + ", filaDeEspera=" + filaDeEspera + "]";
+    }
+}
@@ -0,0 +1,63 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import br.ufg.inf.es.saep.sandbox.dominio.Avaliavel;
+import br.ufg.inf.es.saep.sandbox.dominio.Nota;
+import br.ufg.inf.es.saep.sandbox.dominio.Parecer;
+import br.ufg.inf.es.saep.sandbox.dominio.Radoc;
+import br.ufg.inf.es.saep.sandbox.dominio.Relato;
+import br.ufg.inf.es.saep.sandbox.dominio.Resolucao;
+import br.ufg.inf.es.saep.sandbox.dominio.Tipo;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mongodb.MongoClient;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * Ponto único de criação do Gson e do {@link CodecRegistry}
+ * empregados pela camada de persistência.
+ */
+public class SaepCodecs {
+
+    /**
+     * Cria o objeto Gson utilizado na serialização e desserialização
+     * das classes do domínio.
+     *
+     * É registrado um Typer Adapter para a interface Avaliavel, visto
+     * que ela é implementada por mais de uma classe e o Gson precisa
+     * se adaptar a cada uma delas.
+     *
+     * @return Objeto Gson configurado para o domínio.
+     */
+    public static Gson gson() {
+        GsonBuilder gsonBuilder = new GsonBuilder();
+
+        /* Informações retiradas de: http://technology.finra.org/code/serialize-deserialize-interfaces-in-java.html */
+        gsonBuilder.registerTypeAdapter(Avaliavel.class, new AvaliavelTyperAdapter());
+
+        return gsonBuilder.create();
+    }
+
+    /**
+     * Cria o registro de codecs das classes do domínio, complementado
+     * pelos codecs padrão do driver (inclusive o de {@code Document}).
+     *
+     * As classes com identificador próprio ({@code Parecer},
+     * {@code Radoc}, {@code Resolucao} e {@code Tipo}) têm a propriedade
+     * {@code id} armazenada como {@code _id}.
+     *
+     * @param gson Objeto Gson que define a estrutura das classes.
+     * @return O registro de codecs.
+     */
+    public static CodecRegistry registry(Gson gson) {
+        return CodecRegistries.fromRegistries(
+                CodecRegistries.fromCodecs(
+                        new GsonCodec<Parecer>(Parecer.class, gson, true),
+                        new GsonCodec<Radoc>(Radoc.class, gson, true),
+                        new GsonCodec<Resolucao>(Resolucao.class, gson, true),
+                        new GsonCodec<Tipo>(Tipo.class, gson, true),
+                        new GsonCodec<Nota>(Nota.class, gson, false),
+                        new GsonCodec<Relato>(Relato.class, gson, false)),
+                MongoClient.getDefaultCodecRegistry());
+    }
+}
@@ -0,0 +1,190 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.persistencia.ParecerRepositoryInMemory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class AvaliacaoEmLoteTest {
+
+    private ParecerRepositoryInMemory repositorio;
+    private AvaliacaoEmLote servico;
+    private Resolucao resolucao;
+
+    @Before
+    public void setUp() {
+        List<Regra> regras = new ArrayList<Regra>();
+
+        regras.add(new Regra("horas", Regra.SOMATORIO, "", 0, 0, "ch", "", "", "aula", 0,
+                new ArrayList<String>()));
+        regras.add(new Regra("pontos", Regra.EXPRESSAO, "", 0, 0, "horas / 10", "", "", null, 0,
+                new ArrayList<String>()));
+
+        resolucao = new Resolucao("resolucao", "nome", "descricao", new Date(), regras);
+        repositorio = new ParecerRepositoryInMemory();
+        servico = new AvaliacaoEmLote(repositorio, new Avaliador(), 4, 7);
+    }
+
+    @After
+    public void tearDown() {
+        servico.close();
+    }
+
+    private List<String> persisteRadocs(int quantidade) {
+        List<String> ids = new ArrayList<String>();
+
+        for (int i = 0; i < quantidade; i++) {
+            Map<String, Valor> valores = new HashMap<String, Valor>();
+            List<Relato> relatos = new ArrayList<Relato>();
+
+            valores.put("ch", new Valor((float) i));
+            relatos.add(new Relato("aula", valores));
+            ids.add(repositorio.persisteRadoc(new Radoc("radoc" + i, 2016, relatos)));
+        }
+
+        return ids;
+    }
+
+    @Test
+    public void avaliaEGravaTodosOsRadocs() throws Exception {
+        List<String> ids = persisteRadocs(50);
+        final List<AvaliacaoEmLote.Progresso> notificacoes = new CopyOnWriteArrayList<AvaliacaoEmLote.Progresso>();
+
+        ids.add("inexistente");
+
+        AvaliacaoEmLote.Progresso progresso = servico.inicia(resolucao, ids.iterator(),
+                new Consumer<AvaliacaoEmLote.Progresso>() {
+                    public void accept(AvaliacaoEmLote.Progresso notificacao) {
+                        notificacoes.add(notificacao);
+                    }
+                }).getConclusao().get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(51, progresso.getLidos());
+        Assert.assertEquals(50, progresso.getAvaliados());
+        Assert.assertEquals(50, progresso.getGravados());
+        Assert.assertEquals(1, progresso.getFalhas());
+        Assert.assertTrue(progresso.isConcluida());
+        Assert.assertFalse(notificacoes.isEmpty());
+
+        Parecer parecer = repositorio.byId("resolucao-radoc30");
+
+        Assert.assertEquals(Collections.singletonList("radoc30"), parecer.getRadocs());
+        for (Pontuacao pontuacao : parecer.getPontuacoes()) {
+            if (pontuacao.getAtributo().equals("pontos")) {
+                Assert.assertEquals(3.0f, pontuacao.getValor().getFloat(), 0.0001f);
+            }
+        }
+    }
+
+    @Test
+    public void pareceresExistentesNaoSaoSubstituidos() throws Exception {
+        List<String> ids = persisteRadocs(10);
+
+        servico.inicia(resolucao, ids.iterator()).getConclusao().get(10, TimeUnit.SECONDS);
+
+        AvaliacaoEmLote.Progresso progresso = servico.inicia(resolucao, ids.iterator())
+                .getConclusao().get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(0, progresso.getGravados());
+        Assert.assertEquals(10, progresso.getExistentes());
+    }
+
+    @Test
+    public void falhaNaGravacaoPreservaAPrimeiraExcecao() throws Exception {
+        List<String> ids = persisteRadocs(20);
+        AtomicInteger tentativas = new AtomicInteger();
+
+        servico.close();
+
+        /* Toda gravação em lote falha, cada uma com uma exceção distinta */
+        ParecerRepositoryInMemory falho = new ParecerRepositoryInMemory() {
+            @Override
+            public List<String> persistePareceres(List<Parecer> pareceres) {
+                throw new IllegalStateException("falha " + tentativas.incrementAndGet());
+            }
+        };
+
+        for (String id : ids) {
+            falho.persisteRadoc(repositorio.radocById(id));
+        }
+
+        servico = new AvaliacaoEmLote(falho, new Avaliador(), 4, 7);
+
+        AvaliacaoEmLote.Execucao execucao = servico.inicia(resolucao, ids.iterator());
+
+        try {
+            execucao.getConclusao().get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertEquals("falha 1", e.getCause().getMessage());
+            Assert.assertEquals(tentativas.get() - 1, e.getCause().getSuppressed().length);
+        }
+
+        AvaliacaoEmLote.Progresso progresso = execucao.getProgresso();
+
+        /* A leitura é interrompida pela falha; o que já foi avaliado é descartado */
+        Assert.assertEquals(0, progresso.getGravados());
+        Assert.assertEquals(progresso.getAvaliados(), progresso.getDescartados());
+        Assert.assertTrue(progresso.getDescartados() >= 7);
+        Assert.assertTrue(progresso.isConcluida());
+    }
+
+    @Test
+    public void cancelamentoInterrompeALeitura() throws Exception {
+        persisteRadocs(1);
+
+        CountDownLatch primeiro = new CountDownLatch(1);
+        CountDownLatch liberado = new CountDownLatch(1);
+
+        /* Fornece o mesmo RADOC indefinidamente, aguardando o cancelamento após o primeiro */
+        Iterator<String> infinito = new Iterator<String>() {
+            private int lidos;
+
+            public boolean hasNext() {
+                return true;
+            }
+
+            public String next() {
+                if (lidos++ == 1) {
+                    primeiro.countDown();
+                    try {
+                        liberado.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                return "radoc0";
+            }
+        };
+
+        AvaliacaoEmLote.Execucao execucao = servico.inicia(resolucao, infinito);
+
+        primeiro.await();
+        execucao.cancela();
+        liberado.countDown();
+
+        AvaliacaoEmLote.Progresso progresso = execucao.getConclusao().get(10, TimeUnit.SECONDS);
+
+        Assert.assertTrue(execucao.isCancelada());
+        Assert.assertEquals(2, progresso.getLidos());
+        Assert.assertEquals(1, progresso.getGravados());
+        Assert.assertEquals(1, progresso.getExistentes());
+    }
+}
@@ -0,0 +1,194 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.persistencia.ParecerRepositoryInMemory;
+import br.ufg.inf.es.saep.sandbox.persistencia.ResolucaoRepositoryInMemory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AvaliacaoIncrementalTest {
+
+    private Resolucao resolucao;
+    private List<Relato> relatos;
+
+    private static Regra regra(String variavel, int tipo, String expressao, String tipoRelato,
+                               float pontosPorItem, String... dependeDe) {
+        return new Regra(variavel, tipo, "", 0, 0, expressao, "", "", tipoRelato, pontosPorItem,
+                new ArrayList<String>(Arrays.asList(dependeDe)));
+    }
+
+    private static Relato relato(String tipo, float cargaHoraria) {
+        Map<String, Valor> valores = new HashMap<String, Valor>();
+
+        valores.put("ch", new Valor(cargaHoraria));
+        return new Relato(tipo, valores);
+    }
+
+    private static float valor(List<Pontuacao> pontuacoes, String atributo) {
+        for (Pontuacao pontuacao : pontuacoes) {
+            if (pontuacao.getAtributo().equals(atributo)) {
+                return pontuacao.getValor().getFloat();
+            }
+        }
+
+        throw new AssertionError("Pontuação ausente: " + atributo);
+    }
+
+    private static List<String> atributos(List<Pontuacao> pontuacoes) {
+        List<String> atributos = new ArrayList<String>();
+
+        for (Pontuacao pontuacao : pontuacoes) {
+            atributos.add(pontuacao.getAtributo());
+        }
+
+        return atributos;
+    }
+
+    private static String resumo(List<Pontuacao> pontuacoes) {
+        StringBuilder resumo = new StringBuilder();
+
+        for (Pontuacao pontuacao : pontuacoes) {
+            resumo.append(pontuacao.getAtributo()).append('=').append(pontuacao.getValor().getFloat()).append(' ');
+        }
+
+        return resumo.toString();
+    }
+
+    @Before
+    public void setUp() {
+        List<Regra> regras = new ArrayList<Regra>();
+
+        regras.add(regra("aulas", Regra.SOMATORIO, "ch", "aula", 0));
+        regras.add(regra("orientacoes", Regra.PONTOS, "", "orientacao", 5));
+        regras.add(regra("ensino", Regra.EXPRESSAO, "aulas / 10", null, 0));
+        regras.add(regra("total", Regra.EXPRESSAO, "ensino + orientacoes", null, 0));
+
+        resolucao = new Resolucao("resolucao", "nome", "descricao", new Date(), regras);
+        relatos = new ArrayList<Relato>();
+        relatos.add(relato("aula", 60));
+        relatos.add(relato("aula", 30));
+        relatos.add(relato("orientacao", 0));
+    }
+
+    @Test
+    public void apenasRegrasAfetadasSaoRetornadas() {
+        AvaliacaoIncremental avaliacao = new Avaliador().incremental(resolucao,
+                new Parecer("p", "resolucao", new ArrayList<String>(), null, "", new ArrayList<Nota>()),
+                Arrays.asList(new Radoc("r", 2016, relatos)));
+
+        Assert.assertEquals(14f, valor(avaliacao.getPontuacoes(), "total"), 0.0001f);
+
+        /* Substitui uma aula de 30h por uma de 50h: orientacoes não é afetada */
+        List<Pontuacao> alteradas = avaliacao.adicionaNota(new Nota(relato("aula", 30), relato("aula", 50), "revisão"));
+
+        Assert.assertEquals(Arrays.asList("aulas", "ensino", "total"), atributos(alteradas));
+        Assert.assertEquals(16f, valor(alteradas, "total"), 0.0001f);
+
+        /* Pontuação substituída pelo mesmo valor calculado não propaga */
+        Assert.assertTrue(avaliacao.adicionaNota(new Nota(new Pontuacao("ensino", new Valor(0f)),
+                new Pontuacao("ensino", new Valor(11f)), "arredondamento")).isEmpty());
+
+        alteradas = avaliacao.adicionaNota(new Nota(new Pontuacao("ensino", new Valor(0f)),
+                new Pontuacao("ensino", new Valor(12f)), "arredondamento"));
+
+        Assert.assertEquals(Arrays.asList("ensino", "total"), atributos(alteradas));
+
+        alteradas = avaliacao.removeNota(relato("aula", 30));
+
+        Assert.assertEquals(Arrays.asList("aulas"), atributos(alteradas));
+        Assert.assertTrue(avaliacao.removeNota(relato("inexistente", 1)).isEmpty());
+    }
+
+    @Test
+    public void resultadoIgualAoDaAvaliacaoCompleta() {
+        Avaliador avaliador = new Avaliador();
+        Map<String, Nota> vigentes = new LinkedHashMap<String, Nota>();
+        AvaliacaoIncremental avaliacao = avaliador.incremental(resolucao,
+                new Parecer("p", "resolucao", new ArrayList<String>(), null, "", new ArrayList<Nota>()),
+                Arrays.asList(new Radoc("r", 2016, relatos)));
+        String[] originais = {"aula60", "orientacao", "total", "aula60"};
+        Nota[] alteracoes = {
+                new Nota(relato("aula", 60), relato("orientacao", 0), "reclassificado"),
+                new Nota(relato("orientacao", 0), new Pontuacao("x", new Valor(1f)), "desconsiderado"),
+                new Nota(new Pontuacao("total", new Valor(0f)), new Pontuacao("total", new Valor(3f)), "ajuste"),
+                new Nota(relato("aula", 60), relato("aula", 90), "corrigido"),
+        };
+
+        for (int i = 0; i < alteracoes.length; i++) {
+            vigentes.put(originais[i], alteracoes[i]);
+            avaliacao.adicionaNota(alteracoes[i]);
+
+            Assert.assertEquals(resumo(avaliador.plano(resolucao).avalia(relatos, new ArrayList<Nota>(vigentes.values()))),
+                    resumo(avaliacao.getPontuacoes()));
+        }
+
+        vigentes.remove("total");
+        avaliacao.removeNota(new Pontuacao("total", new Valor(0f)));
+
+        Assert.assertEquals(resumo(avaliador.plano(resolucao).avalia(relatos, new ArrayList<Nota>(vigentes.values()))),
+                resumo(avaliacao.getPontuacoes()));
+    }
+
+    @Test
+    public void remocaoPreservaSubstituicaoDeOutraNotaDoMesmoAtributo() {
+        Avaliador avaliador = new Avaliador();
+        List<Nota> vigentes = new ArrayList<Nota>();
+        AvaliacaoIncremental avaliacao = avaliador.incremental(resolucao,
+                new Parecer("p", "resolucao", new ArrayList<String>(), null, "", new ArrayList<Nota>()),
+                Arrays.asList(new Radoc("r", 2016, relatos)));
+
+        /* Originais distintos para o mesmo atributo */
+        vigentes.add(new Nota(new Pontuacao("ensino", new Valor(9f)), new Pontuacao("ensino", new Valor(20f)), "ajuste"));
+        vigentes.add(new Nota(new Pontuacao("ensino", new Valor(20f)), new Pontuacao("ensino", new Valor(30f)), "revisão"));
+
+        for (Nota nota : vigentes) {
+            avaliacao.adicionaNota(nota);
+        }
+
+        Assert.assertEquals(30f, valor(avaliacao.getPontuacoes(), "ensino"), 0.0001f);
+
+        vigentes.remove(1);
+        List<Pontuacao> alteradas = avaliacao.removeNota(new Pontuacao("ensino", new Valor(20f)));
+
+        Assert.assertEquals(Arrays.asList("ensino", "total"), atributos(alteradas));
+        Assert.assertEquals(resumo(avaliador.plano(resolucao).avalia(relatos, vigentes)),
+                resumo(avaliacao.getPontuacoes()));
+        Assert.assertEquals(20f, valor(avaliacao.getPontuacoes(), "ensino"), 0.0001f);
+    }
+
+    @Test
+    public void reavaliadorGravaApenasPontuacoesAlteradas() {
+        ParecerRepositoryInMemory pareceres = new ParecerRepositoryInMemory();
+        ResolucaoRepositoryInMemory resolucoes = new ResolucaoRepositoryInMemory();
+        Reavaliador reavaliador = new Reavaliador(pareceres, resolucoes, new Avaliador(), 10);
+        List<Pontuacao> iniciais = new ArrayList<Pontuacao>();
+
+        resolucoes.persiste(resolucao);
+        pareceres.persisteRadoc(new Radoc("r", 2016, relatos));
+        iniciais.add(new Pontuacao("aulas", new Valor(90f)));
+        pareceres.persisteParecer(new Parecer("p", "resolucao", Arrays.asList("r"), iniciais, "", new ArrayList<Nota>()));
+
+        /* Na primeira alteração, as pontuações não persistidas também são gravadas */
+        List<Pontuacao> gravadas = reavaliador.adicionaNota("p",
+                new Nota(relato("orientacao", 0), relato("aula", 10), "reclassificado"));
+
+        Assert.assertEquals(Arrays.asList("orientacoes", "ensino", "total", "aulas"), atributos(gravadas));
+        Assert.assertEquals(10f, valor(pareceres.byId("p").getPontuacoes(), "total"), 0.0001f);
+        Assert.assertEquals(1, pareceres.byId("p").getNotas().size());
+
+        gravadas = reavaliador.removeNota("p", relato("orientacao", 0));
+
+        Assert.assertEquals(Arrays.asList("aulas", "orientacoes", "ensino", "total"), atributos(gravadas));
+        Assert.assertEquals(14f, valor(pareceres.byId("p").getPontuacoes(), "total"), 0.0001f);
+        Assert.assertEquals(4, pareceres.byId("p").getPontuacoes().size());
+    }
+}
@@ -0,0 +1,186 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.persistencia.ResumoRelatos;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AvaliadorTest {
+
+    private static Regra regra(String variavel, int tipo, String expressao, String tipoRelato,
+                               float pontosPorItem, String... dependeDe) {
+        return new Regra(variavel, tipo, "", 0, 0, expressao, "", "", tipoRelato, pontosPorItem,
+                new ArrayList<String>(Arrays.asList(dependeDe)));
+    }
+
+    private static Relato relato(String tipo, float cargaHoraria) {
+        Map<String, Valor> valores = new HashMap<String, Valor>();
+
+        valores.put("ch", new Valor(cargaHoraria));
+        return new Relato(tipo, valores);
+    }
+
+    private static Resolucao resolucao(List<Regra> regras) {
+        return new Resolucao("resolucao-" + regras.hashCode(), "nome", "descricao", new Date(), regras);
+    }
+
+    private static float valor(List<Pontuacao> pontuacoes, String atributo) {
+        for (Pontuacao pontuacao : pontuacoes) {
+            if (pontuacao.getAtributo().equals(atributo)) {
+                return pontuacao.getValor().getFloat();
+            }
+        }
+
+        throw new AssertionError("Pontuação ausente: " + atributo);
+    }
+
+    private static Radoc radoc() {
+        List<Relato> relatos = new ArrayList<Relato>();
+
+        relatos.add(relato("aula", 60));
+        relatos.add(relato("aula", 30));
+        relatos.add(relato("orientacao", 0));
+        return new Radoc("radoc", 2016, relatos);
+    }
+
+    @Test
+    public void verificaTiposDeRegraEOrdemPorDependencias() {
+        List<Regra> regras = new ArrayList<Regra>();
+
+        /* Fora de ordem: total depende de regras definidas depois */
+        regras.add(regra("total", Regra.EXPRESSAO, "horas / 10 + orientacoes", null, 0));
+        regras.add(regra("bonus", Regra.CONDICIONAL, "total > 10", null, 0, "total"));
+        regras.add(regra("horas", Regra.SOMATORIO, "ch", "aula", 0));
+        regras.add(regra("media", Regra.MEDIA, "ch", "aula", 0));
+        regras.add(regra("orientacoes", Regra.PONTOS, null, "orientacao", 5));
+
+        Resolucao resolucao = resolucao(regras);
+        Avaliador avaliador = new Avaliador();
+        List<Pontuacao> pontuacoes = avaliador.avalia(resolucao, radoc());
+        List<String> ordem = avaliador.plano(resolucao).getOrdem();
+
+        Assert.assertEquals(90, valor(pontuacoes, "horas"), 0);
+        Assert.assertEquals(45, valor(pontuacoes, "media"), 0);
+        Assert.assertEquals(5, valor(pontuacoes, "orientacoes"), 0);
+        Assert.assertEquals(14, valor(pontuacoes, "total"), 0);
+        Assert.assertTrue(ordem.indexOf("horas") < ordem.indexOf("total"));
+        Assert.assertTrue(ordem.indexOf("total") < ordem.indexOf("bonus"));
+        Assert.assertSame("O plano deveria ser reutilizado.", avaliador.plano(resolucao), avaliador.plano(resolucao));
+    }
+
+    @Test
+    public void verificaLimitesECondicional() {
+        List<Regra> regras = new ArrayList<Regra>();
+
+        regras.add(new Regra("horas", Regra.SOMATORIO, "", 50, 0, "ch", "", "", "aula", 0, new ArrayList<String>()));
+        regras.add(new Regra("nivel", Regra.CONDICIONAL, "", 0, 0, "horas >= 50", "2", "1", null, 0, new ArrayList<String>()));
+
+        List<Pontuacao> pontuacoes = new Avaliador().avalia(resolucao(regras), radoc());
+
+        Assert.assertEquals(50, valor(pontuacoes, "horas"), 0);
+        Assert.assertEquals(2, valor(pontuacoes, "nivel"), 0);
+    }
+
+    @Test
+    public void verificaNotasDoParecer() {
+        List<Regra> regras = new ArrayList<Regra>();
+        Radoc radoc = radoc();
+        List<Nota> notas = new ArrayList<Nota>();
+
+        regras.add(regra("horas", Regra.SOMATORIO, "ch", "aula", 0));
+        regras.add(regra("orientacoes", Regra.PONTOS, null, "orientacao", 5));
+        regras.add(regra("total", Regra.EXPRESSAO, "horas + orientacoes", null, 0));
+
+        /* Relato de 30 horas corrigido para 40; pontuação de orientações alterada para 8 */
+        notas.add(new Nota(relato("aula", 30), relato("aula", 40), "correção"));
+        notas.add(new Nota(new Pontuacao("orientacoes", new Valor(5)), new Pontuacao("orientacoes", new Valor(8)), "revisão"));
+
+        Parecer parecer = new Parecer("p", "r", Arrays.asList("radoc"), new ArrayList<Pontuacao>(), "", notas);
+        List<Pontuacao> pontuacoes = new Avaliador().avalia(resolucao(regras), parecer, Arrays.asList(radoc));
+
+        Assert.assertEquals(100, valor(pontuacoes, "horas"), 0);
+        Assert.assertEquals(8, valor(pontuacoes, "orientacoes"), 0);
+        Assert.assertEquals(108, valor(pontuacoes, "total"), 0);
+    }
+
+    @Test(expected = ResolucaoInvalida.class)
+    public void verificaExcecaoParaDependenciaCircular() {
+        List<Regra> regras = new ArrayList<Regra>();
+
+        regras.add(regra("a", Regra.EXPRESSAO, "b + 1", null, 0));
+        regras.add(regra("b", Regra.EXPRESSAO, "a + 1", null, 0));
+
+        new Avaliador().plano(resolucao(regras));
+    }
+
+    @Test(expected = ResolucaoInvalida.class)
+    public void verificaExcecaoParaVariavelInexistente() {
+        List<Regra> regras = new ArrayList<Regra>();
+
+        regras.add(regra("a", Regra.EXPRESSAO, "x + 1", null, 0));
+
+        new Avaliador().plano(resolucao(regras));
+    }
+
+    @Test
+    public void avaliacaoPeloResumoIgualAAvaliacaoDosRelatos() {
+        List<Regra> regras = new ArrayList<Regra>();
+
+        regras.add(regra("horas", Regra.SOMATORIO, "ch", "aula", 0));
+        regras.add(regra("media", Regra.MEDIA, "ch", "aula", 0));
+        regras.add(regra("aulas", Regra.SOMATORIO, "1", "aula", 0));
+        regras.add(regra("orientacoes", Regra.PONTOS, "", "orientacao", 2.5f));
+        regras.add(regra("total", Regra.EXPRESSAO, "horas / 10 + orientacoes + aulas", null, 0));
+
+        Resolucao resolucao = resolucao(regras);
+        Avaliador avaliador = new Avaliador();
+        Radoc radoc = radoc();
+        List<Pontuacao> completa = avaliador.avalia(resolucao, radoc);
+        List<Pontuacao> resumida = avaliador.avalia(resolucao, ResumoRelatos.de(radoc.getId(), radoc.getRelatos()));
+
+        Assert.assertTrue(avaliador.plano(resolucao).isResumivel());
+        for (Pontuacao pontuacao : completa) {
+            Assert.assertEquals(pontuacao.getValor().getFloat(), valor(resumida, pontuacao.getAtributo()), 0.0001f);
+        }
+
+        Assert.assertEquals(13.5f, valor(resumida, "total"), 0.0001f);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void expressaoPorRelatoImpedeAvaliacaoPeloResumo() {
+        List<Regra> regras = new ArrayList<Regra>();
+
+        regras.add(regra("horas", Regra.SOMATORIO, "ch * 2", "aula", 0));
+
+        Resolucao resolucao = resolucao(regras);
+        Avaliador avaliador = new Avaliador();
+
+        Assert.assertFalse(avaliador.plano(resolucao).isResumivel());
+        avaliador.avalia(resolucao, ResumoRelatos.de("radoc", radoc().getRelatos()));
+    }
+
+    @Test
+    public void verificaQueCadaLimiteEhAplicadoApenasQuandoDefinido() {
+        List<Regra> regras = new ArrayList<Regra>();
+
+        /* horas = 90: apenas mínimo, apenas máximo e ambos os limites */
+        regras.add(new Regra("minimo", Regra.SOMATORIO, "", 0, 100, "ch", "", "", "aula", 0, new ArrayList<String>()));
+        regras.add(new Regra("semMinimo", Regra.SOMATORIO, "", 0, 10, "ch", "", "", "aula", 0, new ArrayList<String>()));
+        regras.add(new Regra("maximo", Regra.SOMATORIO, "", 50, 0, "ch", "", "", "aula", 0, new ArrayList<String>()));
+        regras.add(new Regra("ambos", Regra.SOMATORIO, "", 80, 10, "ch", "", "", "aula", 0, new ArrayList<String>()));
+
+        List<Pontuacao> pontuacoes = new Avaliador().avalia(resolucao(regras), radoc());
+
+        Assert.assertEquals(100, valor(pontuacoes, "minimo"), 0);
+        Assert.assertEquals(90, valor(pontuacoes, "semMinimo"), 0);
+        Assert.assertEquals(50, valor(pontuacoes, "maximo"), 0);
+        Assert.assertEquals(80, valor(pontuacoes, "ambos"), 0);
+    }
+}
@@ -0,0 +1,88 @@
+package br.ufg.inf.es.saep.sandbox.avaliacao;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ExpressoesTest {
+
+    private static double avalia(String texto, final Map<String, Double> valores) {
+        return Expressoes.compila(texto).avalia(new Expressao.Variaveis() {
+            public double valor(String nome) {
+                return valores.get(nome);
+            }
+        });
+    }
+
+    private static double avalia(String texto) {
+        return avalia(texto, new HashMap<String, Double>());
+    }
+
+    @Test
+    public void verificaPrecedenciaDosOperadores() {
+        Assert.assertEquals(14, avalia("2 + 3 * 4"), 0);
+        Assert.assertEquals(20, avalia("(2 + 3) * 4"), 0);
+        Assert.assertEquals(512, avalia("2 ^ 3 ^ 2"), 0);
+        Assert.assertEquals(-4, avalia("-2 ^ 2"), 0);
+        Assert.assertEquals(1, avalia("7 % 3"), 0);
+        Assert.assertEquals(1500, avalia("1.5e3"), 0);
+    }
+
+    @Test
+    public void verificaComparacoesEOperadoresLogicos() {
+        Assert.assertEquals(1, avalia("1 < 2 && 3 >= 3"), 0);
+        Assert.assertEquals(1, avalia("1 = 2 || !(2 <> 2)"), 0);
+        Assert.assertEquals(1, avalia("TRUE && NOT(FALSE)"), 0);
+    }
+
+    @Test
+    public void verificaFuncoes() {
+        Map<String, Double> valores = new HashMap<String, Double>();
+
+        valores.put("a", 3.0);
+        valores.put("b", 7.0);
+        Assert.assertEquals(7, avalia("max(a, b, 1)", valores), 0);
+        Assert.assertEquals(1, avalia("MIN(a, b, 1)", valores), 0);
+        Assert.assertEquals(10, avalia("IF(a > b, a, a + b)", valores), 0);
+        Assert.assertEquals(3.14, avalia("ROUND(3.14159, 2)"), 1e-9);
+        Assert.assertEquals(3, avalia("ROUND(2.5)"), 0);
+        Assert.assertEquals(-3, avalia("ROUND(-2.5)"), 0);
+        Assert.assertEquals(-0.13, avalia("ROUND(-0.125, 2)"), 1e-9);
+        Assert.assertEquals(3, avalia("SQRT(ABS(-9))"), 0);
+    }
+
+    @Test
+    public void verificaVariaveisEConstantes() {
+        Expressao expressao = Expressoes.compila("x * (2 + 3) + y");
+
+        Assert.assertEquals(2, expressao.getVariaveis().size());
+        Assert.assertTrue(expressao.getVariaveis().contains("x"));
+        Assert.assertTrue(Expressoes.compila("2 * (3 + 4)").getVariaveis().isEmpty());
+    }
+
+    @Test
+    public void verificaCacheDeExpressoes() {
+        Assert.assertSame(Expressoes.compila("a + b * 2"), Expressoes.compila("a + b * 2"));
+    }
+
+    @Test
+    public void verificaLimiteDoCacheDeExpressoes() {
+        for (int i = 0; i <= Expressoes.MAXIMO_DE_EXPRESSOES; i++) {
+            Expressoes.compila("x + " + i);
+        }
+
+        Assert.assertEquals(Expressoes.MAXIMO_DE_EXPRESSOES, Expressoes.getTamanhoDoCache());
+    }
+
+    @Test(expected = ExpressaoInvalida.class)
+    public void verificaExcecaoParaExpressaoIncompleta() {
+        Expressoes.compila("2 * (3 + ");
+    }
+
+    @Test(expected = ExpressaoInvalida.class)
+    public void verificaExcecaoParaFuncaoDesconhecida() {
+        Expressoes.compila("LOG(2)");
+    }
+}
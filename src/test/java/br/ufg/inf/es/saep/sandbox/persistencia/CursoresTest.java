@@ -0,0 +1,90 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.Relato;
+import br.ufg.inf.es.saep.sandbox.dominio.Valor;
+import com.mongodb.ServerAddress;
+import com.mongodb.ServerCursor;
+import com.mongodb.client.MongoCursor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CursoresTest {
+
+    /**
+     * Cursor em memória que conta os fechamentos.
+     */
+    private static final class CursorEmMemoria<T> implements MongoCursor<T> {
+
+        private final Iterator<T> documentos;
+        private int fechamentos;
+
+        CursorEmMemoria(List<T> documentos) {
+            this.documentos = documentos.iterator();
+        }
+
+        public void close() {
+            fechamentos++;
+        }
+
+        public boolean hasNext() {
+            return documentos.hasNext();
+        }
+
+        public T next() {
+            return documentos.next();
+        }
+
+        public T tryNext() {
+            return hasNext() ? next() : null;
+        }
+
+        public ServerCursor getServerCursor() {
+            return null;
+        }
+
+        public ServerAddress getServerAddress() {
+            return null;
+        }
+    }
+
+    @Test
+    public void streamFechaOCursorAoTerminoDosDocumentos() {
+        CursorEmMemoria<String> cursor = new CursorEmMemoria<String>(Arrays.asList("a", "b"));
+
+        Assert.assertEquals(Arrays.asList("a", "b"), Cursores.stream(cursor).collect(Collectors.toList()));
+        Assert.assertEquals(1, cursor.fechamentos);
+    }
+
+    @Test
+    public void fechamentoDoStreamFechaOCursorUmaVez() {
+        CursorEmMemoria<String> cursor = new CursorEmMemoria<String>(Arrays.asList("a", "b"));
+
+        try (Stream<String> documentos = Cursores.stream(cursor)) {
+            Assert.assertEquals("a", documentos.findFirst().get());
+        }
+
+        Assert.assertEquals(1, cursor.fechamentos);
+    }
+
+    @Test
+    public void relatoCursorCompartilhaOFechamentoComOStream() {
+        Relato relato = new Relato("aula", new HashMap<String, Valor>());
+        CursorEmMemoria<Relato> cursor = new CursorEmMemoria<Relato>(Arrays.asList(relato, relato));
+        RelatoCursor relatos = new RelatoCursor(cursor);
+
+        Assert.assertSame(relato, relatos.next());
+        Assert.assertEquals(1, relatos.stream().count());
+        Assert.assertFalse(relatos.hasNext());
+
+        relatos.close();
+
+        Assert.assertEquals(1, cursor.fechamentos);
+    }
+}
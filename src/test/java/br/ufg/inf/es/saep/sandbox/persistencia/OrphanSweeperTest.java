@@ -0,0 +1,74 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+public class OrphanSweeperTest {
+    private ParecerRepositoryManager prm = null;
+    private OrphanSweeper sweeper = null;
+    private MongoDatabase db = null;
+
+    @Before
+    public void setUp() {
+        prm = new ParecerRepositoryManager(MongoDBUtil.getProvider(), LayoutNotas.NORMALIZADO);
+        prm.limparBancoDeDados();
+        sweeper = new OrphanSweeper(MongoDBUtil.getProvider());
+        sweeper.setIdadeMinima(0);
+        db = MongoDBUtil.getProvider().getDatabase();
+    }
+
+    @Test
+    public void verificaRemocaoDeNotaNaoReferenciada() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(5);
+
+        prm.persisteParecer(parecer);
+
+        /* Nota gravada por uma inclusão interrompida antes do $push */
+        db.getCollection(Constants.DB_COLLECTION_NOTAS).insertOne(
+                new Document("_id", new ObjectId(new Date(0))).append("id_parecer", parecer.getId()));
+
+        Assert.assertEquals("Nota não referenciada não deveria ser visível.", 5, prm.byId(parecer.getId()).getNotas().size());
+        Assert.assertEquals(1, sweeper.varre());
+        Assert.assertEquals(5, db.getCollection(Constants.DB_COLLECTION_NOTAS).count());
+        Assert.assertEquals(5, prm.byId(parecer.getId()).getNotas().size());
+    }
+
+    @Test
+    public void verificaRemocaoDeRadocPendente() {
+        Radoc radoc = SaepTestUtil.getRadocInstance(3);
+
+        /* RADOC reservado por uma gravação interrompida antes da confirmação */
+        db.getCollection(Constants.DB_COLLECTION_RADOCS).insertOne(new Document("_id", radoc.getId())
+                .append("relatos", new ArrayList<ObjectId>())
+                .append(Constants.DB_CAMPO_PENDENTE, new Date(0)));
+        db.getCollection(Constants.DB_COLLECTION_RELATOS).insertOne(new Document("id_radoc", radoc.getId()));
+
+        Assert.assertNull("RADOC pendente não deveria ser visível.", prm.radocById(radoc.getId()));
+        Assert.assertEquals(2, sweeper.varre());
+
+        prm.persisteRadoc(radoc);
+        Assert.assertEquals(3, prm.radocById(radoc.getId()).getRelatos().size());
+    }
+
+    @Test
+    public void verificaRemocaoDeRelatoSemRadoc() {
+        Radoc radoc = SaepTestUtil.getRadocInstance(3);
+
+        prm.persisteRadoc(radoc);
+        db.getCollection(Constants.DB_COLLECTION_RELATOS).insertOne(
+                new Document("_id", new ObjectId(new Date(0))).append("id_radoc", "inexistente"));
+
+        Assert.assertEquals(1, sweeper.varre());
+        Assert.assertEquals(3, prm.radocById(radoc.getId()).getRelatos().size());
+    }
+}
@@ -0,0 +1,109 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBConfig;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBProvider;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParecerRepositoryEmbutidoTest {
+    private ParecerRepositoryManager embutido = null;
+    private ParecerRepositoryManager normalizado = null;
+
+    @Before
+    public void setUp() {
+        embutido = new ParecerRepositoryManager(MongoDBUtil.getProvider(), LayoutNotas.EMBUTIDO);
+        normalizado = new ParecerRepositoryManager(MongoDBUtil.getProvider(), LayoutNotas.NORMALIZADO);
+        embutido.limparBancoDeDados();
+    }
+
+    @Test
+    public void verificaSeParecerComNotasEmbutidasFoiInserido() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(100);
+        Parecer parecerDeRetorno;
+
+        embutido.persisteParecer(parecer);
+        parecerDeRetorno = embutido.byId(parecer.getId());
+        Assert.assertNotNull("Parecer não foi inserido ao banco de dados.", parecerDeRetorno);
+        Assert.assertEquals("Nem todas as notas foram inseridas.", 100, parecerDeRetorno.getNotas().size());
+    }
+
+    @Test
+    public void verificaSeNotaEmbutidaFoiSubstituidaERemovida() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(0);
+        Nota nota = SaepTestUtil.getNotaInstance();
+        Nota substituta = new Nota(nota.getItemOriginal(), SaepTestUtil.getPontuacaoInstance("outra"), "nova justificativa");
+
+        embutido.persisteParecer(parecer);
+        embutido.adicionaNota(parecer.getId(), nota);
+        embutido.adicionaNota(parecer.getId(), substituta);
+        Assert.assertEquals("Nota do mesmo item original deveria ser substituída.", 1, embutido.byId(parecer.getId()).getNotas().size());
+
+        embutido.removeNota(parecer.getId(), nota.getItemOriginal());
+        Assert.assertEquals("Nota não foi removida.", 0, embutido.byId(parecer.getId()).getNotas().size());
+    }
+
+    @Test(expected = ParecerNaoEncontrado.class)
+    public void verificaExcecaoAoTentarInserirNotaEmbutidaEmParecerNaoExistente() {
+        embutido.adicionaNota("lorem", SaepTestUtil.getNotaInstance());
+    }
+
+    @Test(expected = ParecerNaoEncontrado.class)
+    public void verificaExcecaoAoTentarRemoverNotaEmbutidaEmParecerNaoExistente() {
+        embutido.removeNota("lorem", SaepTestUtil.getPontuacaoInstance("ipsum"));
+    }
+
+    @Test
+    public void verificaMigracaoEntreLayouts() {
+        MigracaoLayoutNotas migracao = new MigracaoLayoutNotas(MongoDBUtil.getProvider());
+        Parecer parecer = SaepTestUtil.getParecerInstance(30);
+
+        normalizado.persisteParecer(parecer);
+
+        Assert.assertEquals(1, migracao.paraEmbutido());
+        Assert.assertEquals("Migração repetida não deveria alterar pareceres.", 0, migracao.paraEmbutido());
+        Assert.assertEquals(30, embutido.byId(parecer.getId()).getNotas().size());
+
+        Assert.assertEquals(1, migracao.paraNormalizado());
+        Assert.assertEquals(0, migracao.paraNormalizado());
+        Assert.assertEquals(30, normalizado.byId(parecer.getId()).getNotas().size());
+    }
+
+    @Test
+    public void verificaQueMigracaoDescartaNotasOrfas() {
+        MigracaoLayoutNotas migracao = new MigracaoLayoutNotas(MongoDBUtil.getProvider());
+        Parecer parecer = SaepTestUtil.getParecerInstance(3);
+
+        normalizado.persisteParecer(parecer);
+
+        /* Nota inserida por adicionaNota interrompido, sem referência no parecer */
+        MongoDBUtil.getProvider().getDatabase().getCollection(Constants.DB_COLLECTION_NOTAS)
+                .insertOne(new Document("id_parecer", parecer.getId()).append("original", new Document()));
+
+        Assert.assertEquals(1, migracao.paraEmbutido());
+        Assert.assertEquals("Nota órfã não deveria ser migrada.", 3,
+                embutido.byId(parecer.getId()).getNotas().size());
+    }
+
+    @Test
+    public void verificaQueRepositorioAssincronoRecusaLayoutEmbutido() {
+        String anterior = System.setProperty(LayoutNotas.PROPRIEDADE, LayoutNotas.EMBUTIDO.name());
+
+        try (MongoDBProvider provider = new MongoDBProvider(new MongoDBConfig())) {
+            new ParecerRepositoryAsync(provider);
+            Assert.fail("Repositório assíncrono não deveria aceitar o layout embutido.");
+        } catch (IllegalStateException e) {
+            /* esperado */
+        } finally {
+            if (anterior == null) {
+                System.clearProperty(LayoutNotas.PROPRIEDADE);
+            } else {
+                System.setProperty(LayoutNotas.PROPRIEDADE, anterior);
+            }
+        }
+    }
+}
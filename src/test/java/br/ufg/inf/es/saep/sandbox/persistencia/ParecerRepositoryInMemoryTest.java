@@ -0,0 +1,183 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ParecerRepositoryInMemoryTest {
+    private ParecerRepositoryInMemory repositorio = null;
+
+    @Before
+    public void setUp() {
+        repositorio = new ParecerRepositoryInMemory();
+    }
+
+    @Test
+    public void verificaSeParecerFoiInserido() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(10);
+
+        repositorio.persisteParecer(parecer);
+        Assert.assertEquals(10, repositorio.byId(parecer.getId()).getNotas().size());
+        Assert.assertNull(repositorio.byId("lorem"));
+    }
+
+    @Test(expected = IdentificadorExistente.class)
+    public void verificaExcecaoAoTentarInserirParecerExistente() {
+        Parecer parecer = SaepTestUtil.getParecerInstance();
+
+        repositorio.persisteParecer(parecer);
+        repositorio.persisteParecer(parecer);
+    }
+
+    @Test
+    public void verificaSeNotaDoMesmoItemFoiSubstituidaERemovida() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(0);
+        Nota nota = SaepTestUtil.getNotaInstance();
+        Nota substituta = new Nota(nota.getItemOriginal(), SaepTestUtil.getPontuacaoInstance("outra"), "nova");
+
+        repositorio.persisteParecer(parecer);
+        repositorio.adicionaNota(parecer.getId(), nota);
+        repositorio.adicionaNota(parecer.getId(), substituta);
+        Assert.assertEquals(1, repositorio.byId(parecer.getId()).getNotas().size());
+        Assert.assertEquals("nova", repositorio.byId(parecer.getId()).getNotas().get(0).getJustificativa());
+
+        repositorio.removeNota(parecer.getId(), nota.getItemOriginal());
+        Assert.assertEquals(0, repositorio.byId(parecer.getId()).getNotas().size());
+    }
+
+    @Test(expected = ParecerNaoEncontrado.class)
+    public void verificaExcecaoAoTentarInserirNotaEmParecerNaoExistente() {
+        repositorio.adicionaNota("lorem", SaepTestUtil.getNotaInstance());
+    }
+
+    @Test(expected = ParecerNaoEncontrado.class)
+    public void verificaExcecaoAoTentarAtualizarFundamentacaoDeParecerNaoExistente() {
+        repositorio.atualizaFundamentacao("lorem", "ipsum");
+    }
+
+    @Test(expected = ParecerNaoEncontrado.class)
+    public void verificaExcecaoAoTentarRemoverParecerNaoExistente() {
+        repositorio.removeParecer("lorem");
+    }
+
+    @Test
+    public void verificaSeFundamentacaoFoiAlterada() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(3);
+
+        repositorio.persisteParecer(parecer);
+        repositorio.atualizaFundamentacao(parecer.getId(), "nova fundamentação");
+        Assert.assertEquals("nova fundamentação", repositorio.byId(parecer.getId()).getFundamentacao());
+        Assert.assertEquals(3, repositorio.byId(parecer.getId()).getNotas().size());
+    }
+
+    @Test
+    public void verificaSeRadocFoiInseridoERemovido() {
+        Radoc radoc = SaepTestUtil.getRadocInstance(5);
+
+        Assert.assertEquals(radoc.getId(), repositorio.persisteRadoc(radoc));
+        Assert.assertEquals(5, repositorio.radocById(radoc.getId()).getRelatos().size());
+
+        repositorio.removeRadoc(radoc.getId());
+        Assert.assertNull(repositorio.radocById(radoc.getId()));
+    }
+
+    @Test
+    public void verificaConsultaPorVariosIdentificadores() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(3);
+        Radoc radoc = SaepTestUtil.getRadocInstance(4);
+        List<String> ids = new ArrayList<String>();
+
+        repositorio.persisteParecer(parecer);
+        repositorio.persisteRadoc(radoc);
+        ids.add("lorem");
+        ids.add(parecer.getId());
+
+        List<Parecer> pareceres = repositorio.byIds(ids);
+
+        Assert.assertNull(pareceres.get(0));
+        Assert.assertEquals(3, pareceres.get(1).getNotas().size());
+
+        ids.set(1, radoc.getId());
+        List<Radoc> radocs = repositorio.radocsByIds(ids);
+
+        Assert.assertNull(radocs.get(0));
+        Assert.assertEquals(4, radocs.get(1).getRelatos().size());
+    }
+
+    @Test
+    public void verificaCabecalhosSemNotasERelatos() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(10);
+        Radoc radoc = SaepTestUtil.getRadocInstance(5);
+
+        repositorio.persisteParecer(parecer);
+        repositorio.persisteRadoc(radoc);
+
+        Assert.assertEquals(parecer.getResolucao(), repositorio.cabecalhoParecer(parecer.getId()).getResolucao());
+        Assert.assertNull(repositorio.cabecalhoParecer(parecer.getId()).getNotas());
+        Assert.assertEquals(10, repositorio.byId(parecer.getId()).getNotas().size());
+        Assert.assertEquals(radoc.getAnoBase(), repositorio.cabecalhoRadoc(radoc.getId()).getAnoBase());
+        Assert.assertNull(repositorio.cabecalhoRadoc(radoc.getId()).getRelatos());
+        Assert.assertNull(repositorio.cabecalhoParecer("lorem"));
+        Assert.assertNull(repositorio.cabecalhoRadoc("lorem"));
+    }
+
+    @Test(expected = RadocNaoEncontrado.class)
+    public void verificaExcecaoAoTentarRemoverRadocNaoExistente() {
+        repositorio.removeRadoc("lorem");
+    }
+
+    @Test
+    public void verificaRadocReferenciadoPorParecer() {
+        Parecer parecer = SaepTestUtil.getParecerInstance();
+        String idRadoc = parecer.getRadocs().get(0);
+
+        repositorio.persisteRadoc(new Radoc(idRadoc, 2016, new ArrayList<Relato>()));
+        repositorio.persisteParecer(parecer);
+        Assert.assertEquals(1, repositorio.pareceresDoRadoc(idRadoc).size());
+
+        try {
+            repositorio.removeRadoc(idRadoc);
+            Assert.fail("Radoc referenciado não deveria ser removido.");
+        } catch (ExisteParecerReferenciandoRadoc e) {
+            /* esperado */
+        }
+
+        repositorio.removeParecer(parecer.getId());
+        repositorio.removeRadoc(idRadoc);
+        Assert.assertNull(repositorio.radocById(idRadoc));
+    }
+
+    @Test
+    public void verificaNotasAdicionadasConcorrentemente() throws InterruptedException {
+        final Parecer parecer = SaepTestUtil.getParecerInstance(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Nota> notas = new ArrayList<Nota>();
+
+        repositorio.persisteParecer(parecer);
+
+        /* Itens originais distintos, para que nenhuma nota substitua outra */
+        for (int i = 0; i < 400; i++) {
+            notas.add(new Nota(SaepTestUtil.getPontuacaoInstance("atributo" + i),
+                    SaepTestUtil.getPontuacaoInstance("novo"), "justificativa"));
+        }
+
+        for (final Nota nota : notas) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    repositorio.adicionaNota(parecer.getId(), nota);
+                }
+            });
+        }
+
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        Assert.assertEquals(400, repositorio.byId(parecer.getId()).getNotas().size());
+    }
+}
@@ -0,0 +1,153 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+public class ParecerRepositoryStoreTest {
+
+    @Rule
+    public TemporaryFolder pasta = new TemporaryFolder();
+
+    private Path arquivo = null;
+    private Repositorios repositorios = null;
+
+    @Before
+    public void setUp() throws Exception {
+        arquivo = pasta.newFile().toPath();
+        repositorios = Repositorios.arquivo(arquivo);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        repositorios.close();
+    }
+
+    @Test
+    public void verificaSeParecerPersisteAposReabrir() throws Exception {
+        Parecer parecer = SaepTestUtil.getParecerInstance(20);
+        Radoc radoc = SaepTestUtil.getRadocInstance(15);
+
+        repositorios.getPareceres().persisteParecer(parecer);
+        repositorios.getPareceres().persisteRadoc(radoc);
+        repositorios.close();
+
+        repositorios = Repositorios.arquivo(arquivo);
+        Assert.assertEquals(20, repositorios.getPareceres().byId(parecer.getId()).getNotas().size());
+        Assert.assertEquals(15, repositorios.getPareceres().radocById(radoc.getId()).getRelatos().size());
+    }
+
+    @Test
+    public void verificaSeNotaDoMesmoItemFoiSubstituidaERemovida() {
+        ParecerRepository pareceres = repositorios.getPareceres();
+        Parecer parecer = SaepTestUtil.getParecerInstance(2);
+        Nota nota = new Nota(SaepTestUtil.getPontuacaoInstance("exclusivo"), SaepTestUtil.getPontuacaoInstance("novo"), "j");
+        Nota substituta = new Nota(nota.getItemOriginal(), SaepTestUtil.getPontuacaoInstance("outra"), "nova");
+
+        pareceres.persisteParecer(parecer);
+        pareceres.adicionaNota(parecer.getId(), nota);
+        pareceres.adicionaNota(parecer.getId(), substituta);
+        Assert.assertEquals(3, pareceres.byId(parecer.getId()).getNotas().size());
+
+        pareceres.removeNota(parecer.getId(), nota.getItemOriginal());
+        Assert.assertEquals(2, pareceres.byId(parecer.getId()).getNotas().size());
+
+        pareceres.atualizaFundamentacao(parecer.getId(), "nova fundamentação");
+        Assert.assertEquals("nova fundamentação", pareceres.byId(parecer.getId()).getFundamentacao());
+    }
+
+    @Test
+    public void verificaCabecalhosSemNotasERelatos() {
+        ParecerRepositoryParcial pareceres = (ParecerRepositoryParcial) repositorios.getPareceres();
+        Parecer parecer = SaepTestUtil.getParecerInstance(10);
+        Radoc radoc = SaepTestUtil.getRadocInstance(5);
+
+        pareceres.persisteParecer(parecer);
+        pareceres.persisteRadoc(radoc);
+
+        Assert.assertEquals(parecer.getRadocs(), pareceres.cabecalhoParecer(parecer.getId()).getRadocs());
+        Assert.assertNull(pareceres.cabecalhoParecer(parecer.getId()).getNotas());
+        Assert.assertEquals(radoc.getAnoBase(), pareceres.cabecalhoRadoc(radoc.getId()).getAnoBase());
+        Assert.assertNull(pareceres.cabecalhoRadoc(radoc.getId()).getRelatos());
+    }
+
+    @Test(expected = IdentificadorExistente.class)
+    public void verificaExcecaoAoTentarInserirParecerExistente() {
+        Parecer parecer = SaepTestUtil.getParecerInstance();
+
+        repositorios.getPareceres().persisteParecer(parecer);
+        repositorios.getPareceres().persisteParecer(parecer);
+    }
+
+    @Test(expected = ParecerNaoEncontrado.class)
+    public void verificaExcecaoAoTentarInserirNotaEmParecerNaoExistente() {
+        repositorios.getPareceres().adicionaNota("lorem", SaepTestUtil.getNotaInstance());
+    }
+
+    @Test(expected = RadocNaoEncontrado.class)
+    public void verificaExcecaoAoTentarRemoverRadocNaoExistente() {
+        repositorios.getPareceres().removeRadoc("lorem");
+    }
+
+    @Test
+    public void verificaTiposPeloNome() {
+        ResolucaoRepository resolucoes = repositorios.getResolucoes();
+        Resolucao resolucao = SaepTestUtil.getResolucaoInstance();
+
+        resolucoes.persiste(resolucao);
+        resolucoes.persisteTipo(SaepTestUtil.getTipoInstance("orientação de mestrado"));
+        resolucoes.persisteTipo(SaepTestUtil.getTipoInstance("coorientação"));
+        resolucoes.persisteTipo(SaepTestUtil.getTipoInstance("artigo"));
+
+        Assert.assertNotNull(resolucoes.byId(resolucao.getId()));
+        Assert.assertEquals(2, resolucoes.tiposPeloNome("orientação").size());
+        Assert.assertEquals("coorientação", resolucoes.tiposPeloNome("orientação").get(0).getNome());
+    }
+
+    @Test
+    public void verificaRadocReferenciadoPorParecer() {
+        ParecerRepository pareceres = repositorios.getPareceres();
+        Parecer parecer = SaepTestUtil.getParecerInstance();
+        String idRadoc = parecer.getRadocs().get(0);
+
+        pareceres.persisteRadoc(new Radoc(idRadoc, 2016, new ArrayList<Relato>()));
+        pareceres.persisteParecer(parecer);
+
+        try {
+            pareceres.removeRadoc(idRadoc);
+            Assert.fail("Radoc referenciado não deveria ser removido.");
+        } catch (ExisteParecerReferenciandoRadoc e) {
+            /* esperado */
+        }
+
+        pareceres.removeParecer(parecer.getId());
+        pareceres.removeRadoc(idRadoc);
+        Assert.assertNull(pareceres.radocById(idRadoc));
+    }
+
+    @Test
+    public void verificaTipoEmpregadoPorResolucao() {
+        ResolucaoRepository resolucoes = repositorios.getResolucoes();
+        Resolucao resolucao = SaepTestUtil.getResolucaoInstance();
+        String tipo = resolucao.getRegras().get(0).getTipoRelato();
+
+        resolucoes.persiste(resolucao);
+
+        try {
+            resolucoes.removeTipo(tipo);
+            Assert.fail("Tipo empregado não deveria ser removido.");
+        } catch (ResolucaoUsaTipoException e) {
+            /* esperado */
+        }
+
+        resolucoes.remove(resolucao.getId());
+        resolucoes.removeTipo(tipo);
+    }
+}
@@ -1,10 +1,22 @@
 package br.ufg.inf.es.saep.sandbox.persistencia;
 
 import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.Constants;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
 public class ParecerRepositoryTest {
     private static ParecerRepositoryManager prm = null;
 
@@ -24,6 +36,25 @@ public class ParecerRepositoryTest {
         Assert.assertNotNull("Parecer não foi inserido ao banco de dados.", parecerDeRetorno);
     }
 
+    @Test
+    public void verificaSeParecerComMuitasNotasFoiInserido() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(200);
+        Parecer parecerDeRetorno;
+
+        prm.persisteParecer(parecer);
+        parecerDeRetorno = prm.byId(parecer.getId());
+        Assert.assertNotNull("Parecer não foi inserido ao banco de dados.", parecerDeRetorno);
+        Assert.assertEquals("Nem todas as notas foram inseridas.", 200, parecerDeRetorno.getNotas().size());
+    }
+
+    @Test(expected = IdentificadorExistente.class)
+    public void verificaExcecaoAoTentarInserirParecerExistente() {
+        Parecer parecer = SaepTestUtil.getParecerInstance();
+
+        prm.persisteParecer(parecer);
+        prm.persisteParecer(parecer);
+    }
+
     @Test
     public void verificaSeNotaFoiInserida() {
         Parecer parecer = SaepTestUtil.getParecerInstance();
@@ -35,11 +66,33 @@ public class ParecerRepositoryTest {
         Assert.assertNotNull("Parecer não foi inserido ao banco de dados.", parecerDeRetorno);
 
         numeroDeNotasAntesDaAdicao = parecerDeRetorno.getNotas().size();
-        prm.adicionaNota(parecer.getId(), SaepTestUtil.getNotaInstance());
+        prm.adicionaNota(parecer.getId(), getNotaDeItemInedito());
         parecerDeRetorno = prm.byId(parecer.getId());
         Assert.assertEquals("Valor esperado era [" + (numeroDeNotasAntesDaAdicao + 1) + "[ mas o valor obtido foi [" + parecerDeRetorno.getNotas().size() + "].", numeroDeNotasAntesDaAdicao + 1, parecerDeRetorno.getNotas().size());
     }
 
+    @Test
+    public void verificaSeNotaDoMesmoItemFoiSubstituida() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(0);
+        Nota primeira = getNotaDeItemInedito();
+        Nota segunda = getNotaDeItemInedito();
+        Nota substituta = new Nota(primeira.getItemOriginal(), SaepTestUtil.getPontuacaoInstance("outra"), "nova justificativa");
+        List<Nota> notas;
+
+        prm.persisteParecer(parecer);
+        prm.adicionaNota(parecer.getId(), primeira);
+        prm.adicionaNota(parecer.getId(), segunda);
+        prm.adicionaNota(parecer.getId(), substituta);
+
+        notas = prm.byId(parecer.getId()).getNotas();
+        Assert.assertEquals("Nota do mesmo item original deveria ser substituída.", 2, notas.size());
+        Assert.assertEquals("A substituta deveria ocupar a posição da nota substituída.",
+                "nova justificativa", notas.get(0).getJustificativa());
+        Assert.assertEquals("Nota substituída deveria ser removida da coleção de notas.", 2L,
+                MongoDBUtil.getProvider().getDatabase().getCollection(Constants.DB_COLLECTION_NOTAS)
+                        .count(new Document("id_parecer", parecer.getId())));
+    }
+
     @Test(expected = ParecerNaoEncontrado.class)
     public void verificaExcecaoAoTentarInserirNotaEmParecerNaoExistente() {
         prm.adicionaNota("lorem", SaepTestUtil.getNotaInstance());
@@ -60,7 +113,7 @@ public class ParecerRepositoryTest {
         Assert.assertNotNull("Parecer não foi inserido ao banco de dados.", parecerDeRetorno);
 
         numeroDeNotasAntesDaAdicao = parecerDeRetorno.getNotas().size();
-        nota = SaepTestUtil.getNotaInstance();
+        nota = getNotaDeItemInedito();
         original = nota.getItemOriginal();
         prm.adicionaNota(parecer.getId(), nota);
         parecerDeRetorno = prm.byId(parecer.getId());
@@ -116,6 +169,88 @@ public class ParecerRepositoryTest {
         Assert.assertNotNull("Radoc não foi inserido ao banco de dados.", radocDeRetorno);
     }
 
+    @Test(expected = IdentificadorExistente.class)
+    public void verificaExcecaoAoTentarInserirRadocExistente() {
+        Radoc radoc = SaepTestUtil.getRadocInstance();
+
+        prm.persisteRadoc(radoc);
+        prm.persisteRadoc(radoc);
+    }
+
+    @Test(expected = IdentificadorExistente.class)
+    public void verificaExcecaoAoTentarInserirRadocComGravacaoEmAndamento() {
+        Radoc radoc = SaepTestUtil.getRadocInstance();
+
+        MongoDBUtil.getProvider().getDatabase().getCollection(Constants.DB_COLLECTION_RADOCS).insertOne(
+                new Document("_id", radoc.getId()).append(Constants.DB_CAMPO_PENDENTE, new Date()));
+
+        prm.persisteRadoc(radoc);
+    }
+
+    @Test
+    public void verificaSeRadocPendenteAbandonadoFoiSubstituido() {
+        Radoc radoc = SaepTestUtil.getRadocInstance(3);
+        MongoDatabase db = MongoDBUtil.getProvider().getDatabase();
+
+        /* RADOC reservado por uma gravação interrompida, sem aguardar o varredor */
+        db.getCollection(Constants.DB_COLLECTION_RADOCS).insertOne(new Document("_id", radoc.getId())
+                .append("relatos", new ArrayList<ObjectId>())
+                .append(Constants.DB_CAMPO_PENDENTE, new Date(0)));
+        db.getCollection(Constants.DB_COLLECTION_RELATOS).insertOne(new Document("id_radoc", radoc.getId()));
+
+        prm.persisteRadoc(radoc);
+
+        Assert.assertEquals(3, prm.radocById(radoc.getId()).getRelatos().size());
+        Assert.assertEquals(3, db.getCollection(Constants.DB_COLLECTION_RELATOS).count(
+                new Document("id_radoc", radoc.getId())));
+    }
+
+    @Test
+    public void verificaSeRadocComMuitosRelatosFoiInseridoEmLotes() {
+        Radoc radoc = SaepTestUtil.getRadocInstance(1500);
+        Radoc radocDeRetorno;
+
+        prm.setTamanhoLote(400);
+        prm.persisteRadoc(radoc);
+        prm.setTamanhoLote(1000);
+        radocDeRetorno = prm.radocById(radoc.getId());
+        Assert.assertNotNull("Radoc não foi inserido ao banco de dados.", radocDeRetorno);
+        Assert.assertEquals("Nem todos os relatos foram inseridos.", 1500, radocDeRetorno.getRelatos().size());
+    }
+
+    @Test
+    public void verificaSeRelatosSaoPercorridosPeloCursor() {
+        Radoc radoc = SaepTestUtil.getRadocInstance(250);
+        RelatoCursor cursor;
+        int quantidade = 0;
+
+        prm.persisteRadoc(radoc);
+        cursor = prm.relatos(radoc.getId(), 100);
+
+        try {
+            while (cursor.hasNext()) {
+                Assert.assertNotNull(cursor.next().getTipo());
+                quantidade++;
+            }
+        } finally {
+            cursor.close();
+        }
+
+        Assert.assertEquals("Nem todos os relatos foram percorridos.", 250, quantidade);
+
+        Stream<Relato> relatos = prm.streamRelatos(radoc.getId(), 100);
+        try {
+            Assert.assertEquals(250, relatos.count());
+        } finally {
+            relatos.close();
+        }
+    }
+
+    @Test(expected = RadocNaoEncontrado.class)
+    public void verificaExcecaoAoTentarPercorrerRelatosDeRadocInexistente() {
+        prm.relatos("lorem", 100);
+    }
+
     @Test
     public void verificaSeRadocFoiRemovido() {
         Radoc radoc = SaepTestUtil.getRadocInstance();
@@ -130,11 +265,87 @@ public class ParecerRepositoryTest {
         Assert.assertNull("Radoc não foi removido do banco de dados.", radocDeRetorno);
     }
 
+    @Test
+    public void verificaSeConsultaDeNotasPorParecerUsaIndice() {
+        Assert.assertTrue("Consulta por id_parecer não utiliza índice.",
+                SaepTestUtil.consultaUsaIndice("notas", new Document("id_parecer", "lorem")));
+    }
+
+    @Test
+    public void verificaSeConsultaDeRelatosPorRadocUsaIndice() {
+        Assert.assertTrue("Consulta por id_radoc não utiliza índice.",
+                SaepTestUtil.consultaUsaIndice("relatos", new Document("id_radoc", "lorem")));
+    }
+
     @Test(expected = RadocNaoEncontrado.class)
     public void verificaExcecaoAoTentarRemoverRadocInexistente() {
         prm.removeRadoc("lorem");
     }
 
+    @Test
+    public void verificaResumoDoRadoc() {
+        Radoc radoc = SaepTestUtil.getRadocInstance(5);
+        String tipo = radoc.getRelatos().get(0).getTipo();
+        ResumoRelatos resumo;
+
+        prm.persisteRadoc(radoc);
+        resumo = prm.resumo(radoc.getId());
+
+        Assert.assertNotNull("Resumo do RADOC não foi gravado.", resumo);
+        Assert.assertEquals(5, resumo.getTipos().size());
+        Assert.assertEquals(1, resumo.getQuantidade(tipo));
+        Assert.assertEquals(ResumoRelatos.de(radoc.getId(), radoc.getRelatos()).getSoma(tipo, "valor1"),
+                resumo.getSoma(tipo, "valor1"), 0.0001);
+
+        prm.removeRadoc(radoc.getId());
+        Assert.assertNull(prm.resumo(radoc.getId()));
+    }
+
+    @Test
+    public void verificaConsultaPorVariosIdentificadores() {
+        Parecer primeiro = SaepTestUtil.getParecerInstance(3);
+        Parecer segundo = SaepTestUtil.getParecerInstance(5);
+        Radoc radoc = SaepTestUtil.getRadocInstance(4);
+        Radoc outro = SaepTestUtil.getRadocInstance(2);
+        List<Parecer> pareceres;
+        List<Radoc> radocs;
+
+        prm.persisteParecer(primeiro);
+        prm.persisteParecer(segundo);
+        prm.persisteRadoc(radoc);
+        prm.persisteRadoc(outro);
+
+        pareceres = prm.byIds(Arrays.asList(segundo.getId(), "lorem", primeiro.getId()));
+        Assert.assertEquals(5, pareceres.get(0).getNotas().size());
+        Assert.assertNull(pareceres.get(1));
+        Assert.assertEquals(3, pareceres.get(2).getNotas().size());
+
+        radocs = prm.radocsByIds(Arrays.asList(outro.getId(), radoc.getId(), "lorem"));
+        Assert.assertEquals(2, radocs.get(0).getRelatos().size());
+        Assert.assertEquals(4, radocs.get(1).getRelatos().size());
+        Assert.assertNull(radocs.get(2));
+    }
+
+    @Test
+    public void verificaCabecalhosSemNotasERelatos() {
+        Parecer parecer = SaepTestUtil.getParecerInstance(10);
+        Radoc radoc = SaepTestUtil.getRadocInstance(5);
+        Parecer cabecalho;
+
+        prm.persisteParecer(parecer);
+        prm.persisteRadoc(radoc);
+        cabecalho = prm.cabecalhoParecer(parecer.getId());
+
+        Assert.assertEquals(parecer.getResolucao(), cabecalho.getResolucao());
+        Assert.assertEquals(parecer.getRadocs(), cabecalho.getRadocs());
+        Assert.assertEquals(parecer.getFundamentacao(), cabecalho.getFundamentacao());
+        Assert.assertNull(cabecalho.getNotas());
+        Assert.assertEquals(radoc.getAnoBase(), prm.cabecalhoRadoc(radoc.getId()).getAnoBase());
+        Assert.assertNull(prm.cabecalhoRadoc(radoc.getId()).getRelatos());
+        Assert.assertNull(prm.cabecalhoParecer("lorem"));
+        Assert.assertNull(prm.cabecalhoRadoc("lorem"));
+    }
+
     @Test(expected = CampoExigidoNaoFornecido.class)
     public void verificaInsercaoDeNotaSemIdDoParecer() {
         prm.adicionaNota(null, SaepTestUtil.getNotaInstance());
@@ -195,5 +406,22 @@ public class ParecerRepositoryTest {
         prm.removeRadoc(null);
     }
 
+    @Test(expected = ExisteParecerReferenciandoRadoc.class)
+    public void verificaExcecaoAoTentarRemoverRadocReferenciado() {
+        Parecer parecer = SaepTestUtil.getParecerInstance();
+        Radoc radoc = new Radoc(parecer.getRadocs().get(0), 2016, SaepTestUtil.getRadocInstance(1).getRelatos());
+
+        prm.persisteRadoc(radoc);
+        prm.persisteParecer(parecer);
+        prm.removeRadoc(radoc.getId());
+    }
 
+    /**
+     * Nota cujo item original não coincide com o de nenhuma outra nota,
+     * de modo que a sua inclusão não substitui nota existente.
+     */
+    private static Nota getNotaDeItemInedito() {
+        return new Nota(SaepTestUtil.getPontuacaoInstance(UUID.randomUUID().toString()),
+                SaepTestUtil.getPontuacaoInstance("Atividade 2"), UUID.randomUUID().toString());
+    }
 }
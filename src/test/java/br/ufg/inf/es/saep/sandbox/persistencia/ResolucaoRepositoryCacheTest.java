@@ -0,0 +1,202 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ResolucaoRepositoryCacheTest {
+    private ContadorDeConsultas repositorio = null;
+    private ResolucaoRepositoryCache cache = null;
+
+    /**
+     * Repositório em memória que contabiliza as consultas recebidas.
+     */
+    private static class ContadorDeConsultas implements ResolucaoRepository {
+        private final Map<String, Resolucao> resolucoes = new HashMap<String, Resolucao>();
+        private final Map<String, Tipo> tipos = new HashMap<String, Tipo>();
+        private int consultas = 0;
+
+        /**
+         * Executado após cada consulta, simulando operação concorrente.
+         */
+        private Runnable aposConsulta = null;
+
+        public Resolucao byId(String id) {
+            consultas++;
+            Resolucao resolucao = resolucoes.get(id);
+            concorrente();
+            return resolucao;
+        }
+
+        private void concorrente() {
+            Runnable operacao = aposConsulta;
+
+            aposConsulta = null;
+            if (operacao != null) {
+                operacao.run();
+            }
+        }
+
+        public String persiste(Resolucao resolucao) {
+            resolucoes.put(resolucao.getId(), resolucao);
+            return resolucao.getId();
+        }
+
+        public boolean remove(String identificador) {
+            return resolucoes.remove(identificador) != null;
+        }
+
+        public List<String> resolucoes() {
+            return new ArrayList<String>(resolucoes.keySet());
+        }
+
+        public void persisteTipo(Tipo tipo) {
+            tipos.put(tipo.getId(), tipo);
+        }
+
+        public void removeTipo(String codigo) {
+            tipos.remove(codigo);
+        }
+
+        public Tipo tipoPeloCodigo(String codigo) {
+            consultas++;
+            Tipo tipo = tipos.get(codigo);
+            concorrente();
+            return tipo;
+        }
+
+        public List<Tipo> tiposPeloNome(String nome) {
+            return new ArrayList<Tipo>(tipos.values());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        repositorio = new ContadorDeConsultas();
+        cache = new ResolucaoRepositoryCache(repositorio, 6, 6);
+    }
+
+    @Test
+    public void verificaSeResolucaoEConsultadaUmaUnicaVez() {
+        Resolucao resolucao = SaepTestUtil.getResolucaoInstance();
+
+        cache.persiste(resolucao);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNotNull(cache.byId(resolucao.getId()));
+        }
+
+        Assert.assertEquals("O repositório deveria ser consultado apenas uma vez.", 1, repositorio.consultas);
+        Assert.assertEquals(9, cache.getEstatisticasResolucoes().getAcertos());
+        Assert.assertEquals(1, cache.getEstatisticasResolucoes().getFalhas());
+    }
+
+    @Test
+    public void verificaSeRemocaoInvalidaResolucao() {
+        Resolucao resolucao = SaepTestUtil.getResolucaoInstance();
+
+        cache.persiste(resolucao);
+        cache.byId(resolucao.getId());
+        cache.remove(resolucao.getId());
+
+        Assert.assertNull("Resolução removida não deveria ser retornada.", cache.byId(resolucao.getId()));
+    }
+
+    @Test
+    public void verificaSeRemocaoInvalidaTipo() {
+        Tipo tipo = SaepTestUtil.getTipoInstance();
+
+        cache.persisteTipo(tipo);
+        Assert.assertNotNull(cache.tipoPeloCodigo(tipo.getId()));
+        cache.removeTipo(tipo.getId());
+
+        Assert.assertNull("Tipo removido não deveria ser retornado.", cache.tipoPeloCodigo(tipo.getId()));
+    }
+
+    @Test
+    public void verificaQueConsultaAnteriorARemocaoNaoArmazenaResolucao() {
+        final Resolucao resolucao = SaepTestUtil.getResolucaoInstance();
+
+        cache.persiste(resolucao);
+        repositorio.aposConsulta = new Runnable() {
+            public void run() {
+                cache.remove(resolucao.getId());
+            }
+        };
+
+        /* A consulta leu a resolução antes da remoção concorrente */
+        Assert.assertNotNull(cache.byId(resolucao.getId()));
+        Assert.assertNull("Resolução removida não deveria ser armazenada.", cache.byId(resolucao.getId()));
+    }
+
+    @Test
+    public void verificaQueConsultaAnteriorARemocaoNaoArmazenaTipo() {
+        final Tipo tipo = SaepTestUtil.getTipoInstance();
+
+        cache.persisteTipo(tipo);
+        repositorio.aposConsulta = new Runnable() {
+            public void run() {
+                cache.removeTipo(tipo.getId());
+            }
+        };
+
+        Assert.assertNotNull(cache.tipoPeloCodigo(tipo.getId()));
+        Assert.assertNull("Tipo removido não deveria ser armazenado.", cache.tipoPeloCodigo(tipo.getId()));
+    }
+
+    @Test
+    public void verificaSeTiposEmLoteConsultamApenasAusentes() {
+        Tipo primeiro = SaepTestUtil.getTipoInstance();
+        Tipo segundo = SaepTestUtil.getTipoInstance();
+
+        cache.persisteTipo(primeiro);
+        cache.persisteTipo(segundo);
+        cache.tipoPeloCodigo(primeiro.getId());
+
+        List<String> codigos = new ArrayList<String>();
+        codigos.add(segundo.getId());
+        codigos.add(primeiro.getId());
+        codigos.add("lorem");
+        codigos.add(segundo.getId());
+
+        List<Tipo> tipos = cache.tiposPelosCodigos(codigos);
+
+        Assert.assertEquals(4, tipos.size());
+        Assert.assertEquals(segundo.getId(), tipos.get(0).getId());
+        Assert.assertEquals(primeiro.getId(), tipos.get(1).getId());
+        Assert.assertNull(tipos.get(2));
+        Assert.assertEquals(segundo.getId(), tipos.get(3).getId());
+        Assert.assertEquals("Apenas os tipos ausentes do cache deveriam ser consultados.", 3, repositorio.consultas);
+    }
+
+    @Test
+    public void verificaDescartePorPeso() {
+        /* Cada resolução possui 3 regras; o peso máximo de 6 comporta apenas duas */
+        Resolucao primeira = SaepTestUtil.getResolucaoInstance();
+        Resolucao segunda = SaepTestUtil.getResolucaoInstance();
+        Resolucao terceira = SaepTestUtil.getResolucaoInstance();
+
+        cache.persiste(primeira);
+        cache.persiste(segunda);
+        cache.persiste(terceira);
+        cache.byId(primeira.getId());
+        cache.byId(segunda.getId());
+        cache.byId(terceira.getId());
+
+        Assert.assertEquals(1, cache.getEstatisticasResolucoes().getDescartes());
+        Assert.assertEquals(2, cache.getEstatisticasResolucoes().getEntradas());
+
+        cache.byId(primeira.getId());
+        Assert.assertEquals("A resolução descartada deveria ser consultada novamente.", 4, repositorio.consultas);
+    }
+
+    @Test(expected = CampoExigidoNaoFornecido.class)
+    public void verificaRecuperaResolucaoSemId() {
+        cache.byId(null);
+    }
+}
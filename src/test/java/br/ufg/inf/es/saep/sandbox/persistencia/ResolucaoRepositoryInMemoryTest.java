@@ -0,0 +1,148 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ResolucaoRepositoryInMemoryTest {
+    private ResolucaoRepositoryInMemory repositorio = null;
+
+    @Before
+    public void setUp() {
+        repositorio = new ResolucaoRepositoryInMemory();
+    }
+
+    @Test
+    public void verificaSeResolucaoFoiInseridaERemovida() {
+        Resolucao resolucao = SaepTestUtil.getResolucaoInstance();
+
+        Assert.assertEquals(resolucao.getId(), repositorio.persiste(resolucao));
+        Assert.assertNotNull(repositorio.byId(resolucao.getId()));
+        Assert.assertTrue(repositorio.resolucoes().contains(resolucao.getId()));
+        Assert.assertTrue(repositorio.remove(resolucao.getId()));
+        Assert.assertFalse(repositorio.remove(resolucao.getId()));
+        Assert.assertNull(repositorio.byId(resolucao.getId()));
+    }
+
+    @Test(expected = IdentificadorExistente.class)
+    public void verificaExcecaoAoTentarInserirTipoExistente() {
+        Tipo tipo = SaepTestUtil.getTipoInstance();
+
+        repositorio.persisteTipo(tipo);
+        repositorio.persisteTipo(tipo);
+    }
+
+    @Test
+    public void verificaTiposPelosCodigos() {
+        Tipo tipo = SaepTestUtil.getTipoInstance();
+        List<String> codigos = new ArrayList<String>();
+
+        repositorio.persisteTipo(tipo);
+        codigos.add("lorem");
+        codigos.add(tipo.getId());
+
+        List<Tipo> tipos = repositorio.tiposPelosCodigos(codigos);
+
+        Assert.assertNull(tipos.get(0));
+        Assert.assertEquals(tipo.getId(), tipos.get(1).getId());
+    }
+
+    @Test
+    public void verificaTiposPeloNomeEPeloPrefixo() {
+        repositorio.persisteTipo(SaepTestUtil.getTipoInstance("orientação de mestrado"));
+        repositorio.persisteTipo(SaepTestUtil.getTipoInstance("orientação de doutorado"));
+        repositorio.persisteTipo(SaepTestUtil.getTipoInstance("coorientação"));
+        repositorio.persisteTipo(SaepTestUtil.getTipoInstance("artigo"));
+
+        List<Tipo> tipos = repositorio.tiposPeloNome("orientação");
+
+        Assert.assertEquals(3, tipos.size());
+        Assert.assertEquals("coorientação", tipos.get(0).getNome());
+        Assert.assertEquals(1, repositorio.tiposPeloNome("orientação", 1, 1).size());
+        Assert.assertEquals("orientação de doutorado", repositorio.tiposPeloNome("orientação", 1, 1).get(0).getNome());
+        Assert.assertEquals(2, repositorio.tiposPeloPrefixo("orientação", 0, 0).size());
+    }
+
+    @Test
+    public void verificaTipoEmpregadoPorResolucao() {
+        Tipo tipo = SaepTestUtil.getTipoInstance();
+        List<Regra> regras = new ArrayList<Regra>();
+
+        regras.add(new Regra("v", Regra.PONTOS, "d", 10, 0, "e", "", "", tipo.getId(), 1, new ArrayList<String>()));
+        Resolucao resolucao = new Resolucao("r", "nome", "descricao", new Date(), regras);
+
+        repositorio.persisteTipo(tipo);
+        repositorio.persiste(resolucao);
+
+        try {
+            repositorio.removeTipo(tipo.getId());
+            Assert.fail("Tipo empregado não deveria ser removido.");
+        } catch (ResolucaoUsaTipoException e) {
+            /* esperado */
+        }
+
+        repositorio.remove(resolucao.getId());
+        repositorio.removeTipo(tipo.getId());
+        Assert.assertNull(repositorio.tipoPeloCodigo(tipo.getId()));
+    }
+
+    @Test
+    public void verificaPaginasDeResolucoesEStream() {
+        for (int i = 0; i < 5; i++) {
+            repositorio.persiste(SaepTestUtil.getResolucaoInstance());
+        }
+
+        List<String> esperados = repositorio.resolucoes();
+        List<String> percorridos = new ArrayList<String>();
+        List<String> pagina = repositorio.resolucoes(null, 2);
+
+        Collections.sort(esperados);
+
+        while (!pagina.isEmpty()) {
+            Assert.assertTrue(pagina.size() <= 2);
+            percorridos.addAll(pagina);
+            pagina = repositorio.resolucoes(pagina.get(pagina.size() - 1), 2);
+        }
+
+        Assert.assertEquals(esperados, percorridos);
+
+        try (Stream<String> stream = repositorio.streamResolucoes(2)) {
+            Assert.assertEquals(esperados, stream.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void verificaPaginasDeTiposEStreamPeloNome() {
+        repositorio.persisteTipo(SaepTestUtil.getTipoInstance("orientação de mestrado"));
+        repositorio.persisteTipo(SaepTestUtil.getTipoInstance("coorientação"));
+        repositorio.persisteTipo(SaepTestUtil.getTipoInstance("artigo"));
+
+        List<Tipo> primeira = repositorio.tipos(null, 2);
+        List<Tipo> segunda = repositorio.tipos(primeira.get(1).getId(), 2);
+
+        Assert.assertEquals(2, primeira.size());
+        Assert.assertEquals(1, segunda.size());
+        Assert.assertTrue(primeira.get(1).getId().compareTo(segunda.get(0).getId()) < 0);
+        Assert.assertEquals(3, repositorio.streamTipos(1).count());
+
+        try (Stream<Tipo> stream = repositorio.streamTiposPeloNome("orientação", 10)) {
+            List<String> nomes = stream.map(Tipo::getNome).collect(Collectors.toList());
+
+            Assert.assertEquals(2, nomes.size());
+            Assert.assertEquals("coorientação", nomes.get(0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verificaExcecaoParaPaginaVazia() {
+        repositorio.resolucoes(null, 0);
+    }
+}
@@ -2,12 +2,19 @@ package br.ufg.inf.es.saep.sandbox.persistencia;
 
 import br.ufg.inf.es.saep.sandbox.dominio.CampoExigidoNaoFornecido;
 import br.ufg.inf.es.saep.sandbox.dominio.Resolucao;
+import br.ufg.inf.es.saep.sandbox.dominio.ResolucaoUsaTipoException;
 import br.ufg.inf.es.saep.sandbox.dominio.Tipo;
+import org.bson.Document;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Created by Alexandre Lara on 17/07/2016.
@@ -21,6 +28,22 @@ public class ResolucaoRepositoryTest {
         rrm.limparBancoDeDados();
     }
 
+    @Test
+    public void verificaTiposPelosCodigos() {
+        Tipo primeiro = SaepTestUtil.getTipoInstance();
+        Tipo segundo = SaepTestUtil.getTipoInstance();
+        List<Tipo> tipos;
+
+        rrm.persisteTipo(primeiro);
+        rrm.persisteTipo(segundo);
+        tipos = rrm.tiposPelosCodigos(Arrays.asList(segundo.getId(), "lorem", primeiro.getId()));
+
+        Assert.assertEquals(3, tipos.size());
+        Assert.assertEquals(segundo.getId(), tipos.get(0).getId());
+        Assert.assertNull(tipos.get(1));
+        Assert.assertEquals(primeiro.getId(), tipos.get(2).getId());
+    }
+
     @Test
     public void verificaSeResolucaoFoiInserida() {
         Resolucao resolucao = SaepTestUtil.getResolucaoInstance();
@@ -46,6 +69,64 @@ public class ResolucaoRepositoryTest {
         Assert.assertNull("Parecer não foi removido do banco de dados", resolucaoDeRetorno);
     }
 
+    @Test
+    public void verificaPaginasDeResolucoesEStream() {
+        rrm.limparBancoDeDados();
+
+        for (int i = 0; i < 5; i++) {
+            rrm.persiste(SaepTestUtil.getResolucaoInstance());
+        }
+
+        List<String> esperados = rrm.resolucoes();
+        List<String> percorridos = new ArrayList<String>();
+        List<String> pagina = rrm.resolucoes(null, 2);
+
+        Collections.sort(esperados);
+
+        while (!pagina.isEmpty()) {
+            Assert.assertTrue(pagina.size() <= 2);
+            percorridos.addAll(pagina);
+            pagina = rrm.resolucoes(pagina.get(pagina.size() - 1), 2);
+        }
+
+        Assert.assertEquals(esperados, percorridos);
+
+        try (Stream<String> stream = rrm.streamResolucoes(2)) {
+            Assert.assertEquals(esperados, stream.collect(Collectors.toList()));
+        }
+
+        /* Stream não percorrido até o fim: o cursor é fechado pelo stream */
+        try (Stream<String> stream = rrm.streamResolucoes(1)) {
+            Assert.assertEquals(esperados.get(0), stream.findFirst().get());
+        }
+    }
+
+    @Test
+    public void verificaPaginasDeTiposEStreamPeloNome() {
+        rrm.limparBancoDeDados();
+
+        rrm.persisteTipo(SaepTestUtil.getTipoInstance("apple"));
+        rrm.persisteTipo(SaepTestUtil.getTipoInstance("pineapple"));
+        rrm.persisteTipo(SaepTestUtil.getTipoInstance("banana"));
+
+        List<Tipo> primeira = rrm.tipos(null, 2);
+        List<Tipo> segunda = rrm.tipos(primeira.get(1).getId(), 2);
+
+        Assert.assertEquals(2, primeira.size());
+        Assert.assertEquals(1, segunda.size());
+        Assert.assertNotNull(segunda.get(0).getNome());
+
+        try (Stream<Tipo> stream = rrm.streamTipos(1)) {
+            Assert.assertEquals(3, stream.count());
+        }
+
+        try (Stream<Tipo> stream = rrm.streamTiposPeloNome("apple", 1)) {
+            List<String> nomes = stream.map(Tipo::getNome).collect(Collectors.toList());
+
+            Assert.assertEquals(Arrays.asList("apple", "pineapple"), nomes);
+        }
+    }
+
     @Test
     public void verificaSeTipoFoiInserido() {
         Tipo tipo = SaepTestUtil.getTipoInstance();
@@ -69,6 +150,44 @@ public class ResolucaoRepositoryTest {
         Assert.assertTrue("Tipo não foi inserido ao banco de dados.", (tipos.size() == 3));
     }
 
+    @Test
+    public void verificaSeTiposSaoFiltradosPeloNome() {
+        rrm.limparBancoDeDados();
+
+        rrm.persisteTipo(SaepTestUtil.getTipoInstance("apple"));
+        rrm.persisteTipo(SaepTestUtil.getTipoInstance("pineapple"));
+        rrm.persisteTipo(SaepTestUtil.getTipoInstance("banana"));
+
+        List<Tipo> tipos = rrm.tiposPeloNome("apple");
+        Assert.assertEquals("Filtro por nome retornou tipos não similares.", 2, tipos.size());
+        Assert.assertNotNull("Tipo recuperado sem identificador.", tipos.get(0).getId());
+
+        tipos = rrm.tiposPeloNome("apple", 1, 1);
+        Assert.assertEquals(1, tipos.size());
+        Assert.assertEquals("pineapple", tipos.get(0).getNome());
+
+        tipos = rrm.tiposPeloPrefixo("ban", 0, 10);
+        Assert.assertEquals(1, tipos.size());
+        Assert.assertEquals("banana", tipos.get(0).getNome());
+    }
+
+    @Test
+    public void verificaSeConsultaDeTiposPorNomeUsaIndice() {
+        String plano = SaepTestUtil.planoDaConsulta("tipos", ResolucaoRepositoryManager.filtroPorNome("apple"));
+
+        /* A expressão não ancorada percorre todo o índice, sem ler os documentos que não a satisfazem */
+        Assert.assertTrue("Consulta por nome não utiliza índice.", plano.contains("IXSCAN"));
+        Assert.assertTrue("Consulta por nome deveria percorrer todo o índice.", plano.contains("[\\\"\\\", {})"));
+    }
+
+    @Test
+    public void verificaSeConsultaDeTiposPorPrefixoDelimitaOIndice() {
+        String plano = SaepTestUtil.planoDaConsulta("tipos", ResolucaoRepositoryManager.filtroPorPrefixo("apple"));
+
+        Assert.assertTrue("Consulta por prefixo não utiliza índice.", plano.contains("IXSCAN"));
+        Assert.assertTrue("Consulta por prefixo deveria delimitar o índice.", plano.contains("[\\\"apple\\\", \\\"applf\\\")"));
+    }
+
     @Test
     public void verificaSeTipoFoiRemovido() {
         Tipo tipo = SaepTestUtil.getTipoInstance();
@@ -118,5 +237,11 @@ public class ResolucaoRepositoryTest {
         rrm.tiposPeloNome(null);
     }
 
+    @Test(expected = ResolucaoUsaTipoException.class)
+    public void verificaExcecaoAoTentarRemoverTipoEmpregado() {
+        Resolucao resolucao = SaepTestUtil.getResolucaoInstance();
 
+        rrm.persiste(resolucao);
+        rrm.removeTipo(resolucao.getRegras().get(0).getTipoRelato());
+    }
 }
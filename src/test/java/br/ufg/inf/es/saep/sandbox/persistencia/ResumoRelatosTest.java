@@ -0,0 +1,95 @@
+package br.ufg.inf.es.saep.sandbox.persistencia;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ResumoRelatosTest {
+
+    @Rule
+    public TemporaryFolder pasta = new TemporaryFolder();
+
+    private static Relato relato(String tipo, Valor cargaHoraria) {
+        Map<String, Valor> valores = new HashMap<String, Valor>();
+
+        valores.put("ch", cargaHoraria);
+        valores.put("titulo", new Valor("Cálculo I"));
+        return new Relato(tipo, valores);
+    }
+
+    private static Radoc radoc() {
+        List<Relato> relatos = new ArrayList<Relato>();
+
+        relatos.add(relato("aula", new Valor(60f)));
+        relatos.add(relato("aula", new Valor("30")));
+        relatos.add(relato("aula", new Valor(true)));
+        relatos.add(relato("orientacao", new Valor("sem carga")));
+        return new Radoc("radoc", 2016, relatos);
+    }
+
+    private static void verificaResumo(ResumoRelatos resumo) {
+        ResumoRelatos.Estatistica ch = resumo.getEstatistica("aula", "ch");
+
+        Assert.assertEquals(3, resumo.getQuantidade("aula"));
+        Assert.assertEquals(1, resumo.getQuantidade("orientacao"));
+        Assert.assertEquals(0, resumo.getQuantidade("inexistente"));
+        Assert.assertEquals(3, ch.getQuantidade());
+        Assert.assertEquals(91, ch.getSoma(), 0.0001);
+        Assert.assertEquals(1, ch.getMinimo(), 0.0001);
+        Assert.assertEquals(60, ch.getMaximo(), 0.0001);
+
+        /* Textos não numéricos não são agregados */
+        Assert.assertNull(resumo.getEstatistica("aula", "titulo"));
+        Assert.assertNull(resumo.getEstatistica("orientacao", "ch"));
+        Assert.assertEquals(0, resumo.getSoma("orientacao", "ch"), 0);
+    }
+
+    @Test
+    public void agregaValoresNumericosPorTipo() {
+        verificaResumo(ResumoRelatos.de("radoc", radoc().getRelatos()));
+    }
+
+    @Test
+    public void conversaoEmDocumentosPreservaOResumo() {
+        ResumoRelatos resumo = ResumoRelatos.de("radoc", radoc().getRelatos());
+
+        verificaResumo(ResumoRelatos.fromDocuments("radoc", resumo.toDocuments()));
+    }
+
+    @Test
+    public void resumoMantidoPeloRepositorioEmMemoria() {
+        ParecerRepositoryInMemory repositorio = new ParecerRepositoryInMemory();
+
+        Assert.assertNull(repositorio.resumo("radoc"));
+
+        repositorio.persisteRadoc(radoc());
+        verificaResumo(repositorio.resumo("radoc"));
+
+        repositorio.removeRadoc("radoc");
+        Assert.assertNull(repositorio.resumo("radoc"));
+    }
+
+    @Test
+    public void resumoMantidoPeloRepositorioEmArquivo() throws Exception {
+        Repositorios repositorios = Repositorios.arquivo(pasta.newFile().toPath());
+
+        try {
+            ParecerRepositoryResumido repositorio = (ParecerRepositoryResumido) repositorios.getPareceres();
+
+            repositorio.persisteRadoc(radoc());
+            verificaResumo(repositorio.resumo("radoc"));
+
+            repositorio.removeRadoc("radoc");
+            Assert.assertNull(repositorio.resumo("radoc"));
+        } finally {
+            repositorios.close();
+        }
+    }
+}
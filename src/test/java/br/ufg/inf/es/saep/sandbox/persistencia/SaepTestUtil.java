@@ -1,6 +1,11 @@
 package br.ufg.inf.es.saep.sandbox.persistencia;
 
 import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.util.MongoDBUtil;
+import com.mongodb.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.conversions.Bson;
 
 import java.util.*;
 
@@ -30,6 +35,18 @@ public class SaepTestUtil {
         return new Parecer(id, resolucao, radocs, pontuacoes, fundamentacao, notas);
     }
 
+    public static Parecer getParecerInstance( int numeroDeNotas ){
+        Parecer modelo = getParecerInstance();
+        List<Nota> notas = new ArrayList<Nota>();
+
+        for(int i = 0; i < numeroDeNotas; i++){
+            notas.add(getNotaInstance());
+        }
+
+        return new Parecer(modelo.getId(), modelo.getResolucao(), modelo.getRadocs(),
+                modelo.getPontuacoes(), modelo.getFundamentacao(), notas);
+    }
+
     public static Pontuacao getPontuacaoInstance( String atributo ){
         Random r = new Random();
         return new Pontuacao(atributo, new Valor(r.nextInt(100)));
@@ -52,6 +69,16 @@ public class SaepTestUtil {
         return radoc;
     }
 
+    public static Radoc getRadocInstance( int numeroDeRelatos ){
+        List<Relato> relatos = new ArrayList<Relato>();
+
+        for(int i = 0; i < numeroDeRelatos; i++){
+            relatos.add(getRelatoInstance());
+        }
+
+        return new Radoc(UUID.randomUUID().toString(), 2014, relatos);
+    }
+
     public static Relato getRelatoInstance(){
         Map<String, Valor> valores = new HashMap<String, Valor>();
         valores.put("valor1", getValorInstance());
@@ -119,5 +146,25 @@ public class SaepTestUtil {
         return new Atributo(UUID.randomUUID().toString(), "descreva aqui", Atributo.REAL);
     }
 
+    /**
+     * Verifica, pelo plano escolhido pelo otimizador, se a consulta
+     * fornecida sobre a coleção é resolvida por um índice.
+     */
+    public static boolean consultaUsaIndice( String colecao, Bson filtro ){
+        return planoDaConsulta(colecao, filtro).contains("IXSCAN");
+    }
 
+    /**
+     * Plano escolhido pelo otimizador para a consulta fornecida
+     * sobre a coleção, em JSON.
+     */
+    public static String planoDaConsulta( String colecao, Bson filtro ){
+        MongoDatabase db = MongoDBUtil.getProvider().getDatabase();
+        Document comando = new Document("explain", new Document("find", colecao)
+                .append("filter", filtro.toBsonDocument(Document.class, MongoClient.getDefaultCodecRegistry())))
+                .append("verbosity", "queryPlanner");
+        Document plano = (Document) db.runCommand(comando).get("queryPlanner");
+
+        return ((Document) plano.get("winningPlan")).toJson();
+    }
 }
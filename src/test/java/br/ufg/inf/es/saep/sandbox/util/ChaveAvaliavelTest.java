@@ -0,0 +1,34 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import org.bson.Document;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ChaveAvaliavelTest {
+
+    @Test
+    public void verificaSeOrdemDosCamposNaoAlteraChave() {
+        Document primeiro = new Document("tipo", "livro")
+                .append("valores", new Document("paginas", new Document("real", 10.0)).append("titulo", new Document("string", "a")));
+        Document segundo = new Document("valores", new Document("titulo", new Document("string", "a")).append("paginas", new Document("real", 10.0)))
+                .append("tipo", "livro");
+
+        Assert.assertEquals(ChaveAvaliavel.de(primeiro), ChaveAvaliavel.de(segundo));
+    }
+
+    @Test
+    public void verificaSeRepresentacaoNumericaNaoAlteraChave() {
+        Document inteiro = new Document("atributo", "soma").append("valor", new Document("real", 5));
+        Document real = new Document("atributo", "soma").append("valor", new Document("real", 5.0));
+
+        Assert.assertEquals(ChaveAvaliavel.de(inteiro), ChaveAvaliavel.de(real));
+    }
+
+    @Test
+    public void verificaSeValoresDistintosGeramChavesDistintas() {
+        Document primeiro = new Document("atributo", "soma").append("valor", new Document("real", 5.0));
+        Document segundo = new Document("atributo", "soma").append("valor", new Document("real", 6.0));
+
+        Assert.assertNotEquals(ChaveAvaliavel.de(primeiro), ChaveAvaliavel.de(segundo));
+    }
+}
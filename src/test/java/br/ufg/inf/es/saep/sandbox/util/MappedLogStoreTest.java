@@ -0,0 +1,158 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+public class MappedLogStoreTest {
+
+    @Rule
+    public TemporaryFolder pasta = new TemporaryFolder();
+
+    private static byte[] bytes(String valor) {
+        return valor.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String texto(byte[] valor) {
+        return valor == null ? null : new String(valor, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void verificaGravacaoLeituraERemocao() throws Exception {
+        MappedLogStore log = new MappedLogStore(pasta.newFile().toPath());
+
+        log.grava("c", "a", bytes("1"));
+        log.grava("c", "a", bytes("2"));
+        Assert.assertEquals("2", texto(log.le("c", "a")));
+        Assert.assertFalse(log.insere("c", "a", bytes("3")));
+        Assert.assertTrue(log.insere("c", "b", bytes("3")));
+        Assert.assertEquals(2, log.chaves("c").size());
+        Assert.assertTrue(log.remove("c", "a"));
+        Assert.assertFalse(log.remove("c", "a"));
+        Assert.assertNull(log.le("c", "a"));
+        Assert.assertNull(log.le("outra", "a"));
+        log.close();
+    }
+
+    @Test
+    public void verificaIndiceReconstruidoAoReabrir() throws Exception {
+        Path arquivo = pasta.newFile().toPath();
+        MappedLogStore log = new MappedLogStore(arquivo);
+
+        log.grava("c", "a", bytes("1"));
+        log.grava("c", "b", bytes("2"));
+        log.remove("c", "a");
+        log.close();
+
+        log = new MappedLogStore(arquivo);
+        Assert.assertNull(log.le("c", "a"));
+        Assert.assertEquals("2", texto(log.le("c", "b")));
+        log.grava("c", "c", bytes("3"));
+        Assert.assertEquals("3", texto(log.le("c", "c")));
+        log.close();
+    }
+
+    @Test
+    public void verificaDescarteDeRegistroIncompleto() throws Exception {
+        Path arquivo = pasta.newFile().toPath();
+        MappedLogStore log = new MappedLogStore(arquivo);
+        long fimDoPrimeiro;
+
+        log.grava("c", "a", bytes("primeiro"));
+        fimDoPrimeiro = log.getTamanho();
+        log.grava("c", "b", bytes("segundo"));
+        log.close();
+
+        /* Corrompe o último byte do segundo registro */
+        RandomAccessFile acesso = new RandomAccessFile(arquivo.toFile(), "rw");
+        acesso.seek(fimDoPrimeiro + 8 + 1 + 2 + 1 + 2 + 1 + 6);
+        acesso.write('X');
+        acesso.close();
+
+        log = new MappedLogStore(arquivo);
+        Assert.assertEquals("primeiro", texto(log.le("c", "a")));
+        Assert.assertNull(log.le("c", "b"));
+        Assert.assertEquals(fimDoPrimeiro, log.getTamanho());
+        log.close();
+    }
+
+    @Test
+    public void verificaDescarteDeTamanhoCorrompido() throws Exception {
+        Path arquivo = pasta.newFile().toPath();
+        MappedLogStore log = new MappedLogStore(arquivo);
+        long fim;
+
+        log.grava("c", "a", bytes("primeiro"));
+        fim = log.getTamanho();
+        log.close();
+
+        /* Tamanho próximo de Integer.MAX_VALUE, que excederia o int na verificação */
+        RandomAccessFile acesso = new RandomAccessFile(arquivo.toFile(), "rw");
+        acesso.seek(fim);
+        acesso.writeInt(Integer.MAX_VALUE - 4);
+        acesso.writeInt(1);
+        acesso.close();
+
+        log = new MappedLogStore(arquivo);
+        Assert.assertEquals("primeiro", texto(log.le("c", "a")));
+        Assert.assertEquals(fim, log.getTamanho());
+        log.close();
+    }
+
+    @Test
+    public void verificaDescarteDeRegistroSemTamanho() throws Exception {
+        Path arquivo = pasta.newFile().toPath();
+        MappedLogStore log = new MappedLogStore(arquivo);
+        long fimDoPrimeiro;
+
+        log.grava("c", "a", bytes("primeiro"));
+        fimDoPrimeiro = log.getTamanho();
+        log.grava("c", "b", bytes("segundo registro, mais longo"));
+        log.close();
+
+        /* Gravação interrompida antes do tamanho, gravado por último: restam o CRC e o conteúdo */
+        RandomAccessFile acesso = new RandomAccessFile(arquivo.toFile(), "rw");
+        acesso.seek(fimDoPrimeiro);
+        acesso.writeInt(0);
+        acesso.close();
+
+        log = new MappedLogStore(arquivo);
+        Assert.assertNull(log.le("c", "b"));
+        log.grava("c", "b", bytes("x"));
+        log.close();
+
+        /* Nenhum byte do registro descartado permanece após o registro menor */
+        acesso = new RandomAccessFile(arquivo.toFile(), "r");
+        acesso.seek(fimDoPrimeiro + 8 + 1 + 2 + 1 + 2 + 1 + 1);
+        for (int i = 0; i < 64; i++) {
+            Assert.assertEquals(0, acesso.read());
+        }
+        acesso.close();
+    }
+
+    @Test
+    public void verificaCrescimentoECompactacao() throws Exception {
+        Path arquivo = pasta.newFile().toPath();
+        MappedLogStore log = new MappedLogStore(arquivo);
+        byte[] valor = new byte[10000];
+
+        /* Cerca de 5 MB, além da capacidade inicial do mapeamento */
+        for (int i = 0; i < 500; i++) {
+            log.grava("c", "chave" + (i % 10), valor);
+        }
+
+        Assert.assertTrue(log.compacta() > 0);
+        Assert.assertEquals(10, log.chaves("c").size());
+        Assert.assertEquals(10000, log.le("c", "chave3").length);
+        log.close();
+
+        log = new MappedLogStore(arquivo);
+        Assert.assertEquals(10, log.chaves("c").size());
+        log.close();
+    }
+}
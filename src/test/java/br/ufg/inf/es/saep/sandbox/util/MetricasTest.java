@@ -0,0 +1,142 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+public class MetricasTest {
+
+    private static void simulaFind(int documentos) {
+        BsonArray lote = new BsonArray();
+
+        for (int i = 0; i < documentos; i++) {
+            lote.add(new BsonDocument("_id", new BsonInt32(i)));
+        }
+
+        BsonDocument resposta = new BsonDocument("cursor", new BsonDocument("firstBatch", lote));
+        ConnectionDescription conexao = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+        Metricas.ouvinte().commandSucceeded(new CommandSucceededEvent(1, conexao, "find", resposta,
+                TimeUnit.MILLISECONDS.toNanos(2)));
+    }
+
+    @Test
+    public void verificaPercentisDoHistograma() {
+        Histograma histograma = new Histograma();
+
+        for (int i = 1; i <= 1000; i++) {
+            histograma.registra(i);
+        }
+
+        Assert.assertEquals(1000, histograma.getQuantidade());
+        Assert.assertEquals(1000, histograma.getMaximo());
+        Assert.assertEquals(500.5, histograma.getMedia(), 1e-9);
+        Assert.assertEquals(500, histograma.percentil(50), 500 * 0.125);
+        Assert.assertEquals(990, histograma.percentil(99), 990 * 0.125);
+        Assert.assertEquals(1000, histograma.percentil(100));
+
+        histograma.reinicia();
+
+        Assert.assertEquals(0, histograma.getQuantidade());
+        Assert.assertEquals(0, histograma.percentil(99));
+    }
+
+    @Test
+    public void verificaQueFaixasCobremTodosOsValores() {
+        long[] valores = {0, 7, 8, 15, 16, 1000, 1L << 40, Long.MAX_VALUE};
+
+        for (long valor : valores) {
+            int indice = Histograma.indice(valor);
+
+            Assert.assertTrue(valor <= Histograma.limiteSuperior(indice));
+            Assert.assertTrue(indice == 0 || valor > Histograma.limiteSuperior(indice - 1));
+        }
+    }
+
+    @Test
+    public void verificaIdasAoBancoESerializacaoPorChamada() throws Exception {
+        final DocumentConverter conversor = new DocumentConverter(SaepCodecs.gson());
+
+        Callable<String> operacao = Metricas.instrumenta(new Callable<String>() {
+            public String call() {
+                conversor.toDocument(Collections.singletonMap("chave", "valor"));
+                simulaFind(3);
+                simulaFind(2);
+
+                return "ok";
+            }
+        }, "MetricasTest.contagem");
+
+        Assert.assertEquals("ok", operacao.call());
+
+        Metricas.Operacao metricas = Metricas.operacao("MetricasTest.contagem", "call");
+
+        Assert.assertEquals(1, metricas.getChamadas());
+        Assert.assertEquals(0, metricas.getFalhas());
+        Assert.assertEquals(2, metricas.getIdasAoBanco());
+        Assert.assertEquals(2, metricas.getIdasAoBancoPorChamadaMaximo());
+        Assert.assertEquals(5, metricas.getDocumentosLidos());
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(4), metricas.getBanco().getSoma());
+        Assert.assertTrue(metricas.getSerializacao().getSoma() > 0);
+        Assert.assertTrue(metricas.getLatencia().getSoma() >= metricas.getSerializacao().getSoma());
+    }
+
+    @Test
+    public void verificaQueMedicaoInternaCompoeAExterna() {
+        Metricas.Medicao externa = Metricas.inicia("MetricasTest.aninhada", "externa");
+        Metricas.Medicao interna = Metricas.inicia("MetricasTest.aninhada", "interna");
+
+        simulaFind(1);
+        interna.close();
+        simulaFind(1);
+        externa.close();
+
+        /* Fora de uma medição o comando é ignorado */
+        simulaFind(1);
+
+        Assert.assertNull(Metricas.atual());
+        Assert.assertEquals(1, Metricas.operacao("MetricasTest.aninhada", "interna").getIdasAoBanco());
+        Assert.assertEquals(2, Metricas.operacao("MetricasTest.aninhada", "externa").getIdasAoBanco());
+    }
+
+    @Test
+    public void verificaQueFalhaEContadaEPropagada() throws Exception {
+        Callable<String> operacao = Metricas.instrumenta(new Callable<String>() {
+            public String call() {
+                throw new IllegalStateException("falha");
+            }
+        }, "MetricasTest.falha");
+
+        try {
+            operacao.call();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("falha", e.getMessage());
+        }
+
+        Assert.assertEquals(1, Metricas.operacao("MetricasTest.falha", "call").getFalhas());
+        Assert.assertNull(Metricas.atual());
+    }
+
+    @Test
+    public void verificaPublicacaoPorJmx() throws Exception {
+        Metricas.inicia("MetricasTest.jmx", "byId").close();
+
+        ObjectName nome = new ObjectName(Metricas.DOMINIO_JMX + ":type=Operacao,componente=MetricasTest.jmx,nome=byId");
+
+        Assert.assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(nome, "Chamadas"));
+    }
+}
@@ -0,0 +1,85 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionPoolEvent;
+import com.mongodb.event.ConnectionPoolOpenedEvent;
+import com.mongodb.management.JMXConnectionPoolListener;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+public class MongoDBProviderTest {
+
+    /**
+     * Pool cuja leitura dos atributos sempre falha.
+     */
+    public interface PoolDefeituosoMBean {
+        String getHost();
+    }
+
+    public static class PoolDefeituoso implements PoolDefeituosoMBean {
+        public String getHost() {
+            throw new IllegalStateException("pool fechado");
+        }
+    }
+
+    private final JMXConnectionPoolListener pools = new JMXConnectionPoolListener();
+    private MongoDBProvider provider;
+    private MongoDBProvider outro;
+    private ServerId proprio;
+    private ServerId alheio;
+    private ObjectName defeituoso;
+
+    @Before
+    public void setUp() throws Exception {
+        ConnectionPoolSettings settings = ConnectionPoolSettings.builder().minSize(1).maxSize(5).build();
+
+        provider = new MongoDBProvider(new MongoDBConfig());
+        outro = new MongoDBProvider(new MongoDBConfig());
+
+        proprio = new ServerId(new ClusterId(provider.getDescricao()), new ServerAddress("proprio", 27017));
+        alheio = new ServerId(new ClusterId(outro.getDescricao()), new ServerAddress("alheio", 27017));
+
+        /* O pool defeituoso é registrado com a mesma descrição, antes do pool válido */
+        defeituoso = new ObjectName("org.mongodb.driver:type=ConnectionPool,clusterId=0,host=defeituoso,port=1,"
+                + "description=" + provider.getDescricao());
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new PoolDefeituoso(), defeituoso);
+        pools.connectionPoolOpened(new ConnectionPoolOpenedEvent(proprio, settings));
+        pools.connectionPoolOpened(new ConnectionPoolOpenedEvent(alheio, settings));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pools.connectionPoolClosed(new ConnectionPoolEvent(proprio));
+        pools.connectionPoolClosed(new ConnectionPoolEvent(alheio));
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(defeituoso);
+        provider.close();
+        outro.close();
+    }
+
+    @Test
+    public void descricaoDistingueProvedores() {
+        Assert.assertNotEquals(provider.getDescricao(), outro.getDescricao());
+    }
+
+    @Test
+    public void metricasIncluemApenasOsPoolsDoProvedor() {
+        List<PoolMetrics> metricas = provider.getPoolMetrics();
+
+        Assert.assertEquals(1, metricas.size());
+        Assert.assertEquals("proprio", metricas.get(0).getHost());
+        Assert.assertEquals(27017, metricas.get(0).getPorta());
+        Assert.assertEquals(5, metricas.get(0).getTamanhoMaximo());
+
+        Assert.assertEquals("alheio", outro.getPoolMetrics().get(0).getHost());
+    }
+}
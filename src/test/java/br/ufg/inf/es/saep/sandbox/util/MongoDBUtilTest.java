@@ -0,0 +1,46 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MongoDBUtilTest {
+
+    @After
+    public void tearDown() {
+        MongoDBUtil.fechar();
+    }
+
+    @Test
+    public void provedorNaoEntregueEhSubstituido() {
+        MongoDBConfig config = new MongoDBConfig();
+
+        MongoDBUtil.fechar();
+        MongoDBUtil.configura(new MongoDBConfig());
+        MongoDBUtil.configura(config);
+
+        Assert.assertSame(config, MongoDBUtil.getProvider().getConfig());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void provedorEntregueNaoEhReconfigurado() {
+        MongoDBUtil.fechar();
+        MongoDBUtil.configura(new MongoDBConfig());
+        MongoDBUtil.getProvider();
+
+        MongoDBUtil.configura(new MongoDBConfig());
+    }
+
+    @Test
+    public void provedorFechadoPodeSerReconfigurado() {
+        MongoDBProvider anterior;
+
+        MongoDBUtil.fechar();
+        anterior = MongoDBUtil.getProvider();
+        MongoDBUtil.fechar();
+        MongoDBUtil.configura(new MongoDBConfig());
+
+        Assert.assertTrue(anterior.isFechado());
+        Assert.assertNotSame(anterior, MongoDBUtil.getProvider());
+    }
+}
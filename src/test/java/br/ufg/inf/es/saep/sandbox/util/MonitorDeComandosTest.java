@@ -0,0 +1,115 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class MonitorDeComandosTest {
+
+    private static final ConnectionDescription conexao =
+            new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    private static int requisicao = 0;
+
+    private static void executa(MonitorDeComandos monitor, String nome, BsonDocument comando,
+                                BsonDocument resposta, long milissegundos) {
+        executa(monitor, Constants.DB_NAME, nome, comando, resposta, milissegundos);
+    }
+
+    private static void executa(MonitorDeComandos monitor, String baseDeDados, String nome, BsonDocument comando,
+                                BsonDocument resposta, long milissegundos) {
+        int id = ++requisicao;
+
+        monitor.commandStarted(new CommandStartedEvent(id, conexao, baseDeDados, nome, comando));
+        monitor.commandSucceeded(new CommandSucceededEvent(id, conexao, nome, resposta,
+                TimeUnit.MILLISECONDS.toNanos(milissegundos)));
+    }
+
+    private static BsonDocument find(String colecao, BsonDocument filtro) {
+        return new BsonDocument("find", new BsonString(colecao)).append("filter", filtro);
+    }
+
+    private static BsonDocument lote(int documentos) {
+        BsonArray lote = new BsonArray();
+
+        for (int i = 0; i < documentos; i++) {
+            lote.add(new BsonDocument("_id", new BsonInt32(i)));
+        }
+
+        return new BsonDocument("cursor", new BsonDocument("firstBatch", lote));
+    }
+
+    @Test
+    public void verificaRegistroDeComandoLento() {
+        MonitorDeComandos monitor = new MonitorDeComandos(Constants.DB_NAME, 100, 0);
+        BsonDocument filtro = new BsonDocument("id_parecer", new BsonString("p"));
+
+        executa(monitor, "find", find(Constants.DB_COLLECTION_NOTAS, filtro), lote(3), 150);
+        executa(monitor, "find", find(Constants.DB_COLLECTION_NOTAS, filtro), lote(1), 5);
+
+        Assert.assertEquals(1, monitor.getLentos().size());
+        Assert.assertTrue(monitor.getAmostras().isEmpty());
+
+        MonitorDeComandos.Comando lento = monitor.getLentos().get(0);
+
+        Assert.assertEquals("find", lento.getNome());
+        Assert.assertEquals(Constants.DB_COLLECTION_NOTAS, lento.getColecao());
+        Assert.assertEquals(3, lento.getDocumentos());
+        Assert.assertEquals(filtro, lento.getForma().get("filter"));
+        Assert.assertEquals(2, monitor.getDuracoes().get("notas.find").getQuantidade());
+    }
+
+    @Test
+    public void verificaAmostragem() {
+        MonitorDeComandos monitor = new MonitorDeComandos(Constants.DB_NAME, 1000, 2);
+
+        for (int i = 0; i < 6; i++) {
+            executa(monitor, "find", find(Constants.DB_COLLECTION_RADOCS, new BsonDocument()), lote(1), 1);
+        }
+
+        Assert.assertEquals(3, monitor.getAmostras().size());
+        Assert.assertTrue(monitor.getLentos().isEmpty());
+    }
+
+    @Test
+    public void verificaQueColecoesExternasSaoIgnoradas() {
+        MonitorDeComandos monitor = new MonitorDeComandos(Constants.DB_NAME, 0, 1);
+
+        executa(monitor, "find", find("outra", new BsonDocument()), lote(1), 500);
+        executa(monitor, "find", find(Constants.DB_COLLECTION_RESUMOS, new BsonDocument()), lote(1), 500);
+        executa(monitor, "outra", "find", find(Constants.DB_COLLECTION_NOTAS, new BsonDocument()), lote(1), 500);
+        executa(monitor, "isMaster", new BsonDocument("isMaster", new BsonInt32(1)), new BsonDocument(), 500);
+
+        Assert.assertTrue(monitor.getLentos().isEmpty());
+        Assert.assertTrue(monitor.getDuracoes().isEmpty());
+    }
+
+    @Test
+    public void verificaQueFormaNaoIncluiDocumentosGravados() {
+        BsonDocument insert = new BsonDocument("insert", new BsonString(Constants.DB_COLLECTION_RELATOS))
+                .append("documents", new BsonArray());
+        BsonDocument update = new BsonDocument("update", new BsonString(Constants.DB_COLLECTION_PARECERES))
+                .append("updates", new BsonArray());
+        update.getArray("updates").add(new BsonDocument("q", new BsonDocument("_id", new BsonString("p")))
+                .append("u", new BsonDocument("$set", new BsonDocument("x", new BsonInt32(1)))));
+
+        Assert.assertTrue(MonitorDeComandos.forma(insert).isEmpty());
+        Assert.assertEquals(new BsonDocument("q", new BsonDocument("_id", new BsonString("p"))),
+                MonitorDeComandos.forma(update));
+        Assert.assertEquals(Constants.DB_COLLECTION_PARECERES, MonitorDeComandos.colecao("update", update));
+        Assert.assertEquals(Constants.DB_COLLECTION_RELATOS, MonitorDeComandos.colecao("getMore",
+                new BsonDocument("getMore", new BsonInt32(1)).append("collection",
+                        new BsonString(Constants.DB_COLLECTION_RELATOS))));
+    }
+}
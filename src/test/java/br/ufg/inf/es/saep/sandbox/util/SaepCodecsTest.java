@@ -0,0 +1,88 @@
+package br.ufg.inf.es.saep.sandbox.util;
+
+import br.ufg.inf.es.saep.sandbox.dominio.*;
+import br.ufg.inf.es.saep.sandbox.persistencia.SaepTestUtil;
+import com.google.gson.Gson;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SaepCodecsTest {
+    private static Gson gson = null;
+    private static CodecRegistry registry = null;
+
+    @BeforeClass
+    public static void setUpClass() {
+        gson = SaepCodecs.gson();
+        registry = SaepCodecs.registry(gson);
+    }
+
+    private static <T> BsonDocument encode(Class<T> classe, T valor) {
+        BsonDocument documento = new BsonDocument();
+        Codec<T> codec = registry.get(classe);
+
+        codec.encode(new BsonDocumentWriter(documento), valor, EncoderContext.builder().build());
+
+        return documento;
+    }
+
+    private static <T> T decode(Class<T> classe, BsonDocument documento) {
+        return registry.get(classe).decode(new BsonDocumentReader(documento), DecoderContext.builder().build());
+    }
+
+    @Test
+    public void verificaSeIdDoTipoEArmazenadoComoIdDoDocumento() {
+        Tipo tipo = SaepTestUtil.getTipoInstance("apple");
+        BsonDocument documento = encode(Tipo.class, tipo);
+
+        Assert.assertEquals("O primeiro campo deveria ser _id.", "_id", documento.keySet().iterator().next());
+        Assert.assertEquals(tipo.getId(), documento.getString("_id").getValue());
+        Assert.assertFalse("O campo id não deveria ser persistido.", documento.containsKey("id"));
+
+        Tipo tipoDeRetorno = decode(Tipo.class, documento);
+        Assert.assertEquals(tipo.getId(), tipoDeRetorno.getId());
+        Assert.assertEquals(tipo.getNome(), tipoDeRetorno.getNome());
+        Assert.assertEquals(tipo.getAtributos().size(), tipoDeRetorno.getAtributos().size());
+    }
+
+    @Test
+    public void verificaSeResolucaoSobreviveAoCodec() {
+        Resolucao resolucao = SaepTestUtil.getResolucaoInstance();
+        Resolucao resolucaoDeRetorno = decode(Resolucao.class, encode(Resolucao.class, resolucao));
+
+        Assert.assertEquals(resolucao.getId(), resolucaoDeRetorno.getId());
+        Assert.assertEquals(resolucao.getRegras().size(), resolucaoDeRetorno.getRegras().size());
+        Assert.assertEquals(resolucao.getRegras().get(0).getVariavel(), resolucaoDeRetorno.getRegras().get(0).getVariavel());
+    }
+
+    @Test
+    public void verificaSeNotaPreservaAvaliavelPolimorfico() {
+        Relato relato = SaepTestUtil.getRelatoInstance();
+        Nota nota = new Nota(relato, SaepTestUtil.getPontuacaoInstance("soma"), "justificativa");
+        Nota notaDeRetorno = decode(Nota.class, encode(Nota.class, nota));
+
+        Assert.assertTrue(notaDeRetorno.getItemOriginal() instanceof Relato);
+        Assert.assertTrue(notaDeRetorno.getItemNovo() instanceof Pontuacao);
+        Assert.assertEquals(relato.getTipo(), ((Relato) notaDeRetorno.getItemOriginal()).getTipo());
+    }
+
+    @Test
+    public void verificaSeConversorGeraDocumentoIgualAoDoParse() {
+        DocumentConverter conversor = new DocumentConverter(gson);
+        Radoc radoc = SaepTestUtil.getRadocInstance();
+
+        Assert.assertEquals(Document.parse(gson.toJson(radoc)), conversor.toDocument(radoc));
+
+        Radoc radocDeRetorno = conversor.fromDocument(conversor.toDocument(radoc), Radoc.class);
+        Assert.assertEquals(radoc.getId(), radocDeRetorno.getId());
+        Assert.assertEquals(radoc.getRelatos().size(), radocDeRetorno.getRelatos().size());
+    }
+}